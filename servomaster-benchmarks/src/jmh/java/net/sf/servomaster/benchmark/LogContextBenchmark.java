@@ -0,0 +1,106 @@
+package net.sf.servomaster.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.impl.LogContext;
+
+/**
+ * Per-command cost of the hot path instrumentation, at {@code INFO} level.
+ *
+ * <p>
+ *
+ * Compares the way {@code setActualPosition()} used to be instrumented (concatenated context marker,
+ * concatenated debug message) with the {@link LogContext} and level guard. The time is only half of it,
+ * look at {@code gc.alloc.rate.norm} for the bytes allocated per command.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogContextBenchmark {
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    /**
+     * Servo ID. Not a constant, or javac would fold the concatenated marker into a literal, and the old path
+     * wouldn't pay for building it.
+     */
+    @Param("3")
+    public int id;
+
+    private LogContext context;
+
+    private org.apache.logging.log4j.Level originalLevel;
+    private int count = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        originalLevel = logger.getLevel();
+        Configurator.setLevel(logger.getName(), org.apache.logging.log4j.Level.INFO);
+
+        context = new LogContext(logger, "setActualPosition id=" + id);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Configurator.setLevel(logger.getName(), originalLevel);
+    }
+
+    @Benchmark
+    public void concatenated() {
+
+        var pulse = nextPulse();
+
+        ThreadContext.push("setActualPosition id=" + id);
+
+        try {
+            logger.debug("channel=" + id + ", pulse=" + pulse);
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    @Benchmark
+    public void guarded() {
+
+        var pulse = nextPulse();
+        var entered = context.enter();
+
+        try {
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("channel={}, pulse={}", id, pulse);
+            }
+
+        } finally {
+            context.exit(entered);
+        }
+    }
+
+    private int nextPulse() {
+        return 1000 + (count++ & 0x3FF);
+    }
+}
@@ -0,0 +1,75 @@
+package net.sf.servomaster.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.model.Meta;
+import net.sf.servomaster.device.model.ServoController;
+
+/**
+ * {@link AbstractMeta} lookups. The drivers and the transition controllers do these on the command path,
+ * and the lookups are synchronized - hence the contended variant.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetaBenchmark {
+
+    private ServoController controller;
+    private Meta controllerMeta;
+    private Meta servoMeta;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        controller = SetPositionBenchmark.open("meta");
+        controllerMeta = controller.getMeta();
+        servoMeta = controller.getServo("0").getMeta();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        controller.close();
+    }
+
+    @Benchmark
+    public Object getProperty() {
+        return servoMeta.getProperty("servo/precision");
+    }
+
+    @Benchmark
+    public Object getPropertyPrefixed() {
+        return controllerMeta.getProperty(AbstractMeta.META_PREFIX + "controller/bandwidth");
+    }
+
+    @Benchmark
+    public boolean getFeature() {
+        return servoMeta.getFeature("servo/silent");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object getPropertyContended() {
+        return servoMeta.getProperty("servo/precision");
+    }
+}
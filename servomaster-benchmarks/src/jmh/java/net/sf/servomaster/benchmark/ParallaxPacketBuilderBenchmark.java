@@ -0,0 +1,79 @@
+package net.sf.servomaster.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.impl.serial.parallax.PacketBuilder;
+import net.sf.servomaster.device.impl.serial.parallax.PacketBuilderNG;
+
+/**
+ * Parallax packet encoders, both the allocating {@link PacketBuilder} and the buffer reusing {@link PacketBuilderNG}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallaxPacketBuilderBenchmark {
+
+    private final byte[] buffer = new byte[8];
+    private final byte[] response = {(byte) 3, (byte) 0x02, (byte) 0xEE};
+
+    private short position = 250;
+
+    /**
+     * @return Next position within the valid 250...1250 range, so the encoder doesn't see the same value twice in a row.
+     */
+    private short nextPosition() {
+
+        position = (short) (position == 1250 ? 250 : position + 1);
+        return position;
+    }
+
+    @Benchmark
+    public byte[] setParameters() {
+        return PacketBuilder.setParameters(38400);
+    }
+
+    @Benchmark
+    public byte[] setAbsolutePosition() {
+        return PacketBuilder.setAbsolutePosition((byte) 3, (byte) 7, nextPosition());
+    }
+
+    @Benchmark
+    public byte[] setParametersNG() {
+        return PacketBuilderNG.setParameters(buffer, 38400);
+    }
+
+    @Benchmark
+    public byte[] setAbsolutePositionNG() {
+        return PacketBuilderNG.setAbsolutePosition(buffer, (byte) 3, (byte) 7, nextPosition());
+    }
+
+    @Benchmark
+    public byte[] reportPositionNG() {
+        return PacketBuilderNG.reportPosition(buffer, (byte) 3);
+    }
+
+    @Benchmark
+    public byte[] getVersionNG() {
+        return PacketBuilderNG.getVersion(buffer);
+    }
+
+    @Benchmark
+    public int decodeNG() {
+        return PacketBuilderNG.decodeChannel(response) + PacketBuilderNG.decodePosition(response);
+    }
+}
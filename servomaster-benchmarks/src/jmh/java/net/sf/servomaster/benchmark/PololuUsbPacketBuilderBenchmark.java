@@ -0,0 +1,57 @@
+package net.sf.servomaster.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.impl.usb.pololu.PacketBuilder;
+
+/**
+ * Pololu USB packet encoders.
+ *
+ * <p>
+ *
+ * The USB packet builder is a copy of the serial one, see {@link PololuSerialPacketBuilderBenchmark}. It is measured
+ * separately because nothing keeps the two copies from drifting apart.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PololuUsbPacketBuilderBenchmark {
+
+    private short position = 500;
+    private boolean enabled = false;
+
+    @Benchmark
+    public byte[] setParameters() {
+
+        enabled = !enabled;
+        return PacketBuilder.setParameters((byte) 3, enabled);
+    }
+
+    @Benchmark
+    public byte[] setSpeed() {
+        return PacketBuilder.setSpeed((byte) 3, (byte) 0x7F);
+    }
+
+    @Benchmark
+    public byte[] setAbsolutePosition() {
+
+        // Stay within the valid 500...5500 range, and don't send the same value twice in a row
+        position = (short) (position == 5500 ? 500 : position + 1);
+        return PacketBuilder.setAbsolutePosition((byte) 3, position);
+    }
+}
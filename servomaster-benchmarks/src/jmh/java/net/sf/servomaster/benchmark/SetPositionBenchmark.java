@@ -0,0 +1,118 @@
+package net.sf.servomaster.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.impl.debug.NullServoController;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.SilentDevice;
+import net.sf.servomaster.device.model.TransitionStatus;
+
+/**
+ * {@link net.sf.servomaster.device.impl.AbstractServo#setPosition(double)} against {@link NullServoController}
+ * with the simulated bandwidth limit off - what's left is the library's own overhead: the controller monitor,
+ * the metrics, the silencer, and the listener notifications.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetPositionBenchmark {
+
+    /**
+     * Number of listeners attached to the servo.
+     */
+    @Param({"0", "1", "4"})
+    public int listeners;
+
+    private ServoController controller;
+    private Servo servo;
+
+    private double position = 0.25;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        controller = open("setPosition");
+        servo = controller.getServo("0");
+
+        for (var count = 0; count < listeners; count++) {
+            servo.addListener(new NullListener());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        controller.close();
+    }
+
+    @Benchmark
+    public Future<TransitionStatus> setPosition() {
+
+        // Alternate, so that every call is an actual change
+        position = 1 - position;
+
+        return servo.setPosition(position);
+    }
+
+    /**
+     * Create a controller that doesn't simulate the hardware delay.
+     *
+     * @param port Port name, to tell the benchmarks apart in JMX.
+     *
+     * @return Open controller.
+     */
+    static ServoController open(String port) throws IOException {
+
+        var controller = new NullServoController(port);
+
+        controller.open();
+        controller.getMeta().setProperty("controller/bandwidth", "0");
+
+        return controller;
+    }
+
+    private static class NullListener implements ServoListener {
+
+        @Override
+        public void positionChanged(Servo source, double position) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void actualPositionChanged(Servo source, double position) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void silentStatusChanged(SilentDevice source, boolean mode) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void exception(Servo source, Throwable t) {
+            // Only the delivery is of interest
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package net.sf.servomaster.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.impl.Silencer;
+
+/**
+ * {@link Silencer#touch(boolean)}, called on every position change, from as many threads as there are servos
+ * being moved at once.
+ *
+ * <p>
+ *
+ * The silencer is running and in silent mode, so every touch also wakes up its thread. The timeout is long enough
+ * for it to never actually fire.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SilencerBenchmark {
+
+    private Silencer silencer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        silencer = new NullSilencer();
+        silencer.start();
+        silencer.setSilentMode(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+
+        silencer.interrupt();
+        silencer.join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void touch1() {
+        silencer.touch(true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void touch4() {
+        silencer.touch(true);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void touch16() {
+        silencer.touch(true);
+    }
+
+    private static class NullSilencer extends Silencer {
+
+        NullSilencer() {
+            super(TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+            setDaemon(true);
+        }
+
+        @Override
+        protected void sleep() {
+            // Never happens within the benchmark
+        }
+
+        @Override
+        protected void wakeUp() {
+            // Only happens when the silent mode is turned off
+        }
+    }
+}
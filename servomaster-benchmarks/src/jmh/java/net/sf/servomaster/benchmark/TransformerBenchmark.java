@@ -0,0 +1,106 @@
+package net.sf.servomaster.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+import net.sf.servomaster.device.model.TransitionStatus;
+import net.sf.servomaster.device.model.transform.LinearTransformer;
+import net.sf.servomaster.device.model.transform.Reverser;
+import net.sf.servomaster.device.model.transform.ScaleTransformer;
+
+/**
+ * Coordinate transformer stacks on top of a {@link net.sf.servomaster.device.impl.debug.NullServoController} servo.
+ *
+ * <p>
+ *
+ * {@link #setPosition()} goes all the way down to the servo, {@link #getPosition()} only runs the stack in reverse,
+ * so the difference between the two is the cost of the servo itself.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformerBenchmark {
+
+    /**
+     * Transformers to stack, comma separated, from the servo up.
+     */
+    @Param({"none", "linear", "scale", "reverser", "linear,scale,reverser"})
+    public String stack;
+
+    private ServoController controller;
+    private Servo servo;
+
+    private double position = 0.25;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        controller = SetPositionBenchmark.open("transformer");
+        servo = controller.getServo("0");
+
+        if ("none".equals(stack)) {
+            return;
+        }
+
+        for (var transformer : stack.split(",")) {
+
+            switch (transformer) {
+
+                case "linear":
+                    servo = new LinearTransformer(servo);
+                    break;
+
+                case "scale":
+                    servo = new ScaleTransformer(servo, 0.5, 0.25);
+                    break;
+
+                case "reverser":
+                    servo = new Reverser(servo);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown transformer: " + transformer);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        controller.close();
+    }
+
+    @Benchmark
+    public Future<TransitionStatus> setPosition() {
+
+        position = 1 - position;
+
+        return servo.setPosition(position);
+    }
+
+    @Benchmark
+    public double getPosition() {
+        return servo.getPosition();
+    }
+}
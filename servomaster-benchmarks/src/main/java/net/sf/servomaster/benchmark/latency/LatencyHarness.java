@@ -0,0 +1,729 @@
+package net.sf.servomaster.benchmark.latency;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import net.sf.servomaster.device.model.Servo;
+
+/**
+ * End to end latency harness.
+ *
+ * <p>
+ *
+ * Drives a number of {@link SimulatedServoController simulated controllers} from a number of client threads, each
+ * thread owning its share of the servos and issuing commands at a fixed rate. Every command is timestamped when it is
+ * due, when it is actually issued, when the frame starts going out on the {@link SimulatedLink link}, and when
+ * {@code setPosition()} completes.
+ *
+ * <p>
+ *
+ * Latencies are reported twice. The service time is measured from the moment the command was issued; it is what a
+ * naive benchmark reports, and it is wrong whenever the client falls behind - a command stuck behind a slow one
+ * is issued late, and the time it spent waiting to be issued is not counted anywhere (coordinated omission). The
+ * corrected latency is measured from the moment the command was due, which is what the caller actually experiences.
+ *
+ * <p>
+ *
+ * GC counts and times, and the bytes allocated by the JVM, are reported for the measured part of the run (after
+ * the warmup). The allocation is summed over the threads alive at the end of the window, so it is slightly low
+ * if the broadcaster pool retires threads in between.
+ *
+ * <p>
+ *
+ * Usage:
+ *
+ * <blockquote>
+ *
+ * <code>java -classpath ${CLASSPATH} net.sf.servomaster.benchmark.latency.LatencyHarness <i>[-controllers N] [-servos N]
+ * [-threads N] [-rate commands/s] [-duration s] [-warmup s] [-baud bits/s]</i></code>
+ *
+ * </blockquote>
+ *
+ * {@code -servos} is per controller, {@code -rate} is per client thread, {@code -baud 0} is an infinitely fast link.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class LatencyHarness {
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private final int controllerCount;
+    private final int servoCount;
+    private final int threadCount;
+
+    /**
+     * Time between the commands of one client thread, in nanoseconds.
+     */
+    private final long interval;
+
+    private final long warmup;
+    private final long duration;
+    private final long bitsPerSecond;
+
+    /**
+     * Create an instance.
+     *
+     * @param controllerCount Number of controllers.
+     * @param servoCount Number of servos per controller.
+     * @param threadCount Number of client threads, no more than the total number of servos.
+     * @param rate Target rate, commands per second, per client thread.
+     * @param warmup How long to run before starting to measure, in milliseconds.
+     * @param duration How long to measure, in milliseconds.
+     * @param bitsPerSecond Link speed, 0 for an infinitely fast link.
+     */
+    public LatencyHarness(int controllerCount, int servoCount, int threadCount, double rate, long warmup, long duration, long bitsPerSecond) {
+
+        if (controllerCount <= 0 || servoCount <= 0 || threadCount <= 0) {
+            throw new IllegalArgumentException("Controller, servo, and thread counts must be positive: "
+                    + controllerCount + ", " + servoCount + ", " + threadCount);
+        }
+
+        if (threadCount > controllerCount * servoCount) {
+            throw new IllegalArgumentException("More threads (" + threadCount + ") than servos (" + controllerCount * servoCount + ")");
+        }
+
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+
+        if (warmup < 0 || duration <= 0) {
+            throw new IllegalArgumentException("Invalid warmup or duration: " + warmup + ", " + duration);
+        }
+
+        this.controllerCount = controllerCount;
+        this.servoCount = servoCount;
+        this.threadCount = threadCount;
+        this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.warmup = TimeUnit.MILLISECONDS.toNanos(warmup);
+        this.duration = TimeUnit.MILLISECONDS.toNanos(duration);
+        this.bitsPerSecond = bitsPerSecond;
+    }
+
+    public static void main(String[] args) {
+
+        var logger = LogManager.getLogger(LatencyHarness.class);
+
+        ThreadContext.push("latency");
+
+        try {
+
+            var controllers = 1;
+            var servos = 8;
+            var threads = 1;
+            var rate = 100d;
+            var duration = 10d;
+            var warmup = 2d;
+            var baud = 9600L;
+
+            for (var offset = 0; offset < args.length; offset++) {
+
+                switch (args[offset]) {
+
+                case "-controllers":
+
+                    controllers = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-servos":
+
+                    servos = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-threads":
+
+                    threads = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-rate":
+
+                    rate = Double.parseDouble(args[++offset]);
+                    break;
+
+                case "-duration":
+
+                    duration = Double.parseDouble(args[++offset]);
+                    break;
+
+                case "-warmup":
+
+                    warmup = Double.parseDouble(args[++offset]);
+                    break;
+
+                case "-baud":
+
+                    baud = Long.parseLong(args[++offset]);
+                    break;
+
+                default:
+
+                    logger.error("Usage: <script> [-controllers N] [-servos N] [-threads N] [-rate commands/s] [-duration s] [-warmup s] [-baud bits/s]");
+                    return;
+                }
+            }
+
+            logger.info("{} controllers x {} servos at {} baud, {} threads x {} commands/s, {}s warmup, {}s measured",
+                    controllers, servos, baud, threads, rate, warmup, duration);
+
+            var report = new LatencyHarness(controllers, servos, threads, rate, (long) (warmup * 1000), (long) (duration * 1000), baud).run();
+
+            report.log(logger);
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted", ex);
+
+        } catch (Throwable t) { // NOSONAR Consequences have been considered
+
+            logger.error("Latency run failed", t);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Create the controllers, drive them for the warmup and the duration given at construction, and close them.
+     *
+     * The transition controllers are detached from the servos, so every command goes straight to the link.
+     *
+     * @return The results.
+     *
+     * @throws IOException if the controllers failed to open.
+     * @throws InterruptedException if interrupted.
+     */
+    public Report run() throws IOException, InterruptedException {
+
+        var controllers = new ArrayList<SimulatedServoController>(controllerCount);
+
+        try {
+
+            var clients = new ArrayList<Client>(threadCount);
+
+            for (var offset = 0; offset < threadCount; offset++) {
+                clients.add(new Client(offset));
+            }
+
+            // Round robin, so that the threads contend for the controllers as evenly as possible
+
+            var next = 0;
+
+            for (var offset = 0; offset < controllerCount; offset++) {
+
+                var controller = new SimulatedServoController("sim" + offset, servoCount, bitsPerSecond);
+
+                controllers.add(controller);
+                controller.open();
+
+                for (var servo : controller.getServos()) {
+
+                    servo.attach(null, false);
+                    clients.get(next++ % threadCount).add(controller, servo);
+                }
+            }
+
+            return drive(clients);
+
+        } finally {
+
+            for (var controller : controllers) {
+
+                try {
+                    controller.close();
+                } catch (Throwable t) { // NOSONAR Consequences have been considered
+                    logger.warn("{}: failed to close", controller.getPort(), t);
+                }
+            }
+        }
+    }
+
+    private Report drive(List<Client> clients) throws InterruptedException {
+
+        // Give the threads time to start, so the first commands are not late already
+        var start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        var threads = new ArrayList<Thread>(clients.size());
+
+        for (var client : clients) {
+
+            var thread = new Thread(() -> client.run(start), "client-" + client.offset);
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        try {
+
+            parkUntil(start + warmup);
+
+            var before = new Snapshot();
+
+            parkUntil(start + warmup + duration);
+
+            // Before the client threads exit and take their allocation counters with them
+            var after = new Snapshot();
+
+            for (var thread : threads) {
+                thread.join();
+            }
+
+            var service = new ArrayList<long[]>();
+            var response = new ArrayList<long[]>();
+            var toWire = new ArrayList<long[]>();
+            var toWireCorrected = new ArrayList<long[]>();
+            var failed = 0L;
+            var missed = 0L;
+
+            for (var client : clients) {
+
+                service.add(client.series(Client.SERVICE));
+                response.add(client.series(Client.RESPONSE));
+                toWire.add(client.series(Client.TO_WIRE));
+                toWireCorrected.add(client.series(Client.TO_WIRE_CORRECTED));
+                failed += client.failed;
+                missed += Math.max(0, client.missed);
+            }
+
+            return new Report(
+                    interval, threadCount, duration, failed, missed,
+                    new Series(service), new Series(response), new Series(toWire), new Series(toWireCorrected),
+                    after.gcCount - before.gcCount,
+                    after.gcTime - before.gcTime,
+                    after.allocatedSince(before));
+
+        } finally {
+
+            for (var thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static void parkUntil(long deadline) throws InterruptedException {
+
+        for (var left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+
+            LockSupport.parkNanos(left);
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * One client thread, and the servos it drives.
+     */
+    private class Client {
+
+        static final int SERVICE = 0;
+        static final int RESPONSE = 1;
+        static final int TO_WIRE = 2;
+        static final int TO_WIRE_CORRECTED = 3;
+
+        final int offset;
+
+        final List<SimulatedServoController> controllers = new ArrayList<>();
+        final List<Servo> servos = new ArrayList<>();
+
+        /**
+         * Measured latencies, in nanoseconds, indexed by the series, then by the command.
+         */
+        long[][] latencies = new long[4][(int) Math.min(duration / interval + 1, 1_000_000)];
+
+        int recorded = 0;
+        long failed = 0;
+        long missed = 0;
+
+        Client(int offset) {
+            this.offset = offset;
+        }
+
+        void add(SimulatedServoController controller, Servo servo) {
+
+            controllers.add(controller);
+            servos.add(servo);
+        }
+
+        void run(long start) {
+
+            ThreadContext.push("client-" + offset);
+
+            try {
+
+                var positions = new double[servos.size()];
+
+                Arrays.fill(positions, 0.25);
+
+                var end = warmup + duration;
+                var lastTick = (end - 1) / interval;
+
+                for (var tick = 0L; tick <= lastTick; tick++) {
+
+                    var intended = start + tick * interval;
+
+                    if (System.nanoTime() - start >= end) {
+
+                        // Out of time with commands still due - they'd only get later, and leaving them out
+                        // altogether would hide that the client fell behind
+                        missed = lastTick - Math.max(tick, (warmup + interval - 1) / interval) + 1;
+                        break;
+                    }
+
+                    parkUntil(intended);
+
+                    var index = (int) (tick % servos.size());
+                    var servo = servos.get(index);
+
+                    positions[index] = 1 - positions[index];
+
+                    var sentAt = System.nanoTime();
+
+                    try {
+
+                        servo.setPosition(positions[index]).get();
+
+                    } catch (ExecutionException ex) {
+
+                        if (intended - start >= warmup) {
+                            failed++;
+                        }
+
+                        logger.warn("{}: setPosition({}) failed", servo, positions[index], ex);
+                        continue;
+                    }
+
+                    var done = System.nanoTime();
+
+                    if (intended - start < warmup) {
+                        continue;
+                    }
+
+                    var wire = controllers.get(index).getLastWriteStart(Integer.parseInt(servo.getName()));
+
+                    record(done - sentAt, done - intended, wire - sentAt, wire - intended);
+                }
+
+            } catch (InterruptedException ex) {
+
+                Thread.currentThread().interrupt();
+                logger.warn("interrupted", ex);
+
+            } finally {
+                ThreadContext.pop();
+            }
+        }
+
+        private void record(long service, long response, long toWire, long toWireCorrected) {
+
+            if (recorded == latencies[0].length) {
+
+                for (var series = 0; series < latencies.length; series++) {
+                    latencies[series] = Arrays.copyOf(latencies[series], recorded * 2);
+                }
+            }
+
+            latencies[SERVICE][recorded] = service;
+            latencies[RESPONSE][recorded] = response;
+            latencies[TO_WIRE][recorded] = toWire;
+            latencies[TO_WIRE_CORRECTED][recorded] = toWireCorrected;
+
+            recorded++;
+        }
+
+        long[] series(int series) {
+            return Arrays.copyOf(latencies[series], recorded);
+        }
+    }
+
+    /**
+     * GC and allocation counters at a point in time.
+     */
+    private static class Snapshot {
+
+        long gcCount;
+        long gcTime;
+
+        /**
+         * Bytes allocated by each live thread, by thread ID, or {@code null} if the JVM doesn't tell.
+         */
+        final Map<Long, Long> allocated;
+
+        Snapshot() {
+
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+
+                // -1 means undefined for this collector
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcTime += Math.max(0, gc.getCollectionTime());
+            }
+
+            allocated = allocated();
+        }
+
+        /**
+         * Get the bytes allocated between the snapshots by the threads alive at this one.
+         *
+         * @param before Earlier snapshot.
+         *
+         * @return Bytes allocated, or -1 if the JVM doesn't tell.
+         */
+        long allocatedSince(Snapshot before) {
+
+            if (allocated == null || before.allocated == null) {
+                return -1;
+            }
+
+            var total = 0L;
+
+            for (var entry : allocated.entrySet()) {
+
+                // Threads started in between have allocated everything they have since
+                total += entry.getValue() - before.allocated.getOrDefault(entry.getKey(), 0L);
+            }
+
+            return total;
+        }
+
+        private static Map<Long, Long> allocated() {
+
+            var threadBean = ManagementFactory.getThreadMXBean();
+
+            if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+
+            var bean = (com.sun.management.ThreadMXBean) threadBean;
+
+            if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+                return null;
+            }
+
+            var ids = bean.getAllThreadIds();
+            var bytes = bean.getThreadAllocatedBytes(ids);
+            var result = new HashMap<Long, Long>();
+
+            for (var offset = 0; offset < ids.length; offset++) {
+
+                // -1 for threads that died since the IDs were taken
+                if (bytes[offset] >= 0) {
+                    result.put(ids[offset], bytes[offset]);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Latency distribution.
+     */
+    public static class Series {
+
+        /**
+         * Latencies, in nanoseconds, sorted.
+         */
+        private final long[] latencies;
+
+        Series(List<long[]> parts) {
+
+            latencies = new long[parts.stream().mapToInt(p -> p.length).sum()];
+
+            var offset = 0;
+
+            for (var part : parts) {
+
+                System.arraycopy(part, 0, latencies, offset, part.length);
+                offset += part.length;
+            }
+
+            Arrays.sort(latencies);
+        }
+
+        /**
+         * @return Number of samples.
+         */
+        public int size() {
+            return latencies.length;
+        }
+
+        /**
+         * Get the latency percentile.
+         *
+         * @param percentile Percentile, 0 to 100.
+         *
+         * @return The latency not exceeded by this percentage of samples, in nanoseconds, or 0 if there are none.
+         */
+        public long getLatency(double percentile) {
+
+            if (latencies.length == 0) {
+                return 0;
+            }
+
+            var index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+        }
+
+        String format() {
+
+            return "p50=" + getLatency(50) / 1000
+                    + " p99=" + getLatency(99) / 1000
+                    + " p99.9=" + getLatency(99.9) / 1000
+                    + " max=" + getLatency(100) / 1000;
+        }
+    }
+
+    /**
+     * Latency run results.
+     */
+    public static class Report {
+
+        private final long interval;
+        private final int threadCount;
+        private final long duration;
+        private final long failed;
+        private final long missed;
+
+        private final Series service;
+        private final Series response;
+        private final Series toWire;
+        private final Series toWireCorrected;
+
+        private final long gcCount;
+        private final long gcTime;
+        private final long allocated;
+
+        Report(long interval, int threadCount, long duration, long failed, long missed,
+                Series service, Series response, Series toWire, Series toWireCorrected,
+                long gcCount, long gcTime, long allocated) {
+
+            this.interval = interval;
+            this.threadCount = threadCount;
+            this.duration = duration;
+            this.failed = failed;
+            this.missed = missed;
+            this.service = service;
+            this.response = response;
+            this.toWire = toWire;
+            this.toWireCorrected = toWireCorrected;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+            this.allocated = allocated;
+        }
+
+        /**
+         * @return Number of commands completed in the measured part of the run.
+         */
+        public long getCompleted() {
+            return service.size();
+        }
+
+        /**
+         * @return Number of commands that failed in the measured part of the run.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return Number of commands that were due in the measured part of the run, but never issued because
+         * the client fell too far behind to get to them before the end.
+         */
+        public long getMissed() {
+            return missed;
+        }
+
+        /**
+         * @return Commands completed per second.
+         */
+        public double getThroughput() {
+            return service.size() * (double) TimeUnit.SECONDS.toNanos(1) / duration;
+        }
+
+        /**
+         * @return Commands per second asked for, all threads together.
+         */
+        public double getTargetRate() {
+            return threadCount * (double) TimeUnit.SECONDS.toNanos(1) / interval;
+        }
+
+        /**
+         * @return From issuing the command to {@code setPosition()} completing. Subject to coordinated omission.
+         */
+        public Series getServiceTime() {
+            return service;
+        }
+
+        /**
+         * @return From the moment the command was due to {@code setPosition()} completing.
+         */
+        public Series getResponseTime() {
+            return response;
+        }
+
+        /**
+         * @return From issuing the command to the frame starting to go out. Subject to coordinated omission.
+         */
+        public Series getTimeToWire() {
+            return toWire;
+        }
+
+        /**
+         * @return From the moment the command was due to the frame starting to go out.
+         */
+        public Series getCorrectedTimeToWire() {
+            return toWireCorrected;
+        }
+
+        /**
+         * @return Number of collections in the measured part of the run.
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * @return Time spent collecting in the measured part of the run, in milliseconds.
+         */
+        public long getGcTime() {
+            return gcTime;
+        }
+
+        /**
+         * @return Bytes allocated in the measured part of the run, or -1 if the JVM doesn't tell.
+         */
+        public long getAllocated() {
+            return allocated;
+        }
+
+        void log(Logger logger) {
+
+            logger.info("completed: {}, failed: {}, missed: {}, throughput: {} commands/s of {} targeted",
+                    getCompleted(), failed, missed,
+                    String.format(Locale.ROOT, "%.1f", getThroughput()),
+                    String.format(Locale.ROOT, "%.1f", getTargetRate()));
+            logger.info("service time, μs:         {}", service.format());
+            logger.info("response time, μs:        {}", response.format());
+            logger.info("time to wire, μs:         {}", toWire.format());
+            logger.info("time to wire (corr.), μs: {}", toWireCorrected.format());
+            logger.info("GC: {} collections, {}ms; allocated: {}",
+                    gcCount, gcTime,
+                    allocated < 0 ? "unknown" : allocated / 1024 + "kB, "
+                            + (service.size() == 0 ? 0 : allocated / service.size()) + " bytes/command");
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package net.sf.servomaster.benchmark.latency;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Simulated serial link.
+ *
+ * <p>
+ *
+ * Like {@link net.sf.servomaster.device.impl.serial.SerialWorker}, has its own I/O thread writing the frames
+ * one at a time in the order they were submitted; unlike it, the bytes go nowhere. A frame occupies the link
+ * for as long as it would take to shift it out at the configured speed, ten bits per byte (start, eight data,
+ * stop). Most of the wait is a park, but the last stretch is a spin - at link speeds of interest a frame is not much
+ * longer than the timer resolution, and a plain sleep would overshoot it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class SimulatedLink extends Thread {
+
+    private static final Logger logger = LogManager.getLogger(SimulatedLink.class);
+
+    /**
+     * How long before the deadline to stop parking and start spinning, nanoseconds.
+     */
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Time it takes to shift out a byte, nanoseconds. 0 for an infinitely fast link.
+     */
+    private final long byteNanos;
+
+    /**
+     * Frames waiting to be written. Access is guarded by {@code this}.
+     */
+    private final Deque<Frame> queue = new ArrayDeque<>();
+
+    private boolean stopped = false;
+
+    /**
+     * Create an instance.
+     *
+     * @param name Thread name.
+     * @param bitsPerSecond Link speed, 0 for an infinitely fast link.
+     */
+    public SimulatedLink(String name, long bitsPerSecond) {
+
+        super(name);
+
+        if (bitsPerSecond < 0) {
+            throw new IllegalArgumentException("Link speed can't be negative: " + bitsPerSecond);
+        }
+
+        byteNanos = bitsPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(10) / bitsPerSecond;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Write the frame, and wait until it is on the wire.
+     *
+     * @param length Frame length, bytes.
+     *
+     * @return The moment the link started writing the frame, {@link System#nanoTime()}.
+     *
+     * @throws IOException if the link is shut down, or the caller was interrupted.
+     */
+    public long send(int length) throws IOException {
+
+        var frame = new Frame(length);
+
+        synchronized (this) {
+
+            if (stopped) {
+                throw new IOException("Link is shut down");
+            }
+
+            queue.add(frame);
+            notifyAll();
+        }
+
+        try {
+
+            synchronized (frame) {
+
+                while (!frame.done) {
+                    frame.wait();
+                }
+            }
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException("Interrupted waiting for the write").initCause(ex);
+        }
+
+        if (frame.startedAt == 0) {
+            throw new IOException("Link shut down before the frame was written");
+        }
+
+        return frame.startedAt;
+    }
+
+    /**
+     * Stop the thread. Frames still waiting will fail.
+     */
+    public synchronized void shutdown() {
+
+        stopped = true;
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+
+        try {
+
+            while (true) {
+
+                Frame frame;
+
+                synchronized (this) {
+
+                    while (queue.isEmpty() && !stopped) {
+                        wait();
+                    }
+
+                    if (stopped) {
+                        break;
+                    }
+
+                    frame = queue.poll();
+                }
+
+                var startedAt = System.nanoTime();
+
+                spin(startedAt + byteNanos * frame.length);
+                frame.complete(startedAt);
+            }
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted, exiting", ex);
+
+        } finally {
+            drain();
+        }
+    }
+
+    private synchronized void drain() {
+
+        stopped = true;
+
+        while (!queue.isEmpty()) {
+            queue.poll().complete(0);
+        }
+    }
+
+    private static class Frame {
+
+        final int length;
+
+        long startedAt;
+        boolean done;
+
+        Frame(int length) {
+            this.length = length;
+        }
+
+        synchronized void complete(long startedAt) {
+
+            this.startedAt = startedAt;
+            done = true;
+
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait until the deadline.
+     *
+     * @param deadline The moment to stop waiting, {@link System#nanoTime()}.
+     */
+    static void spin(long deadline) {
+
+        for (var left = deadline - System.nanoTime(); left > SPIN_NANOS; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left - SPIN_NANOS);
+        }
+
+        while (System.nanoTime() - deadline < 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package net.sf.servomaster.benchmark.latency;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServoController;
+import net.sf.servomaster.device.impl.HardwareServo;
+import net.sf.servomaster.device.model.Meta;
+import net.sf.servomaster.device.model.Servo;
+
+/**
+ * Servo controller writing to a {@link SimulatedLink}.
+ *
+ * <p>
+ *
+ * Every position change is a three byte frame (sync, servo, position), the way most serial controllers do it,
+ * written while holding the controller monitor like the real drivers do. The moment the frame started going out
+ * is recorded per servo, so the harness can tell the time spent in the library from the time spent on the wire.
+ *
+ * <p>
+ *
+ * Both the controller and the servos support the silent mode; putting them to sleep and waking them up is a frame
+ * as well, written under the controller monitor - same as a real driver would have to.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class SimulatedServoController extends AbstractServoController {
+
+    /**
+     * Position change frame size, bytes.
+     */
+    static final int FRAME_SIZE = 3;
+
+    private final int servoCount;
+    private final SimulatedLink link;
+
+    /**
+     * The moment the last frame for the servo started going out, {@link System#nanoTime()}, indexed by servo ID.
+     */
+    private final AtomicLongArray lastWriteStart;
+
+    /**
+     * Create an instance.
+     *
+     * @param portName Port name, only used to tell the instances apart.
+     * @param servoCount Number of servos.
+     * @param bitsPerSecond Link speed, 0 for an infinitely fast link.
+     */
+    public SimulatedServoController(String portName, int servoCount, long bitsPerSecond) {
+
+        super(portName);
+
+        if (servoCount <= 0) {
+            throw new IllegalArgumentException("Servo count must be positive: " + servoCount);
+        }
+
+        this.servoCount = servoCount;
+        this.link = new SimulatedLink("link-" + portName, bitsPerSecond);
+        this.lastWriteStart = new AtomicLongArray(servoCount);
+    }
+
+    @Override
+    public int getServoCount() {
+        return servoCount;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        checkInit();
+    }
+
+    @Override
+    protected void doInit() throws IOException {
+        link.start();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    protected Servo createServo(int id) throws IOException {
+        return new SimulatedServo(id);
+    }
+
+    @Override
+    protected Meta createMeta() {
+        return new SimulatedMeta();
+    }
+
+    @Override
+    protected void sleep() throws IOException {
+        command();
+    }
+
+    @Override
+    protected void wakeUp() throws IOException {
+        command();
+    }
+
+    /**
+     * Write a frame that is not a position change.
+     */
+    private synchronized void command() throws IOException {
+        link.send(FRAME_SIZE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+            super.close();
+        } finally {
+            link.shutdown();
+        }
+    }
+
+    /**
+     * Get the moment the last frame for the servo started going out.
+     *
+     * @param id Servo ID.
+     *
+     * @return {@link System#nanoTime()} at the start of the write, or 0 if nothing was written yet.
+     */
+    public long getLastWriteStart(int id) {
+        return lastWriteStart.get(id);
+    }
+
+    protected class SimulatedMeta extends AbstractMeta {
+
+        protected SimulatedMeta() {
+
+            features.put("controller/allow_disconnect", Boolean.FALSE);
+            features.put(Feature.SILENT.name, Boolean.TRUE);
+
+            properties.put("manufacturer/name", "DIY Zoning Project");
+            properties.put("manufacturer/model", "Simulated Servo Controller");
+            properties.put("controller/maxservos", Integer.toString(servoCount));
+            properties.put("controller/precision", "256");
+        }
+    }
+
+    protected class SimulatedServo extends HardwareServo {
+
+        public SimulatedServo(int id) {
+            super(SimulatedServoController.this, id);
+        }
+
+        @Override
+        protected Meta createMeta() {
+            return new SimulatedServoMeta();
+        }
+
+        @Override
+        protected void setActualPosition(double position) throws IOException {
+
+            checkPosition(position);
+
+            lastWriteStart.set(id, link.send(FRAME_SIZE));
+
+            actualPosition = position;
+
+            actualPositionChanged(actualPosition);
+
+            touch();
+        }
+
+        @Override
+        protected void sleep() throws IOException {
+            command();
+        }
+
+        @Override
+        protected void wakeUp() throws IOException {
+            command();
+        }
+
+        protected class SimulatedServoMeta extends AbstractMeta {
+
+            protected SimulatedServoMeta() {
+
+                features.put("servo/silent", Boolean.TRUE);
+
+                properties.put("servo/precision", "255");
+            }
+        }
+    }
+}
@@ -0,0 +1,869 @@
+package net.sf.servomaster.benchmark.stress;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import net.sf.servomaster.benchmark.latency.SimulatedServoController;
+import net.sf.servomaster.device.impl.AbstractServo;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+import net.sf.servomaster.device.model.ServoControllerListener;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.SilentDevice;
+import net.sf.servomaster.device.model.transition.CrawlTransitionController;
+
+/**
+ * Concurrency stress harness.
+ *
+ * <p>
+ *
+ * Hammers {@link SimulatedServoController simulated controllers} from many threads at once with a random mix of
+ * everything that takes a lock: {@code setPosition()}, {@code setEnabled()}, servo and controller
+ * {@code setSilentMode()}, {@code attach()}, listener registration, and finally {@code close()}. The silencers are
+ * set to fire every few milliseconds, so their threads are in the mix as well.
+ *
+ * <p>
+ *
+ * The run has two phases. The first one runs for the duration given, then the threads are stopped, the notifications
+ * are allowed to drain, and the bookkeeping is checked:
+ *
+ * <ul>
+ *     <li>every {@code setPosition()} the harness made (including the implicit one in {@code setEnabled(true)})
+ *     must be counted by the servo metrics, and delivered exactly once to a listener that stays registered
+ *     throughout - anything else is a lost update;</li>
+ *     <li>every listener the thread has added must be there to be removed.</li>
+ * </ul>
+ *
+ * In the second phase the controllers are closed while the threads keep going. An {@link IllegalStateException}
+ * or an {@link IOException} is an acceptable answer from a closed controller, nothing else is.
+ *
+ * <p>
+ *
+ * All the time, a watchdog looks for deadlocks with {@link java.lang.management.ThreadMXBean#findDeadlockedThreads()},
+ * and for the lack of progress - a thread stuck in {@code wait()} is not a deadlock as far as the JVM is concerned.
+ * Any exception other than the expected ones is counted by its class, so {@code ConcurrentModificationException}
+ * stands out.
+ *
+ * <p>
+ *
+ * Usage:
+ *
+ * <blockquote>
+ *
+ * <code>java -classpath ${CLASSPATH} net.sf.servomaster.benchmark.stress.StressHarness <i>[-controllers N] [-servos N]
+ * [-threads N] [-duration s] [-baud bits/s]</i></code>
+ *
+ * </blockquote>
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class StressHarness {
+
+    private static final Logger logger = LogManager.getLogger(StressHarness.class);
+
+    /**
+     * How long the threads can go without completing a single operation before it is called a stall.
+     */
+    private static final long STALL_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * How long the threads keep going after the controllers are closed.
+     */
+    private static final long CLOSE_PHASE = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /**
+     * Operations, with their relative frequencies.
+     */
+    public enum Operation {
+
+        SET_POSITION(50),
+        SET_ENABLED(5),
+        SERVO_SILENT_MODE(5),
+        CONTROLLER_SILENT_MODE(3),
+        ATTACH(5),
+        SERVO_LISTENER(10),
+        CONTROLLER_LISTENER(5),
+        READ(17);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        private static final int TOTAL_WEIGHT = 100;
+
+        static Operation pick(Random rg) {
+
+            var value = rg.nextInt(TOTAL_WEIGHT);
+
+            for (var operation : values()) {
+
+                value -= operation.weight;
+
+                if (value < 0) {
+                    return operation;
+                }
+            }
+
+            throw new IllegalStateException("Weights don't add up to " + TOTAL_WEIGHT);
+        }
+    }
+
+    private final int controllerCount;
+    private final int servoCount;
+    private final int threadCount;
+    private final long duration;
+    private final long bitsPerSecond;
+
+    private final List<SimulatedServoController> controllers = new ArrayList<>();
+    private final List<AbstractServo> servos = new ArrayList<>();
+
+    /**
+     * Listeners that stay registered for the whole first phase, indexed like {@link #servos}.
+     */
+    private final List<Witness> witnesses = new ArrayList<>();
+
+    /**
+     * {@code setPosition()} calls the servo has accepted, by the harness count, indexed like {@link #servos}.
+     */
+    private final List<LongAdder> accepted = new ArrayList<>();
+
+    private final Map<Operation, LongAdder> completed = new EnumMap<>(Operation.class);
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final List<String> hangs = new CopyOnWriteArrayList<>();
+
+    /**
+     * Total operations completed, for the watchdog to see the progress.
+     */
+    private final AtomicLong progress = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Create an instance.
+     *
+     * @param controllerCount Number of controllers.
+     * @param servoCount Number of servos per controller.
+     * @param threadCount Number of threads.
+     * @param duration How long to run the first phase, in milliseconds.
+     * @param bitsPerSecond Link speed, 0 for an infinitely fast link.
+     */
+    public StressHarness(int controllerCount, int servoCount, int threadCount, long duration, long bitsPerSecond) {
+
+        if (controllerCount <= 0 || servoCount <= 0 || threadCount <= 0) {
+            throw new IllegalArgumentException("Controller, servo, and thread counts must be positive: "
+                    + controllerCount + ", " + servoCount + ", " + threadCount);
+        }
+
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+
+        this.controllerCount = controllerCount;
+        this.servoCount = servoCount;
+        this.threadCount = threadCount;
+        this.duration = TimeUnit.MILLISECONDS.toNanos(duration);
+        this.bitsPerSecond = bitsPerSecond;
+
+        for (var operation : Operation.values()) {
+            completed.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) {
+
+        ThreadContext.push("stress");
+
+        try {
+
+            var controllers = 2;
+            var servos = 8;
+            var threads = 16;
+            var duration = 10d;
+            var baud = 0L;
+
+            for (var offset = 0; offset < args.length; offset++) {
+
+                switch (args[offset]) {
+
+                case "-controllers":
+
+                    controllers = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-servos":
+
+                    servos = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-threads":
+
+                    threads = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-duration":
+
+                    duration = Double.parseDouble(args[++offset]);
+                    break;
+
+                case "-baud":
+
+                    baud = Long.parseLong(args[++offset]);
+                    break;
+
+                default:
+
+                    logger.error("Usage: <script> [-controllers N] [-servos N] [-threads N] [-duration s] [-baud bits/s]");
+                    return;
+                }
+            }
+
+            logger.info("{} controllers x {} servos at {} baud, {} threads, {}s", controllers, servos, baud, threads, duration);
+
+            var report = new StressHarness(controllers, servos, threads, (long) (duration * 1000), baud).run();
+
+            report.log(logger);
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted", ex);
+
+        } catch (Throwable t) { // NOSONAR Consequences have been considered
+
+            logger.error("Stress run failed", t);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Run both phases.
+     *
+     * @return The results.
+     *
+     * @throws IOException if the controllers failed to open.
+     * @throws InterruptedException if interrupted.
+     */
+    public Report run() throws IOException, InterruptedException {
+
+        try {
+
+            open();
+
+            var start = System.nanoTime();
+
+            if (!drive(start + duration, null)) {
+                return report(System.nanoTime() - start, snapshot(), -1);
+            }
+
+            var elapsed = System.nanoTime() - start;
+            var operations = snapshot();
+            var lost = verify();
+
+            drive(System.nanoTime() + CLOSE_PHASE, this::closeAll);
+
+            return report(elapsed, operations, lost);
+
+        } finally {
+
+            if (!closed) {
+
+                if (hangs.isEmpty()) {
+                    closeAll();
+                } else {
+                    // Closing would only get stuck on the same locks
+                    logger.error("Not closing the controllers, threads are hung");
+                }
+            }
+        }
+    }
+
+    private void open() throws IOException {
+
+        for (var offset = 0; offset < controllerCount; offset++) {
+
+            var controller = new SimulatedServoController("stress" + offset, servoCount, bitsPerSecond);
+
+            controllers.add(controller);
+            controller.open();
+
+            // Short enough to have the silencers go back and forth many times during the run
+            controller.setSilentTimeout(5, 5);
+
+            for (var servo : controller.getServos()) {
+
+                var witness = new Witness();
+
+                servo.setSilentTimeout(5, 5);
+                servo.addListener(witness);
+                witness.issuedBefore = ((AbstractServo) servo).getMetrics().getCommandsIssued();
+
+                servos.add((AbstractServo) servo);
+                witnesses.add(witness);
+                accepted.add(new LongAdder());
+            }
+        }
+    }
+
+    /**
+     * Run the threads until the deadline.
+     *
+     * @param deadline When to stop, {@link System#nanoTime()}.
+     * @param midway What to do halfway through, in the watchdog thread, or {@code null}.
+     *
+     * @return {@code false} if the threads are hung.
+     */
+    private boolean drive(long deadline, Runnable midway) throws InterruptedException {
+
+        var stop = new AtomicBoolean();
+        var threads = new ArrayList<Thread>(threadCount);
+        var seed = new Random(deadline);
+
+        for (var offset = 0; offset < threadCount; offset++) {
+
+            var worker = new Worker(seed.nextLong(), stop);
+            var thread = new Thread(worker, "stress-" + offset);
+
+            // Hung threads must not keep the JVM alive
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        var halfway = deadline - (deadline - System.nanoTime()) / 2;
+
+        threads.forEach(Thread::start);
+
+        try {
+
+            if (!watch(deadline, halfway, midway)) {
+                return false;
+            }
+
+            stop.set(true);
+
+            for (var thread : threads) {
+
+                thread.join(TimeUnit.NANOSECONDS.toMillis(STALL_TIMEOUT));
+
+                if (thread.isAlive()) {
+
+                    hangs.add("didn't stop: " + describe(thread));
+                    return false;
+                }
+            }
+
+            return true;
+
+        } finally {
+            stop.set(true);
+        }
+    }
+
+    /**
+     * Watch the threads until the deadline.
+     *
+     * @return {@code false} if a deadlock or a stall was detected.
+     */
+    private boolean watch(long deadline, long halfway, Runnable midway) throws InterruptedException {
+
+        var threadBean = ManagementFactory.getThreadMXBean();
+        var lastProgress = progress.get();
+        var lastProgressAt = System.nanoTime();
+        var midwayDone = midway == null;
+
+        for (var now = System.nanoTime(); now - deadline < 0; now = System.nanoTime()) {
+
+            TimeUnit.MILLISECONDS.sleep(50);
+
+            var deadlocked = threadBean.findDeadlockedThreads();
+
+            if (deadlocked != null) {
+
+                for (var info : threadBean.getThreadInfo(deadlocked, true, true)) {
+                    hangs.add("deadlock: " + info);
+                }
+
+                return false;
+            }
+
+            var current = progress.get();
+
+            if (current != lastProgress) {
+
+                lastProgress = current;
+                lastProgressAt = System.nanoTime();
+
+            } else if (System.nanoTime() - lastProgressAt > STALL_TIMEOUT) {
+
+                for (var info : threadBean.dumpAllThreads(true, true)) {
+
+                    if (info.getThreadName().startsWith("stress-")) {
+                        hangs.add("stall: " + info);
+                    }
+                }
+
+                return false;
+            }
+
+            if (!midwayDone && now - halfway >= 0) {
+
+                midway.run();
+                midwayDone = true;
+            }
+        }
+
+        return true;
+    }
+
+    private static String describe(Thread thread) {
+
+        var info = ManagementFactory.getThreadMXBean().getThreadInfo(new long[] { thread.getId() }, true, true);
+
+        return info.length == 0 || info[0] == null ? thread.getName() : info[0].toString();
+    }
+
+    /**
+     * Wait for the notifications to drain, and compare the counts.
+     *
+     * @return Number of lost updates.
+     */
+    private long verify() throws InterruptedException {
+
+        var lost = 0L;
+
+        for (var offset = 0; offset < servos.size(); offset++) {
+
+            var expected = accepted.get(offset).sum();
+            var witness = witnesses.get(offset);
+
+            // Notifications are delivered asynchronously, give them time
+            for (var wait = 0; wait < 100 && witness.delivered.sum() < expected; wait++) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+
+            var issued = servos.get(offset).getMetrics().getCommandsIssued() - witness.issuedBefore;
+            var delivered = witness.delivered.sum();
+
+            if (issued != expected || delivered != expected) {
+
+                logger.error("{}: {} accepted, {} issued, {} delivered", servos.get(offset), expected, issued, delivered);
+                lost += Math.max(Math.abs(expected - issued), Math.abs(expected - delivered));
+            }
+        }
+
+        return lost;
+    }
+
+    private void closeAll() {
+
+        closed = true;
+
+        var closers = new ArrayList<Thread>();
+
+        for (var controller : controllers) {
+
+            var closer = new Thread(() -> {
+
+                try {
+
+                    controller.close();
+
+                } catch (Throwable t) { // NOSONAR Consequences have been considered
+                    failed(t);
+                }
+
+            }, "close-" + controller.getPort());
+
+            closer.setDaemon(true);
+            closers.add(closer);
+            closer.start();
+        }
+
+        for (var closer : closers) {
+
+            try {
+
+                closer.join(TimeUnit.NANOSECONDS.toMillis(STALL_TIMEOUT));
+
+                if (closer.isAlive()) {
+                    hangs.add("close() didn't return: " + describe(closer));
+                }
+
+            } catch (InterruptedException ex) {
+
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void failed(Throwable t) {
+
+        var key = t.getClass().getName();
+
+        if (failures.computeIfAbsent(key, k -> new LongAdder()).sum() == 0) {
+            logger.error("first {}", key, t);
+        }
+
+        failures.get(key).increment();
+    }
+
+    private Map<Operation, Long> snapshot() {
+
+        var operations = new EnumMap<Operation, Long>(Operation.class);
+
+        completed.forEach((operation, count) -> operations.put(operation, count.sum()));
+
+        return operations;
+    }
+
+    private Report report(long elapsed, Map<Operation, Long> operations, long lost) {
+
+        var errors = new TreeMap<String, Long>();
+
+        failures.forEach((key, count) -> errors.put(key, count.sum()));
+
+        var monitorWait = 0L;
+
+        for (var servo : servos) {
+            monitorWait = Math.max(monitorWait, servo.getMetrics().getMonitorWait().getP99());
+        }
+
+        return new Report(elapsed, operations, rejected.sum(), errors, lost, monitorWait, new ArrayList<>(hangs));
+    }
+
+    private class Worker implements Runnable {
+
+        private final Random rg;
+        private final AtomicBoolean stop;
+
+        private final ServoProbe servoProbe = new ServoProbe();
+        private final ControllerProbe controllerProbe = new ControllerProbe();
+
+        /**
+         * Servos and controllers the probes are currently registered with.
+         */
+        private final Set<Object> registered = new HashSet<>();
+
+        Worker(long seed, AtomicBoolean stop) {
+
+            this.rg = new Random(seed);
+            this.stop = stop;
+        }
+
+        @Override
+        public void run() {
+
+            while (!stop.get()) {
+
+                var operation = Operation.pick(rg);
+                var index = rg.nextInt(servos.size());
+
+                try {
+
+                    execute(operation, index);
+
+                    completed.get(operation).increment();
+
+                } catch (IllegalStateException ex) {
+
+                    // Disabled servo, or closed controller
+                    rejected.increment();
+
+                } catch (IOException ex) {
+
+                    // Closed port is a legitimate reason to fail, but only once it is closed
+                    if (closed) {
+                        rejected.increment();
+                    } else {
+                        failed(ex);
+                    }
+
+                } catch (Throwable t) { // NOSONAR Consequences have been considered
+                    failed(t);
+                }
+
+                progress.incrementAndGet();
+            }
+        }
+
+        private void execute(Operation operation, int index) throws IOException {
+
+            var servo = servos.get(index);
+            var controller = servo.getController();
+
+            switch (operation) {
+
+            case SET_POSITION:
+
+                servo.setPosition(rg.nextDouble());
+
+                if (!closed) {
+                    accepted.get(index).increment();
+                }
+
+                break;
+
+            case SET_ENABLED:
+
+                var enable = rg.nextBoolean();
+
+                servo.setEnabled(enable);
+
+                if (enable && !closed) {
+
+                    // Which calls setPosition()
+                    accepted.get(index).increment();
+                }
+
+                break;
+
+            case SERVO_SILENT_MODE:
+
+                servo.setSilentMode(rg.nextBoolean());
+                break;
+
+            case CONTROLLER_SILENT_MODE:
+
+                controller.setSilentMode(rg.nextBoolean());
+                break;
+
+            case ATTACH:
+
+                servo.attach(rg.nextBoolean() ? null : new CrawlTransitionController(), rg.nextBoolean());
+                break;
+
+            case SERVO_LISTENER:
+
+                if (registered.add(servo)) {
+                    servo.addListener(servoProbe);
+                } else {
+                    registered.remove(servo);
+                    servo.removeListener(servoProbe);
+                }
+
+                break;
+
+            case CONTROLLER_LISTENER:
+
+                if (registered.add(controller)) {
+                    controller.addListener(controllerProbe);
+                } else {
+                    registered.remove(controller);
+                    controller.removeListener(controllerProbe);
+                }
+
+                break;
+
+            case READ:
+
+                servo.getActualPosition();
+                servo.getMeta().getProperty("servo/precision");
+                controller.isSilentNow();
+                break;
+
+            default:
+
+                throw new IllegalStateException("Unknown operation " + operation);
+            }
+        }
+    }
+
+    /**
+     * Servo listener that comes and goes.
+     */
+    private static class ServoProbe implements ServoListener {
+
+        @Override
+        public void positionChanged(Servo source, double position) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void actualPositionChanged(Servo source, double position) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void silentStatusChanged(SilentDevice source, boolean mode) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void exception(Servo source, Throwable t) {
+            // Only the delivery is of interest
+        }
+    }
+
+    /**
+     * Controller listener that comes and goes.
+     */
+    private static class ControllerProbe implements ServoControllerListener {
+
+        @Override
+        public void silentStatusChanged(SilentDevice source, boolean mode) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void exception(ServoController source, Throwable t) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void deviceArrived(ServoController device) {
+            // Only the delivery is of interest
+        }
+
+        @Override
+        public void deviceDeparted(ServoController device) {
+            // Only the delivery is of interest
+        }
+    }
+
+    /**
+     * Listener that stays, and counts the position change notifications.
+     */
+    private class Witness extends ServoProbe {
+
+        final LongAdder delivered = new LongAdder();
+
+        /**
+         * The commands issued before the witness was registered.
+         */
+        long issuedBefore;
+
+        @Override
+        public void positionChanged(Servo source, double position) {
+
+            if (!closed) {
+                delivered.increment();
+            }
+        }
+    }
+
+    /**
+     * Stress run results.
+     */
+    public static class Report {
+
+        private final long elapsed;
+        private final Map<Operation, Long> completed;
+        private final long rejected;
+        private final Map<String, Long> failures;
+        private final long lostUpdates;
+        private final long monitorWait;
+        private final List<String> hangs;
+
+        Report(long elapsed, Map<Operation, Long> completed, long rejected, Map<String, Long> failures,
+                long lostUpdates, long monitorWait, List<String> hangs) {
+
+            this.elapsed = elapsed;
+            this.completed = Collections.unmodifiableMap(completed);
+            this.rejected = rejected;
+            this.failures = Collections.unmodifiableMap(failures);
+            this.lostUpdates = lostUpdates;
+            this.monitorWait = monitorWait;
+            this.hangs = Collections.unmodifiableList(hangs);
+        }
+
+        /**
+         * @return Operations completed in the first phase, by type.
+         */
+        public Map<Operation, Long> getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return Operations completed per second in the first phase, all types together.
+         */
+        public double getThroughput() {
+            return completed.values().stream().mapToLong(Long::longValue).sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+
+        /**
+         * @return Operations refused because the servo was disabled, or the controller closed.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return Unexpected exceptions, by class name.
+         */
+        public Map<String, Long> getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return Position changes not counted or not delivered, or -1 if the first phase didn't complete.
+         */
+        public long getLostUpdates() {
+            return lostUpdates;
+        }
+
+        /**
+         * @return The worst 99th percentile of the controller monitor wait among the servos, in nanoseconds.
+         */
+        public long getMonitorWait() {
+            return monitorWait;
+        }
+
+        /**
+         * @return Deadlocks and stalls detected, with the stack traces. Empty if there were none.
+         */
+        public List<String> getHangs() {
+            return hangs;
+        }
+
+        /**
+         * @return {@code true} if there were no hangs, unexpected exceptions, or lost updates.
+         */
+        public boolean isClean() {
+            return hangs.isEmpty() && failures.isEmpty() && lostUpdates == 0;
+        }
+
+        void log(Logger logger) {
+
+            logger.info("throughput: {} operations/s, rejected: {}, monitor wait p99: {}μs",
+                    String.format(Locale.ROOT, "%.1f", getThroughput()), rejected, monitorWait / 1000);
+            logger.info("completed: {}", completed);
+
+            if (!failures.isEmpty()) {
+                logger.error("failures: {}", failures);
+            }
+
+            if (lostUpdates != 0) {
+                logger.error("lost updates: {}", lostUpdates);
+            }
+
+            for (var hang : hangs) {
+                logger.error(hang);
+            }
+        }
+    }
+}
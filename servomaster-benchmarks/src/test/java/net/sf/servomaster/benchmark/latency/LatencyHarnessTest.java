@@ -0,0 +1,44 @@
+package net.sf.servomaster.benchmark.latency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class LatencyHarnessTest {
+
+    @Test
+    public void keepingUp() throws IOException, InterruptedException {
+
+        var report = new LatencyHarness(2, 2, 2, 200, 100, 300, 0).run();
+
+        assertEquals(0, report.getFailed());
+        assertEquals(0, report.getMissed());
+        assertTrue("nothing completed", report.getCompleted() > 0);
+
+        for (var percentile : new double[] { 50, 99, 99.9, 100 }) {
+
+            // Every sample of the corrected series is no less than the matching uncorrected one
+            assertTrue(report.getResponseTime().getLatency(percentile) >= report.getServiceTime().getLatency(percentile));
+            assertTrue(report.getCorrectedTimeToWire().getLatency(percentile) >= report.getTimeToWire().getLatency(percentile));
+
+            // The frame goes out before setPosition() returns
+            assertTrue(report.getTimeToWire().getLatency(percentile) <= report.getServiceTime().getLatency(percentile));
+        }
+    }
+
+    @Test
+    public void fallingBehind() throws IOException, InterruptedException {
+
+        // 300 baud is 100ms per frame, a command is due every 10ms - the service time stays flat,
+        // the response time keeps growing
+
+        var report = new LatencyHarness(1, 1, 1, 100, 0, 500, 300).run();
+
+        assertTrue(report.getThroughput() < report.getTargetRate());
+        assertTrue("nothing missed", report.getMissed() > 0);
+        assertTrue(report.getResponseTime().getLatency(100) > 2 * report.getServiceTime().getLatency(100));
+    }
+}
@@ -0,0 +1,25 @@
+package net.sf.servomaster.benchmark.stress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class StressHarnessTest {
+
+    @Test
+    public void clean() throws IOException, InterruptedException {
+
+        var report = new StressHarness(2, 4, 8, 1000, 0).run();
+
+        assertTrue("hangs: " + report.getHangs(), report.getHangs().isEmpty());
+        assertTrue("failures: " + report.getFailures(), report.getFailures().isEmpty());
+        assertEquals(0, report.getLostUpdates());
+
+        for (var operation : StressHarness.Operation.values()) {
+            assertTrue(operation + " never completed", report.getCompleted().get(operation) > 0);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package net.sf.servomaster.device.impl;
 
+import net.sf.servomaster.device.impl.clock.Clock;
+import net.sf.servomaster.device.impl.jfr.PositionRequestedEvent;
+import net.sf.servomaster.device.impl.jfr.TransitionStepEvent;
+import net.sf.servomaster.device.impl.metrics.ServoMetrics;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import net.sf.servomaster.device.model.ServoController;
@@ -13,14 +17,15 @@ import org.apache.logging.log4j.ThreadContext;
 
 import java.io.IOException;
 import java.security.SecureRandom;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -38,6 +43,11 @@ public abstract class AbstractServo implements Servo {
 
     private final Logger logger = LogManager.getLogger(getClass());
 
+    private final LogContext cancelContext = new LogContext(logger, "cancelTransition");
+    private final LogContext wrapContext = new LogContext(logger, "wrap");
+
+    private final ServoMetrics metrics = new ServoMetrics();
+
     /**
      * String key to retrieve the silent support feature.
      */
@@ -108,13 +118,17 @@ public abstract class AbstractServo implements Servo {
 
     /**
      * {@code true} if this servo is enabled.
+     *
+     * Changed under the controller monitor, but {@link #setPosition(double)} checks it before taking it.
      */
-    private boolean enabled = true;
+    private volatile boolean enabled = true;
 
     /**
      * The listener set.
+     *
+     * Iterated by the notification methods without holding any lock, and changed rarely.
      */
-    private Set<ServoListener> listenerSet = new HashSet<ServoListener>();
+    private final Set<ServoListener> listenerSet = new CopyOnWriteArraySet<>();
 
     /**
      * The silencer.
@@ -167,7 +181,7 @@ public abstract class AbstractServo implements Servo {
 
         if ( getMeta().getFeatures().containsKey(META_SILENT) ) {
 
-            silencer = new ServoSilencer(5000, 30000);
+            silencer = new ServoSilencer(5000, 30000, AbstractServoController.clockOf(servoController));
             silencer.start();
         }
     }
@@ -228,6 +242,13 @@ public abstract class AbstractServo implements Servo {
         return servoController;
     }
 
+    /**
+     * @return Metrics of this servo.
+     */
+    public final ServoMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public Future<TransitionStatus> setPosition(double position) {
 
@@ -236,6 +257,12 @@ public abstract class AbstractServo implements Servo {
             throw new IllegalStateException("Not enabled");
         }
 
+        metrics.commandIssued();
+
+        var event = new PositionRequestedEvent();
+
+        event.begin();
+
         // VT: FIXME: Currently, there's no check whether the position is the same as the servo is already set to.
         // This will cause a flood of false listener notifications in case when lazy code keeps setting the same position.
         // Since the position is defined as double, it will require some sleight of hand to calculate whether
@@ -247,8 +274,12 @@ public abstract class AbstractServo implements Servo {
 
         try {
 
+            var waitStarted = System.nanoTime();
+
             synchronized (servoController) {
 
+                metrics.monitorAcquired(System.nanoTime() - waitStarted);
+
                 this.position = position;
 
                 if (transitionController == null) {
@@ -283,7 +314,15 @@ public abstract class AbstractServo implements Servo {
                 TransitionStatus status = new TransitionStatus(authToken);
                 TransitionDriver transitionDriver = new TransitionDriver(new TransitionProxy(), position);
 
-                lastTransition = transitionDriverExecutor.submit(transitionDriver, status);
+                try {
+
+                    lastTransition = transitionDriverExecutor.submit(transitionDriver, status);
+
+                } catch (RejectedExecutionException ex) {
+                    throw new IllegalStateException("Closed", ex);
+                }
+
+                metrics.transitionStarted();
 
                 return lastTransition;
             }
@@ -291,6 +330,7 @@ public abstract class AbstractServo implements Servo {
         } finally {
 
             positionChanged(position);
+            event.commit(this, position, transitionController != null);
         }
     }
 
@@ -308,7 +348,7 @@ public abstract class AbstractServo implements Servo {
             return;
         }
 
-        ThreadContext.push("cancelTransition");
+        var entered = cancelContext.enter();
 
         try {
 
@@ -323,10 +363,16 @@ public abstract class AbstractServo implements Servo {
             //
             // https://stackoverflow.com/questions/1418033/java-executors-how-can-i-stop-submitted-tasks
 
-            logger.debug("cancel: " + lastTransition.cancel(true));
+            var canceled = lastTransition.cancel(true);
+
+            if (canceled) {
+                metrics.transitionCanceled();
+            }
+
+            logger.debug("cancel: {}", canceled);
 
         } finally {
-            ThreadContext.pop();
+            cancelContext.exit(entered);
         }
     }
 
@@ -356,7 +402,7 @@ public abstract class AbstractServo implements Servo {
 
             ServoListener l = i.next();
 
-            broadcaster.execute(new RunnableWrapper(logger,"positionChanged") {
+            RunnableWrapper.execute(broadcaster, new RunnableWrapper(logger, "positionChanged", metrics, AbstractServo.this) {
 
                 @Override
                 protected void doRun() {
@@ -380,7 +426,7 @@ public abstract class AbstractServo implements Servo {
 
             ServoListener l = i.next();
 
-            broadcaster.execute(new RunnableWrapper(logger,"actualPositionChanged") {
+            RunnableWrapper.execute(broadcaster, new RunnableWrapper(logger, "actualPositionChanged", metrics, AbstractServo.this) {
 
                 @Override
                 protected void doRun() {
@@ -396,8 +442,12 @@ public abstract class AbstractServo implements Servo {
 
         // Can't make the method synchronized, it'll result in a deadlock
 
+        var waitStarted = System.nanoTime();
+
         synchronized (servoController) {
 
+            metrics.monitorAcquired(System.nanoTime() - waitStarted);
+
             this.enabled = enabled;
 
             if (!enabled) {
@@ -500,14 +550,26 @@ public abstract class AbstractServo implements Servo {
         @Override
         public void run() {
 
-            ThreadContext.push("run");
-
             try {
 
-                logger.debug("Transition: " + getActualPosition() + " => " + targetPosition);
+                if (logger.isDebugEnabled()) {
+
+                    ThreadContext.push("run");
+                    logger.debug("Transition: {} => {}", getActualPosition(), targetPosition);
+                }
 
                 transitionController.move(target, targetPosition);
 
+                // If it was interrupted, it was canceled, and counted as such
+                if (!Thread.currentThread().isInterrupted()) {
+                    metrics.transitionCompleted();
+                }
+
+            } catch (RuntimeException ex) {
+
+                metrics.transitionFailed();
+                throw ex;
+
             } finally {
 
                 // This will help when thread pool executor is used
@@ -661,11 +723,17 @@ public abstract class AbstractServo implements Servo {
         @Override
         public Future<TransitionStatus> setPosition(double position) {
 
-            ThreadContext.push("wrap");
+            var entered = wrapContext.enter();
+            var event = new TransitionStepEvent();
+            var failed = true;
+
+            event.begin();
 
             try {
 
                 AbstractServo.this.setActualPosition(position);
+                failed = false;
+
                 return new Done(null);
 
             } catch (IOException ex) {
@@ -673,7 +741,9 @@ public abstract class AbstractServo implements Servo {
                 return new Done(ex);
 
             } finally {
-                ThreadContext.pop();
+
+                event.commit(AbstractServo.this, position, failed);
+                wrapContext.exit(entered);
             }
         }
 
@@ -824,7 +894,7 @@ public abstract class AbstractServo implements Servo {
 
             ServoListener l = i.next();
 
-            broadcaster.execute(new RunnableWrapper(logger,"silentStatusChanged") {
+            RunnableWrapper.execute(broadcaster, new RunnableWrapper(logger, "silentStatusChanged", metrics, AbstractServo.this) {
 
                 @Override
                 protected void doRun() {
@@ -846,7 +916,7 @@ public abstract class AbstractServo implements Servo {
 
             ServoListener l = i.next();
 
-            broadcaster.execute(new RunnableWrapper(logger,"exception") {
+            RunnableWrapper.execute(broadcaster, new RunnableWrapper(logger, "exception", metrics, AbstractServo.this) {
 
                 @Override
                 protected void doRun() {
@@ -906,8 +976,15 @@ public abstract class AbstractServo implements Servo {
      */
     private class ServoSilencer extends Silencer {
 
-        protected ServoSilencer(long timeout, long heartbeat) {
-            super(timeout, heartbeat);
+        protected ServoSilencer(long timeout, long heartbeat, Clock clock) {
+            super(timeout, heartbeat, clock);
+        }
+
+        @Override
+        protected Object getWakeUpMonitor() {
+
+            // Drivers wake the hardware up under the controller monitor
+            return servoController;
         }
 
         @Override
@@ -918,6 +995,7 @@ public abstract class AbstractServo implements Servo {
             try {
 
                 AbstractServo.this.sleep();
+                metrics.slept();
                 AbstractServo.this.silentStatusChanged(false);
 
             } catch (IOException ioex) {
@@ -937,6 +1015,7 @@ public abstract class AbstractServo implements Servo {
             try {
 
                 AbstractServo.this.wakeUp();
+                metrics.wokeUp();
                 AbstractServo.this.silentStatusChanged(true);
 
             } catch (IOException ioex) {
@@ -1,5 +1,7 @@
 package net.sf.servomaster.device.impl;
 
+import net.sf.servomaster.device.impl.clock.Clock;
+import net.sf.servomaster.device.impl.metrics.ServoControllerMetrics;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import net.sf.servomaster.device.model.ServoController;
@@ -10,11 +12,11 @@ import org.apache.logging.log4j.ThreadContext;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -46,10 +48,17 @@ public abstract class AbstractServoController implements ServoController {
      */
     protected final String portName;
 
+    /**
+     * Metrics of this controller. The driver is expected to record the I/O figures.
+     */
+    protected final ServoControllerMetrics metrics = new ServoControllerMetrics();
+
     /**
      * The listener set.
+     *
+     * Iterated by the notification methods without holding any lock, and changed rarely.
      */
-    private Set<ServoControllerListener> listenerSet = new HashSet<ServoControllerListener>();
+    private final Set<ServoControllerListener> listenerSet = new CopyOnWriteArraySet<>();
 
     /**
      * 'disconnected' mode flag.
@@ -105,6 +114,13 @@ public abstract class AbstractServoController implements ServoController {
      */
     private final ExecutorService broadcaster = Executors.newCachedThreadPool();
 
+    /**
+     * Clock the controller, its servos, and their silencers wait by.
+     *
+     * @see #setClock(Clock)
+     */
+    private Clock clock = Clock.SYSTEM;
+
     /**
      * Create an instance.
      *
@@ -129,6 +145,54 @@ public abstract class AbstractServoController implements ServoController {
         open();
     }
 
+    /**
+     * Set the clock for the controller, its servos, and their silencers to wait by.
+     *
+     * <p>
+     *
+     * The default is {@link Clock#SYSTEM}; anything else is only useful for testing.
+     *
+     * @param clock Clock to use.
+     *
+     * @exception IllegalStateException if the controller has already been opened - the silencers
+     * are running on the old clock by then.
+     */
+    public final synchronized void setClock(Clock clock) {
+
+        if (clock == null) {
+            throw new IllegalArgumentException("clock can't be null");
+        }
+
+        if (initState.get() != 0) {
+            throw new IllegalStateException("state 0 expected, actual is " + initState.get());
+        }
+
+        this.clock = clock;
+    }
+
+    /**
+     * @return The clock this controller waits by.
+     */
+    public final synchronized Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Get the clock a controller waits by.
+     *
+     * @param controller Controller to get the clock of.
+     *
+     * @return Clock the controller waits by, {@link Clock#SYSTEM} if it doesn't say.
+     */
+    public static Clock clockOf(ServoController controller) {
+
+        if (controller instanceof AbstractServoController) {
+            return ((AbstractServoController) controller).getClock();
+        }
+
+        return Clock.SYSTEM;
+    }
+
     @Override
     public final synchronized void open() throws IOException {
 
@@ -147,6 +211,8 @@ public abstract class AbstractServoController implements ServoController {
 
         servoSet = new Servo[getServoCount()];
 
+        metrics.register(getMetricsName());
+
         startSilencer();
 
         reset();
@@ -156,7 +222,7 @@ public abstract class AbstractServoController implements ServoController {
 
         if ( getMeta().getFeatures().containsKey(Feature.SILENT.name) ) {
 
-            silencer = new ControllerSilencer(5000, 30000);
+            silencer = new ControllerSilencer(5000, 30000, clock);
             silencer.start();
         }
     }
@@ -227,7 +293,7 @@ public abstract class AbstractServoController implements ServoController {
 
             ServoControllerListener l = i.next();
 
-            broadcaster.execute(new RunnableWrapper(logger,"silentStatusChanged") {
+            RunnableWrapper.execute(broadcaster, new RunnableWrapper(logger, "silentStatusChanged", metrics, AbstractServoController.this) {
 
                 @Override
                 protected void doRun() {
@@ -249,7 +315,7 @@ public abstract class AbstractServoController implements ServoController {
 
             ServoControllerListener l = i.next();
 
-            broadcaster.execute(new RunnableWrapper(logger,"exception") {
+            RunnableWrapper.execute(broadcaster, new RunnableWrapper(logger, "exception", metrics, AbstractServoController.this) {
 
                 @Override
                 protected void doRun() {
@@ -478,6 +544,14 @@ public abstract class AbstractServoController implements ServoController {
 
                 servoSet[iID] = createServo(iID);
                 servoSet[iID].open();
+
+                if (servoSet[iID] instanceof AbstractServo) {
+
+                    var servoMetrics = ((AbstractServo) servoSet[iID]).getMetrics();
+
+                    metrics.add(servoMetrics);
+                    servoMetrics.register(getMetricsName(), servoSet[iID].getName());
+                }
             }
 
             return servoSet[iID];
@@ -528,6 +602,34 @@ public abstract class AbstractServoController implements ServoController {
 
         // We may get lucky and send notifications out before it's too late
         broadcaster.shutdown();
+
+        for (var servo : servoSet) {
+
+            if (servo instanceof AbstractServo) {
+                ((AbstractServo) servo).getMetrics().unregister();
+            }
+        }
+
+        metrics.unregister();
+    }
+
+    /**
+     * @return Metrics of this controller.
+     */
+    public final ServoControllerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the name the metrics of this controller and its servos are registered under.
+     *
+     * The port name by default. Controllers that can't be told apart by the port name must override this,
+     * or only the first one's metrics will be visible.
+     *
+     * @return Metrics name, unique among the open controllers.
+     */
+    protected String getMetricsName() {
+        return portName;
     }
 
     protected void sleep() throws IOException {
@@ -548,8 +650,15 @@ public abstract class AbstractServoController implements ServoController {
      */
     private class ControllerSilencer extends Silencer {
 
-        protected ControllerSilencer(long timeout, long heartbeat) {
-            super(timeout, heartbeat);
+        protected ControllerSilencer(long timeout, long heartbeat, Clock clock) {
+            super(timeout, heartbeat, clock);
+        }
+
+        @Override
+        protected Object getWakeUpMonitor() {
+
+            // Drivers wake the hardware up under the controller monitor
+            return AbstractServoController.this;
         }
 
         @Override
@@ -560,6 +669,7 @@ public abstract class AbstractServoController implements ServoController {
             try {
 
                 AbstractServoController.this.sleep();
+                metrics.slept();
                 AbstractServoController.this.silentStatusChanged(false);
 
             } catch (IOException ioex) {
@@ -579,6 +689,7 @@ public abstract class AbstractServoController implements ServoController {
             try {
 
                 AbstractServoController.this.wakeUp();
+                metrics.wokeUp();
                 AbstractServoController.this.silentStatusChanged(true);
 
             } catch (IOException ioex) {
@@ -0,0 +1,73 @@
+package net.sf.servomaster.device.impl;
+
+import net.sf.servomaster.device.model.ServoController;
+import net.sf.servomaster.device.model.ServoControllerProvider;
+
+import java.io.IOException;
+
+/**
+ * Base class for the providers that just call the controller constructor.
+ *
+ * <p>
+ *
+ * The subclasses only need a public no-argument constructor, for {@link java.util.ServiceLoader} to use.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public abstract class AbstractServoControllerProvider implements ServoControllerProvider {
+
+    /**
+     * Controller constructor.
+     */
+    @FunctionalInterface
+    protected interface Factory {
+
+        ServoController create(String portName) throws IOException;
+    }
+
+    private final String name;
+    private final String description;
+    private final Class<? extends ServoController> controllerClass;
+    private final Factory factory;
+
+    /**
+     * Create an instance.
+     *
+     * @param name Short name of the controller.
+     * @param description Hardware description.
+     * @param controllerClass Class of the controllers created.
+     * @param factory Controller constructor.
+     */
+    protected AbstractServoControllerProvider(String name, String description, Class<? extends ServoController> controllerClass, Factory factory) {
+
+        this.name = name;
+        this.description = description;
+        this.controllerClass = controllerClass;
+        this.factory = factory;
+    }
+
+    @Override
+    public final String getName() {
+        return name;
+    }
+
+    @Override
+    public final String getDescription() {
+        return description;
+    }
+
+    @Override
+    public final Class<? extends ServoController> getControllerClass() {
+        return controllerClass;
+    }
+
+    @Override
+    public ServoController create(String portName) throws IOException {
+        return factory.create(portName);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + controllerClass.getName() + ")";
+    }
+}
@@ -0,0 +1,81 @@
+package net.sf.servomaster.device.impl;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+/**
+ * Diagnostic context marker for the hot paths.
+ *
+ * <p>
+ *
+ * {@link ThreadContext#push(String)} allocates even if nothing ends up being logged, and the markers
+ * built with string concatenation allocate some more. An instance of this class holds the marker built
+ * once, and only pushes it if the logger is at {@code DEBUG} level or finer. At coarser levels, the hot
+ * paths don't touch the context at all - which means that the warnings and errors logged from within
+ * them will not carry the marker.
+ *
+ * <p>
+ *
+ * The level may change between the entry and the exit, hence the usage pattern:
+ *
+ * <pre>
+ * var entered = context.enter();
+ *
+ * try {
+ *     ...
+ * } finally {
+ *     context.exit(entered);
+ * }
+ * </pre>
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public final class LogContext {
+
+    private final Logger logger;
+    private final String marker;
+
+    /**
+     * Create an instance.
+     *
+     * @param logger Logger whose level decides whether the marker is pushed.
+     * @param marker Marker to push.
+     */
+    public LogContext(Logger logger, String marker) {
+
+        this.logger = logger;
+        this.marker = marker;
+    }
+
+    /**
+     * Push the marker, if the logger is at {@code DEBUG} level or finer.
+     *
+     * @return {@code true} if the marker was pushed, to be given to {@link #exit(boolean)}.
+     */
+    public boolean enter() {
+
+        if (!logger.isDebugEnabled()) {
+            return false;
+        }
+
+        ThreadContext.push(marker);
+        return true;
+    }
+
+    /**
+     * Pop the marker, if it was pushed.
+     *
+     * @param entered Value returned by the matching {@link #enter()}.
+     */
+    public void exit(boolean entered) {
+
+        if (entered) {
+            ThreadContext.pop();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return marker;
+    }
+}
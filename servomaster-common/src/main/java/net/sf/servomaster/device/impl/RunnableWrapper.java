@@ -1,24 +1,60 @@
 package net.sf.servomaster.device.impl;
 
+import net.sf.servomaster.device.impl.jfr.ListenerDeliveredEvent;
+import net.sf.servomaster.device.impl.metrics.AbstractMetrics;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 public abstract class RunnableWrapper implements Runnable {
 
     private final Logger logger;
     private final String marker;
+    private final AbstractMetrics metrics;
+    private final Object source;
     
     public RunnableWrapper(Logger logger, String marker) {
-        
+        this(logger, marker, null, null);
+    }
+
+    /**
+     * Create an instance counted as a queued notification until it is done.
+     *
+     * @param logger Logger to complain to.
+     * @param marker Log context marker.
+     * @param metrics Metrics to record the notification into, may be {@code null}.
+     * @param source Servo or controller the notification is about, for the flight recorder; may be {@code null}.
+     */
+    public RunnableWrapper(Logger logger, String marker, AbstractMetrics metrics, Object source) {
+
         this.logger = logger;
         this.marker = marker;
+        this.metrics = metrics;
+        this.source = source;
+
+        if (metrics != null) {
+            metrics.notificationQueued();
+        }
     }
     
     @Override
     public void run() {
         
-        ThreadContext.push(marker);
-        
+        // Pushing the marker costs allocations, on every notification; not worth it unless it gets printed
+
+        var entered = logger.isDebugEnabled();
+
+        if (entered) {
+            ThreadContext.push(marker);
+        }
+
+        var failed = false;
+        var event = new ListenerDeliveredEvent();
+
+        event.begin();
+
         try {
             
             doRun();
@@ -27,13 +63,48 @@ public abstract class RunnableWrapper implements Runnable {
             
             // There's nothing we can do other than complain
             logger.error("unhandled exception", t);
+            failed = true;
             
         } finally {
-            
-            ThreadContext.pop();
+
+            event.commit(source, marker, failed);
+
+            if (metrics != null) {
+                metrics.notificationDelivered(failed);
+            }
+
+            if (entered) {
+                ThreadContext.pop();
+            }
+
             ThreadContext.clearStack();
         }
     }
 
     protected abstract void doRun();
+
+    /**
+     * Hand the task over to the executor.
+     *
+     * If the executor has been shut down - {@code close()} got there first - the task is dropped and counted as failed,
+     * instead of throwing {@link RejectedExecutionException} at whoever happened to trigger it.
+     *
+     * @param executor Executor to run the task on.
+     * @param task Task to run.
+     */
+    public static void execute(Executor executor, RunnableWrapper task) {
+
+        try {
+
+            executor.execute(task);
+
+        } catch (RejectedExecutionException ex) {
+
+            task.logger.debug("{}: dropped, executor is shut down", task.marker);
+
+            if (task.metrics != null) {
+                task.metrics.notificationDelivered(true);
+            }
+        }
+    }
 }
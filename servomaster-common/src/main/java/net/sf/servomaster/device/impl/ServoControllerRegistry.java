@@ -0,0 +1,192 @@
+package net.sf.servomaster.device.impl;
+
+import net.sf.servomaster.device.model.ServoController;
+import net.sf.servomaster.device.model.ServoControllerProvider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+
+/**
+ * Servo controller drivers available on the classpath.
+ *
+ * <p>
+ *
+ * The {@link ServoControllerProvider providers} are discovered with the {@link ServiceLoader}, once, when the
+ * registry is first used, but not instantiated: {@link #find(String)} and {@link #create(String, String)} only
+ * instantiate the providers until they find the match, and only {@link #listAvailable()} instantiates them all.
+ * No controller is created until {@link #create(String, String)} is called, so {@link #listAvailable()} is safe
+ * to call on a box without any hardware attached.
+ *
+ * <p>
+ *
+ * Nothing here is looked up reflectively by name, which is what keeps the drivers usable from a
+ * native image.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public final class ServoControllerRegistry {
+
+    private static final Logger logger = LogManager.getLogger(ServoControllerRegistry.class);
+
+    private static class Holder {
+
+        static final ServoControllerRegistry instance = new ServoControllerRegistry(ServiceLoader.load(ServoControllerProvider.class).stream());
+    }
+
+    /**
+     * Providers, in the order the loader has found them.
+     */
+    private final List<Handle> handles;
+
+    /**
+     * Providers, sorted by name, {@code null} until {@link #listAvailable()} is first called.
+     * Access is guarded by {@code this}.
+     */
+    private List<ServoControllerProvider> available;
+
+    /**
+     * Create an instance.
+     *
+     * @param loader Loader to take the provider handles from.
+     */
+    ServoControllerRegistry(Stream<ServiceLoader.Provider<ServoControllerProvider>> loader) {
+
+        var found = new ArrayList<Handle>();
+        var i = loader.iterator();
+
+        while (true) {
+
+            try {
+
+                if (!i.hasNext()) {
+                    break;
+                }
+
+                found.add(new Handle(i.next()));
+
+            } catch (ServiceConfigurationError ex) {
+
+                // One broken module shouldn't take the rest down with it
+                logger.warn("Skipped a provider that failed to load", ex);
+            }
+        }
+
+        handles = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * @return The registry for the providers visible to the context class loader.
+     */
+    public static ServoControllerRegistry getInstance() {
+        return Holder.instance;
+    }
+
+    /**
+     * Instantiate all the providers, if they haven't been yet.
+     *
+     * @return Providers available, sorted by name.
+     */
+    public synchronized List<ServoControllerProvider> listAvailable() {
+
+        if (available == null) {
+
+            var found = new ArrayList<ServoControllerProvider>();
+
+            for (var handle : handles) {
+                handle.get().ifPresent(found::add);
+            }
+
+            found.sort(Comparator.comparing(ServoControllerProvider::getName));
+
+            available = Collections.unmodifiableList(found);
+        }
+
+        return available;
+    }
+
+    /**
+     * Find the provider, instantiating the providers one by one until the match is found.
+     *
+     * @param name Either the provider {@link ServoControllerProvider#getName() name}, or the controller class name.
+     *
+     * @return The provider, or empty if none matches.
+     */
+    public Optional<ServoControllerProvider> find(String name) {
+
+        for (var handle : handles) {
+
+            var found = handle.get().filter(provider -> provider.getName().equals(name) || provider.getControllerClass().getName().equals(name));
+
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Create the controller.
+     *
+     * @param name Either the provider {@link ServoControllerProvider#getName() name}, or the controller class name.
+     * @param portName Port name to give to the controller, may be {@code null}.
+     *
+     * @return The controller, not yet open.
+     *
+     * @throws IllegalArgumentException if there is no provider for this name.
+     * @throws IOException if the provider failed to create the controller.
+     */
+    public ServoController create(String name, String portName) throws IOException {
+
+        var provider = find(name).orElseThrow(() -> new IllegalArgumentException("No provider for '" + name + "', available: " + listAvailable()));
+
+        return provider.create(portName);
+    }
+
+    /**
+     * Provider handle, instantiated on first use.
+     */
+    private static class Handle {
+
+        private final ServiceLoader.Provider<ServoControllerProvider> source;
+
+        private ServoControllerProvider instance;
+        private boolean attempted = false;
+
+        Handle(ServiceLoader.Provider<ServoControllerProvider> source) {
+            this.source = source;
+        }
+
+        /**
+         * @return The provider, or empty if it failed to instantiate.
+         */
+        synchronized Optional<ServoControllerProvider> get() {
+
+            if (!attempted) {
+
+                attempted = true;
+
+                try {
+
+                    instance = source.get();
+
+                } catch (ServiceConfigurationError ex) {
+
+                    // Same as above, but found out later
+                    logger.warn("Skipped a provider that failed to instantiate: {}", source.type().getName(), ex);
+                }
+            }
+
+            return Optional.ofNullable(instance);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package net.sf.servomaster.device.impl;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 
+import net.sf.servomaster.device.impl.clock.Clock;
+
 /**
  * Provides the functionality required to support the silent mode.
  *
@@ -61,45 +65,121 @@ public abstract class Silencer extends Thread {
     private Long heartbeatAt = null;
 
     /**
-     * Thread pool for {@link #commandSleep()} and {@link #commandWakeUp().
+     * The thread {@link #executor} runs the commands on.
+     */
+    private volatile Thread commandThread;
+
+    /**
+     * Thread pool for {@link #commandSleep()} and {@link #commandWakeUp(CountDownLatch)}.
      *
      * This pool requires exactly one thread.
      */
-    private final ExecutorService executor = Executors.newFixedThreadPool(1);
+    private final ExecutorService executor = Executors.newFixedThreadPool(1, r -> {
+
+        commandThread = Executors.defaultThreadFactory().newThread(r);
+        return commandThread;
+    });
+
+    /**
+     * Clock to measure the timeout and the heartbeat by.
+     */
+    private final Clock clock;
 
     protected Silencer(long timeout, long heartbeat) {
+        this(timeout, heartbeat, Clock.SYSTEM);
+    }
+
+    protected Silencer(long timeout, long heartbeat, Clock clock) {
+
+        if (clock == null) {
+            throw new IllegalArgumentException("clock can't be null");
+        }
 
         this.timeout = timeout;
         this.heartbeat = heartbeat;
+        this.clock = clock;
     }
 
-    public synchronized void setSilentMode(boolean enabled) {
+    /**
+     * Turn the silent mode on or off.
+     *
+     * <p>
+     *
+     * Turning it off wakes the target up, if it was asleep. The wake-up is done on another thread, and
+     * this method waits for it to complete, so whatever the caller does next happens to an awake target -
+     * unless the caller is holding the {@link #getWakeUpMonitor() monitor the wake-up needs}, or is itself
+     * running on the command thread. Then the wake-up happens some time later, and the caller has to
+     * be prepared for the target to still be asleep.
+     *
+     * @param enabled {@code true} to turn the silent mode on.
+     */
+    public void setSilentMode(boolean enabled) {
+
+        CountDownLatch woken;
 
-        if (this.enabled == enabled) {
+        synchronized (this) {
 
-            // do nothing
-            return;
-        }
+            if (this.enabled == enabled) {
+
+                // do nothing
+                return;
+            }
 
-        this.enabled = enabled;
+            this.enabled = enabled;
 
-        if (!enabled) {
+            if (enabled) {
 
-            // Alas, we need to wake them up
-            wakeUp();
+                silenceAt = clock.currentTimeMillis() + timeout;
+
+                // Notify run() about changes
+                notify();
+                return;
+            }
+
+            // Alas, we need to wake them up. Not directly, for the same reason commandWakeUp() exists - the caller
+            // may be holding the controller monitor, and touch() takes this one while holding it.
+            woken = new CountDownLatch(1);
+            commandWakeUp(woken);
 
             silenceAt = null;
             heartbeatAt = null;
 
             // Notify run() about changes
             notify();
+        }
+
+        var monitor = getWakeUpMonitor();
+
+        if ((monitor != null && Thread.holdsLock(monitor)) || Thread.currentThread() == commandThread) {
+
+            // Waiting would be a deadlock
             return;
         }
 
-        silenceAt = System.currentTimeMillis() + timeout;
+        awaitWakeUp(woken);
+    }
+
+    /**
+     * Wait until the wake-up command completes, or is dropped because the silencer has been stopped.
+     *
+     * @param woken Latch the wake-up command counts down when done.
+     */
+    private void awaitWakeUp(CountDownLatch woken) {
+
+        try {
+
+            while (!woken.await(100, TimeUnit.MILLISECONDS)) {
+
+                if (executor.isTerminated()) {
+
+                    // Stopped before the command had a chance to run, it never will
+                    return;
+                }
+            }
 
-        // Notify run() about changes
-        notify();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public synchronized boolean getSilentMode() {
@@ -138,12 +218,12 @@ public abstract class Silencer extends Thread {
             if (silenceAt != null) {
 
                 // We were active, let's keep it that way
-                silenceAt = System.currentTimeMillis() + timeout;
+                silenceAt = clock.currentTimeMillis() + timeout;
 
             } else {
 
                 // We were sleeping, time to wake up
-                heartbeatAt = System.currentTimeMillis();
+                heartbeatAt = clock.currentTimeMillis();
             }
 
         } finally {
@@ -168,13 +248,13 @@ public abstract class Silencer extends Thread {
                     if (!enabled || !targetEnabled) {
 
                         logger.debug("not silent or not enabled, waiting indefinitely");
-                        wait();
+                        clock.await(this, 0);
 
                         // Wait is over, let's see what's going on
                         continue;
                     }
 
-                    long now = System.currentTimeMillis();
+                    long now = clock.currentTimeMillis();
 
                     // Only one of silenceAt and heartbeatAt can be not null at any time
 
@@ -187,16 +267,16 @@ public abstract class Silencer extends Thread {
                         if (silenceAt != null) {
 
                             silenceAt = null;
-                            heartbeatAt = System.currentTimeMillis() + heartbeat;
+                            heartbeatAt = clock.currentTimeMillis() + heartbeat;
 
                             commandSleep();
 
                         } else {
 
-                            silenceAt = System.currentTimeMillis() + timeout;
+                            silenceAt = clock.currentTimeMillis() + timeout;
                             heartbeatAt = null;
 
-                            commandWakeUp();
+                            commandWakeUp(new CountDownLatch(1));
                         }
 
                         // Back to wait
@@ -206,11 +286,14 @@ public abstract class Silencer extends Thread {
                     // Hmm, wait is not over... Must've been touch()ed
 
                     // We don't care much that it is inexact
-                    long interval = deadline - System.currentTimeMillis();
+                    long interval = deadline - clock.currentTimeMillis();
 
-                    logger.debug("waiting " + interval + "ms " + (silenceAt != null ? "to sleep" : "for heartbeat"));
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("waiting {}ms {}", interval, silenceAt != null ? "to sleep" : "for heartbeat");
+                    }
 
-                    wait(interval);
+                    // A zero interval would mean forever
+                    clock.await(this, Math.max(1, interval));
 
                 } catch (InterruptedException ex) {
 
@@ -234,7 +317,7 @@ public abstract class Silencer extends Thread {
 
         // Calling sleep() directly *will* cause a deadlock on a controller
 
-        executor.execute(new RunnableWrapper(logger, "commandSleep") {
+        RunnableWrapper.execute(executor, new RunnableWrapper(logger, "commandSleep") {
 
             @Override
             protected void doRun() {
@@ -244,20 +327,38 @@ public abstract class Silencer extends Thread {
         });
     }
 
-    private void commandWakeUp() {
+    /**
+     * @param woken Latch to count down when the wake-up is done.
+     */
+    private void commandWakeUp(CountDownLatch woken) {
 
         // Calling wakeUp() directly *will* cause a deadlock on a controller
 
-        executor.execute(new RunnableWrapper(logger, "commandWakeUp") {
+        RunnableWrapper.execute(executor, new RunnableWrapper(logger, "commandWakeUp") {
 
             @Override
             protected void doRun() {
 
-                wakeUp();
+                try {
+                    wakeUp();
+                } finally {
+                    woken.countDown();
+                }
             }
         });
     }
 
+    /**
+     * Get the monitor {@link #wakeUp()} takes.
+     *
+     * {@link #setSilentMode(boolean) setSilentMode(false)} doesn't wait for the wake-up if the caller holds it.
+     *
+     * @return The monitor, or {@code null} if the wake-up doesn't take any the caller may be holding.
+     */
+    protected Object getWakeUpMonitor() {
+        return null;
+    }
+
     abstract protected void sleep();
     abstract protected void wakeUp();
 }
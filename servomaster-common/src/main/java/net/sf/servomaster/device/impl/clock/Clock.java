@@ -0,0 +1,69 @@
+package net.sf.servomaster.device.impl.clock;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of time, and the means to wait for it.
+ *
+ * <p>
+ *
+ * Everything in the library that waits for a period of time - the silencers, the simulated hardware delays,
+ * the command pacing, the demos - does it through a clock instead of calling {@link System#currentTimeMillis()},
+ * {@link Object#wait(long)} or {@link Thread#sleep(long)} directly. In production, it is the {@link #SYSTEM system clock};
+ * in tests, it is a {@link VirtualClock} that only moves when told to.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public interface Clock {
+
+    /**
+     * The real time.
+     */
+    Clock SYSTEM = new SystemClock();
+
+    /**
+     * @return Current time in milliseconds, comparable to {@link System#currentTimeMillis()}.
+     */
+    long currentTimeMillis();
+
+    /**
+     * @return Current value of the time source, in nanoseconds, comparable to {@link System#nanoTime()}:
+     * only meaningful as a difference between two readings of the same clock.
+     */
+    long nanoTime();
+
+    /**
+     * Same as {@link Thread#sleep(long)}, by this clock.
+     *
+     * @param millis Time to sleep, in milliseconds. Nothing happens if it is not positive.
+     *
+     * @throws InterruptedException if interrupted.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Same as {@code monitor.wait(millis)}, by this clock.
+     *
+     * <p>
+     *
+     * The caller must hold the monitor, and must be ready to wake up before the time is up - the wait ends early
+     * if the monitor is notified, or for no reason at all, same as {@link Object#wait(long)}.
+     *
+     * @param monitor Monitor to wait on.
+     * @param millis Time to wait, in milliseconds, 0 to wait until notified.
+     *
+     * @throws InterruptedException if interrupted.
+     */
+    void await(Object monitor, long millis) throws InterruptedException;
+
+    /**
+     * Run the task on the executor after the delay, by this clock.
+     *
+     * @param executor Executor to run the task on.
+     * @param task Task to run.
+     * @param delay Delay, 0 or negative to run it right away.
+     * @param unit Delay units.
+     */
+    void schedule(ScheduledExecutorService executor, Runnable task, long delay, TimeUnit unit);
+}
@@ -0,0 +1,51 @@
+package net.sf.servomaster.device.impl.clock;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The real time. Use {@link Clock#SYSTEM}, there's no point in having more than one.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public final class SystemClock implements Clock {
+
+    SystemClock() {
+        // Only Clock.SYSTEM
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public void await(Object monitor, long millis) throws InterruptedException {
+
+        // The caller is the one looping on the condition
+        monitor.wait(millis);
+    }
+
+    @Override
+    public void schedule(ScheduledExecutorService executor, Runnable task, long delay, TimeUnit unit) {
+        executor.schedule(task, Math.max(0, delay), unit);
+    }
+
+    @Override
+    public String toString() {
+        return "system";
+    }
+}
@@ -0,0 +1,350 @@
+package net.sf.servomaster.device.impl.clock;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Clock that only moves when {@link #advance(long, TimeUnit) told to}.
+ *
+ * <p>
+ *
+ * Threads sleeping or waiting on this clock stay put until the time is advanced past their deadline, no matter how
+ * much real time passes. Advancing the time fires the deadlines one at a time, in order; after each one, it waits
+ * until the thread it has woken is blocked on this clock again (or the task it has scheduled is done), so the
+ * code under test sees the same sequence of events it would see in real time, only without waiting for it.
+ * An hour of silencer cycles takes milliseconds, and comes out the same every time.
+ *
+ * <p>
+ *
+ * A woken thread that doesn't come back to this clock (exits, or blocks on something else) is given
+ * {@link #SETTLE_TIMEOUT} of real time before the clock moves on without it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class VirtualClock implements Clock {
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    /**
+     * How long to wait for a woken thread to settle, real time, milliseconds.
+     */
+    public static final long SETTLE_TIMEOUT = 1000;
+
+    private final long startMillis;
+
+    /**
+     * Time since the start, nanoseconds. Guarded by {@code this}, like the rest of the state.
+     */
+    private long now = 0;
+
+    private long sequence = 0;
+
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+
+    /**
+     * Number of threads in {@link #sleep(long)} or {@link #await(Object, long)} that haven't been woken by this clock.
+     */
+    private int blocked = 0;
+
+    /**
+     * Create an instance starting at the epoch.
+     */
+    public VirtualClock() {
+        this(0);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param startMillis {@link #currentTimeMillis()} at the start.
+     */
+    public VirtualClock(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return startMillis + TimeUnit.NANOSECONDS.toMillis(now);
+    }
+
+    @Override
+    public synchronized long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+
+        if (millis <= 0) {
+            return;
+        }
+
+        var released = new CountDownLatch(1);
+        var timer = enter(TimeUnit.MILLISECONDS.toNanos(millis), released::countDown);
+
+        try {
+            released.await();
+        } finally {
+            exit(timer);
+        }
+    }
+
+    @Override
+    public void await(Object monitor, long millis) throws InterruptedException {
+
+        if (millis < 0) {
+            throw new IllegalArgumentException("Negative timeout: " + millis);
+        }
+
+        var timer = enter(millis == 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(millis), () -> {
+
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        });
+
+        try {
+            // The caller is the one looping on the condition
+            monitor.wait(); // NOSONAR Consequences have been considered
+        } finally {
+            exit(timer);
+        }
+    }
+
+    @Override
+    public void schedule(ScheduledExecutorService executor, Runnable task, long delay, TimeUnit unit) {
+
+        var nanos = unit.toNanos(delay);
+
+        if (nanos <= 0) {
+            executor.execute(task);
+            return;
+        }
+
+        synchronized (this) {
+
+            timers.add(new Timer(now + nanos, sequence++, false, () -> {
+
+                var done = new CountDownLatch(1);
+
+                try {
+
+                    executor.execute(() -> {
+
+                        try {
+                            task.run();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+
+                } catch (RejectedExecutionException ex) {
+
+                    // Same as a real scheduled executor would do with a delayed task after shutdown()
+                    logger.debug("executor is shut down, task dropped", ex);
+                    return;
+                }
+
+                try {
+
+                    if (!done.await(SETTLE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                        logger.warn("task didn't complete in {}ms, moving on", SETTLE_TIMEOUT);
+                    }
+
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            notifyAll();
+        }
+    }
+
+    /**
+     * Move the time forward, firing the deadlines on the way.
+     *
+     * @param amount How far to move.
+     * @param unit Units.
+     *
+     * @throws InterruptedException if interrupted.
+     */
+    public void advance(long amount, TimeUnit unit) throws InterruptedException {
+
+        if (amount < 0) {
+            throw new IllegalArgumentException("Time doesn't go backwards: " + amount);
+        }
+
+        long target;
+
+        synchronized (this) {
+            target = now + unit.toNanos(amount);
+        }
+
+        while (true) {
+
+            Timer timer;
+            int before;
+
+            synchronized (this) {
+
+                timer = timers.peek();
+
+                if (timer == null || timer.deadline > target) {
+
+                    now = target;
+                    return;
+                }
+
+                timers.poll();
+
+                now = timer.deadline;
+                timer.fired = true;
+                before = blocked;
+
+                if (timer.waiter) {
+                    blocked--;
+                }
+            }
+
+            timer.action.run();
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (timer.waiter) {
+                settle(before);
+            }
+        }
+    }
+
+    /**
+     * Wait until there are at least this many deadlines pending - for example, until the thread under test
+     * has started waiting.
+     *
+     * @param count Number of deadlines to wait for.
+     * @param timeout Timeout, real time.
+     * @param unit Timeout units.
+     *
+     * @return {@code false} if the timeout expired first.
+     *
+     * @throws InterruptedException if interrupted.
+     */
+    public synchronized boolean awaitPending(int count, long timeout, TimeUnit unit) throws InterruptedException {
+
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (timers.size() < count) {
+
+            var left = deadline - System.nanoTime();
+
+            if (left <= 0) {
+                return false;
+            }
+
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+
+        return true;
+    }
+
+    /**
+     * Wait for the thread just woken to block on this clock again.
+     *
+     * @param before Number of threads blocked before it was woken.
+     */
+    private synchronized void settle(int before) throws InterruptedException {
+
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_TIMEOUT);
+
+        while (blocked < before) {
+
+            var left = deadline - System.nanoTime();
+
+            if (left <= 0) {
+
+                logger.debug("woken thread didn't come back in {}ms, moving on", SETTLE_TIMEOUT);
+                return;
+            }
+
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+    }
+
+    /**
+     * Register the calling thread as blocked.
+     *
+     * @param delay Time to block for, nanoseconds, negative for no deadline.
+     * @param action What to do at the deadline.
+     */
+    private synchronized Timer enter(long delay, Runnable action) {
+
+        var timer = new Timer(delay < 0 ? Long.MAX_VALUE : now + delay, sequence++, true, action);
+
+        if (delay >= 0) {
+            timers.add(timer);
+        }
+
+        blocked++;
+        notifyAll();
+
+        return timer;
+    }
+
+    /**
+     * Register the calling thread as no longer blocked, whatever the reason.
+     */
+    private synchronized void exit(Timer timer) {
+
+        if (timer.fired) {
+            // advance() has already taken care of it
+            return;
+        }
+
+        timers.remove(timer);
+        blocked--;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "virtual(" + currentTimeMillis() + "ms, " + timers.size() + " pending)";
+    }
+
+    private static class Timer implements Comparable<Timer> {
+
+        final long deadline;
+        final long sequence;
+
+        /**
+         * {@code true} if a thread is blocked waiting for this timer, {@code false} if it is a scheduled task.
+         */
+        final boolean waiter;
+
+        final Runnable action;
+
+        boolean fired = false;
+
+        Timer(long deadline, long sequence, boolean waiter, Runnable action) {
+
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.waiter = waiter;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+
+            var result = Long.compare(deadline, other.deadline);
+
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
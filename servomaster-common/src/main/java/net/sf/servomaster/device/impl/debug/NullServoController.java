@@ -2,11 +2,13 @@ package net.sf.servomaster.device.impl.debug;
 
 import net.sf.servomaster.device.impl.AbstractMeta;
 import net.sf.servomaster.device.impl.AbstractServoController;
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
 import net.sf.servomaster.device.impl.HardwareServo;
+import net.sf.servomaster.device.impl.LogContext;
+import net.sf.servomaster.device.impl.jfr.WriteEvent;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import net.sf.servomaster.device.model.ServoController;
-import org.apache.logging.log4j.ThreadContext;
 
 import java.io.IOException;
 
@@ -17,6 +19,16 @@ import java.io.IOException;
  */
 public class NullServoController extends AbstractServoController {
 
+    private final LogContext delayContext = new LogContext(logger, "delay");
+
+    /**
+     * Simulated bandwidth, commands per second, 0 for no limit.
+     *
+     * Can be changed via the {@code controller/bandwidth} property - benchmarks set it to 0
+     * to measure the library itself rather than the simulated delay.
+     */
+    private volatile int bandwidth = 2400 / 8;
+
     public NullServoController() throws IOException {
         this("/dev/null");
     }
@@ -73,7 +85,18 @@ public class NullServoController extends AbstractServoController {
             properties.put("controller/maxservos", Integer.toString(getServoCount()));
 
             // This is to make "crawl" work as expected
-            properties.put("controller/bandwidth", Integer.toString(2400 / 8));
+            properties.put("controller/bandwidth", Integer.toString(bandwidth));
+
+            propertyWriters.put("controller/bandwidth", (key, value) -> {
+
+                var b = Integer.parseInt(value.toString());
+
+                if (b < 0) {
+                    throw new IllegalArgumentException("Bandwidth can't be negative: " + b);
+                }
+
+                bandwidth = b;
+            });
 
             properties.put("servo/range/min", "0");
             properties.put("servo/range/max", "1023");
@@ -87,7 +110,7 @@ public class NullServoController extends AbstractServoController {
      */
     private synchronized void delay() {
 
-        ThreadContext.push("delay");
+        var entered = delayContext.enter();
 
         try {
 
@@ -97,18 +120,32 @@ public class NullServoController extends AbstractServoController {
             // the speed is determined by controller bandwidth, let's emulate a delay similar to one at
             // advertised controller/bandwidth baud.
 
-            long delay = 1000 / Integer.parseInt((String) getMeta().getProperty("controller/bandwidth"));
+            var b = bandwidth;
+            var delay = b == 0 ? 0 : 1000L / b;
+            var clock = getClock();
+            var start = clock.nanoTime();
 
-            try {
+            // wait(0) would be forever
+            if (delay > 0) {
+
+                try {
 
-                wait(delay);
+                    clock.await(this, delay);
 
-            } catch (Throwable t) { // NOSONAR Consequences have been considered
-                logger.error("wait interrupted???", t);
+                } catch (Throwable t) { // NOSONAR Consequences have been considered
+                    logger.error("wait interrupted???", t);
+                }
             }
 
+            // Nothing is written, but the command was "sent"
+
+            var latency = clock.nanoTime() - start;
+
+            metrics.sent(0, latency);
+            WriteEvent.emit(this, null, 0, latency, false);
+
         } finally {
-            ThreadContext.pop();
+            delayContext.exit(entered);
         }
     }
 
@@ -129,6 +166,8 @@ public class NullServoController extends AbstractServoController {
 
         short position = (short) (position_min + (position_max - position_min) / 2);
 
+        private final LogContext positionContext = new LogContext(logger, "setActualPosition id=" + id);
+
         public NullServo(ServoController servoController, int id) throws IOException {
             super(servoController, id);
 
@@ -144,7 +183,7 @@ public class NullServoController extends AbstractServoController {
         @Override
         protected void setActualPosition(double position) throws IOException {
 
-            ThreadContext.push("setActualPosition id=" + id);
+            var entered = positionContext.enter();
 
             try {
 
@@ -152,8 +191,9 @@ public class NullServoController extends AbstractServoController {
 
                 this.position = (short)(position_min + (position_max - position_min) * position);
 
-                logger.info("requested={}", position);
-                logger.info("actual={}", this.position);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("requested={}, actual={}", position, this.position);
+                }
 
                 delay();
 
@@ -164,7 +204,7 @@ public class NullServoController extends AbstractServoController {
                 touch();
 
             } finally {
-                ThreadContext.pop();
+                positionContext.exit(entered);
             }
 
         }
@@ -242,4 +282,14 @@ public class NullServoController extends AbstractServoController {
             }
         }
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("null", "No hardware, just debug statements", NullServoController.class, NullServoController::new);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+
+/**
+ * What all the flight recorder events have in common: who they are about.
+ *
+ * <p>
+ *
+ * The identity is only filled in right before the event is committed, and only if it is going to be,
+ * so the events cost next to nothing while the recording is off.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@Category("ServoMaster")
+abstract class AbstractServoEvent extends Event {
+
+    @Label("Controller")
+    @Description("Port of the controller")
+    String controller;
+
+    @Label("Servo")
+    @Description("Servo name, absent if the event is not about a single servo")
+    String servo;
+
+    /**
+     * Fill in the identity.
+     *
+     * @param source Servo or controller the event is about, may be {@code null}.
+     */
+    final void identify(Object source) {
+
+        if (source instanceof Servo) {
+
+            var target = (Servo) source;
+
+            servo = target.getName();
+            source = target.getController();
+        }
+
+        if (source instanceof ServoController) {
+            controller = ((ServoController) source).getPort();
+        }
+    }
+
+    /**
+     * Fill in the identity, for the drivers that only know the servo by its ID.
+     *
+     * @param source Controller the event is about.
+     * @param id Servo ID, or {@code null} if the event is not about a single servo.
+     */
+    final void identify(ServoController source, Object id) {
+
+        controller = source == null ? null : source.getPort();
+        servo = id == null ? null : id.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Listener notification delivered by the broadcaster. The duration is the time the listeners took.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@Name("net.sf.servomaster.ListenerDelivered")
+@Label("Listener Delivered")
+@Category({"ServoMaster", "Listener"})
+public class ListenerDeliveredEvent extends AbstractServoEvent {
+
+    @Label("Notification")
+    String notification;
+
+    @Label("Failed")
+    boolean failed;
+
+    /**
+     * Commit the event, if it is enabled and has lasted long enough to be of interest.
+     *
+     * @param source Servo or controller the notification is about, may be {@code null}.
+     * @param notification Notification name.
+     * @param failed Whether the listener has thrown an exception.
+     */
+    public void commit(Object source, String notification, boolean failed) {
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        identify(source);
+
+        this.notification = notification;
+        this.failed = failed;
+
+        commit();
+    }
+}
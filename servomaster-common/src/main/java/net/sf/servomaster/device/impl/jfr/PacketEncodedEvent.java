@@ -0,0 +1,42 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import net.sf.servomaster.device.model.ServoController;
+
+/**
+ * Position command rendered into the controller's wire format.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@Name("net.sf.servomaster.PacketEncoded")
+@Label("Packet Encoded")
+@Category({"ServoMaster", "Transport"})
+public class PacketEncodedEvent extends AbstractServoEvent {
+
+    @Label("Size")
+    @DataAmount
+    int size;
+
+    /**
+     * Commit the event, if it is enabled.
+     *
+     * @param source Controller the packet is for.
+     * @param id Servo ID, or {@code null} if the packet carries more than one servo.
+     * @param size Packet size, bytes.
+     */
+    public static void emit(ServoController source, Object id, int size) {
+
+        var event = new PacketEncodedEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.identify(source, id);
+        event.size = size;
+        event.commit();
+    }
+}
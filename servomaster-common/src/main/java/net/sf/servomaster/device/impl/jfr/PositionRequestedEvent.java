@@ -0,0 +1,51 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import net.sf.servomaster.device.model.Servo;
+
+/**
+ * {@code setPosition()} call accepted by the servo.
+ *
+ * <p>
+ *
+ * The duration covers the wait for the controller monitor, and either the write (if there's no transition
+ * controller), or handing the transition over to the transition driver.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@Name("net.sf.servomaster.PositionRequested")
+@Label("Position Requested")
+@Category({"ServoMaster", "Servo"})
+public class PositionRequestedEvent extends AbstractServoEvent {
+
+    @Label("Position")
+    double position;
+
+    @Label("Transition")
+    @Description("Whether the position will be reached by a transition controller")
+    boolean transition;
+
+    /**
+     * Commit the event, if it is enabled and has lasted long enough to be of interest.
+     *
+     * @param source Servo the position was requested from.
+     * @param position Requested position.
+     * @param transition Whether the position will be reached by a transition controller.
+     */
+    public void commit(Servo source, double position, boolean transition) {
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        identify(source);
+
+        this.position = position;
+        this.transition = transition;
+
+        commit();
+    }
+}
@@ -0,0 +1,44 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import net.sf.servomaster.device.model.Servo;
+
+/**
+ * Intermediate position computed by the transition controller, and sent to the hardware.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@Name("net.sf.servomaster.TransitionStep")
+@Label("Transition Step")
+@Category({"ServoMaster", "Servo"})
+public class TransitionStepEvent extends AbstractServoEvent {
+
+    @Label("Position")
+    double position;
+
+    @Label("Failed")
+    boolean failed;
+
+    /**
+     * Commit the event, if it is enabled and has lasted long enough to be of interest.
+     *
+     * @param source Servo being moved.
+     * @param position Position of this step.
+     * @param failed Whether the hardware has refused it.
+     */
+    public void commit(Servo source, double position, boolean failed) {
+
+        if (!shouldCommit()) {
+            return;
+        }
+
+        identify(source);
+
+        this.position = position;
+        this.failed = failed;
+
+        commit();
+    }
+}
@@ -0,0 +1,62 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import net.sf.servomaster.device.model.ServoController;
+
+/**
+ * Bytes written to the port, or the USB IRP carrying them completed.
+ *
+ * <p>
+ *
+ * The event is committed when the write is over, and carries its latency as a field - for USB, the IRP
+ * completes on a different thread than the one it was submitted on, so the event's own duration would be
+ * meaningless.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@Name("net.sf.servomaster.Write")
+@Label("Write Completed")
+@Category({"ServoMaster", "Transport"})
+public class WriteEvent extends AbstractServoEvent {
+
+    @Label("Bytes")
+    @DataAmount
+    int bytes;
+
+    @Label("Latency")
+    @Description("Time from the start of the write (or the IRP submission) to its completion")
+    @Timespan
+    long latency;
+
+    @Label("Failed")
+    boolean failed;
+
+    /**
+     * Commit the event, if it is enabled.
+     *
+     * @param source Controller that has done the write.
+     * @param id Servo ID, or {@code null} if the write is not about a single servo.
+     * @param bytes Number of bytes written.
+     * @param nanos Write latency, nanoseconds.
+     * @param failed Whether the write has failed.
+     */
+    public static void emit(ServoController source, Object id, int bytes, long nanos, boolean failed) {
+
+        var event = new WriteEvent();
+
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.identify(source, id);
+        event.bytes = bytes;
+        event.latency = nanos;
+        event.failed = failed;
+        event.commit();
+    }
+}
@@ -0,0 +1,185 @@
+package net.sf.servomaster.device.impl.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What controllers and servos have in common: the listener notifications, and the silencer.
+ *
+ * <p>
+ *
+ * The counters are {@link LongAdder}s, so the threads recording into them don't contend. The metrics are always
+ * recorded; they are only visible via JMX once {@link #register(ObjectName) registered}. Setting the
+ * {@code servomaster.jmx} system property to {@code false} prevents the registration.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public abstract class AbstractMetrics {
+
+    /**
+     * JMX domain all the MBeans are registered in.
+     */
+    public static final String DOMAIN = "net.sf.servomaster";
+
+    private static final boolean JMX_ENABLED = Boolean.parseBoolean(System.getProperty("servomaster.jmx", "true"));
+
+    protected final Logger logger = LogManager.getLogger(getClass());
+
+    private final LongAdder notificationsQueued = new LongAdder();
+    private final LongAdder notificationsDelivered = new LongAdder();
+    private final LongAdder listenerExceptions = new LongAdder();
+    private final LongAdder sleeps = new LongAdder();
+    private final LongAdder wakeUps = new LongAdder();
+
+    private ObjectName name;
+
+    /**
+     * Record a listener notification handed over to the broadcaster.
+     */
+    public void notificationQueued() {
+        notificationsQueued.increment();
+    }
+
+    /**
+     * Record a listener notification done with.
+     *
+     * @param failed {@code true} if the listener has thrown an exception.
+     */
+    public void notificationDelivered(boolean failed) {
+
+        notificationsDelivered.increment();
+
+        if (failed) {
+            listenerExceptions.increment();
+        }
+    }
+
+    public void slept() {
+        sleeps.increment();
+    }
+
+    public void wokeUp() {
+        wakeUps.increment();
+    }
+
+    /**
+     * @return Listener notifications queued, but not yet delivered.
+     */
+    public long getNotificationQueueDepth() {
+
+        // Read in this order, the depth may come out too large by a few, but never negative
+        var delivered = notificationsDelivered.sum();
+
+        return notificationsQueued.sum() - delivered;
+    }
+
+    /**
+     * @return Listener notifications delivered, including the ones the listener has thrown an exception on.
+     */
+    public long getNotificationsDelivered() {
+        return notificationsDelivered.sum();
+    }
+
+    /**
+     * @return Exceptions thrown by the listeners.
+     */
+    public long getListenerExceptions() {
+        return listenerExceptions.sum();
+    }
+
+    /**
+     * @return Number of times the silencer has put the device to sleep.
+     */
+    public long getSleepCount() {
+        return sleeps.sum();
+    }
+
+    /**
+     * @return Number of times the silencer has woken the device up.
+     */
+    public long getWakeUpCount() {
+        return wakeUps.sum();
+    }
+
+    /**
+     * Make this instance visible via JMX. Failure to register is logged, and otherwise ignored.
+     *
+     * @param name Name to register under.
+     */
+    public synchronized void register(ObjectName name) {
+
+        if (!JMX_ENABLED || this.name != null) {
+            return;
+        }
+
+        try {
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            this.name = name;
+
+        } catch (JMException ex) {
+
+            logger.warn("Can't register {}, metrics will not be visible", name, ex);
+        }
+    }
+
+    /**
+     * Remove this instance from JMX, if it was registered.
+     */
+    public synchronized void unregister() {
+
+        if (name == null) {
+            return;
+        }
+
+        try {
+
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+
+        } catch (JMException ex) {
+
+            logger.warn("Can't unregister {}", name, ex);
+
+        } finally {
+            name = null;
+        }
+    }
+
+    /**
+     * @return The name this instance is registered under, or {@code null} if it isn't.
+     */
+    public synchronized ObjectName getObjectName() {
+        return name;
+    }
+
+    /**
+     * Create the name to register under.
+     *
+     * @param type MBean type.
+     * @param port Controller port, may be {@code null}.
+     * @param id Servo ID, {@code null} for the controller.
+     *
+     * @return The name.
+     */
+    static ObjectName createName(String type, String port, String id) {
+
+        var sb = new StringBuilder(DOMAIN).append(":type=").append(type).append(",port=").append(ObjectName.quote(String.valueOf(port)));
+
+        if (id != null) {
+            sb.append(",id=").append(ObjectName.quote(id));
+        }
+
+        try {
+
+            return new ObjectName(sb.toString());
+
+        } catch (JMException ex) {
+            throw new IllegalArgumentException("Bad name: " + sb, ex);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.sf.servomaster.device.impl.metrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram, cheap enough to record into on every command.
+ *
+ * <p>
+ *
+ * The buckets are fixed, one per power of two nanoseconds, so recording a value is finding the bit length
+ * of it and incrementing a {@link LongAdder}. Nothing is allocated, and concurrent writers don't contend.
+ * The price is the resolution - a percentile is only known to be within a factor of two, which is enough
+ * to tell microseconds from milliseconds from seconds.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public final class Histogram {
+
+    /**
+     * Number of buckets. The last one takes everything longer than 2<sup>39</sup> nanoseconds, about nine minutes.
+     */
+    static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+
+        for (var offset = 0; offset < BUCKETS; offset++) {
+            buckets[offset] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param nanos Duration, in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+
+        var value = Math.max(0, nanos);
+
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return Values recorded so far.
+     */
+    public HistogramSnapshot getSnapshot() {
+        return merge(List.of(this));
+    }
+
+    /**
+     * Combine the histograms.
+     *
+     * @param histograms Histograms to combine.
+     *
+     * @return Values recorded so far by all of them.
+     */
+    public static HistogramSnapshot merge(Collection<Histogram> histograms) {
+
+        var counts = new long[BUCKETS];
+        var total = 0L;
+        var highest = 0L;
+
+        for (var h : histograms) {
+
+            for (var offset = 0; offset < BUCKETS; offset++) {
+                counts[offset] += h.buckets[offset].sum();
+            }
+
+            total += h.sum.sum();
+            highest = Math.max(highest, h.max.get());
+        }
+
+        return new HistogramSnapshot(counts, total, highest);
+    }
+}
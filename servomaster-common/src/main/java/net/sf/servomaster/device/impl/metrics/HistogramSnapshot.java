@@ -0,0 +1,101 @@
+package net.sf.servomaster.device.impl.metrics;
+
+/**
+ * {@link Histogram} values at the moment the snapshot was taken.
+ *
+ * Shows up in JMX as a composite attribute. All durations are in nanoseconds.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class HistogramSnapshot {
+
+    /**
+     * Bucket counts. Bucket {@code n} holds the values 2<sup>n-1</sup> to 2<sup>n</sup>-1 long.
+     */
+    private final long[] buckets;
+
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] buckets, long sum, long max) {
+
+        this.buckets = buckets;
+        this.sum = sum;
+        this.max = max;
+
+        var total = 0L;
+
+        for (var b : buckets) {
+            total += b;
+        }
+
+        this.count = total;
+    }
+
+    /**
+     * @return Number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Mean value, or 0 if nothing was recorded.
+     */
+    public long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return The largest value recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    public long getP90() {
+        return getPercentile(90);
+    }
+
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    /**
+     * Get the percentile.
+     *
+     * @param percentile Percentile, 0 to 100.
+     *
+     * @return Upper bound of the bucket the percentile falls into, but no more than {@link #getMax()};
+     * 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+
+        if (count == 0) {
+            return 0;
+        }
+
+        var rank = (long) Math.ceil(percentile / 100 * count);
+        var seen = 0L;
+
+        for (var offset = 0; offset < buckets.length; offset++) {
+
+            seen += buckets[offset];
+
+            if (seen >= rank && seen > 0) {
+                return Math.min(max, (1L << offset) - 1);
+            }
+        }
+
+        return max;
+    }
+}
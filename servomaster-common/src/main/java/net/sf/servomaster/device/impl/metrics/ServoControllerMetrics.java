@@ -0,0 +1,105 @@
+package net.sf.servomaster.device.impl.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Servo controller metrics.
+ *
+ * <p>
+ *
+ * {@link net.sf.servomaster.device.impl.AbstractServoController} takes care of the servos and the listeners,
+ * the I/O figures are up to the driver - it knows what a write is, and when it's done.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class ServoControllerMetrics extends AbstractMetrics implements ServoControllerMetricsMXBean {
+
+    private final LongAdder commandsSent = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final Histogram ioLatency = new Histogram();
+
+    /**
+     * Metrics of the servos created so far. The controller wide command count and monitor wait are added up
+     * from them when read, so the servos don't have to record them twice.
+     */
+    private final List<ServoMetrics> servos = new CopyOnWriteArrayList<>();
+
+    /**
+     * Record a successful write.
+     *
+     * @param bytes Number of bytes written.
+     * @param nanos Time the write took, nanoseconds.
+     */
+    public void sent(int bytes, long nanos) {
+
+        commandsSent.increment();
+        bytesWritten.add(bytes);
+        ioLatency.record(nanos);
+    }
+
+    /**
+     * Record a failed write.
+     */
+    public void ioError() {
+        ioErrors.increment();
+    }
+
+    /**
+     * Include the servo's figures into the controller's.
+     *
+     * @param servo Servo metrics.
+     */
+    public void add(ServoMetrics servo) {
+        servos.add(servo);
+    }
+
+    @Override
+    public long getCommandsIssued() {
+
+        var total = 0L;
+
+        for (var servo : servos) {
+            total += servo.getCommandsIssued();
+        }
+
+        return total;
+    }
+
+    @Override
+    public long getCommandsSent() {
+        return commandsSent.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getIoErrors() {
+        return ioErrors.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getIoLatency() {
+        return ioLatency.getSnapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getMonitorWait() {
+        return Histogram.merge(servos.stream().map(s -> s.monitorWait).collect(Collectors.toList()));
+    }
+
+    /**
+     * Make this instance visible via JMX.
+     *
+     * @param port Controller port.
+     */
+    public void register(String port) {
+        register(createName("ServoController", port, null));
+    }
+}
@@ -0,0 +1,47 @@
+package net.sf.servomaster.device.impl.metrics;
+
+/**
+ * Servo controller metrics, as seen via JMX.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public interface ServoControllerMetricsMXBean {
+
+    /**
+     * @return Number of {@code setPosition()} calls, all servos together.
+     */
+    long getCommandsIssued();
+
+    /**
+     * @return Number of writes that have reached the hardware. Smaller than {@link #getCommandsIssued()}
+     * if the driver merges the commands, larger if it needs more than one write per command.
+     */
+    long getCommandsSent();
+
+    long getBytesWritten();
+
+    /**
+     * @return Number of writes that have failed.
+     */
+    long getIoErrors();
+
+    /**
+     * @return Time the writes took, nanoseconds.
+     */
+    HistogramSnapshot getIoLatency();
+
+    /**
+     * @return Time spent waiting to acquire the controller monitor, all servos together, nanoseconds.
+     */
+    HistogramSnapshot getMonitorWait();
+
+    long getSleepCount();
+
+    long getWakeUpCount();
+
+    long getNotificationQueueDepth();
+
+    long getNotificationsDelivered();
+
+    long getListenerExceptions();
+}
@@ -0,0 +1,88 @@
+package net.sf.servomaster.device.impl.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servo metrics, recorded by {@link net.sf.servomaster.device.impl.AbstractServo}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class ServoMetrics extends AbstractMetrics implements ServoMetricsMXBean {
+
+    private final LongAdder commandsIssued = new LongAdder();
+    private final LongAdder transitionsStarted = new LongAdder();
+    private final LongAdder transitionsCanceled = new LongAdder();
+    private final LongAdder transitionsCompleted = new LongAdder();
+    private final LongAdder transitionsFailed = new LongAdder();
+
+    final Histogram monitorWait = new Histogram();
+
+    public void commandIssued() {
+        commandsIssued.increment();
+    }
+
+    /**
+     * Record the time it took to acquire the controller monitor.
+     *
+     * @param nanos Time waited, nanoseconds.
+     */
+    public void monitorAcquired(long nanos) {
+        monitorWait.record(nanos);
+    }
+
+    public void transitionStarted() {
+        transitionsStarted.increment();
+    }
+
+    public void transitionCanceled() {
+        transitionsCanceled.increment();
+    }
+
+    public void transitionCompleted() {
+        transitionsCompleted.increment();
+    }
+
+    public void transitionFailed() {
+        transitionsFailed.increment();
+    }
+
+    @Override
+    public long getCommandsIssued() {
+        return commandsIssued.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getMonitorWait() {
+        return monitorWait.getSnapshot();
+    }
+
+    @Override
+    public long getTransitionsStarted() {
+        return transitionsStarted.sum();
+    }
+
+    @Override
+    public long getTransitionsCanceled() {
+        return transitionsCanceled.sum();
+    }
+
+    @Override
+    public long getTransitionsCompleted() {
+        return transitionsCompleted.sum();
+    }
+
+    @Override
+    public long getTransitionsFailed() {
+        return transitionsFailed.sum();
+    }
+
+    /**
+     * Make this instance visible via JMX.
+     *
+     * @param port Port of the controller the servo belongs to.
+     * @param id Servo name.
+     */
+    public void register(String port, String id) {
+        register(createName("Servo", port, id));
+    }
+}
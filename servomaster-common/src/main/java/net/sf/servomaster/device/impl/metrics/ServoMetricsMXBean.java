@@ -0,0 +1,43 @@
+package net.sf.servomaster.device.impl.metrics;
+
+/**
+ * Servo metrics, as seen via JMX.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public interface ServoMetricsMXBean {
+
+    /**
+     * @return Number of {@code setPosition()} calls.
+     */
+    long getCommandsIssued();
+
+    /**
+     * @return Time spent waiting to acquire the controller monitor, nanoseconds.
+     */
+    HistogramSnapshot getMonitorWait();
+
+    long getTransitionsStarted();
+
+    /**
+     * @return Transitions canceled by a newer command before they have completed.
+     */
+    long getTransitionsCanceled();
+
+    long getTransitionsCompleted();
+
+    /**
+     * @return Transitions the transition controller has thrown an exception on.
+     */
+    long getTransitionsFailed();
+
+    long getSleepCount();
+
+    long getWakeUpCount();
+
+    long getNotificationQueueDepth();
+
+    long getNotificationsDelivered();
+
+    long getListenerExceptions();
+}
@@ -0,0 +1,50 @@
+package net.sf.servomaster.device.model;
+
+import java.io.IOException;
+
+/**
+ * Servo controller driver, as seen by the {@link java.util.ServiceLoader}.
+ *
+ * <p>
+ *
+ * Every module with servo controller implementations lists its providers in
+ * {@code META-INF/services/net.sf.servomaster.device.model.ServoControllerProvider}, and the applications
+ * find them by name instead of loading the controller classes reflectively.
+ *
+ * <p>
+ *
+ * The providers are instantiated just to be listed. The constructor must not touch the hardware,
+ * or load the native libraries - this is what {@link #create(String)} is for.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public interface ServoControllerProvider {
+
+    /**
+     * @return Short name to refer to the controller by, unique across all the providers.
+     */
+    String getName();
+
+    /**
+     * @return Human readable description of the hardware.
+     */
+    String getDescription();
+
+    /**
+     * @return Class of the controllers this provider creates. The controller can be referred to
+     * by the class name as well as by {@link #getName() the name}.
+     */
+    Class<? extends ServoController> getControllerClass();
+
+    /**
+     * Create the controller.
+     *
+     * @param portName Port name to give to the controller, may be {@code null} if the controller
+     * is able to find the hardware by itself.
+     *
+     * @return The controller, not yet {@link ServoController#open() open}.
+     *
+     * @throws IOException if the controller can't be created.
+     */
+    ServoController create(String portName) throws IOException;
+}
@@ -35,6 +35,13 @@ public interface SilentDevice {
      *
      * The default mode of operation is left to the implementation.
      *
+     * <p>
+     *
+     * Turning the silent mode off wakes the device up if it was asleep, and the call doesn't return until
+     * it is awake, so the next command is not lost. The exception is a caller holding the controller
+     * monitor: then the wake-up can only happen after the monitor is released, and the commands issued
+     * before that may go to a device that is still asleep.
+     *
      * @param silent {@code true} if silent operation is required, {@code false} otherwise.
      *
      * @throws UnsupportedOperationException if the hardware controller
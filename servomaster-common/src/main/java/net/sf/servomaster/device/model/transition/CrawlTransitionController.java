@@ -2,8 +2,8 @@ package net.sf.servomaster.device.model.transition;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.ThreadContext;
 
+import net.sf.servomaster.device.impl.LogContext;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import net.sf.servomaster.device.model.TransitionController;
@@ -19,6 +19,8 @@ public class CrawlTransitionController implements TransitionController {
 
     private final Logger logger = LogManager.getLogger(getClass());
 
+    private final LogContext moveContext = new LogContext(logger, "move");
+
     /**
      * Exists to make {@code Class.newInstance()} happy.
      */
@@ -34,8 +36,8 @@ public class CrawlTransitionController implements TransitionController {
             throw new IllegalArgumentException("target can't be null");
         }
 
-        ThreadContext.push("move");
-        
+        var entered = moveContext.enter();
+
         try {
 
             // Calculate the step
@@ -54,10 +56,21 @@ public class CrawlTransitionController implements TransitionController {
 
             final double step = 1 / (double) (precision - 1);
 
-            logger.debug("precision=" + precision + ", step=" + step);
+            if (logger.isDebugEnabled()) {
+                logger.debug("precision={}, step={}", precision, step);
+            }
 
             while (true) {
 
+                if (Thread.currentThread().isInterrupted()) {
+
+                    // Canceled. Without this check, a driver that fails every write once interrupted
+                    // would never get to the target position, and we would never stop trying.
+
+                    logger.debug("interrupted");
+                    return;
+                }
+
                 double actualPosition = target.getActualPosition();
                 double diff = targetPosition - actualPosition;
 
@@ -105,9 +118,10 @@ public class CrawlTransitionController implements TransitionController {
             logger.error("Unexpected exception, stopping", t);
             
         } finally {
-            
-            logger.info("done");
-            ThreadContext.pop();
+
+            // This happens on every command, it's not worth an INFO line
+            logger.debug("done");
+            moveContext.exit(entered);
         }
     }
 }
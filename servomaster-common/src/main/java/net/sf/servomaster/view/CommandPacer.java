@@ -0,0 +1,189 @@
+package net.sf.servomaster.view;
+
+import net.sf.servomaster.device.impl.AbstractServoController;
+import net.sf.servomaster.device.impl.clock.Clock;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the position commands from the UI to the controller no faster than the controller can take them.
+ *
+ * <p>
+ *
+ * A slider being dragged produces a new value for every pixel, far more than a serial or USB controller
+ * can transmit. The commands are taken off the event dispatch thread, and sent from a single thread at most
+ * {@code controller/bandwidth} per second, for all the servos of the controller together. Only the latest
+ * command for every servo is kept, the servos waiting for their turn are served in the order they came in.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+class CommandPacer {
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    /**
+     * Minimum time between the commands, in nanoseconds.
+     */
+    private final long interval;
+
+    private final ScheduledExecutorService executor;
+
+    private final Clock clock;
+
+    /**
+     * Latest command per servo, in order of arrival. Guarded by {@code this}.
+     */
+    private final Map<Servo, Double> pending = new LinkedHashMap<>();
+
+    private boolean scheduled = false;
+
+    /**
+     * When the next command may be sent, {@link Clock#nanoTime()}.
+     */
+    private long nextAt;
+
+    private long requested = 0;
+    private long sent = 0;
+
+    /**
+     * Create an instance pacing the commands to the controller's {@code controller/bandwidth}.
+     *
+     * If the controller doesn't advertise the bandwidth, the commands are only merged, not delayed.
+     *
+     * @param controller Controller to pace the commands for.
+     *
+     * @return The pacer.
+     */
+    static CommandPacer forController(ServoController controller) {
+
+        var bandwidth = 0;
+
+        try {
+
+            bandwidth = Integer.parseInt(controller.getMeta().getProperty("controller/bandwidth").toString());
+
+        } catch (UnsupportedOperationException ex) {
+
+            LogManager.getLogger(CommandPacer.class).info("{} doesn't advertise the bandwidth, not pacing the commands", controller);
+        }
+
+        return new CommandPacer("commands " + controller.getPort(), bandwidth, AbstractServoController.clockOf(controller));
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name Name to give the sender thread.
+     * @param bandwidth Commands per second, 0 for no limit.
+     */
+    CommandPacer(String name, int bandwidth) {
+        this(name, bandwidth, Clock.SYSTEM);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name Name to give the sender thread.
+     * @param bandwidth Commands per second, 0 for no limit.
+     * @param clock Clock to pace the commands by.
+     */
+    CommandPacer(String name, int bandwidth, Clock clock) {
+
+        this.clock = clock;
+        nextAt = clock.nanoTime();
+        interval = bandwidth > 0 ? TimeUnit.SECONDS.toNanos(1) / bandwidth : 0;
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+
+            var t = new Thread(r, name);
+            t.setDaemon(true);
+
+            return t;
+        });
+    }
+
+    /**
+     * Send the command on the servo's turn, replacing the command not yet sent, if there is one. Doesn't block.
+     *
+     * @param target Servo to command.
+     * @param position Position to set.
+     */
+    synchronized void submit(Servo target, double position) {
+
+        requested++;
+
+        // An existing key keeps its place in line
+        pending.put(target, position);
+
+        if (!scheduled) {
+
+            scheduled = true;
+            clock.schedule(executor, this::send, nextAt - clock.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void send() {
+
+        Servo target;
+        double position;
+
+        synchronized (this) {
+
+            var i = pending.entrySet().iterator();
+            var command = i.next();
+
+            i.remove();
+
+            target = command.getKey();
+            position = command.getValue();
+
+            sent++;
+            nextAt = clock.nanoTime() + interval;
+
+            if (pending.isEmpty()) {
+                scheduled = false;
+            } else {
+                clock.schedule(executor, this::send, interval, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        try {
+
+            target.setPosition(position);
+
+        } catch (Throwable t) { // NOSONAR Consequences have been considered
+
+            logger.error("{}: setPosition({}) failed", target, position, t);
+        }
+    }
+
+    /**
+     * @return Number of commands submitted.
+     */
+    synchronized long getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return Number of commands sent. The difference from {@link #getRequested()} is the number of commands
+     * superseded before they were sent, plus the ones still waiting.
+     */
+    synchronized long getSent() {
+        return sent;
+    }
+
+    /**
+     * Stop sending. The commands not yet sent are dropped.
+     */
+    void close() {
+        executor.shutdownNow();
+    }
+}
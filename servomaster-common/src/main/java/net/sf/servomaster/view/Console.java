@@ -1,5 +1,7 @@
 package net.sf.servomaster.view;
 
+import net.sf.servomaster.device.impl.AbstractServoController;
+import net.sf.servomaster.device.impl.ServoControllerRegistry;
 import net.sf.servomaster.device.impl.debug.NullServoController;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
@@ -23,13 +25,15 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.time.Instant;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map.Entry;
+import java.util.ServiceLoader;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 /**
  * The console.
@@ -42,7 +46,7 @@ import java.util.concurrent.TimeUnit;
  *
  * <blockquote>
  *
- * <code>java -classpath ${CLASSPATH} net.sf.servomaster.view.Console <i>&lt;controller class name&gt; &lt;controller port name&gt;</i></code>
+ * <code>java -classpath ${CLASSPATH} net.sf.servomaster.view.Console <i>&lt;controller name or class name&gt; &lt;controller port name&gt;</i></code>
  *
  * </blockquote>
  *
@@ -50,7 +54,7 @@ import java.util.concurrent.TimeUnit;
  *
  * <ol>
  *
- * <li> Instantiate the controller class.
+ * <li> Find the controller in the {@link ServoControllerRegistry registry}, and create it.
  *
  * <li> {@link ServoController#init Initialize} the controller with the port name.
  *
@@ -63,6 +67,9 @@ import java.util.concurrent.TimeUnit;
  *
  * </ol>
  *
+ * With {@code --load} as the first argument, runs the headless {@link LoadGenerator} instead.
+ * With {@code --list}, lists the controllers available.
+ *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2021
  */
 public class Console implements ActionListener, WindowListener {
@@ -108,20 +115,37 @@ public class Console implements ActionListener, WindowListener {
     private Thread demo;
 
     /**
-     * Set of servos the controller offers.
-     *
-     * <p>
-     *
-     * VT: FIXME: Someday have to fix this and make it a Vector or something
-     * like that. Until I do, ArrayIndexOutOfBounds is looming.
+     * Controllers with more servos than this are displayed as a {@link ServoTable} instead of a {@link ServoView} per servo.
+     */
+    static final int TABLE_THRESHOLD = 16;
+
+    /**
+     * Views of the servos the controller offers, one per servo. Empty if the servos are displayed as a {@link ServoTable}.
+     */
+    private ServoView[] servoPanel = new ServoView[0];
+
+    /**
+     * Paces the commands from the {@link #servoPanel servo views} to the {@link #controller}.
      */
-    private ServoView[] servoPanel = new ServoView[50];
+    private CommandPacer pacer;
 
     private final CountDownLatch exitFlag = new CountDownLatch(1);
     private final CountDownLatch closedFlag = new CountDownLatch(1);
 
     public static void main(String[] args) {
 
+        if (args.length > 0 && "--load".equals(args[0])) {
+
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        if (args.length > 0 && "--list".equals(args[0])) {
+
+            listAvailable();
+            return;
+        }
+
         new Console().run(args);
     }
 
@@ -136,7 +160,7 @@ public class Console implements ActionListener, WindowListener {
 
         try {
 
-            controller = instantiate(resolveClass(args), args.length == 2 ? args[1] : null);
+            controller = instantiate(resolveName(args), args.length == 2 ? args[1] : null);
 
             controller.open();
 
@@ -178,6 +202,10 @@ public class Console implements ActionListener, WindowListener {
 
                 try {
 
+                    if (pacer != null) {
+                        pacer.close();
+                    }
+
                     logger.info("closing the controller");
                     controller.close();
                     logger.info("closed the controller");
@@ -230,7 +258,7 @@ public class Console implements ActionListener, WindowListener {
         }
     }
 
-    private String resolveClass(String[] args) {
+    private String resolveName(String[] args) {
 
         if ( args.length > 0 ) {
 
@@ -238,42 +266,57 @@ public class Console implements ActionListener, WindowListener {
 
         } else {
 
-            logger.info("Usage: <script> <servo controller class name> [<servo controller port name>]");
+            logger.info("Usage: <script> <servo controller name or class name> [<servo controller port name>]");
+            logger.info("       <script> --load <servo controller name or class name> [<servo controller port name>] [-servos N] [-pattern sweep|walk|step] [-rate commands/s] [-duration s]");
+            logger.info("       <script> --list");
             logger.info("");
-            logger.info("Example: console net.sf.servomaster.device.impl.serial.ft.FT639ServoController /dev/ttyS0");
+            logger.info("Example: console ft639 /dev/ttyS0");
             logger.info("Example: java -jar servomaster.jar net.sf.servomaster.device.impl.usb.phidget.PhidgetServoController");
             logger.info("");
 
-            var targetClass = NullServoController.class.getName();
+            var name = new NullServoController.Provider().getName();
 
-            logger.warn("Starting a demo controller ({}) for now", targetClass);
+            logger.warn("Starting a demo controller ({}) for now", name);
 
-            return targetClass;
+            return name;
         }
     }
 
-    private ServoController instantiate(String targetClass, String portName) {
+    /**
+     * Log the controllers available, without creating any.
+     */
+    private static void listAvailable() {
 
-        ThreadContext.push("instantiate");
+        var logger = LogManager.getLogger(Console.class);
 
-        try {
+        for (var provider : ServoControllerRegistry.getInstance().listAvailable()) {
+            logger.info("{}: {} ({})", provider.getName(), provider.getDescription(), provider.getControllerClass().getName());
+        }
+    }
 
-            Class<?> controllerClass = Class.forName(targetClass);
+    /**
+     * Create the controller.
+     *
+     * @param name Controller name, or class name, as the {@link ServoControllerRegistry} knows it.
+     * @param portName Port name to give to the controller, may be {@code null}.
+     *
+     * @return The controller, not yet open.
+     */
+    static ServoController instantiate(String name, String portName) {
 
-            // newInstance() will not work because all descendants of AbstractServoController
-            // take a String portName argument
+        ThreadContext.push("instantiate");
 
-            Constructor<?> c = controllerClass.getDeclaredConstructor(String.class);
+        try {
 
-            Object controllerObject = c.newInstance(portName);
+            var controller = ServoControllerRegistry.getInstance().create(name, portName);
 
-            logger.debug("{}, portName={}", controllerObject.getClass().getName(), portName);
+            LogManager.getLogger(Console.class).debug("{}, portName={}", controller.getClass().getName(), portName);
 
-            return (ServoController)controllerObject;
+            return controller;
 
-        } catch (Throwable t) { // NOSONAR Consequences have been considered
+        } catch (IOException ex) {
 
-            throw new IllegalStateException("Unable to instantiate " + targetClass, t);
+            throw new IllegalStateException("Unable to instantiate " + name, ex);
 
         } finally {
             ThreadContext.pop();
@@ -298,6 +341,8 @@ public class Console implements ActionListener, WindowListener {
             GridBagLayout layout = new GridBagLayout();
             GridBagConstraints cs = new GridBagConstraints();
 
+            pacer = CommandPacer.forController(controller);
+
             mainFrame = new JFrame("Servo Controller Console, port " + controller.getPort());
             mainFrame.setSize(new Dimension(800, 600));
 
@@ -319,6 +364,8 @@ public class Console implements ActionListener, WindowListener {
             cs.weightx = 1;
             cs.weighty = 1;
 
+            var servos = new ArrayList<Servo>();
+
             for ( int idx = 0; idx < servoCount; idx++ ) {
 
                 Servo servo = controller.getServo(Integer.toString(idx));
@@ -329,60 +376,62 @@ public class Console implements ActionListener, WindowListener {
                     displayMetadata("servo", servo.getMeta());
                 }
 
-                servoPanel[idx] = new ServoView(servo);
+                servos.add(servo);
+            }
 
-                cs.gridx = idx;
+            // A column per servo stops being usable long before it stops being expensive to build and keep up to date
 
-                layout.setConstraints(servoPanel[idx], cs);
+            var columns = servoCount > TABLE_THRESHOLD ? 1 : servoCount;
 
-                console.add(servoPanel[idx]);
+            if (servoCount > TABLE_THRESHOLD) {
+
+                var table = new ServoTable(servos, pacer);
+
+                layout.setConstraints(table, cs);
+                console.add(table);
+
+            } else {
+
+                servoPanel = new ServoView[servoCount];
+
+                for ( int idx = 0; idx < servoCount; idx++ ) {
+
+                    servoPanel[idx] = new ServoView(servos.get(idx), pacer);
+
+                    cs.gridx = idx;
+
+                    layout.setConstraints(servoPanel[idx], cs);
+
+                    console.add(servoPanel[idx]);
+                }
             }
 
             cs.gridx = 0;
             cs.gridy++;
             cs.gridy += servoCount;
-            cs.gridwidth = servoCount;
+            cs.gridwidth = columns;
             cs.gridheight = 1;
             cs.weightx = 1;
             cs.weighty = 0;
             cs.fill = GridBagConstraints.HORIZONTAL;
 
-            String controllerClassName = controller.getClass().getName();
-
-            // The controller panel class name is the controller class name
-            // with "View" appended to it
-
-            String controllerViewClassName = controllerClassName + "View";
-
             try {
 
-                Class<?> controllerViewClass = Class.forName(controllerViewClassName);
-                Object controllerViewObject = controllerViewClass.newInstance();
+                var controllerPanel = createControllerView(controller);
 
-                if ( !(controllerViewObject instanceof JPanel) ) {
+                if (controllerPanel != null) {
 
-                    throw new IllegalAccessException("The servo controller view class has to extend javax.swing.JPanel, it doesn't");
-                }
-
-                if ( !(controllerViewObject instanceof ServoControllerView) ) {
+                    layout.setConstraints(controllerPanel, cs);
+                    console.add(controllerPanel);
 
-                    throw new IllegalAccessException("The servo controller view class has to implement net.sf.servomaster.view.ServoControllerView, it doesn't");
+                    cs.gridy++;
                 }
 
-                JPanel controllerPanel = (JPanel)controllerViewObject;
-
-                ((ServoControllerView)controllerPanel).init(controller);
-
-                layout.setConstraints(controllerPanel, cs);
-                console.add(controllerPanel);
-
-                cs.gridy++;
-
             } catch ( Throwable t ) { // NOSONAR Consequences have been considered
 
                 logger.info(
-                        "Couldn't instantiate the servo controller view ({}), so it will not be available. Cause:",
-                        controllerViewClassName,
+                        "Couldn't instantiate the servo controller view for {}, so it will not be available. Cause:",
+                        controller.getClass().getName(),
                         t);
             }
 
@@ -397,7 +446,7 @@ public class Console implements ActionListener, WindowListener {
                 cs.fill = GridBagConstraints.HORIZONTAL;
                 cs.gridx = 0;
                 cs.gridy++;
-                cs.gridwidth = servoCount;
+                cs.gridwidth = columns;
                 cs.gridheight = 1;
                 cs.weightx = 1;
                 cs.weighty = 0;
@@ -467,6 +516,25 @@ public class Console implements ActionListener, WindowListener {
         }
     }
 
+    /**
+     * Create the controller specific view, if there is one.
+     *
+     * @param controller Controller to create the view for.
+     *
+     * @return The view, or {@code null} if no {@link ServoControllerViewProvider provider} supports this controller.
+     */
+    private JPanel createControllerView(ServoController controller) {
+
+        for (var provider : ServiceLoader.load(ServoControllerViewProvider.class)) {
+
+            if (provider.supports(controller)) {
+                return provider.createView(controller);
+            }
+        }
+
+        return null;
+    }
+
     private SilencerPanel createSilencerPanel(ServoController controller) throws IOException {
 
         try {
@@ -630,6 +698,17 @@ public class Console implements ActionListener, WindowListener {
         protected abstract void prepare() throws Throwable;
         protected abstract void execute() throws Throwable;
         protected abstract void cleanup() throws Throwable;
+
+        /**
+         * Sleep by the controller's clock.
+         *
+         * @param millis Time to sleep, milliseconds.
+         *
+         * @throws InterruptedException if the demo was stopped.
+         */
+        protected final void pause(long millis) throws InterruptedException {
+            AbstractServoController.clockOf(controller).sleep(millis);
+        }
     }
 
     protected class reset extends exec {
@@ -647,19 +726,19 @@ public class Console implements ActionListener, WindowListener {
                 servo.setPosition(0);
             }
 
-            Thread.sleep(1000);
+            pause(1000);
 
             for (Servo servo : controller.getServos()) {
                 servo.setPosition(1);
             }
 
-            Thread.sleep(1000);
+            pause(1000);
 
             for (Servo servo : controller.getServos()) {
                 servo.setPosition(0.5);
             }
 
-            for ( var idx = 0; servoPanel[idx] != null; idx++ ) {
+            for ( var idx = 0; idx < servoPanel.length; idx++ ) {
 
                 servoPanel[idx].reset();
             }
@@ -685,19 +764,19 @@ public class Console implements ActionListener, WindowListener {
                 servo.setPosition(0);
             }
 
-            Thread.sleep(1000);
+            pause(1000);
 
             for (Servo servo : controller.getServos()) {
                 servo.setPosition(1);
             }
 
-            Thread.sleep(1000);
+            pause(1000);
 
             for (Servo servo : controller.getServos()) {
                 servo.setPosition(0.5);
             }
 
-            for ( var idx = 0; servoPanel[idx] != null; idx++ ) {
+            for ( var idx = 0; idx < servoPanel.length; idx++ ) {
                 servoPanel[idx].reset();
             }
         }
@@ -722,7 +801,7 @@ public class Console implements ActionListener, WindowListener {
 
             for (var offset = 0; offset < controller.getServoCount(); offset++) {
 
-                if (!servoPanel[offset].isEnabled()) {
+                if (offset < servoPanel.length && !servoPanel[offset].isEnabled()) {
 
                     logger.info("skipped: @{}", offset);
                     continue;
@@ -735,7 +814,7 @@ public class Console implements ActionListener, WindowListener {
                 s.setPosition(0);
             }
 
-            Thread.sleep(1000);
+            pause(1000);
 
             var max = servos.size();
 
@@ -756,7 +835,7 @@ public class Console implements ActionListener, WindowListener {
                 current = (current + 1) % max;
                 trailer = ((current - 1) + max) % max;
 
-                Thread.sleep(800);
+                pause(800);
             }
         }
     }
@@ -808,15 +887,13 @@ public class Console implements ActionListener, WindowListener {
             // To avoid skipping the beats, let's synchronize right after
             // the top of the second so the clock drift within the demo period won't affect the presentation
 
-            var now = LocalTime.now();
-
-            var timeout = 999999999 - now.getNano() + 99999999;
+            var time = AbstractServoController.clockOf(controller);
 
-            TimeUnit.NANOSECONDS.sleep(timeout);
+            time.sleep(1000 - time.currentTimeMillis() % 1000 + 100);
 
-            // At this point, we're about 100 nanoseconds after the top of the second. Refresh the value, and round it for display.
+            // At this point, we're about 100 milliseconds after the top of the second. Refresh the value, and round it for display.
 
-            now = LocalTime.now();
+            var now = LocalTime.ofInstant(Instant.ofEpochMilli(time.currentTimeMillis()), ZoneId.systemDefault());
             now = LocalTime.of(now.getHour(), now.getMinute(), now.getSecond());
 
             logger.info("now: {}", now);
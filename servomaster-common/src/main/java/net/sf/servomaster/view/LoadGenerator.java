@@ -0,0 +1,407 @@
+package net.sf.servomaster.view;
+
+import net.sf.servomaster.device.model.Servo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless load generator.
+ *
+ * <p>
+ *
+ * Drives the servos of a controller with a {@link Pattern pattern} at a target command rate, and reports
+ * the throughput achieved, the per-command latency, and how many commands had to be given up.
+ *
+ * <p>
+ *
+ * The commands are issued from one thread, going around the servos, each at the time it is due. Like a UI
+ * would, the generator doesn't insist on sending a position that is already stale: if by the time a command
+ * is due the next command for the same servo is also due, the first one is counted as coalesced and skipped.
+ * This keeps the commands that do go out on schedule, and the difference between the target rate and the
+ * throughput is how far the controller is from keeping up.
+ *
+ * <p>
+ *
+ * Usage:
+ *
+ * <blockquote>
+ *
+ * <code>java -classpath ${CLASSPATH} net.sf.servomaster.view.Console --load <i>&lt;controller name or class name&gt; [&lt;controller port name&gt;]
+ * [-servos N] [-pattern sweep|walk|step] [-rate commands/s] [-duration s]</i></code>
+ *
+ * </blockquote>
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class LoadGenerator {
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private final List<Servo> servos;
+    private final Pattern pattern;
+
+    /**
+     * Time between the commands, all servos together, in nanoseconds.
+     */
+    private final long interval;
+
+    private final long duration;
+
+    private final Random rg = new Random(0);
+
+    /**
+     * Movement patterns.
+     */
+    public enum Pattern {
+
+        /**
+         * Each servo goes from one end to the other and back in two seconds, the servos are out of phase.
+         */
+        SWEEP {
+            @Override
+            double next(int servo, int servoCount, long elapsed, double previous, Random rg) {
+
+                var phase = (elapsed / (double) TimeUnit.SECONDS.toNanos(2) + (double) servo / servoCount) % 1.0;
+
+                return phase < 0.5 ? phase * 2 : 2 - phase * 2;
+            }
+        },
+
+        /**
+         * Each servo moves a random distance up to 5% of the range from where it was.
+         */
+        WALK {
+            @Override
+            double next(int servo, int servoCount, long elapsed, double previous, Random rg) {
+
+                var position = previous + (rg.nextDouble() - 0.5) * 0.1;
+
+                return position < 0 ? -position : position > 1 ? 2 - position : position;
+            }
+        },
+
+        /**
+         * Each servo jumps between a quarter and three quarters of the range on every command.
+         */
+        STEP {
+            @Override
+            double next(int servo, int servoCount, long elapsed, double previous, Random rg) {
+                return previous < 0.5 ? 0.75 : 0.25;
+            }
+        };
+
+        /**
+         * Compute the next position.
+         *
+         * @param servo Servo offset.
+         * @param servoCount Number of servos driven.
+         * @param elapsed Time since the start of the run the command is due at, in nanoseconds.
+         * @param previous Previous position of this servo.
+         * @param rg Random generator to use.
+         *
+         * @return Next position, 0 to 1.
+         */
+        abstract double next(int servo, int servoCount, long elapsed, double previous, Random rg);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param servos Servos to drive.
+     * @param pattern Movement pattern.
+     * @param rate Target rate, commands per second, all servos together.
+     * @param duration How long to run, in milliseconds.
+     */
+    public LoadGenerator(List<Servo> servos, Pattern pattern, double rate, long duration) {
+
+        if (servos.isEmpty()) {
+            throw new IllegalArgumentException("No servos to drive");
+        }
+
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+
+        this.servos = new ArrayList<>(servos);
+        this.pattern = pattern;
+        this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.duration = TimeUnit.MILLISECONDS.toNanos(duration);
+    }
+
+    public static void main(String[] args) {
+
+        var logger = LogManager.getLogger(LoadGenerator.class);
+
+        ThreadContext.push("load");
+
+        try {
+
+            var positional = new ArrayList<String>();
+            var servoCount = Integer.MAX_VALUE;
+            var pattern = Pattern.SWEEP;
+            var rate = 100d;
+            var duration = 10d;
+
+            for (var offset = 0; offset < args.length; offset++) {
+
+                switch (args[offset]) {
+
+                case "-servos":
+
+                    servoCount = Integer.parseInt(args[++offset]);
+                    break;
+
+                case "-pattern":
+
+                    pattern = Pattern.valueOf(args[++offset].toUpperCase(Locale.ROOT));
+                    break;
+
+                case "-rate":
+
+                    rate = Double.parseDouble(args[++offset]);
+                    break;
+
+                case "-duration":
+
+                    duration = Double.parseDouble(args[++offset]);
+                    break;
+
+                default:
+
+                    positional.add(args[offset]);
+                }
+            }
+
+            if (positional.isEmpty() || positional.size() > 2) {
+
+                logger.error("Usage: <script> --load <servo controller name or class name> [<servo controller port name>] [-servos N] [-pattern sweep|walk|step] [-rate commands/s] [-duration s]");
+                return;
+            }
+
+            try (var controller = Console.instantiate(positional.get(0), positional.size() == 2 ? positional.get(1) : null)) {
+
+                controller.open();
+
+                var servos = new ArrayList<>(controller.getServos());
+                var driven = servos.subList(0, Math.min(servoCount, servos.size()));
+
+                logger.info("{}: {} servos, {}, {} commands/s for {}s", controller.getClass().getName(), driven.size(), pattern, rate, duration);
+
+                var report = new LoadGenerator(driven, pattern, rate, (long) (duration * 1000)).run();
+
+                report.log(logger);
+            }
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted", ex);
+
+        } catch (Throwable t) { // NOSONAR Consequences have been considered
+
+            logger.error("Load run failed", t);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Drive the servos for the duration given at construction.
+     *
+     * The transition controllers are detached from the servos, so every command is executed immediately.
+     *
+     * @return The results.
+     *
+     * @throws InterruptedException if interrupted.
+     */
+    public Report run() throws InterruptedException {
+
+        var servoCount = servos.size();
+        var positions = new double[servoCount];
+
+        for (var offset = 0; offset < servoCount; offset++) {
+
+            var servo = servos.get(offset);
+
+            servo.attach(null, false);
+            positions[offset] = servo.getPosition();
+        }
+
+        var ticks = duration / interval;
+        var latencies = new long[(int) Math.min(ticks, 1_000_000)];
+        var sent = 0;
+        var coalesced = 0L;
+        var failed = 0L;
+        var maxLag = 0L;
+        var start = System.nanoTime();
+
+        for (var tick = 0L; tick < ticks; tick++) {
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            var offset = (int) (tick % servoCount);
+            var due = tick * interval;
+
+            positions[offset] = pattern.next(offset, servoCount, due, positions[offset], rg);
+
+            var now = System.nanoTime() - start;
+
+            if (now < due) {
+
+                LockSupport.parkNanos(due - now);
+                now = System.nanoTime() - start;
+            }
+
+            if (tick + servoCount < ticks && now >= due + servoCount * interval) {
+
+                // The next command for this servo is due already, this one is stale
+                coalesced++;
+                continue;
+            }
+
+            maxLag = Math.max(maxLag, now - due);
+
+            var sentAt = System.nanoTime();
+
+            try {
+
+                servos.get(offset).setPosition(positions[offset]).get();
+
+            } catch (ExecutionException ex) {
+
+                failed++;
+                logger.warn("{}: setPosition({}) failed", servos.get(offset), positions[offset], ex);
+            }
+
+            if (sent == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+
+            latencies[sent++] = System.nanoTime() - sentAt;
+        }
+
+        return new Report(ticks, coalesced, failed, System.nanoTime() - start, interval, maxLag, Arrays.copyOf(latencies, sent));
+    }
+
+    /**
+     * Load run results.
+     */
+    public static class Report {
+
+        private final long requested;
+        private final long coalesced;
+        private final long failed;
+        private final long elapsed;
+        private final long interval;
+        private final long maxLag;
+
+        /**
+         * Latencies of the commands sent, in nanoseconds, sorted.
+         */
+        private final long[] latencies;
+
+        Report(long requested, long coalesced, long failed, long elapsed, long interval, long maxLag, long[] latencies) {
+
+            this.requested = requested;
+            this.coalesced = coalesced;
+            this.failed = failed;
+            this.elapsed = elapsed;
+            this.interval = interval;
+            this.maxLag = maxLag;
+            this.latencies = latencies;
+
+            Arrays.sort(this.latencies);
+        }
+
+        /**
+         * @return Number of commands the pattern produced.
+         */
+        public long getRequested() {
+            return requested;
+        }
+
+        /**
+         * @return Number of commands sent to the servos, including the failed ones.
+         */
+        public long getSent() {
+            return latencies.length;
+        }
+
+        /**
+         * @return Number of commands skipped because the next command for the same servo was already due.
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * @return Number of commands that failed.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return Commands sent per second.
+         */
+        public double getThroughput() {
+            return elapsed == 0 ? 0 : latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+
+        /**
+         * @return Commands per second asked for.
+         */
+        public double getTargetRate() {
+            return (double) TimeUnit.SECONDS.toNanos(1) / interval;
+        }
+
+        /**
+         * @return The longest a command was sent after it was due, in nanoseconds.
+         */
+        public long getMaxLag() {
+            return maxLag;
+        }
+
+        /**
+         * Get the latency percentile.
+         *
+         * @param percentile Percentile, 0 to 100.
+         *
+         * @return The latency not exceeded by this percentage of commands sent, in nanoseconds, or 0 if none were sent.
+         */
+        public long getLatency(double percentile) {
+
+            if (latencies.length == 0) {
+                return 0;
+            }
+
+            var index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+        }
+
+        void log(Logger logger) {
+
+            logger.info("requested: {}, sent: {}, coalesced: {}, failed: {}", requested, getSent(), coalesced, failed);
+            logger.info("throughput: {} commands/s of {} targeted, max lag {}ms",
+                    String.format(Locale.ROOT, "%.1f", getThroughput()),
+                    String.format(Locale.ROOT, "%.1f", getTargetRate()),
+                    TimeUnit.NANOSECONDS.toMillis(maxLag));
+            logger.info("latency, μs: p50={} p90={} p99={} p99.9={} max={}",
+                    getLatency(50) / 1000, getLatency(90) / 1000, getLatency(99) / 1000, getLatency(99.9) / 1000, getLatency(100) / 1000);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package net.sf.servomaster.view;
+
+import net.sf.servomaster.device.model.ServoController;
+
+import javax.swing.JPanel;
+
+/**
+ * {@link ServoControllerView Servo controller view} factory, discovered by the {@link Console} with the
+ * {@link java.util.ServiceLoader}.
+ *
+ * <p>
+ *
+ * Modules providing the views list them in
+ * {@code META-INF/services/net.sf.servomaster.view.ServoControllerViewProvider}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public interface ServoControllerViewProvider {
+
+    /**
+     * @param controller Controller to display.
+     *
+     * @return {@code true} if this provider has a view for this controller.
+     */
+    boolean supports(ServoController controller);
+
+    /**
+     * Create the view.
+     *
+     * @param controller Controller to display, one this provider {@link #supports(ServoController) supports}.
+     *
+     * @return The view, already {@link ServoControllerView#init(ServoController) initialized}.
+     */
+    JPanel createView(ServoController controller);
+}
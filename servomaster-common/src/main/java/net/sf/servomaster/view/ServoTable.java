@@ -0,0 +1,238 @@
+package net.sf.servomaster.view;
+
+import net.sf.servomaster.device.model.Servo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Console layout for controllers with too many servos to give each a {@link ServoView}.
+ *
+ * <p>
+ *
+ * The servos are rows of a table. Only the rows currently scrolled into view have a {@link ServoViewModel}
+ * attached, so the servos that can't be seen don't send their notifications anywhere. The full {@link ServoView}
+ * is only built for the servo selected in the table, when it is selected, and stops tracking the servo
+ * when another one is selected.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+@SuppressWarnings("serial")
+class ServoTable extends JPanel {
+
+    /**
+     * Rows to show without scrolling.
+     */
+    private static final int VISIBLE_ROWS = 16;
+
+    private final transient Logger logger = LogManager.getLogger(getClass());
+
+    private final transient List<Servo> servos;
+    private final transient CommandPacer pacer;
+
+    /**
+     * Row models, created when the row first comes into view.
+     */
+    private final transient ServoViewModel[] models;
+
+    /**
+     * Rows with the model attached.
+     */
+    private int firstTracked = 0;
+    private int lastTracked = -1;
+
+    /**
+     * Detail views, created when the servo is first selected.
+     */
+    private final Map<Integer, ServoView> details = new HashMap<>();
+
+    private ServoView detail;
+
+    private final Model tableModel = new Model();
+    private final JTable table = new JTable(tableModel);
+    private final JSplitPane split;
+
+    /**
+     * Create an instance.
+     *
+     * @param servos Servos to display.
+     * @param pacer Pacer for the servos' controller.
+     */
+    ServoTable(List<Servo> servos, CommandPacer pacer) {
+
+        this.servos = new ArrayList<>(servos);
+        this.pacer = pacer;
+        this.models = new ServoViewModel[servos.size()];
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setPreferredScrollableViewportSize(new Dimension(table.getPreferredScrollableViewportSize().width, table.getRowHeight() * VISIBLE_ROWS));
+        table.getSelectionModel().addListSelectionListener(e -> {
+
+            if (!e.getValueIsAdjusting()) {
+                select(table.getSelectedRow());
+            }
+        });
+
+        var scroller = new JScrollPane(table);
+
+        scroller.getViewport().addChangeListener(e -> track());
+
+        split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, scroller, new JLabel("Select a servo to see the details", JLabel.CENTER));
+
+        setLayout(new BorderLayout());
+        add(split, BorderLayout.CENTER);
+    }
+
+    /**
+     * Attach the models for the rows in view, and detach the rest.
+     */
+    private void track() {
+
+        var visible = table.getVisibleRect();
+
+        if (visible.height == 0) {
+
+            // Not laid out yet
+            return;
+        }
+
+        var first = table.rowAtPoint(visible.getLocation());
+        var last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+
+        first = first < 0 ? 0 : first;
+        last = last < 0 ? servos.size() - 1 : last;
+
+        for (var row = firstTracked; row <= lastTracked; row++) {
+
+            if (row < first || row > last) {
+                models[row].detach();
+            }
+        }
+
+        for (var row = first; row <= last; row++) {
+
+            if (models[row] == null) {
+                models[row] = new ServoViewModel(servos.get(row), pacer);
+            }
+
+            var r = row;
+
+            models[row].attach(() -> tableModel.fireTableRowsUpdated(r, r));
+        }
+
+        firstTracked = first;
+        lastTracked = last;
+    }
+
+    private void select(int row) {
+
+        if (detail != null) {
+            detail.setTracking(false);
+        }
+
+        if (row < 0) {
+            return;
+        }
+
+        try {
+
+            var servo = servos.get(row);
+
+            detail = details.get(row);
+
+            if (detail == null) {
+
+                detail = new ServoView(servo, pacer);
+                details.put(row, detail);
+
+            } else {
+                detail.setTracking(true);
+            }
+
+            var location = split.getDividerLocation();
+
+            split.setRightComponent(detail);
+            split.setDividerLocation(location);
+
+        } catch (IOException ex) {
+
+            logger.error("Can't create the view for row {}", row, ex);
+        }
+    }
+
+    private class Model extends AbstractTableModel {
+
+        private final String[] columns = { "ID", "Requested", "Actual" };
+
+        @Override
+        public int getRowCount() {
+            return servos.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+
+            return column == 0 ? String.class : Double.class;
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 1;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+
+            var servo = servos.get(row);
+
+            switch (column) {
+            case 0:
+                return servo.getName();
+            case 1:
+                return servo.getPosition();
+            default:
+                return models[row] != null ? models[row].getActualPosition() : servo.getActualPosition();
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+
+            var servo = servos.get(row);
+            var position = (Double) value;
+
+            if (position < 0 || position > 1) {
+
+                logger.warn("{}: position out of 0...1 range: {}", servo.getName(), position);
+                return;
+            }
+
+            pacer.submit(servo, position);
+        }
+    }
+}
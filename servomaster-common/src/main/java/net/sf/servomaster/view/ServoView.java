@@ -24,8 +24,6 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
 
 import net.sf.servomaster.device.model.Servo;
-import net.sf.servomaster.device.model.ServoListener;
-import net.sf.servomaster.device.model.SilentDevice;
 import net.sf.servomaster.device.model.transform.LimitTransformer;
 import net.sf.servomaster.device.model.transform.LinearTransformer;
 import net.sf.servomaster.device.model.transform.Reverser;
@@ -34,7 +32,9 @@ import net.sf.servomaster.device.model.transition.CrawlTransitionController;
 /**
  * The servo view.
  *
- * Displays the servo status and allows to control it.
+ * Displays the servo status and allows to control it. The status comes from, and the commands go
+ * through the {@link ServoViewModel}, so neither the servo notifications nor the slider
+ * movements can flood the event dispatch thread or the controller.
  *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2021
  */
@@ -48,6 +48,8 @@ public class ServoView extends JPanel {
      */
     final transient Servo servo;
 
+    private final transient ServoViewModel model;
+
     /**
      * The current target (may be the {@link #servo servo} itself, or the
      * {@link #reverse reversed mapping}, or the {@link #linear180 linear
@@ -111,10 +113,12 @@ public class ServoView extends JPanel {
      * Create an instance.
      *
      * @param source Servo to create the view for.
+     * @param pacer Pacer for the servo's controller.
      */
-    ServoView(Servo source) throws IOException {
+    ServoView(Servo source, CommandPacer pacer) throws IOException {
 
         this.servo = source;
+        this.model = new ServoViewModel(source, pacer);
 
         // VT: NOTE: For some backwards implementations fallback to controller/precision may be necessary - or implementations need to be fixed
 
@@ -136,6 +140,8 @@ public class ServoView extends JPanel {
         createHeader(layout, cs);
         createSliders(layout, cs);
         createHandlers(layout, cs);
+
+        model.attach(this::render);
     }
 
     private void createHeader(GridBagLayout layout, GridBagConstraints cs) {
@@ -156,8 +162,6 @@ public class ServoView extends JPanel {
 
         var sliders = new Sliders();
 
-        servo.addListener(sliders);
-
         cs.gridy++;
 
         layout.setConstraints(sliders, cs);
@@ -231,11 +235,11 @@ public class ServoView extends JPanel {
     /**
      * Reflect the change in actual position.
      *
-     * @param position The actual position.
+     * Called by the {@link #model} on the event dispatch thread.
      */
-    private void setPosition(double position) {
+    private void render() {
 
-        int iPosition = (int)Math.round(position * (precision - 1));
+        int iPosition = (int)Math.round(model.getActualPosition() * (precision - 1));
 
         viewSlider.setValue(iPosition);
 
@@ -254,6 +258,22 @@ public class ServoView extends JPanel {
         controlSlider.setValue(precision/2);
     }
 
+    /**
+     * Start or stop tracking the servo.
+     *
+     * Views that are not on screen don't need the servo notifications, and shouldn't be getting them.
+     *
+     * @param tracking {@code true} to track the servo.
+     */
+    void setTracking(boolean tracking) {
+
+        if (tracking) {
+            model.attach(this::render);
+        } else {
+            model.detach();
+        }
+    }
+
     @Override
     public boolean isEnabled() {
 
@@ -489,7 +509,7 @@ public class ServoView extends JPanel {
 
                     int position = controlSlider.getValue();
 
-                    target.setPosition((double)position/(double)(precision - 1));
+                    model.setPosition(target, (double)position/(double)(precision - 1));
                 }
 
             } catch ( Throwable t ) { // NOSONAR Consequences have been considered
@@ -499,7 +519,7 @@ public class ServoView extends JPanel {
         }
     }
 
-    private class Sliders extends JPanel implements ChangeListener, ServoListener {
+    private class Sliders extends JPanel implements ChangeListener {
 
         Sliders() {
 
@@ -548,49 +568,9 @@ public class ServoView extends JPanel {
 
                 int position = controlSlider.getValue();
 
-                try {
-
-                    target.setPosition((double)position/(double)(precision - 1));
-
-                } catch ( Throwable t ) { // NOSONAR Consequences have been considered
-
-                    logger.error("Servo#setPosition:", t);
-                }
+                model.setPosition(target, (double)position/(double)(precision - 1));
             }
         }
-
-        /**
-         * Accept the notification about the change in the requested position.
-         *
-         * @param source The servo whose requested position has changed.
-         */
-        @Override
-        public void positionChanged(Servo source, double position) {
-
-            // This notification doesn't have to be visibly reflected
-
-            //logger.debug("Position requested: {}", position); // NOSONAR
-        }
-
-        /**
-         * Accept the notification about the change in the actual position.
-         *
-         * @param source The servo whose actual position has changed.
-         */
-        @Override
-        public void actualPositionChanged(Servo source, double position) {
-            setPosition(position);
-        }
-
-        @Override
-        public void exception(Servo source, Throwable t) {
-            logger.error("Oops: {}", source, t);
-        }
-
-        @Override
-        public void silentStatusChanged(SilentDevice source, boolean silent) {
-            logger.info("silent status changed to {}: {}", silent, source);
-        }
     }
 
     /**
@@ -0,0 +1,176 @@
+package net.sf.servomaster.view;
+
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.SilentDevice;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.Timer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servo state as the {@link ServoView} sees it.
+ *
+ * <p>
+ *
+ * The servo notifications arrive from the broadcaster threads, during a crawl at hundreds per second per servo.
+ * Instead of touching Swing components for every one of them, the model only remembers the latest
+ * position, and the view is {@link #attach(Runnable) told} to render it on the event dispatch thread
+ * at most {@link #DISPLAY_RATE} times a second, and only if something has changed since the last time.
+ *
+ * <p>
+ *
+ * The commands go the other way through the {@link CommandPacer}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+class ServoViewModel implements ServoListener {
+
+    /**
+     * How many times a second the views are refreshed, at most.
+     */
+    static final int DISPLAY_RATE = 60;
+
+    /**
+     * Models with a view attached. All of them are refreshed by one timer.
+     */
+    private static final List<ServoViewModel> attached = new CopyOnWriteArrayList<>();
+
+    private static final Timer refresher = new Timer(1000 / DISPLAY_RATE, e -> attached.forEach(ServoViewModel::refresh));
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private final Servo servo;
+    private final CommandPacer pacer;
+
+    private volatile double actualPosition;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private Runnable view;
+
+    /**
+     * Create an instance. The servo is not listened to until a view is {@link #attach(Runnable) attached}.
+     *
+     * @param servo Servo to track.
+     * @param pacer Pacer for the servo's controller.
+     */
+    ServoViewModel(Servo servo, CommandPacer pacer) {
+
+        this.servo = servo;
+        this.pacer = pacer;
+    }
+
+    /**
+     * Start listening to the servo, and rendering the changes. Has no effect if already attached.
+     *
+     * @param view Called on the event dispatch thread when there is something new to show.
+     */
+    void attach(Runnable view) {
+
+        if (attached.contains(this)) {
+            return;
+        }
+
+        this.view = view;
+
+        servo.addListener(this);
+
+        // The notifications may have been missed while detached
+        actualPosition = servo.getActualPosition();
+        dirty.set(true);
+
+        attached.add(this);
+        refresher.start();
+    }
+
+    /**
+     * Stop listening to the servo, and rendering the changes. Has no effect if not attached.
+     */
+    void detach() {
+
+        if (!attached.remove(this)) {
+            return;
+        }
+
+        servo.removeListener(this);
+
+        if (attached.isEmpty()) {
+            refresher.stop();
+        }
+    }
+
+    private void refresh() {
+
+        if (dirty.getAndSet(false)) {
+
+            refreshes.incrementAndGet();
+            view.run();
+        }
+    }
+
+    /**
+     * Command the servo. Doesn't block, see {@link CommandPacer#submit(Servo, double)}.
+     *
+     * @param target The servo itself, or a coordinate transformer on top of it.
+     * @param position Position to set.
+     */
+    void setPosition(Servo target, double position) {
+        pacer.submit(target, position);
+    }
+
+    /**
+     * @return Latest actual position reported by the servo.
+     */
+    double getActualPosition() {
+        return actualPosition;
+    }
+
+    /**
+     * @return Number of position notifications received.
+     */
+    long getEventCount() {
+        return events.get();
+    }
+
+    /**
+     * @return Number of times the view was asked to render. The difference from {@link #getEventCount()}
+     * is the number of notifications merged.
+     */
+    long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    @Override
+    public void positionChanged(Servo source, double position) {
+
+        // The label shows the requested position as well
+        events.incrementAndGet();
+        dirty.set(true);
+    }
+
+    @Override
+    public void actualPositionChanged(Servo source, double position) {
+
+        actualPosition = position;
+        events.incrementAndGet();
+        dirty.set(true);
+    }
+
+    @Override
+    public void exception(Servo source, Throwable t) {
+        logger.error("Oops: {}", source, t);
+    }
+
+    @Override
+    public void silentStatusChanged(SilentDevice source, boolean silent) {
+        logger.info("silent status changed to {}: {}", silent, source);
+    }
+}
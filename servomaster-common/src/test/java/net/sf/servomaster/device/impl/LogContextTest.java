@@ -0,0 +1,44 @@
+package net.sf.servomaster.device.impl;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * {@link LogContext} at {@code INFO} level. The cost of it is measured by {@code LogContextBenchmark}.
+ */
+public class LogContextTest {
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private Level originalLevel;
+
+    @Before
+    public void info() {
+
+        originalLevel = logger.getLevel();
+        Configurator.setLevel(logger.getName(), Level.INFO);
+    }
+
+    @After
+    public void restore() {
+        Configurator.setLevel(logger.getName(), originalLevel);
+    }
+
+    @Test
+    public void notEntered() {
+
+        var context = new LogContext(logger, "marker");
+        var entered = context.enter();
+
+        context.exit(entered);
+
+        assertFalse(entered);
+    }
+}
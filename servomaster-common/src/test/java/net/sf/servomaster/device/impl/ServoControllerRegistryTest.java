@@ -0,0 +1,138 @@
+package net.sf.servomaster.device.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.debug.NullServoController;
+import net.sf.servomaster.device.model.ServoControllerProvider;
+
+public class ServoControllerRegistryTest {
+
+    private static class Other extends AbstractServoControllerProvider {
+
+        Other() {
+            super("another", "Same thing, different name", NullServoController.class, NullServoController::new);
+        }
+    }
+
+    /**
+     * Make a loader handle the way {@link ServiceLoader#stream()} does, without instantiating anything.
+     */
+    private static ServiceLoader.Provider<ServoControllerProvider> handle(Class<? extends ServoControllerProvider> type, Supplier<ServoControllerProvider> factory) {
+
+        return new ServiceLoader.Provider<>() {
+
+            @Override
+            public Class<? extends ServoControllerProvider> type() {
+                return type;
+            }
+
+            @Override
+            public ServoControllerProvider get() {
+                return factory.get();
+            }
+        };
+    }
+
+    private static ServiceLoader.Provider<ServoControllerProvider> nullProvider() {
+        return handle(NullServoController.Provider.class, NullServoController.Provider::new);
+    }
+
+    private static ServiceLoader.Provider<ServoControllerProvider> other() {
+        return handle(Other.class, Other::new);
+    }
+
+    @Test
+    public void discovered() {
+
+        var provider = ServoControllerRegistry.getInstance().find("null");
+
+        assertTrue(provider.isPresent());
+        assertSame(NullServoController.class, provider.get().getControllerClass());
+    }
+
+    @Test
+    public void find() throws IOException {
+
+        var registry = new ServoControllerRegistry(Stream.of(nullProvider(), other()));
+
+        assertEquals("another", registry.listAvailable().get(0).getName());
+        assertEquals("null", new ServoControllerRegistry(Stream.of(nullProvider())).find(NullServoController.class.getName()).get().getName());
+        assertFalse(registry.find("nothing").isPresent());
+
+        // Not opened, nothing to close
+        assertEquals("/dev/zero", registry.create("another", "/dev/zero").getPort());
+
+        try {
+
+            registry.create("nothing", null);
+            fail("should've failed by now");
+
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().startsWith("No provider for 'nothing'"));
+        }
+    }
+
+    @Test
+    public void lazy() {
+
+        var registry = new ServoControllerRegistry(Stream.of(
+                nullProvider(),
+                handle(Other.class, () -> {
+                    throw new AssertionError("shouldn't have been instantiated");
+                })));
+
+        assertTrue(registry.find("null").isPresent());
+    }
+
+    @Test
+    public void broken() {
+
+        // ServiceLoader reports a provider it can't load from the stream, and the one it can't instantiate from get()
+        Iterable<ServiceLoader.Provider<ServoControllerProvider>> loader = () -> new Iterator<>() {
+
+            private int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                return offset < 3;
+            }
+
+            @Override
+            public ServiceLoader.Provider<ServoControllerProvider> next() {
+
+                switch (offset++) {
+
+                case 0:
+                    throw new ServiceConfigurationError("broken");
+
+                case 1:
+                    return handle(Other.class, () -> {
+                        throw new ServiceConfigurationError("broken constructor");
+                    });
+
+                default:
+                    return nullProvider();
+                }
+            }
+        };
+
+        var registry = new ServoControllerRegistry(StreamSupport.stream(loader.spliterator(), false));
+
+        assertFalse(registry.find("another").isPresent());
+        assertEquals(1, registry.listAvailable().size());
+    }
+}
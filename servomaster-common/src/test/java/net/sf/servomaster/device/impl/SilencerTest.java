@@ -0,0 +1,151 @@
+package net.sf.servomaster.device.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.clock.VirtualClock;
+import net.sf.servomaster.device.impl.debug.NullServoController;
+
+public class SilencerTest {
+
+    /**
+     * Records the wake-ups, taking a while to complete each.
+     */
+    private static class SlowWakeUp extends Silencer {
+
+        final List<String> log = new CopyOnWriteArrayList<>();
+        final Object monitor = new Object();
+
+        SlowWakeUp() {
+            super(5000, 30000);
+        }
+
+        @Override
+        protected void sleep() {
+            log.add("sleep");
+        }
+
+        @Override
+        protected void wakeUp() {
+
+            synchronized (monitor) {
+
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+
+                log.add("wakeUp");
+            }
+        }
+
+        @Override
+        protected Object getWakeUpMonitor() {
+            return monitor;
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void awakeOnReturn() {
+
+        var silencer = new SlowWakeUp();
+
+        silencer.start();
+
+        try {
+
+            silencer.setSilentMode(true);
+            silencer.setSilentMode(false);
+            silencer.log.add("returned");
+
+            assertEquals(List.of("wakeUp", "returned"), silencer.log);
+
+        } finally {
+            silencer.interrupt();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void monitorHeld() throws InterruptedException {
+
+        var silencer = new SlowWakeUp();
+
+        silencer.start();
+
+        try {
+
+            synchronized (silencer.monitor) {
+
+                // Waiting for the wake-up here would be a deadlock, it happens after the monitor is released
+
+                silencer.setSilentMode(true);
+                silencer.setSilentMode(false);
+                silencer.log.add("returned");
+            }
+
+            while (silencer.log.size() < 2) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(List.of("returned", "wakeUp"), silencer.log);
+
+        } finally {
+            silencer.interrupt();
+        }
+    }
+
+    @Test
+    public void hourOfSilence() throws IOException, InterruptedException {
+
+        var clock = new VirtualClock();
+
+        try (var controller = new NullServoController("silencer-test")) {
+
+            controller.setClock(clock);
+            controller.open();
+
+            // The simulated write delay is by the same clock, and nobody would be moving it while we're waiting
+            controller.getMeta().setProperty("controller/bandwidth", "0");
+
+            var servo = controller.getServo("0");
+
+            servo.setSilentTimeout(5000, 30000);
+            servo.setSilentMode(true);
+
+            assertTrue("silencer never started waiting", clock.awaitPending(1, 1, TimeUnit.SECONDS));
+
+            clock.advance(1, TimeUnit.HOURS);
+
+            // Asleep at 5s, awake at 35s, asleep again at 40s, and so on every 35s
+
+            var metrics = ((AbstractServo) servo).getMetrics();
+            var deadline = System.currentTimeMillis() + 1000;
+
+            // The commands themselves are executed asynchronously, give them a moment to catch up
+            while ((metrics.getSleepCount() < 103 || metrics.getWakeUpCount() < 102) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(103, metrics.getSleepCount());
+            assertEquals(102, metrics.getWakeUpCount());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void clockAfterOpen() throws IOException {
+
+        try (var controller = new NullServoController("silencer-test-open")) {
+
+            controller.open();
+            controller.setClock(new VirtualClock());
+        }
+    }
+}
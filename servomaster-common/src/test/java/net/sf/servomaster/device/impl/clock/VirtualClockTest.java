@@ -0,0 +1,110 @@
+package net.sf.servomaster.device.impl.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class VirtualClockTest {
+
+    @Test
+    public void sleep() throws InterruptedException {
+
+        var clock = new VirtualClock(1_000_000);
+        var sleeper = new Thread(() -> {
+
+            try {
+                clock.sleep(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        sleeper.start();
+
+        assertTrue("sleeper never went to sleep", clock.awaitPending(1, 1, TimeUnit.SECONDS));
+
+        clock.advance(999, TimeUnit.MILLISECONDS);
+
+        // No amount of real time is enough
+        sleeper.join(100);
+        assertTrue(sleeper.isAlive());
+
+        clock.advance(1, TimeUnit.MILLISECONDS);
+
+        sleeper.join(1000);
+        assertFalse(sleeper.isAlive());
+        assertEquals(1_001_000, clock.currentTimeMillis());
+    }
+
+    @Test
+    public void schedule() throws InterruptedException {
+
+        var clock = new VirtualClock();
+        var executor = Executors.newSingleThreadScheduledExecutor();
+        List<Long> ranAt = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+
+            for (var delay : new long[] { 30, 10, 20 }) {
+                clock.schedule(executor, () -> ranAt.add(clock.nanoTime()), delay, TimeUnit.MILLISECONDS);
+            }
+
+            clock.advance(1, TimeUnit.HOURS);
+
+            // Each task sees the time it was scheduled for, not the time the clock was moved to
+            assertEquals(List.of(10_000_000L, 20_000_000L, 30_000_000L), ranAt);
+            assertEquals(TimeUnit.HOURS.toNanos(1), clock.nanoTime());
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void awaitNotified() throws InterruptedException {
+
+        var clock = new VirtualClock();
+        var monitor = new Object();
+        var done = new boolean[1];
+
+        var waiter = new Thread(() -> {
+
+            synchronized (monitor) {
+
+                try {
+
+                    while (!done[0]) {
+                        clock.await(monitor, TimeUnit.HOURS.toMillis(1));
+                    }
+
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        waiter.start();
+
+        assertTrue("waiter never started waiting", clock.awaitPending(1, 1, TimeUnit.SECONDS));
+
+        synchronized (monitor) {
+            done[0] = true;
+            monitor.notifyAll();
+        }
+
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+
+        // The deadline is gone with the waiter, and the time hasn't moved
+        assertFalse(clock.awaitPending(1, 0, TimeUnit.SECONDS));
+        assertEquals(0, clock.nanoTime());
+    }
+}
@@ -0,0 +1,132 @@
+package net.sf.servomaster.device.impl.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.sf.servomaster.device.impl.debug.NullServoController;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.SilentDevice;
+import net.sf.servomaster.device.model.transition.CrawlTransitionController;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void lifecycle() throws IOException, InterruptedException, ExecutionException {
+
+        var dump = Files.createTempFile("servomaster-", ".jfr");
+
+        try {
+
+            try (var recording = new Recording()) {
+
+                recording.enable(PositionRequestedEvent.class);
+                recording.enable(TransitionStepEvent.class);
+                recording.enable(WriteEvent.class);
+                recording.enable(ListenerDeliveredEvent.class);
+                recording.start();
+
+                move();
+
+                recording.stop();
+                recording.dump(dump);
+            }
+
+            var events = RecordingFile.readAllEvents(dump);
+
+            // Closing the controller creates (and centers) the rest of the servos, they're not of interest
+            var requested = select(events, "net.sf.servomaster.PositionRequested")
+                    .stream()
+                    .filter(e -> "0".equals(e.getString("servo")))
+                    .collect(Collectors.toList());
+
+            // Centered on creation, then two commands
+            assertEquals(3, requested.size());
+            assertTrue(requested.get(2).getBoolean("transition"));
+
+            var steps = select(events, "net.sf.servomaster.TransitionStep");
+
+            assertTrue(!steps.isEmpty());
+            assertEquals("0", steps.get(0).getString("servo"));
+
+            var writes = select(events, "net.sf.servomaster.Write");
+
+            // Every step is a write, and so are the commands without a transition
+            assertTrue(writes.size() >= steps.size() + 2);
+
+            var delivered = select(events, "net.sf.servomaster.ListenerDelivered");
+
+            assertTrue(delivered.stream().anyMatch(e -> "positionChanged".equals(e.getString("notification"))));
+
+        } finally {
+            Files.delete(dump);
+        }
+    }
+
+    private void move() throws IOException, InterruptedException, ExecutionException {
+
+        var changed = new CountDownLatch(2);
+
+        try (var controller = new NullServoController("jfr-test")) {
+
+            controller.open();
+
+            var servo = controller.getServo("0");
+
+            servo.addListener(new ServoListener() {
+
+                @Override
+                public void positionChanged(Servo source, double position) {
+                    changed.countDown();
+                }
+
+                @Override
+                public void actualPositionChanged(Servo source, double position) {
+                    // Not interested
+                }
+
+                @Override
+                public void silentStatusChanged(SilentDevice source, boolean mode) {
+                    // Not interested
+                }
+
+                @Override
+                public void exception(Servo source, Throwable t) {
+                    // Not interested
+                }
+            });
+
+            servo.setPosition(0.2).get();
+
+            servo.attach(new CrawlTransitionController(), false);
+            servo.setPosition(0.22).get();
+
+            assertTrue(changed.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Whatever else is running in this JVM may be recorded as well, only our controller's events are of interest.
+     */
+    private static List<RecordedEvent> select(List<RecordedEvent> events, String name) {
+
+        return events
+                .stream()
+                .filter(e -> name.equals(e.getEventType().getName()))
+                .filter(e -> "jfr-test".equals(e.getString("controller")))
+                .collect(Collectors.toList());
+    }
+}
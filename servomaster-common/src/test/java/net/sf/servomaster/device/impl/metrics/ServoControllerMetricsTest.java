@@ -0,0 +1,117 @@
+package net.sf.servomaster.device.impl.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.AbstractServo;
+import net.sf.servomaster.device.impl.debug.NullServoController;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.SilentDevice;
+
+public class ServoControllerMetricsTest {
+
+    @Test
+    public void histogram() {
+
+        var h = new Histogram();
+
+        for (var value = 1; value <= 1000; value++) {
+            h.record(value * 1000L);
+        }
+
+        var snapshot = h.getSnapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_500, snapshot.getMean());
+
+        // Within a factor of two, and never below the actual value
+        assertTrue(snapshot.getP50() >= 500_000 && snapshot.getP50() < 1_000_000);
+        assertTrue(snapshot.getP99() >= 990_000 && snapshot.getP99() <= 1_000_000);
+        assertEquals(0, new Histogram().getSnapshot().getP99());
+    }
+
+    @Test
+    public void jmx() throws IOException, InterruptedException, ExecutionException, JMException {
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var delivered = new CountDownLatch(2);
+
+        try (var controller = new NullServoController("metrics-test")) {
+
+            controller.open();
+
+            var servo = controller.getServo("0");
+
+            servo.addListener(new ServoListener() {
+
+                @Override
+                public void positionChanged(Servo source, double position) {
+
+                    delivered.countDown();
+                    throw new IllegalStateException("Listener failure, expected");
+                }
+
+                @Override
+                public void actualPositionChanged(Servo source, double position) {
+                    // Not interested
+                }
+
+                @Override
+                public void silentStatusChanged(SilentDevice source, boolean mode) {
+                    // Not interested
+                }
+
+                @Override
+                public void exception(Servo source, Throwable t) {
+                    // Not interested
+                }
+            });
+
+            // The servo has been centered when created
+            assertEquals(1, ((AbstractServo) servo).getMetrics().getCommandsIssued());
+
+            servo.setPosition(0.2).get();
+            servo.setPosition(0.8).get();
+
+            assertTrue(delivered.await(1, TimeUnit.SECONDS));
+
+            var controllerName = AbstractMetrics.createName("ServoController", "metrics-test", null);
+            var servoName = AbstractMetrics.createName("Servo", "metrics-test", "0");
+
+            assertEquals(3L, server.getAttribute(servoName, "CommandsIssued"));
+            assertEquals(3L, server.getAttribute(controllerName, "CommandsIssued"));
+            assertEquals(3L, server.getAttribute(controllerName, "CommandsSent"));
+            assertEquals(3L, ((CompositeData) server.getAttribute(controllerName, "IoLatency")).get("count"));
+            assertEquals(3L, ((CompositeData) server.getAttribute(servoName, "MonitorWait")).get("count"));
+
+            // The listener may still be on its way out, and so may be the actualPositionChanged() notifications
+            var metrics = controller.getMetrics();
+            var servoMetrics = ((AbstractServo) servo).getMetrics();
+
+            for (var retry = 0; retry < 100 && (servoMetrics.getListenerExceptions() < 2 || servoMetrics.getNotificationQueueDepth() > 0); retry++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(2, servoMetrics.getListenerExceptions());
+            assertEquals(0, servoMetrics.getNotificationQueueDepth());
+            assertEquals(0, metrics.getIoErrors());
+        }
+
+        assertFalse(server.isRegistered(AbstractMetrics.createName("ServoController", "metrics-test", null)));
+        assertFalse(server.isRegistered(AbstractMetrics.createName("Servo", "metrics-test", "0")));
+    }
+}
@@ -0,0 +1,156 @@
+package net.sf.servomaster.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.clock.Clock;
+import net.sf.servomaster.device.impl.clock.VirtualClock;
+import net.sf.servomaster.device.model.Servo;
+
+public class CommandPacerTest {
+
+    private static class Command {
+
+        final Servo target;
+        final double position;
+        final long at;
+
+        Command(Servo target, double position, long at) {
+            this.target = target;
+            this.position = position;
+            this.at = at;
+        }
+    }
+
+    private final LinkedBlockingQueue<Command> sent = new LinkedBlockingQueue<>();
+
+    /**
+     * Clock to timestamp the commands with.
+     */
+    private Clock clock = Clock.SYSTEM;
+
+    /**
+     * @return Servo that only records the {@code setPosition()} calls.
+     */
+    private Servo servo(String name) {
+
+        return (Servo) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Servo.class }, (proxy, method, args) -> {
+
+            switch (method.getName()) {
+
+            case "setPosition":
+
+                sent.add(new Command((Servo) proxy, (Double) args[0], clock.nanoTime()));
+                return null;
+
+            case "hashCode":
+
+                return System.identityHashCode(proxy);
+
+            case "equals":
+
+                return proxy == args[0];
+
+            case "toString":
+
+                return name;
+
+            default:
+
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @Test
+    public void coalesce() throws InterruptedException {
+
+        var pacer = new CommandPacer("test", 10);
+        var a = servo("a");
+
+        try {
+
+            for (var position = 0; position < 50; position++) {
+                pacer.submit(a, position / 100d);
+            }
+
+            // The first one goes out right away, whatever came in during the interval is merged into one
+
+            Command last;
+
+            do {
+
+                last = sent.poll(1, TimeUnit.SECONDS);
+                assertNotNull("the latest command was never sent", last);
+
+            } while (last.position != 0.49);
+
+            assertEquals(50, pacer.getRequested());
+            assertTrue("sent " + pacer.getSent(), pacer.getSent() <= 3);
+
+        } finally {
+            pacer.close();
+        }
+    }
+
+    @Test
+    public void interval() throws InterruptedException {
+
+        var time = new VirtualClock();
+
+        clock = time;
+
+        var pacer = new CommandPacer("test", 10, time);
+        var a = servo("a");
+        var b = servo("b");
+
+        try {
+
+            pacer.submit(a, 0.1);
+            pacer.submit(b, 0.2);
+            pacer.submit(a, 0.3);
+
+            // The first one goes out right away, the rest have to wait for the clock
+
+            var first = sent.poll(1, TimeUnit.SECONDS);
+
+            assertNotNull(first);
+
+            time.advance(100, TimeUnit.MILLISECONDS);
+
+            var second = sent.poll(1, TimeUnit.SECONDS);
+
+            assertNotNull(second);
+
+            // Unless the sender has been quick enough to send 0.1 before 0.3 came in, a keeps its place in line
+
+            if (first.position == 0.1) {
+
+                assertSame(b, second.target);
+
+                time.advance(100, TimeUnit.MILLISECONDS);
+                assertEquals(0.3, sent.poll(1, TimeUnit.SECONDS).position, 0);
+
+            } else {
+
+                assertEquals(0.3, first.position, 0);
+                assertSame(b, second.target);
+            }
+
+            // The controller-wide rate is respected, whichever servo the commands are for
+
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(100), second.at - first.at);
+
+        } finally {
+            pacer.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.sf.servomaster.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.debug.NullServoController;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void keepingUp() throws IOException, InterruptedException {
+
+        try (var controller = new NullServoController()) {
+
+            controller.open();
+
+            var servos = new ArrayList<>(controller.getServos()).subList(0, 2);
+            var report = new LoadGenerator(servos, LoadGenerator.Pattern.SWEEP, 50, 400).run();
+
+            assertEquals(20, report.getRequested());
+            assertEquals(20, report.getSent());
+            assertEquals(0, report.getCoalesced());
+            assertEquals(0, report.getFailed());
+            assertTrue(report.getLatency(50) <= report.getLatency(100));
+        }
+    }
+
+    @Test
+    public void fallingBehind() throws IOException, InterruptedException {
+
+        try (var controller = new NullServoController()) {
+
+            controller.open();
+
+            // The null controller takes about 3ms per command, it can't do 1000 a second
+
+            var servos = new ArrayList<>(controller.getServos()).subList(0, 2);
+            var report = new LoadGenerator(servos, LoadGenerator.Pattern.STEP, 1000, 500).run();
+
+            assertEquals(500, report.getRequested());
+            assertEquals(report.getRequested(), report.getSent() + report.getCoalesced());
+            assertTrue("nothing coalesced", report.getCoalesced() > 0);
+            assertTrue(report.getThroughput() < report.getTargetRate());
+        }
+    }
+}
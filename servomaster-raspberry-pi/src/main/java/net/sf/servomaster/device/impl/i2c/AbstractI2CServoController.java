@@ -1,8 +1,6 @@
 package net.sf.servomaster.device.impl.i2c;
 
-import com.pi4j.io.i2c.I2CBus;
 import com.pi4j.io.i2c.I2CDevice;
-import com.pi4j.io.i2c.I2CFactory;
 import net.sf.servomaster.device.impl.AbstractServoController;
 import org.apache.logging.log4j.ThreadContext;
 
@@ -11,13 +9,25 @@ import java.io.IOException;
 /**
  * Base class for I2C based servo controllers.
  *
+ * <p>
+ *
+ * Controllers created for a bus number share the {@link I2CBusScheduler} for that bus, which performs
+ * all the transactions on its own thread. Subclasses buffer the changes, {@link #requestFlush() request}
+ * the flush, and write the buffer out in {@link #flush()} when the board's turn comes.
+ *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2001-2018
  */
 public abstract class AbstractI2CServoController extends AbstractServoController {
 
     public final int deviceAddress;
 
-    protected final I2CDevice device;
+    protected final I2CTransport device;
+
+    /**
+     * This device's handle on the bus scheduler, or {@code null} if the transactions are performed
+     * on the caller thread.
+     */
+    protected final I2CBusScheduler.Board board;
 
     protected AbstractI2CServoController(int busId, int deviceAddress) throws IOException {
 
@@ -31,8 +41,10 @@ public abstract class AbstractI2CServoController extends AbstractServoController
 
             this.deviceAddress = deviceAddress;
 
-            I2CBus bus = I2CFactory.getInstance(busId);
-            device = bus.getDevice(deviceAddress);
+            var scheduler = I2CBusScheduler.getInstance(busId);
+
+            device = scheduler.getDevice(deviceAddress);
+            board = register(scheduler);
 
         } catch (Throwable t) { // NOSONAR Consequences have been considered
 
@@ -47,6 +59,136 @@ public abstract class AbstractI2CServoController extends AbstractServoController
         this(parseBusId(portName), parseDeviceAddress(portName));
     }
 
+    /**
+     * Create an instance talking to the given device.
+     *
+     * @param device Device to talk to.
+     */
+    protected AbstractI2CServoController(I2CDevice device) {
+        this(new Pi4jTransport(device));
+    }
+
+    /**
+     * Create an instance talking to the given device on the caller thread.
+     *
+     * @param device Device to talk to.
+     */
+    protected AbstractI2CServoController(I2CTransport device) {
+
+        super("?:" + Integer.toHexString(device.getAddress()));
+
+        this.deviceAddress = device.getAddress();
+        this.device = device;
+        this.board = null;
+    }
+
+    /**
+     * Create an instance talking to the given device through the given scheduler.
+     *
+     * @param scheduler Scheduler for the bus the device is on.
+     * @param device Device to talk to.
+     */
+    protected AbstractI2CServoController(I2CBusScheduler scheduler, I2CTransport device) {
+
+        super(scheduler + ":" + Integer.toHexString(device.getAddress()));
+
+        this.deviceAddress = device.getAddress();
+        this.device = device;
+        this.board = register(scheduler);
+    }
+
+    private I2CBusScheduler.Board register(I2CBusScheduler scheduler) {
+
+        return scheduler.register(deviceAddress, () -> {
+
+            flush();
+            return null;
+
+        }, this::flushFailed);
+    }
+
+    /**
+     * Write out whatever has been buffered since the last flush.
+     *
+     * Called on the bus scheduler thread, or, if there's no scheduler, on the caller thread from
+     * {@link #requestFlush()}. Does nothing by default.
+     *
+     * @throws IOException if there was a problem writing to the device.
+     */
+    protected void flush() throws IOException {
+        // Nothing is buffered by default
+    }
+
+    /**
+     * Called on the bus scheduler thread when {@link #flush()} has failed.
+     *
+     * The caller that requested the flush is long gone by then, so the listeners are the only ones who can be told.
+     * Subclasses are expected to keep whatever failed to be written buffered until the next flush.
+     *
+     * @param t What went wrong.
+     */
+    protected void flushFailed(Throwable t) {
+        exception(t);
+    }
+
+    /**
+     * Close the controller, write out whatever it has buffered on the way, and take it off the bus.
+     *
+     * @throws IOException if there was a problem talking to the device.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            super.close();
+
+            // The servos going to sleep is buffered like everything else, and there will be no flush after this one
+            execute(() -> {
+
+                flush();
+                return null;
+            });
+
+        } finally {
+
+            if (board != null) {
+                board.unregister();
+            }
+        }
+    }
+
+    /**
+     * Get {@link #flush()} called as soon as the bus allows.
+     *
+     * @throws IOException if there's no scheduler, and the flush failed.
+     */
+    protected final void requestFlush() throws IOException {
+
+        if (board == null) {
+            flush();
+        } else {
+            board.requestFlush();
+        }
+    }
+
+    /**
+     * Perform the transaction on the bus scheduler thread, or right here if there's no scheduler,
+     * and wait for it to complete.
+     *
+     * The caller must not hold any locks {@link #flush()} takes.
+     *
+     * @param transaction Transaction to perform.
+     * @param <T> Result type.
+     *
+     * @return Transaction result.
+     *
+     * @throws IOException if the transaction failed.
+     */
+    protected final <T> T execute(I2CBusScheduler.Transaction<T> transaction) throws IOException {
+        return board == null ? transaction.run() : board.execute(transaction);
+    }
+
     private static int parseBusId(String portName) {
         return Integer.decode(split(portName)[0]);
     }
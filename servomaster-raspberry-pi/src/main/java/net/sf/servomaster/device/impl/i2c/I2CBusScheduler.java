@@ -0,0 +1,710 @@
+package net.sf.servomaster.device.impl.i2c;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import net.sf.servomaster.device.impl.clock.Clock;
+
+/**
+ * Serializes the traffic of all the devices on one I2C bus.
+ *
+ * <p>
+ *
+ * Every device on the bus is represented by a {@link Board}. All the bus transactions are performed by a single
+ * I/O thread, which goes around the boards that have work pending in a round-robin fashion, one unit of work
+ * per board per turn. A unit of work is either a synchronous {@link Board#execute(Transaction) transaction},
+ * or a {@link Board#requestFlush() flush}. Flush requests made while a board is waiting for its turn are merged,
+ * so the board writes everything that has changed since its last turn in one go, no matter how many times
+ * the channels have been updated.
+ *
+ * <p>
+ *
+ * The scheduler keeps track of the time the bus spends in the transactions, see {@link #getUtilization()}.
+ * All the times, and the waits for the {@link Board#setMinInterval(long) minimum interval} and the
+ * {@link Board#requestRetry(long) retries}, are kept by the {@link Clock clock} given at construction time.
+ *
+ * <p>
+ *
+ * When the last board is {@link Board#unregister() unregistered}, the scheduler finishes whatever transactions
+ * are still pending, stops the I/O thread, and {@link I2CTransport.Bus#close() closes} the bus. The next
+ * {@link #getInstance(int)} call for this bus will create a new one.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class I2CBusScheduler {
+
+    private static final Map<Integer, I2CBusScheduler> instances = new HashMap<>();
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private final String name;
+
+    /**
+     * The bus backend, or {@code null} if the devices are supplied by the caller.
+     */
+    private final I2CTransport.Bus bus;
+
+    /**
+     * Boards with work pending, in the order they'll get their turn.
+     */
+    private final Deque<Board> ready = new ArrayDeque<>();
+
+    private final Clock clock;
+
+    private final Thread ioThread;
+
+    private final long created;
+
+    private long busyNanos = 0;
+    private long flushCount = 0;
+    private long transactionCount = 0;
+    private long failureCount = 0;
+    private long maxLatencyNanos = 0;
+
+    /**
+     * Number of boards {@link #register(int, Transaction, Consumer) registered} and not yet
+     * {@link Board#unregister() unregistered}.
+     */
+    private int boardCount = 0;
+
+    private boolean shutdown = false;
+
+    /**
+     * Get the scheduler for the bus, creating it with the {@link Pi4jTransport pi4j backend} if it doesn't exist yet.
+     *
+     * @param busId Bus number.
+     *
+     * @return The scheduler shared by all the controllers on this bus.
+     *
+     * @throws IOException if the bus can't be opened.
+     */
+    public static synchronized I2CBusScheduler getInstance(int busId) throws IOException {
+
+        var instance = instances.get(busId);
+
+        if (instance == null || instance.isShutdown()) {
+
+            instance = new I2CBusScheduler("I2C bus " + busId, Pi4jTransport.bus(busId));
+            instances.put(busId, instance);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Get the scheduler for the bus, creating it with the given backend if it doesn't exist yet.
+     *
+     * Use this before any controllers are created to make them all use a different backend,
+     * like {@link LinuxI2CTransport#bus(int)}.
+     *
+     * @param busId Bus number.
+     * @param bus Backend to use if the scheduler needs to be created.
+     *
+     * @return The scheduler shared by all the controllers on this bus.
+     *
+     * @throws IllegalStateException if the scheduler already exists, and uses a different backend.
+     * The backends are compared with {@link Object#equals(Object)}, so asking for the same kind of backend
+     * for the same bus again is fine.
+     */
+    public static synchronized I2CBusScheduler getInstance(int busId, I2CTransport.Bus bus) {
+
+        var instance = instances.get(busId);
+
+        if (instance == null || instance.isShutdown()) {
+
+            instance = new I2CBusScheduler("I2C bus " + busId, bus);
+            instances.put(busId, instance);
+        }
+
+        if (!instance.bus.equals(bus)) {
+            throw new IllegalStateException(instance + " already exists with a different backend (" + instance.bus + ")");
+        }
+
+        return instance;
+    }
+
+    /**
+     * Forget the scheduler that has shut down, unless it has already been replaced.
+     */
+    private static synchronized void forget(I2CBusScheduler scheduler) {
+        instances.values().remove(scheduler);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name Name to give the I/O thread.
+     * @param bus Bus backend to get the devices from, {@code null} if the devices will be supplied by the caller.
+     */
+    public I2CBusScheduler(String name, I2CTransport.Bus bus) {
+        this(name, bus, Clock.SYSTEM);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name Name to give the I/O thread.
+     * @param bus Bus backend to get the devices from, {@code null} if the devices will be supplied by the caller.
+     * @param clock Clock to keep the time by.
+     */
+    public I2CBusScheduler(String name, I2CTransport.Bus bus, Clock clock) {
+
+        if (clock == null) {
+            throw new IllegalArgumentException("clock can't be null");
+        }
+
+        this.name = name;
+        this.bus = bus;
+        this.clock = clock;
+
+        created = clock.nanoTime();
+
+        ioThread = new Thread(this::run, name);
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Get a device on this bus.
+     *
+     * @param address Device address.
+     *
+     * @return The device.
+     *
+     * @throws IOException if the device can't be obtained.
+     */
+    public I2CTransport getDevice(int address) throws IOException {
+
+        if (bus == null) {
+            throw new IllegalStateException(name + ": no bus, devices must be supplied by the caller");
+        }
+
+        return bus.open(address);
+    }
+
+    /**
+     * Add a board to this bus.
+     *
+     * @param address Device address, for diagnostics.
+     * @param flusher Called on the I/O thread to write out whatever the board has buffered.
+     *
+     * @return The board handle.
+     */
+    public Board register(int address, Transaction<Void> flusher) {
+        return register(address, flusher, t -> {});
+    }
+
+    /**
+     * Add a board to this bus.
+     *
+     * @param address Device address, for diagnostics.
+     * @param flusher Called on the I/O thread to write out whatever the board has buffered.
+     * @param failed Called on the I/O thread with the reason the flush has failed - nobody is waiting
+     * for the flush, so this is the only way the board owner gets to know.
+     *
+     * @return The board handle.
+     *
+     * @throws IllegalStateException if the scheduler has already shut down.
+     */
+    public synchronized Board register(int address, Transaction<Void> flusher, Consumer<Throwable> failed) {
+
+        if (shutdown) {
+            throw new IllegalStateException(name + " has shut down");
+        }
+
+        boardCount++;
+
+        return new Board(address, flusher, failed);
+    }
+
+    /**
+     * @return {@code true} if the last board has been unregistered, and the I/O thread is gone or on its way out.
+     */
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    private void run() {
+
+        ThreadContext.push(name);
+
+        try {
+
+            while (true) {
+
+                Board board;
+                Runnable work;
+
+                synchronized (this) {
+
+                    do {
+
+                        if (shutdown && ready.isEmpty()) {
+                            return;
+                        }
+
+                        board = next();
+
+                    } while (board == null);
+
+                    if (!board.tasks.isEmpty()) {
+
+                        work = board.tasks.poll();
+
+                    } else {
+
+                        var now = clock.nanoTime();
+
+                        maxLatencyNanos = Math.max(maxLatencyNanos, now - board.dirtySince);
+                        board.dirty = false;
+                        board.lastFlush = now;
+                        work = board::flush;
+                    }
+
+                    if (!board.tasks.isEmpty() || board.dirty) {
+                        ready.add(board);
+                    } else {
+                        board.queued = false;
+                    }
+                }
+
+                var start = clock.nanoTime();
+
+                work.run();
+
+                var elapsed = clock.nanoTime() - start;
+
+                synchronized (this) {
+                    busyNanos += elapsed;
+                }
+            }
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted, exiting", ex);
+
+        } finally {
+
+            closeBus();
+            ThreadContext.pop();
+        }
+    }
+
+    private void closeBus() {
+
+        if (bus == null) {
+            return;
+        }
+
+        try {
+
+            bus.close();
+
+        } catch (IOException ex) {
+            logger.warn("failed to close {}", bus, ex);
+        }
+    }
+
+    /**
+     * Take the first board in line that has work that can be done now.
+     *
+     * A board that only needs a flush, and has been flushed less than its {@link Board#setMinInterval(long) minimum interval}
+     * ago, is skipped. If there's nothing to do, waits until there is, or until the first skipped board becomes due.
+     *
+     * Must be called with the monitor held.
+     *
+     * @return The board removed from the line, or {@code null} if the wait has ended without finding one.
+     */
+    private Board next() throws InterruptedException {
+
+        if (ready.isEmpty()) {
+
+            clock.await(this, 0);
+            return null;
+        }
+
+        var now = clock.nanoTime();
+        var due = Long.MAX_VALUE;
+
+        for (var i = ready.iterator(); i.hasNext(); ) {
+
+            var board = i.next();
+            var boardDue = board.lastFlush + board.minInterval;
+
+            if (board.retryAt - boardDue > 0) {
+                boardDue = board.retryAt;
+            }
+
+            if (!board.tasks.isEmpty() || boardDue - now <= 0) {
+
+                i.remove();
+                return board;
+            }
+
+            due = Math.min(due, boardDue - now);
+        }
+
+        // Round up, or we'll be spinning for the last fraction of a millisecond
+        clock.await(this, due / 1_000_000 + 1);
+
+        return null;
+    }
+
+    /**
+     * Put the board at the end of the line, unless it's already there.
+     *
+     * Must be called with the monitor held.
+     */
+    private void enqueue(Board board) {
+
+        if (!board.queued) {
+
+            board.queued = true;
+            ready.add(board);
+        }
+
+        // Even if the board is already in line, it may have been held back, and now has a transaction
+
+        notifyAll();
+    }
+
+    /**
+     * @return The clock this scheduler keeps the time by.
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return Fraction of the time since this scheduler was created that the bus was busy, 0 to 1.
+     */
+    public synchronized double getUtilization() {
+
+        var elapsed = clock.nanoTime() - created;
+
+        return elapsed == 0 ? 0 : (double) busyNanos / elapsed;
+    }
+
+    /**
+     * @return Total time spent in the bus transactions, in nanoseconds.
+     */
+    public synchronized long getBusyTime() {
+        return busyNanos;
+    }
+
+    /**
+     * @return Number of board flushes performed.
+     */
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * @return Number of synchronous transactions performed.
+     */
+    public synchronized long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * @return Number of flushes that failed.
+     */
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return Longest time a board had to wait for its flush, in nanoseconds, including the time
+     * it was held back by its {@link Board#setMinInterval(long) minimum interval}. If this exceeds
+     * the update period, the bus is saturated.
+     */
+    public synchronized long getMaxLatency() {
+        return maxLatencyNanos;
+    }
+
+    /**
+     * @return Number of boards waiting for their turn.
+     */
+    public synchronized int getBacklog() {
+        return ready.size();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Bus transaction.
+     *
+     * @param <T> Result type.
+     */
+    @FunctionalInterface
+    public interface Transaction<T> {
+
+        T run() throws IOException;
+    }
+
+    /**
+     * A device on the bus.
+     */
+    public final class Board {
+
+        private final int address;
+        private final Transaction<Void> flusher;
+        private final Consumer<Throwable> failed;
+
+        /**
+         * Synchronous transactions waiting for the turn. Guarded by the scheduler monitor.
+         */
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        private boolean dirty = false;
+        private boolean queued = false;
+        private boolean registered = true;
+        private long dirtySince;
+
+        /**
+         * Minimum time between the flushes, in nanoseconds.
+         */
+        private long minInterval = 0;
+
+        /**
+         * When the last flush started, {@link System#nanoTime()}.
+         */
+        private long lastFlush = clock.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+        /**
+         * No flush before this time, {@link System#nanoTime()}.
+         *
+         * @see #requestRetry(long)
+         */
+        private long retryAt = lastFlush;
+
+        private Board(int address, Transaction<Void> flusher, Consumer<Throwable> failed) {
+
+            this.address = address;
+            this.flusher = flusher;
+            this.failed = failed;
+        }
+
+        /**
+         * @return The scheduler this board is on.
+         */
+        public I2CBusScheduler getScheduler() {
+            return I2CBusScheduler.this;
+        }
+
+        /**
+         * Set the minimum time between the flushes.
+         *
+         * Flush requests coming in faster than that are merged. Transactions are not affected.
+         *
+         * @param minInterval Minimum interval, in nanoseconds, 0 for no limit.
+         */
+        public void setMinInterval(long minInterval) {
+
+            synchronized (I2CBusScheduler.this) {
+
+                this.minInterval = minInterval;
+                I2CBusScheduler.this.notifyAll();
+            }
+        }
+
+        /**
+         * Ask for the flush on this board's next turn. Doesn't block.
+         *
+         * If the flush has already been requested and hasn't happened yet, this call has no effect.
+         */
+        public void requestFlush() {
+
+            synchronized (I2CBusScheduler.this) {
+
+                if (!registered) {
+
+                    logger.debug("0x{} is unregistered, flush ignored", Integer.toHexString(address));
+                    return;
+                }
+
+                if (!dirty) {
+
+                    dirty = true;
+                    dirtySince = clock.nanoTime();
+                }
+
+                enqueue(this);
+            }
+        }
+
+        /**
+         * Ask for the flush again, no sooner than after the given delay. Doesn't block.
+         *
+         * Meant to be called from the {@link #register(int, Transaction, Consumer) failure handler} - the failed
+         * flush has to be retried, but right away, it would most likely fail the same way. Other flush requests
+         * made in the meantime are held back as well, transactions are not.
+         *
+         * @param delay Delay, in nanoseconds.
+         */
+        public void requestRetry(long delay) {
+
+            synchronized (I2CBusScheduler.this) {
+
+                retryAt = clock.nanoTime() + delay;
+                requestFlush();
+            }
+        }
+
+        /**
+         * Execute the transaction on this board's turn, and wait for it to complete.
+         *
+         * <p>
+         *
+         * The caller must not hold any locks the {@link #register(int, Transaction) flusher} takes.
+         *
+         * @param transaction Transaction to execute.
+         * @param <T> Result type.
+         *
+         * @return Transaction result.
+         *
+         * @throws IOException if the transaction failed, or the wait was interrupted.
+         * @throws IllegalStateException if this board has been {@link #unregister() unregistered}.
+         */
+        public <T> T execute(Transaction<T> transaction) throws IOException {
+
+            if (Thread.currentThread() == ioThread) {
+                return transaction.run();
+            }
+
+            var result = new CompletableFuture<T>();
+
+            synchronized (I2CBusScheduler.this) {
+
+                if (!registered) {
+                    throw new IllegalStateException("0x" + Integer.toHexString(address) + " is unregistered");
+                }
+
+                tasks.add(() -> {
+
+                    try {
+
+                        result.complete(transaction.run());
+
+                    } catch (Throwable t) { // NOSONAR Consequences have been considered
+
+                        result.completeExceptionally(t);
+                    }
+
+                    synchronized (I2CBusScheduler.this) {
+                        transactionCount++;
+                    }
+                });
+
+                enqueue(this);
+            }
+
+            try {
+
+                return result.get();
+
+            } catch (InterruptedException ex) {
+
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for 0x" + Integer.toHexString(address), ex);
+
+            } catch (ExecutionException ex) {
+
+                var cause = ex.getCause();
+
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                throw new IOException("Transaction failed on 0x" + Integer.toHexString(address), cause);
+            }
+        }
+
+        /**
+         * Remove this board from the bus.
+         *
+         * <p>
+         *
+         * The transactions already waiting for their turn are still performed, the pending flush, if any, is not.
+         * Any later {@link #requestFlush()} is ignored, and {@link #execute(Transaction)} fails. If this is the last
+         * board on the bus, the scheduler shuts down. Calling this more than once has no effect.
+         */
+        public void unregister() {
+
+            synchronized (I2CBusScheduler.this) {
+
+                if (!registered) {
+                    return;
+                }
+
+                registered = false;
+                dirty = false;
+
+                if (tasks.isEmpty() && queued) {
+
+                    ready.remove(this);
+                    queued = false;
+                }
+
+                if (--boardCount > 0) {
+                    return;
+                }
+
+                shutdown = true;
+                I2CBusScheduler.this.notifyAll();
+            }
+
+            logger.debug("{}: last board gone, shutting down", name);
+            forget(I2CBusScheduler.this);
+        }
+
+        private void flush() {
+
+            try {
+
+                flusher.run();
+
+                synchronized (I2CBusScheduler.this) {
+                    flushCount++;
+                }
+
+            } catch (Throwable t) { // NOSONAR Consequences have been considered
+
+                logger.error("flush failed on 0x{}", Integer.toHexString(address), t);
+
+                synchronized (I2CBusScheduler.this) {
+                    failureCount++;
+                }
+
+                try {
+
+                    failed.accept(t);
+
+                } catch (Throwable t2) { // NOSONAR Consequences have been considered
+
+                    // The I/O thread must survive whatever the board owner does
+                    logger.error("failure handler failed on 0x{}", Integer.toHexString(address), t2);
+                }
+            }
+        }
+    }
+}
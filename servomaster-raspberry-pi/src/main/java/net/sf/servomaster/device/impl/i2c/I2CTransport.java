@@ -0,0 +1,102 @@
+package net.sf.servomaster.device.impl.i2c;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Register level access to a device on an I2C bus.
+ *
+ * <p>
+ *
+ * Implementations are not required to be thread safe, callers are expected to serialize the access
+ * (see {@link I2CBusScheduler}).
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public interface I2CTransport {
+
+    /**
+     * @return Device address on the bus.
+     */
+    int getAddress();
+
+    /**
+     * Write a single register.
+     *
+     * @param register Register address.
+     * @param value Value to write.
+     *
+     * @throws IOException if the transaction failed.
+     */
+    void write(int register, byte value) throws IOException;
+
+    /**
+     * Write a register block in one transaction.
+     *
+     * @param register First register address.
+     * @param buffer Values to write.
+     * @param offset Offset of the first value in the {@code buffer}.
+     * @param size Number of values to write.
+     *
+     * @throws IOException if the transaction failed.
+     */
+    void write(int register, byte[] buffer, int offset, int size) throws IOException;
+
+    /**
+     * Read a single register.
+     *
+     * @param register Register address.
+     *
+     * @return Register value, 0 to 255.
+     *
+     * @throws IOException if the transaction failed.
+     */
+    int read(int register) throws IOException;
+
+    /**
+     * Read a register block in one transaction.
+     *
+     * @param register First register address.
+     * @param buffer Buffer to read into.
+     * @param offset Offset in the {@code buffer} to read into.
+     * @param size Number of values to read.
+     *
+     * @return Number of values read.
+     *
+     * @throws IOException if the transaction failed.
+     */
+    int read(int register, byte[] buffer, int offset, int size) throws IOException;
+
+    /**
+     * I2C bus backend.
+     *
+     * <p>
+     *
+     * Two backends are {@link Object#equals(Object) equal} if they talk to the same bus the same way,
+     * even if they're different instances.
+     */
+    @FunctionalInterface
+    interface Bus extends Closeable {
+
+        /**
+         * Get access to a device on this bus.
+         *
+         * @param address Device address.
+         *
+         * @return Device transport.
+         *
+         * @throws IOException if the device can't be accessed.
+         */
+        I2CTransport open(int address) throws IOException;
+
+        /**
+         * Release whatever this backend holds. The devices obtained from it are unusable after this.
+         *
+         * @throws IOException if there was a problem releasing the bus.
+         */
+        @Override
+        default void close() throws IOException {
+            // Nothing to release by default
+        }
+    }
+}
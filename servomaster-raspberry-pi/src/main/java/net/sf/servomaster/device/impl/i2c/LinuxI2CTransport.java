@@ -0,0 +1,143 @@
+package net.sf.servomaster.device.impl.i2c;
+
+import com.pi4j.jni.I2C;
+
+import java.io.IOException;
+
+/**
+ * {@link I2CTransport} talking to {@code /dev/i2c-N} directly.
+ *
+ * <p>
+ *
+ * Java can't issue the {@code ioctl()} selecting the device on the bus, so this still uses the pi4j native
+ * library, but bypasses the pi4j bus and device wrappers with their per-transaction locking and bookkeeping.
+ * The file descriptor is shared by all the devices on the bus.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class LinuxI2CTransport implements I2CTransport {
+
+    private final String path;
+    private final int fd;
+    private final int address;
+
+    private LinuxI2CTransport(String path, int fd, int address) {
+
+        this.path = path;
+        this.fd = fd;
+        this.address = address;
+    }
+
+    /**
+     * Get the backend for {@code /dev/i2c-busId}.
+     *
+     * The device file is not opened until the first device on the bus is requested, and stays open
+     * until the backend is {@link Bus#close() closed}.
+     *
+     * @param busId Bus number.
+     *
+     * @return Bus backend.
+     */
+    public static Bus bus(int busId) {
+        return new LinuxBus(busId);
+    }
+
+    @Override
+    public int getAddress() {
+        return address;
+    }
+
+    @Override
+    public void write(int register, byte value) throws IOException {
+        check("write", register, I2C.i2cWriteByte(fd, address, register, value));
+    }
+
+    @Override
+    public void write(int register, byte[] buffer, int offset, int size) throws IOException {
+        check("write", register, I2C.i2cWriteBytes(fd, address, register, size, offset, buffer));
+    }
+
+    @Override
+    public int read(int register) throws IOException {
+        return check("read", register, I2C.i2cReadByte(fd, address, register));
+    }
+
+    @Override
+    public int read(int register, byte[] buffer, int offset, int size) throws IOException {
+        return check("read", register, I2C.i2cReadBytes(fd, address, register, size, offset, buffer));
+    }
+
+    private int check(String operation, int register, int result) throws IOException {
+
+        if (result < 0) {
+            throw new IOException(path + " 0x" + Integer.toHexString(address) + ": " + operation
+                    + " at 0x" + Integer.toHexString(register) + " failed: " + result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return path + ":0x" + Integer.toHexString(address);
+    }
+
+    private static class LinuxBus implements Bus {
+
+        private final int busId;
+        private final String path;
+
+        /**
+         * File descriptor shared by all the devices on the bus, negative if not open.
+         */
+        private int fd = -1;
+
+        LinuxBus(int busId) {
+
+            this.busId = busId;
+            this.path = "/dev/i2c-" + busId;
+        }
+
+        @Override
+        public synchronized I2CTransport open(int address) throws IOException {
+
+            if (fd < 0) {
+
+                var result = I2C.i2cOpen(path);
+
+                if (result < 0) {
+                    throw new IOException("Can't open " + path + ": " + result);
+                }
+
+                fd = result;
+            }
+
+            return new LinuxI2CTransport(path, fd, address);
+        }
+
+        @Override
+        public synchronized void close() {
+
+            if (fd >= 0) {
+
+                I2C.i2cClose(fd);
+                fd = -1;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof LinuxBus && ((LinuxBus) other).busId == busId;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package net.sf.servomaster.device.impl.i2c;
+
+import com.pi4j.io.i2c.I2CBus;
+import com.pi4j.io.i2c.I2CDevice;
+import com.pi4j.io.i2c.I2CFactory;
+
+import java.io.IOException;
+
+/**
+ * {@link I2CTransport} on top of pi4j {@link I2CDevice}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class Pi4jTransport implements I2CTransport {
+
+    private final I2CDevice device;
+
+    /**
+     * Create an instance.
+     *
+     * @param device Device to talk to.
+     */
+    public Pi4jTransport(I2CDevice device) {
+        this.device = device;
+    }
+
+    /**
+     * Get the pi4j backend for the bus.
+     *
+     * @param busId Bus number.
+     *
+     * @return Bus backend.
+     *
+     * @throws IOException if the bus can't be opened.
+     */
+    public static Bus bus(int busId) throws IOException {
+
+        try {
+
+            return new Pi4jBus(I2CFactory.getInstance(busId));
+
+        } catch (I2CFactory.UnsupportedBusNumberException ex) {
+            throw new IOException("Unsupported bus " + busId, ex);
+        }
+    }
+
+    @Override
+    public int getAddress() {
+        return device.getAddress();
+    }
+
+    @Override
+    public void write(int register, byte value) throws IOException {
+        device.write(register, value);
+    }
+
+    @Override
+    public void write(int register, byte[] buffer, int offset, int size) throws IOException {
+        device.write(register, buffer, offset, size);
+    }
+
+    @Override
+    public int read(int register) throws IOException {
+        return device.read(register);
+    }
+
+    @Override
+    public int read(int register, byte[] buffer, int offset, int size) throws IOException {
+        return device.read(register, buffer, offset, size);
+    }
+
+    private static class Pi4jBus implements Bus {
+
+        private final I2CBus bus;
+
+        Pi4jBus(I2CBus bus) {
+            this.bus = bus;
+        }
+
+        @Override
+        public I2CTransport open(int address) throws IOException {
+            return new Pi4jTransport(bus.getDevice(address));
+        }
+
+        @Override
+        public void close() throws IOException {
+            bus.close();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Pi4jBus && ((Pi4jBus) other).bus.getBusNumber() == bus.getBusNumber();
+        }
+
+        @Override
+        public int hashCode() {
+            return bus.getBusNumber();
+        }
+
+        @Override
+        public String toString() {
+            return "pi4j I2C bus " + bus.getBusNumber();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package net.sf.servomaster.device.impl.i2c.pca9685;
+
+import net.sf.servomaster.device.impl.clock.Clock;
+import net.sf.servomaster.device.impl.i2c.I2CBusScheduler;
+import net.sf.servomaster.device.impl.i2c.I2CTransport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.ALL_LED_ON_L;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.CHANNEL_SIZE;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MAX_PULSE;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MIN_PULSE;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1_AI;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1_ALLCALL;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1_SLEEP;
+
+/**
+ * Commands addressed to all the PCA9685 boards on a bus at once.
+ *
+ * <p>
+ *
+ * All the boards respond to the {@link #ALLCALL_ADDRESS ALLCALL address} in addition to their own, and
+ * the {@code ALL_LED} registers load all the channels of a board at once. Together, these make it possible
+ * to stop, put to sleep, or move every servo on the bus in a single transaction, instead of one per channel
+ * per board.
+ *
+ * <p>
+ *
+ * The member controllers are told about every broadcast so that their register shadows stay accurate.
+ * The servo objects are not: after {@link #setPosition(double)}, they still report the position they
+ * were last given, and will go back to it on their next update.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class PCA9685Fleet {
+
+    /**
+     * Power-on default ALLCALL address.
+     */
+    public static final int ALLCALL_ADDRESS = 0x70;
+
+    /**
+     * Full OFF bit in the {@code LEDn_OFF_H} registers.
+     */
+    private static final int FULL_OFF = 0x10;
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private final I2CTransport device;
+
+    /**
+     * ALLCALL address handle on the bus scheduler, or {@code null} if the transactions are performed on the caller thread.
+     */
+    private final I2CBusScheduler.Board board;
+
+    private final List<PCA9685ServoController> members;
+
+    /**
+     * The scheduler's clock, or the system clock if there's no scheduler.
+     */
+    private final Clock clock;
+
+    private long transactionCount = 0;
+
+    /**
+     * Create an instance.
+     *
+     * @param busId Bus the boards are on.
+     * @param members Controllers for all the boards on the bus.
+     *
+     * @throws IOException if the ALLCALL address can't be obtained.
+     */
+    public PCA9685Fleet(int busId, Collection<PCA9685ServoController> members) throws IOException {
+        this(I2CBusScheduler.getInstance(busId), null, members);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param scheduler Scheduler for the bus the boards are on, or {@code null} to talk to the device
+     * on the caller thread.
+     * @param device Device at the ALLCALL address, or {@code null} to get it from the scheduler.
+     * @param members Controllers for all the boards on the bus.
+     *
+     * @throws IOException if the ALLCALL address can't be obtained.
+     */
+    public PCA9685Fleet(I2CBusScheduler scheduler, I2CTransport device, Collection<PCA9685ServoController> members) throws IOException {
+
+        this.device = device != null ? device : scheduler.getDevice(ALLCALL_ADDRESS);
+        this.board = scheduler == null ? null : scheduler.register(ALLCALL_ADDRESS, () -> null);
+        this.members = new ArrayList<>(members);
+        this.clock = scheduler == null ? Clock.SYSTEM : scheduler.getClock();
+    }
+
+    /**
+     * Turn all the channels on all the boards fully off, in one transaction.
+     *
+     * @throws IOException if there was a problem writing to the bus.
+     */
+    public void stop() throws IOException {
+
+        ThreadContext.push("stop");
+
+        try {
+
+            broadcast(ALL_LED_ON_L + CHANNEL_SIZE - 1, (byte) FULL_OFF);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Stop the oscillators on all the boards, in one transaction.
+     *
+     * @throws IOException if there was a problem writing to the bus.
+     */
+    public void sleep() throws IOException {
+
+        ThreadContext.push("sleep");
+
+        try {
+
+            broadcast(MODE1, (byte) (MODE1_AI | MODE1_ALLCALL | MODE1_SLEEP));
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Restart the oscillators on all the boards, and resume the PWM output where it was before {@link #sleep()}.
+     *
+     * @throws IOException if there was a problem writing to the bus.
+     */
+    public void wakeUp() throws IOException {
+
+        ThreadContext.push("wakeUp");
+
+        try {
+
+            broadcast(MODE1, (byte) (MODE1_AI | MODE1_ALLCALL));
+
+            try {
+
+                // wait for oscillator
+
+                clock.sleep(5);
+
+            } catch (InterruptedException ex) {
+
+                Thread.currentThread().interrupt();
+                throw new IOException("Sleep interrupted", ex);
+            }
+
+            broadcast(MODE1, (byte) (MODE1_AI | MODE1_ALLCALL | 0x80));
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Move all the servos on all the boards to the same position, in one transaction.
+     *
+     * The boards are assumed to run at the same frame rate, the pulse width is converted to ticks
+     * at the first member's rate.
+     *
+     * @param position Position, 0 to 1, within the default controller range.
+     *
+     * @throws IOException if there was a problem writing to the bus.
+     */
+    public void setPosition(double position) throws IOException {
+
+        if (position < 0 || position > 1) {
+            throw new IllegalArgumentException("Position out of 0...1 range: " + position);
+        }
+
+        if (members.isEmpty()) {
+            throw new IllegalStateException("No members, can't tell the frame rate");
+        }
+
+        setPulse(members.get(0).toTicks((int) (MIN_PULSE + position * (MAX_PULSE - MIN_PULSE))));
+    }
+
+    /**
+     * Set the same pulse on all the channels on all the boards, in one transaction.
+     *
+     * @param offAt Turn the signal off this many ticks after the start of the pulse (0..4095).
+     *
+     * @throws IOException if there was a problem writing to the bus.
+     */
+    public void setPulse(int offAt) throws IOException {
+
+        ThreadContext.push("setPulse");
+
+        try {
+
+            if (offAt < 0 || offAt > 4095) {
+                throw new IllegalArgumentException("'off' offset is out of range (valid values 0...4095)");
+            }
+
+            broadcast(ALL_LED_ON_L, (byte) 0, (byte) 0, (byte) (offAt & 0xFF), (byte) (offAt >> 8));
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Take the ALLCALL address off the bus. The member controllers are not affected, and have to be closed separately.
+     */
+    public void close() {
+
+        if (board != null) {
+            board.unregister();
+        }
+    }
+
+    /**
+     * @return Number of broadcast transactions performed.
+     */
+    public synchronized long getTransactionCount() {
+        return transactionCount;
+    }
+
+    private void broadcast(int register, byte... values) throws IOException {
+
+        I2CBusScheduler.Transaction<Void> transaction = () -> {
+
+            if (values.length == 1) {
+                device.write(register, values[0]);
+            } else {
+                device.write(register, values, 0, values.length);
+            }
+
+            for (var member : members) {
+                member.broadcastWritten(register, values);
+            }
+
+            return null;
+        };
+
+        if (board == null) {
+            transaction.run();
+        } else {
+            board.execute(transaction);
+        }
+
+        synchronized (this) {
+            transactionCount++;
+        }
+
+        logger.debug("0x{}: {} bytes to {} boards", Integer.toHexString(register), values.length, members.size());
+    }
+}
@@ -1,16 +1,28 @@
 package net.sf.servomaster.device.impl.i2c.pca9685;
 
 import com.pi4j.io.i2c.I2CBus;
+import com.pi4j.io.i2c.I2CDevice;
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
 import net.sf.servomaster.device.impl.HardwareServo;
+import net.sf.servomaster.device.impl.LogContext;
+import net.sf.servomaster.device.impl.clock.Clock;
 import net.sf.servomaster.device.impl.i2c.AbstractI2CServoController;
+import net.sf.servomaster.device.impl.i2c.I2CBusScheduler;
 import net.sf.servomaster.device.impl.i2c.I2CMeta;
+import net.sf.servomaster.device.impl.i2c.I2CTransport;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
+import net.sf.servomaster.device.impl.jfr.WriteEvent;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.ThreadContext;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation based on <a href="https://www.adafruit.com/product/2327">Raspberry Pi PWM HAT</a>
@@ -20,33 +32,198 @@ import java.io.IOException;
 public class PCA9685ServoController extends AbstractI2CServoController {
 
     /**
-     * Minimal allowed absolute position for this device.
+     * Feature: read back and compare every register range written.
      *
-     * VT: FIXME: Figure out acceptable value after the range unit is figured out. Current value is well beyond sane.
+     * This doubles the bus traffic and is only meant for diagnostics.
+     *
+     * @see #verify()
+     */
+    public static final String META_VERIFY = "controller/protocol/i2c/verify";
+
+    /**
+     * PWM frame rate, in Hz.
+     *
+     * Analog servos want about 50Hz, digital servos accept up to 333Hz. The higher the rate, the sooner
+     * the servo sees the position change.
+     */
+    public static final String META_FREQUENCY = "controller/pwm/frequency";
+
+    /**
+     * PWM frame period at the current {@link #META_FREQUENCY frame rate}, in μs. Read only.
+     *
+     * There's no point updating the channels more often than this, the servos won't see the difference.
      */
-    private static final short MIN_PULSE = 25;
+    public static final String META_PERIOD = "controller/pwm/period";
 
     /**
-     * Maximum allowed absolute position for this device.
+     * Minimal allowed pulse width for this device, in μs.
      *
-     * VT: FIXME: Figure out acceptable value after the range unit is figured out. Current value is well beyond sane.
+     * This is what used to be 25 ticks at 60Hz, well beyond what any servo accepts.
      */
-    private static final short MAX_PULSE = 625;
+    static final short MIN_PULSE = 100;
+
+    /**
+     * Maximum allowed pulse width for this device, in μs.
+     *
+     * This is what used to be 625 ticks at 60Hz, well beyond what any servo accepts.
+     */
+    static final short MAX_PULSE = 2550;
 
     /**
      * We don't need to be fancy, just 60Hz would be fine.
      */
-    private static final int pwmFrequency = 60;
+    private static final int DEFAULT_FREQUENCY = 60;
+
+    /**
+     * Lowest frame rate the oscillator supports, Hz.
+     */
+    static final int MIN_FREQUENCY = 24;
+
+    /**
+     * Highest frame rate servos accept, Hz.
+     */
+    static final int MAX_FREQUENCY = 333;
 
     private static final String PCA9685_DEFAULT_PORT = "1:0x40";
     private static final int PCA9685_DEFAULT_ADDRESS = 0x40;
 
-    private static final int MODE1 = 0x0;
+    static final int MODE1 = 0x0;
     private static final int PRESCALE = 0xFE;
-    private static final int LED0_ON_L = 0x06;
-    private static final int LED0_ON_H = 0x07;
-    private static final int LED0_OFF_L = 0x08;
-    private static final int LED0_OFF_H = 0x09;
+    static final int LED0_ON_L = 0x06;
+
+    /**
+     * First of the four registers that load all the channels at once.
+     */
+    static final int ALL_LED_ON_L = 0xFA;
+
+    /**
+     * MODE1 register bit making the device respond to the {@link PCA9685Fleet#ALLCALL_ADDRESS ALLCALL address}.
+     */
+    static final int MODE1_ALLCALL = 0x01;
+
+    /**
+     * MODE1 register oscillator off bit.
+     */
+    static final int MODE1_SLEEP = 0x10;
+
+    /**
+     * MODE1 register auto-increment bit.
+     *
+     * With this bit set, the register pointer advances after every byte written, so a channel's
+     * four registers (or all the 64 channel registers) can be written in one bus transaction.
+     */
+    static final int MODE1_AI = 0x20;
+
+    /**
+     * Number of registers per channel.
+     */
+    static final int CHANNEL_SIZE = 4;
+
+    /**
+     * How many times a failed flush is retried before giving up until the next change.
+     */
+    static final int MAX_FLUSH_RETRIES = 3;
+
+    /**
+     * Delay before the first retry of a failed flush, milliseconds. Doubles with every retry.
+     */
+    static final long FLUSH_RETRY_DELAY = 10;
+
+    private final LogContext setPulseContext = new LogContext(logger, "setPulse");
+
+    /**
+     * Guards the channel and register images, and the frame state.
+     *
+     * This is not the controller monitor because the {@link #flush() flush} may happen on the bus scheduler
+     * thread while the caller holding the controller monitor is waiting for a transaction to complete.
+     */
+    private final Object registerLock = new Object();
+
+    /**
+     * Current frame rate, Hz. Guarded by {@link #registerLock}.
+     */
+    private int frequency = DEFAULT_FREQUENCY;
+
+    /**
+     * PRESCALE register value for the {@link #frequency}. Guarded by {@link #registerLock}.
+     */
+    private int preScale = computePreScale(DEFAULT_FREQUENCY);
+
+    /**
+     * Pulse width for each channel, μs, 0 if off. Kept so that the channels can be reloaded when the frequency changes.
+     * Guarded by {@link #registerLock}.
+     */
+    private final int[] pulses = new int[16];
+
+    /**
+     * Channel register image, {@link #CHANNEL_SIZE} bytes per channel, starting with {@link #LED0_ON_L}.
+     *
+     * Guarded by {@link #registerLock}.
+     */
+    private final byte[] frame = new byte[16 * CHANNEL_SIZE];
+
+    /**
+     * Frame nesting depth.
+     *
+     * @see #beginFrame()
+     */
+    private int frameDepth = 0;
+
+    /**
+     * First channel written to since the frame has begun, inclusive.
+     */
+    private int dirtyFrom = Integer.MAX_VALUE;
+
+    /**
+     * Last channel written to since the frame has begun, exclusive.
+     */
+    private int dirtyTo = 0;
+
+    /**
+     * Channel range the last failed flush was writing, {@code [failedFrom, failedTo)}.
+     *
+     * Guarded by {@link #registerLock}.
+     */
+    private int failedFrom = 0;
+    private int failedTo = 0;
+
+    /**
+     * Number of times in a row the flush has failed. Guarded by {@link #registerLock}.
+     */
+    private int flushFailures = 0;
+
+    /**
+     * Servos created so far, indexed by channel, so that a failed flush can tell them without taking
+     * the controller monitor, and a frame rate change can update their precision. Guarded by {@link #registerLock}.
+     */
+    private final PCA9685Servo[] servos = new PCA9685Servo[16];
+
+    /**
+     * Shadow copy of the device register file, indexed by register address.
+     *
+     * Only the registers marked in {@link #known} are meaningful. Guarded by {@link #registerLock}.
+     */
+    private final byte[] shadow = new byte[256];
+
+    /**
+     * {@code true} for the registers whose {@link #shadow} value is known to match the device.
+     */
+    private final boolean[] known = new boolean[256];
+
+    /**
+     * @see #META_VERIFY
+     */
+    private boolean verifyWrites = false;
+
+    /**
+     * Number of channel writes that didn't reach the bus because the registers already had the values.
+     */
+    private long writesSkipped = 0;
+
+    /**
+     * Number of bytes written to the device.
+     */
+    private long bytesWritten = 0;
 
     public PCA9685ServoController() throws IOException {
 
@@ -62,6 +239,34 @@ public class PCA9685ServoController extends AbstractI2CServoController {
         super(normalize(portName));
     }
 
+    /**
+     * Create an instance talking to the given device.
+     *
+     * @param device Device to talk to.
+     */
+    public PCA9685ServoController(I2CDevice device) {
+        super(device);
+    }
+
+    /**
+     * Create an instance talking to the given device on the caller thread.
+     *
+     * @param device Device to talk to.
+     */
+    public PCA9685ServoController(I2CTransport device) {
+        super(device);
+    }
+
+    /**
+     * Create an instance talking to the given device through the given bus scheduler.
+     *
+     * @param scheduler Scheduler for the bus the device is on.
+     * @param device Device to talk to.
+     */
+    public PCA9685ServoController(I2CBusScheduler scheduler, I2CTransport device) {
+        super(scheduler, device);
+    }
+
     private static String normalize(String portName) {
 
         if (portName == null || "".equals(portName)) {
@@ -89,12 +294,29 @@ public class PCA9685ServoController extends AbstractI2CServoController {
 
         try {
 
-            device.write(MODE1, (byte) 0x0);
-            logger.debug("ok");
+            // Has to be read here, the bus thread would deadlock on the controller monitor if the caller holds it
+            var clock = getClock();
+
+            execute(() -> {
+
+                synchronized (registerLock) {
+
+                    // Whatever we thought the device had, it's not to be trusted anymore
+
+                    Arrays.fill(known, false);
 
-            // VT: NOTE: assuming that reset clears all settings including PWM frequency
+                    // ALLCALL is on by default, it has to be kept on for the fleet commands to work
 
-            setPwmFrequency(pwmFrequency);
+                    writeRegister(MODE1, (byte) (MODE1_AI | MODE1_ALLCALL));
+                    logger.debug("ok");
+
+                    // VT: NOTE: assuming that reset clears all settings including PWM frequency
+
+                    setPwmFrequency(frequency, clock);
+                }
+
+                return null;
+            });
 
         } finally {
             ThreadContext.pop();
@@ -102,44 +324,61 @@ public class PCA9685ServoController extends AbstractI2CServoController {
     }
 
     // 25MHz, 4096 steps (12-bit)
-    private final double preScaleFactor = 25_000_000.0f / 4096.0;
+    private static final double preScaleFactor = 25_000_000.0f / 4096.0;
+
+    private static int computePreScale(int hz) {
 
-    private void setPwmFrequency(int hz) throws IOException {
+        // VT: FIXME: Decide if https://github.com/adafruit/Adafruit-PWM-Servo-Driver-Library/issues/11
+        // is important enough, and exact enough
+        // hz *= 0.9;
+
+        return (int) Math.floor((preScaleFactor / hz) - 0.5);
+    }
+
+    /**
+     * Must be called with {@link #registerLock} held.
+     *
+     * @param hz Frequency to set.
+     * @param clock Clock to wait for the oscillator by.
+     */
+    private void setPwmFrequency(int hz, Clock clock) throws IOException {
 
         ThreadContext.push("setPwmFrequency");
 
         try {
 
-            // VT: FIXME: Decide if https://github.com/adafruit/Adafruit-PWM-Servo-Driver-Library/issues/11
-            // is important enough, and exact enough
-            // hz *= 0.9;
+            preScale = computePreScale(hz);
 
-            double preScale = Math.floor((preScaleFactor / hz) - 0.5);
+            // The MODE1 value is only read from the device if we don't know it already
 
-            byte oldmode = (byte) device.read(MODE1);
+            byte oldmode = known[MODE1] ? shadow[MODE1] : readRegister(MODE1);
 
             // sleep
 
-            byte newmode = (byte) ((oldmode & 0x7F) | 0x10);
+            byte newmode = (byte) ((oldmode & 0x7F) | MODE1_SLEEP);
 
             // go to sleep
 
-            device.write(MODE1, newmode);
-            device.write(PRESCALE, (byte) Math.floor(preScale));
-            device.write(MODE1, oldmode);
+            writeRegister(MODE1, newmode);
+            writeRegister(PRESCALE, (byte) preScale);
+            writeRegister(MODE1, oldmode);
 
             try {
 
                 // wait for oscillator
 
-                Thread.sleep(5);
+                clock.sleep(5);
 
             } catch (Throwable t) { // NOSONAR Consequences have been considered
 
                 throw new IOException("Sleep interrupted", t);
             }
 
-            device.write(MODE1, (byte) (oldmode | 0x80));
+            writeRegister(MODE1, (byte) (oldmode | 0x80));
+
+            // RESTART bit clears itself
+
+            shadow[MODE1] = (byte) (oldmode & 0x7F);
 
             logger.debug("{}Hz", hz);
 
@@ -148,40 +387,563 @@ public class PCA9685ServoController extends AbstractI2CServoController {
         }
     }
 
+    /**
+     * Start a frame.
+     *
+     * Channel updates made until the matching {@link #endFrame()} call are buffered,
+     * and then written in one bus transaction. Frames may be nested.
+     */
+    public void beginFrame() {
+
+        synchronized (registerLock) {
+            frameDepth++;
+        }
+    }
+
+    /**
+     * End the frame, and write the channels changed since {@link #beginFrame()}.
+     *
+     * The contiguous register range covering all the changed channels is written at once;
+     * if all the channels have changed, that's all 64 channel registers in a single transfer.
+     * With a bus scheduler, the write happens on this board's next turn.
+     *
+     * @throws IOException if there's no bus scheduler, and there was a problem writing to the device.
+     */
+    public void endFrame() throws IOException {
+
+        synchronized (registerLock) {
+
+            if (frameDepth == 0) {
+                throw new IllegalStateException("endFrame() without beginFrame()");
+            }
+
+            if (--frameDepth > 0) {
+                return;
+            }
+        }
+
+        requestFlush();
+    }
+
+    /**
+     * Write the dirty channel range, if there is one.
+     *
+     * The range is trimmed down to the bytes that differ from the {@link #shadow}, so a position change
+     * only writes the OFF registers, and a channel set to the value it already has isn't written at all.
+     *
+     * Nothing is written while a frame is open, {@link #endFrame()} will request another flush.
+     */
+    @Override
+    protected void flush() throws IOException {
+
+        synchronized (registerLock) {
+            flushFrame();
+        }
+    }
+
+    private void flushFrame() throws IOException {
+
+        if (frameDepth > 0 || dirtyFrom >= dirtyTo) {
+            return;
+        }
+
+        var channelFrom = dirtyFrom;
+        var channelTo = dirtyTo;
+        var from = channelFrom * CHANNEL_SIZE;
+        var to = channelTo * CHANNEL_SIZE;
+
+        dirtyFrom = Integer.MAX_VALUE;
+        dirtyTo = 0;
+
+        while (from < to && isCurrent(LED0_ON_L + from, frame[from])) {
+            from++;
+        }
+
+        while (to > from && isCurrent(LED0_ON_L + to - 1, frame[to - 1])) {
+            to--;
+        }
+
+        if (from == to) {
+
+            writesSkipped++;
+            return;
+        }
+
+        try {
+
+            writeRegisters(LED0_ON_L + from, frame, from, to - from);
+            flushFailures = 0;
+
+        } catch (IOException ex) {
+
+            // Channels changed while we were writing are already in the range, the failed ones are put back
+            // so the next flush writes them again
+
+            dirtyFrom = Math.min(dirtyFrom, channelFrom);
+            dirtyTo = Math.max(dirtyTo, channelTo);
+
+            failedFrom = channelFrom;
+            failedTo = channelTo;
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Tell the controller listeners, and the servos whose channels didn't make it to the device.
+     *
+     * The servos have already reported the new position as the actual one; the channels will be written
+     * on the next flush, but until then, the listeners should know better than to trust it.
+     *
+     * <p>
+     *
+     * The flush is retried up to {@link #MAX_FLUSH_RETRIES} times, with the delay starting at {@link #FLUSH_RETRY_DELAY}
+     * and doubling every time. If it still fails, the channels stay dirty until the next change requests another flush.
+     */
+    @Override
+    protected void flushFailed(Throwable t) {
+
+        super.flushFailed(t);
+
+        var failed = new ArrayList<PCA9685Servo>();
+        long retryDelay = -1;
+
+        synchronized (registerLock) {
+
+            if (flushFailures < MAX_FLUSH_RETRIES) {
+
+                retryDelay = FLUSH_RETRY_DELAY << flushFailures;
+                flushFailures++;
+
+            } else {
+
+                logger.error("channels {}..{}: giving up after {} retries, will try again on the next change", failedFrom, failedTo - 1, MAX_FLUSH_RETRIES);
+                flushFailures = 0;
+            }
+
+            for (var channel = failedFrom; channel < failedTo; channel++) {
+
+                if (servos[channel] != null) {
+                    failed.add(servos[channel]);
+                }
+            }
+        }
+
+        for (var servo : failed) {
+            servo.writeFailed(t);
+        }
+
+        if (retryDelay >= 0) {
+            board.requestRetry(TimeUnit.MILLISECONDS.toNanos(retryDelay));
+        }
+    }
+
+    /**
+     * @return Servos created so far.
+     */
+    private List<PCA9685Servo> getCreatedServos() {
+
+        var result = new ArrayList<PCA9685Servo>();
+
+        synchronized (registerLock) {
+
+            for (var servo : servos) {
+
+                if (servo != null) {
+                    result.add(servo);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isCurrent(int register, byte value) {
+        return known[register] && shadow[register] == value;
+    }
+
+    /**
+     * Write a single register, and remember the value.
+     *
+     * Must be called with {@link #registerLock} held.
+     */
+    private void writeRegister(int register, byte value) throws IOException {
+
+        var start = System.nanoTime();
+
+        try {
+
+            device.write(register, value);
+
+        } catch (IOException ex) {
+
+            metrics.ioError();
+            WriteEvent.emit(this, null, 1, System.nanoTime() - start, true);
+            throw ex;
+        }
+
+        var latency = System.nanoTime() - start;
+
+        metrics.sent(1, latency);
+        WriteEvent.emit(this, null, 1, latency, false);
+
+        shadow[register] = value;
+        known[register] = true;
+        bytesWritten++;
+
+        if (verifyWrites) {
+            verify(register, 1);
+        }
+    }
+
+    /**
+     * Write a contiguous register range in one transaction, and remember the values.
+     *
+     * Must be called with {@link #registerLock} held.
+     */
+    private void writeRegisters(int register, byte[] buffer, int offset, int size) throws IOException {
+
+        var start = System.nanoTime();
+
+        try {
+
+            device.write(register, buffer, offset, size);
+
+        } catch (IOException ex) {
+
+            // Can't tell how much of it made it, so all of it will be written next time
+            Arrays.fill(known, register, register + size, false);
+            metrics.ioError();
+            WriteEvent.emit(this, null, size, System.nanoTime() - start, true);
+            throw ex;
+        }
+
+        var latency = System.nanoTime() - start;
+
+        metrics.sent(size, latency);
+        WriteEvent.emit(this, null, size, latency, false);
+
+        System.arraycopy(buffer, offset, shadow, register, size);
+        Arrays.fill(known, register, register + size, true);
+        bytesWritten += size;
+
+        if (verifyWrites) {
+            verify(register, size);
+        }
+    }
+
+    /**
+     * Account for a write to the {@link PCA9685Fleet#ALLCALL_ADDRESS ALLCALL address}.
+     *
+     * The {@link #frame} stays as it is, so the channels will be rewritten with their own values
+     * as soon as they are updated again.
+     *
+     * @param register Register the broadcast started at.
+     * @param values Values written.
+     */
+    void broadcastWritten(int register, byte[] values) {
+
+        synchronized (registerLock) {
+
+            for (var offset = 0; offset < values.length; offset++) {
+
+                var r = register + offset;
+
+                if (r >= ALL_LED_ON_L && r < ALL_LED_ON_L + CHANNEL_SIZE) {
+
+                    // Goes to every channel
+
+                    for (var channel = 0; channel < getServoCount(); channel++) {
+
+                        var target = LED0_ON_L + channel * CHANNEL_SIZE + r - ALL_LED_ON_L;
+
+                        shadow[target] = values[offset];
+                        known[target] = true;
+                    }
+
+                } else {
+
+                    // RESTART bit clears itself
+                    shadow[r] = r == MODE1 ? (byte) (values[offset] & 0x7F) : values[offset];
+                    known[r] = true;
+                }
+            }
+        }
+    }
+
+    private byte readRegister(int register) throws IOException {
+
+        var value = (byte) device.read(register);
+
+        shadow[register] = value;
+        known[register] = true;
+
+        return value;
+    }
+
+    /**
+     * Read the register range back from the device, and compare it against the {@link #shadow}.
+     *
+     * Mismatching registers are logged and marked unknown, so that the next write puts them right.
+     *
+     * Must be called with {@link #registerLock} held.
+     *
+     * @return Number of registers that didn't match.
+     */
+    private int verify(int register, int size) throws IOException {
+
+        var actual = new byte[size];
+        var read = device.read(register, actual, 0, size);
+
+        if (read != size) {
+            throw new IOException("Short read at 0x" + Integer.toHexString(register) + ": " + read + " of " + size + " bytes");
+        }
+
+        var mismatches = 0;
+
+        for (var offset = 0; offset < size; offset++) {
+
+            var r = register + offset;
+
+            if (known[r] && shadow[r] != actual[offset]) {
+
+                logger.warn("register 0x{}: expected 0x{}, device has 0x{}",
+                        Integer.toHexString(r), Integer.toHexString(shadow[r] & 0xFF), Integer.toHexString(actual[offset] & 0xFF));
+
+                known[r] = false;
+                mismatches++;
+            }
+        }
+
+        return mismatches;
+    }
+
+    /**
+     * Compare the device registers against what this controller believes they are.
+     *
+     * Registers that don't match are logged, and rewritten on the next channel update.
+     *
+     * @return Number of registers that didn't match.
+     *
+     * @throws IOException if there was a problem reading from the device.
+     */
+    public int verify() throws IOException {
+
+        ThreadContext.push("verify");
+
+        try {
+
+            int mismatches = execute(() -> {
+
+                synchronized (registerLock) {
+
+                    // Registers we care about are far apart, one transaction for each group
+
+                    return verify(MODE1, 1) + verify(LED0_ON_L, frame.length) + verify(PRESCALE, 1);
+                }
+            });
+
+            logger.info("{} mismatches", mismatches);
+
+            return mismatches;
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * @return Number of channel updates that didn't need to go on the bus.
+     */
+    public long getWritesSkipped() {
+
+        synchronized (registerLock) {
+            return writesSkipped;
+        }
+    }
+
+    /**
+     * @return Number of register bytes written since the controller was created.
+     */
+    public long getBytesWritten() {
+
+        synchronized (registerLock) {
+            return bytesWritten;
+        }
+    }
+
+    private void setVerifyWrites(boolean verifyWrites) {
+
+        synchronized (registerLock) {
+            this.verifyWrites = verifyWrites;
+        }
+    }
+
     /**
      * Configure PWM pulse for an individual servo.
      *
+     * The channel registers are written in one transaction, or, within a {@link #beginFrame() frame},
+     * buffered until the frame ends. With a bus scheduler, the write happens on this board's next turn,
+     * together with whatever other channels have changed by then.
+     *
      * @param channel Servo id (0..15).
-     * @param onAt Turn the signal on this many μs after the start of the pulse (0..4095, 2^12 values).
-     * @param offAt Turn the signal off this many μs after the start of the pulse  (0..4095, 2^12 values).
+     * @param pulse Pulse width, μs, 0 to turn the output off.
      */
-    private void setPWM(int channel, int onAt, int offAt) throws IOException {
+    private void setPulse(int channel, int pulse) throws IOException {
 
-        ThreadContext.push("setPWM");
+        var entered = setPulseContext.enter();
 
         try {
 
-            logger.debug("channel={}, on={}, off={}", channel, onAt, offAt);
+            if (logger.isDebugEnabled()) {
+                logger.debug("channel={}, pulse={}", channel, pulse);
+            }
 
             // VT: NOTE: Arguments are calculation results, sanity checks are needed
 
-            if (channel < 0 || channel > getServoCount()) {
+            if (channel < 0 || channel >= getServoCount()) {
                 throw new IllegalArgumentException("servo channel (" + channel + ") out of range, valid values are 0.." + getServoCount());
             }
 
-            checkOffset("on", onAt);
-            checkOffset("of", offAt);
+            synchronized (registerLock) {
+
+                load(channel, 0, toTicks(pulse));
+                pulses[channel] = pulse;
+
+                PacketEncodedEvent.emit(this, channel, CHANNEL_SIZE);
+
+                if (frameDepth > 0) {
+                    return;
+                }
+            }
+
+            requestFlush();
+
+        } finally {
+            setPulseContext.exit(entered);
+        }
+    }
+
+    /**
+     * Put the channel values into the {@link #frame}.
+     *
+     * Must be called with {@link #registerLock} held.
+     *
+     * @param channel Servo id (0..15).
+     * @param onAt Turn the signal on this many ticks after the start of the pulse (0..4095, 2^12 values).
+     * @param offAt Turn the signal off this many ticks after the start of the pulse  (0..4095, 2^12 values).
+     */
+    private void load(int channel, int onAt, int offAt) {
+
+        checkOffset("on", onAt);
+        checkOffset("of", offAt);
+
+        var offset = channel * CHANNEL_SIZE;
+
+        frame[offset] = (byte) (onAt & 0xFF);
+        frame[offset + 1] = (byte) (onAt >> 8);
+        frame[offset + 2] = (byte) (offAt & 0xFF);
+        frame[offset + 3] = (byte) (offAt >> 8);
+
+        dirtyFrom = Math.min(dirtyFrom, channel);
+        dirtyTo = Math.max(dirtyTo, channel + 1);
+    }
+
+    /**
+     * Convert the pulse width into the PWM counter ticks at the current frame rate.
+     *
+     * @param pulse Pulse width, μs.
+     *
+     * @return Number of ticks.
+     */
+    int toTicks(int pulse) {
+
+        synchronized (registerLock) {
+
+            // One tick is (preScale + 1) oscillator cycles, at 25 cycles per μs
+            return Math.round(pulse * 25f / (preScale + 1));
+        }
+    }
+
+    /**
+     * @return Current frame rate, Hz.
+     */
+    public int getFrequency() {
+
+        synchronized (registerLock) {
+            return frequency;
+        }
+    }
+
+    /**
+     * Get the frame period at the current frame rate.
+     *
+     * This is the actual period, it's a bit different from what the nominal {@link #getFrequency() frequency}
+     * suggests because the prescaler is an integer.
+     *
+     * @return Frame period, μs.
+     */
+    public long getFramePeriod() {
+
+        synchronized (registerLock) {
+            return 4096L * (preScale + 1) / 25;
+        }
+    }
+
+    /**
+     * Change the frame rate, and reload all the channels so that their pulse widths stay the same.
+     *
+     * @param hz Frame rate, Hz.
+     */
+    private void setFrequency(int hz) throws IOException {
+
+        ThreadContext.push("setFrequency");
+
+        try {
+
+            if (hz < MIN_FREQUENCY || hz > MAX_FREQUENCY) {
+                throw new IllegalArgumentException("Frequency (" + hz + ") is outside of valid range (" + MIN_FREQUENCY + "..." + MAX_FREQUENCY + ")");
+            }
+
+            var clock = getClock();
+
+            execute(() -> {
+
+                synchronized (registerLock) {
 
-            device.write(LED0_ON_L + 4 * channel, (byte) (onAt & 0xFF));
-            device.write(LED0_ON_H + 4 * channel, (byte) (onAt >> 8));
-            device.write(LED0_OFF_L + 4 * channel, (byte) (offAt & 0xFF));
-            device.write(LED0_OFF_H + 4 * channel, (byte) (offAt >> 8));
+                    frequency = hz;
+                    setPwmFrequency(hz, clock);
+
+                    for (var channel = 0; channel < pulses.length; channel++) {
+
+                        if (pulses[channel] != 0) {
+                            load(channel, 0, toTicks(pulses[channel]));
+                        }
+                    }
+
+                    flushFrame();
+                }
+
+                return null;
+            });
+
+            limitFlushRate();
 
         } finally {
             ThreadContext.pop();
         }
     }
 
+    /**
+     * Don't let the bus scheduler flush more often than the frame rate, the changes are merged instead.
+     */
+    private void limitFlushRate() {
+
+        if (board != null) {
+            board.setMinInterval(getFramePeriod() * 1000);
+        }
+    }
+
     /**
      * Make sure the {@code offset} value is between 0..4095 inclusive.
      *
@@ -198,7 +960,7 @@ public class PCA9685ServoController extends AbstractI2CServoController {
     @Override
     protected void doInit() throws IOException {
 
-        // Do absolutely nothing.
+        limitFlushRate();
 
         logger.info("init: {}", portName);
     }
@@ -215,7 +977,14 @@ public class PCA9685ServoController extends AbstractI2CServoController {
 
     @Override
     protected Servo createServo(int id) throws IOException {
-        return new PCA9685Servo(this, id);
+
+        var servo = new PCA9685Servo(this, id);
+
+        synchronized (registerLock) {
+            servos[id] = servo;
+        }
+
+        return servo;
     }
 
     @Override
@@ -231,16 +1000,44 @@ public class PCA9685ServoController extends AbstractI2CServoController {
             properties.put("manufacturer/model", "16-Channel PWM/Servo HAT for Raspberry Pi");
             properties.put("controller/maxservos", Integer.toString(getServoCount()));
 
-            // VT: FIXME: Servo range unit is weirdly defined, need to clarify
-            // This will finally lead to the right answer: https://forums.adafruit.com/viewtopic.php?f=19&t=71522
+            // The pulse widths are converted to ticks for the current frame rate,
+            // see https://forums.adafruit.com/viewtopic.php?f=19&t=71522
 
-            // properties.put("servo/range/units", "\u03BCs");
-
-            properties.put("servo/range/units", "tick");
+            properties.put("servo/range/units", "\u03BCs");
 
             properties.put("servo/range/min", Integer.toString(MIN_PULSE));
             properties.put("servo/range/max", Integer.toString(MAX_PULSE));
-            properties.put("controller/precision", Integer.toString(MAX_PULSE - MIN_PULSE));
+
+            updateTiming();
+
+            propertyWriters.put(META_FREQUENCY, (key, value) -> {
+
+                try {
+
+                    setFrequency(Integer.parseInt(value.toString()));
+
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Failed to change the frequency", ex);
+                }
+
+                updateTiming();
+
+                // Same pulse widths, different number of ticks
+
+                for (var servo : getCreatedServos()) {
+                    servo.updatePrecision();
+                }
+            });
+
+            features.put(META_VERIFY, Boolean.FALSE);
+            featureWriters.put(META_VERIFY, (key, value) -> setVerifyWrites(value));
+        }
+
+        private void updateTiming() {
+
+            properties.put(META_FREQUENCY, Integer.toString(getFrequency()));
+            properties.put(META_PERIOD, Long.toString(getFramePeriod()));
+            properties.put("controller/precision", Integer.toString(toTicks(MAX_PULSE) - toTicks(MIN_PULSE)));
         }
     }
 
@@ -249,6 +1046,10 @@ public class PCA9685ServoController extends AbstractI2CServoController {
         short minPulse = MIN_PULSE;
         short maxPulse = MAX_PULSE;
 
+        private final LogContext positionContext = new LogContext(logger, "setActualPosition id=" + id);
+        private final LogContext sleepContext = new LogContext(logger, "sleep:" + id);
+        private final LogContext wakeUpContext = new LogContext(logger, "wakeUp:" + id);
+
         public PCA9685Servo(PCA9685ServoController sc, int id) {
             super(sc, id);
             setPosition(0.5);
@@ -262,13 +1063,13 @@ public class PCA9685ServoController extends AbstractI2CServoController {
         @Override
         protected void setActualPosition(double position) throws IOException {
 
-            ThreadContext.push("setActualPosition id=" + id);
+            var entered = positionContext.enter();
 
             try {
 
                 checkPosition(position);
 
-                setPWM(id, 0, (int) (minPulse + position * (maxPulse - minPulse)));
+                setPulse(id, (int) (minPulse + position * (maxPulse - minPulse)));
 
                 actualPosition = position;
 
@@ -277,38 +1078,54 @@ public class PCA9685ServoController extends AbstractI2CServoController {
                 touch();
 
             } finally {
-                ThreadContext.pop();
+                positionContext.exit(entered);
             }
         }
 
+        /**
+         * Tell the listeners the last position change didn't reach the device.
+         *
+         * @param t What went wrong.
+         */
+        void writeFailed(Throwable t) {
+            exception(t);
+        }
+
+        /**
+         * Recalculate the precision for the current pulse range and frame rate.
+         */
+        void updatePrecision() {
+            ((PCA9685ServoMeta) getMeta()).updatePrecision();
+        }
+
         @Override
         protected void sleep() throws IOException {
 
-            ThreadContext.push("sleep:" + id);
+            var entered = sleepContext.enter();
 
             try {
 
                 // Just disable the pulse and be done with it
-                setPWM(id, 0, 0);
+                setPulse(id, 0);
 
                 logger.debug("sleeping now");
 
             } finally {
-                ThreadContext.pop();
+                sleepContext.exit(entered);
             }
         }
 
         @Override
         protected void wakeUp() throws IOException {
 
-            ThreadContext.push("wakeUp:" + id);
+            var entered = wakeUpContext.enter();
 
             try {
 
                 setActualPosition(getPosition());
 
             } finally {
-                ThreadContext.pop();
+                wakeUpContext.exit(entered);
             }
         }
 
@@ -321,7 +1138,7 @@ public class PCA9685ServoController extends AbstractI2CServoController {
                 properties.put("servo/silent", "5000");
                 features.put(META_SILENT, Boolean.TRUE);
 
-                properties.put("servo/precision", Integer.toString(maxPulse - minPulse));
+                updatePrecision();
 
                 PropertyWriter pwMin = (key, value) -> {
 
@@ -345,7 +1162,7 @@ public class PCA9685ServoController extends AbstractI2CServoController {
                         logger.warn("Unhandled exception", ioex);
                     }
 
-                    properties.put("servo/precision", Integer.toString(maxPulse - minPulse));
+                    updatePrecision();
                 };
 
                 PropertyWriter pwMax = (key, value) -> {
@@ -370,12 +1187,26 @@ public class PCA9685ServoController extends AbstractI2CServoController {
                         logger.warn("Unhandled exception", ioex);
                     }
 
-                    properties.put("servo/precision", Integer.toString(maxPulse - minPulse));
+                    updatePrecision();
                 };
 
                 propertyWriters.put("servo/range/min", pwMin);
                 propertyWriters.put("servo/range/max", pwMax);
             }
+
+            private void updatePrecision() {
+                properties.put("servo/precision", Integer.toString(toTicks(maxPulse) - toTicks(minPulse)));
+            }
+        }
+    }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("pca9685", "PCA9685 PWM HAT, I2C, port name is bus:address", PCA9685ServoController.class, PCA9685ServoController::new);
         }
     }
 }
@@ -0,0 +1,297 @@
+package net.sf.servomaster.device.impl.i2c.pca9685;
+
+import net.sf.servomaster.device.impl.i2c.I2CTransport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.ALL_LED_ON_L;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.CHANNEL_SIZE;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.LED0_ON_L;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1_AI;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MODE1_ALLCALL;
+
+/**
+ * In-memory PCA9685 register model.
+ *
+ * <p>
+ *
+ * Models the register file closely enough to run the driver against: the MODE1 auto-increment and
+ * self-clearing RESTART bits, and the {@code ALL_LED} registers loading every channel. Every transaction
+ * is counted, along with the bytes moved and the SCL cycles it would take on a real bus, so the bus time
+ * a workload needs can be measured without the hardware.
+ *
+ * <p>
+ *
+ * An instance created with {@link #PCA9685Simulator(int, Collection)} stands for the ALLCALL address,
+ * and forwards the writes to the members that have ALLCALL enabled.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class PCA9685Simulator implements I2CTransport {
+
+    /**
+     * SCL cycles for START, address and ACK, register address and ACK.
+     */
+    private static final int WRITE_OVERHEAD = 1 + 9 + 9;
+
+    /**
+     * SCL cycles for the repeated START, and address and ACK for the read phase.
+     */
+    private static final int READ_OVERHEAD = 1 + 9;
+
+    /**
+     * SCL cycles per data byte, including ACK.
+     */
+    private static final int BYTE_CYCLES = 9;
+
+    /**
+     * SCL cycles for STOP.
+     */
+    private static final int STOP = 1;
+
+    private final int address;
+    private final int clock;
+
+    private final byte[] registers = new byte[256];
+
+    /**
+     * Devices receiving the writes, if this is the ALLCALL address.
+     */
+    private final List<PCA9685Simulator> members;
+
+    private long transactionCount = 0;
+    private long bytesWritten = 0;
+    private long bytesRead = 0;
+    private long cycles = 0;
+
+    /**
+     * Create a device with the power-on register values, on a 100kHz bus.
+     *
+     * @param address Device address.
+     */
+    public PCA9685Simulator(int address) {
+        this(address, 100_000);
+    }
+
+    /**
+     * Create a device with the power-on register values.
+     *
+     * @param address Device address.
+     * @param clock Bus clock, in Hz.
+     */
+    public PCA9685Simulator(int address, int clock) {
+
+        this.address = address;
+        this.clock = clock;
+        this.members = null;
+
+        // MODE1: SLEEP and ALLCALL; MODE2: OUTDRV; ALLCALLADR: 0x70; PRE_SCALE: 200Hz
+
+        registers[0x00] = 0x11;
+        registers[0x01] = 0x04;
+        registers[0x05] = (byte) (PCA9685Fleet.ALLCALL_ADDRESS << 1);
+        registers[0xFE] = 0x1E;
+
+        for (var channel = 0; channel < 16; channel++) {
+
+            // Full OFF
+            registers[LED0_ON_L + channel * CHANNEL_SIZE + 3] = 0x10;
+        }
+    }
+
+    /**
+     * Create the ALLCALL address for the given devices.
+     *
+     * @param clock Bus clock, in Hz.
+     * @param members Devices on the bus.
+     */
+    public PCA9685Simulator(int clock, Collection<PCA9685Simulator> members) {
+
+        this.address = PCA9685Fleet.ALLCALL_ADDRESS;
+        this.clock = clock;
+        this.members = new ArrayList<>(members);
+    }
+
+    @Override
+    public int getAddress() {
+        return address;
+    }
+
+    @Override
+    public void write(int register, byte value) {
+        write(register, new byte[] { value }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(int register, byte[] buffer, int offset, int size) {
+
+        transactionCount++;
+        bytesWritten += size;
+        cycles += WRITE_OVERHEAD + (long) size * BYTE_CYCLES + STOP;
+
+        if (members == null) {
+            store(register, buffer, offset, size);
+            return;
+        }
+
+        for (var member : members) {
+            member.broadcast(register, buffer, offset, size);
+        }
+    }
+
+    @Override
+    public synchronized int read(int register) {
+
+        var buffer = new byte[1];
+
+        read(register, buffer, 0, 1);
+
+        return buffer[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(int register, byte[] buffer, int offset, int size) {
+
+        if (members != null) {
+            throw new IllegalStateException("ALLCALL address is write only");
+        }
+
+        transactionCount++;
+        bytesRead += size;
+        cycles += WRITE_OVERHEAD + READ_OVERHEAD + (long) size * BYTE_CYCLES + STOP;
+
+        var r = register;
+
+        for (var index = 0; index < size; index++) {
+
+            // ALL_LED registers always read as zero
+            buffer[offset + index] = r >= ALL_LED_ON_L && r < ALL_LED_ON_L + CHANNEL_SIZE ? 0 : registers[r];
+            r = next(r);
+        }
+
+        return size;
+    }
+
+    private synchronized void broadcast(int register, byte[] buffer, int offset, int size) {
+
+        if ((registers[MODE1] & MODE1_ALLCALL) != 0) {
+            store(register, buffer, offset, size);
+        }
+    }
+
+    /**
+     * Must be called with the monitor held.
+     */
+    private void store(int register, byte[] buffer, int offset, int size) {
+
+        var r = register;
+
+        for (var index = 0; index < size; index++) {
+
+            var value = buffer[offset + index];
+
+            if (r >= ALL_LED_ON_L && r < ALL_LED_ON_L + CHANNEL_SIZE) {
+
+                for (var channel = 0; channel < 16; channel++) {
+                    registers[LED0_ON_L + channel * CHANNEL_SIZE + r - ALL_LED_ON_L] = value;
+                }
+
+            } else {
+
+                // RESTART bit clears itself once the oscillator is running again
+                registers[r] = r == MODE1 ? (byte) (value & 0x7F) : value;
+            }
+
+            r = next(r);
+        }
+    }
+
+    /**
+     * Must be called with the monitor held.
+     *
+     * @return Register the pointer moves to after accessing {@code register}.
+     */
+    private int next(int register) {
+
+        if ((registers[MODE1] & MODE1_AI) == 0) {
+            return register;
+        }
+
+        return (register + 1) & 0xFF;
+    }
+
+    /**
+     * Get the register value, bypassing the bus.
+     *
+     * @param register Register address.
+     *
+     * @return Register value, 0 to 255.
+     */
+    public synchronized int getRegister(int register) {
+        return registers[register] & 0xFF;
+    }
+
+    /**
+     * Change the register value, bypassing the bus, the way a glitch or another bus master would.
+     *
+     * @param register Register address.
+     * @param value Value to store.
+     */
+    public synchronized void setRegister(int register, int value) {
+        registers[register] = (byte) value;
+    }
+
+    /**
+     * @return Number of bus transactions.
+     */
+    public synchronized long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * @return Number of data bytes written, not including the addresses.
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return Number of data bytes read, not including the addresses.
+     */
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return Number of SCL cycles the transactions would take.
+     */
+    public synchronized long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return Time the transactions would keep the bus busy, in nanoseconds.
+     */
+    public synchronized long getBusTime() {
+        return cycles * 1_000_000_000L / clock;
+    }
+
+    /**
+     * Reset the counters, leaving the registers as they are.
+     */
+    public synchronized void resetCounters() {
+
+        transactionCount = 0;
+        bytesWritten = 0;
+        bytesRead = 0;
+        cycles = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PCA9685 simulator 0x" + Integer.toHexString(address);
+    }
+}
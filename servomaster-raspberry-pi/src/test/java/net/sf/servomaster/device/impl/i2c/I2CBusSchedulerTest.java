@@ -0,0 +1,215 @@
+package net.sf.servomaster.device.impl.i2c;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.clock.VirtualClock;
+
+public class I2CBusSchedulerTest {
+
+    private final I2CBusScheduler scheduler = new I2CBusScheduler("test bus", null);
+
+    private final List<String> log = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch busy = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * Keep the I/O thread busy until {@link #release} is counted down.
+     */
+    private void hold() throws InterruptedException {
+
+        var blocker = scheduler.register(0x7F, () -> {
+
+            busy.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+
+            return null;
+        });
+
+        blocker.requestFlush();
+
+        assertTrue("I/O thread didn't start", busy.await(5, TimeUnit.SECONDS));
+    }
+
+    private I2CBusScheduler.Board board(String name) {
+
+        return scheduler.register(0x40, () -> {
+
+            log.add(name);
+            return null;
+        });
+    }
+
+    @Test
+    public void roundRobin() throws InterruptedException, IOException {
+
+        var a = board("a");
+        var b = board("b");
+        var c = board("c");
+
+        hold();
+
+        // Repeated requests while waiting for the turn are merged
+
+        a.requestFlush();
+        b.requestFlush();
+        a.requestFlush();
+        c.requestFlush();
+        b.requestFlush();
+
+        release.countDown();
+
+        // Transactions are queued behind the flushes, so this returns when they're done
+
+        assertEquals("done", c.execute(() -> "done"));
+
+        assertEquals(List.of("a", "b", "c"), log);
+        assertEquals(4, scheduler.getFlushCount());
+        assertEquals(1, scheduler.getTransactionCount());
+        assertTrue(scheduler.getBusyTime() > 0);
+    }
+
+    @Test
+    public void failure() throws IOException {
+
+        var board = board("a");
+
+        try {
+
+            board.execute(() -> {
+                throw new IOException("nack");
+            });
+
+            fail("should've failed");
+
+        } catch (IOException ex) {
+            assertEquals("nack", ex.getMessage());
+        }
+
+        // The bus is still alive
+        assertEquals(Integer.valueOf(42), board.execute(() -> 42));
+    }
+
+    @Test
+    public void minInterval() throws IOException, InterruptedException {
+
+        var clock = new VirtualClock();
+        var virtual = new I2CBusScheduler("virtual bus", null, clock);
+        var flushed = new CopyOnWriteArrayList<Long>();
+        var board = virtual.register(0x40, () -> {
+
+            flushed.add(clock.nanoTime());
+            return null;
+        });
+
+        try {
+
+            board.setMinInterval(TimeUnit.MILLISECONDS.toNanos(50));
+
+            // The first flush goes right away, the next three are held back and merged
+
+            board.requestFlush();
+            board.execute(() -> null);
+
+            board.requestFlush();
+            board.requestFlush();
+            board.requestFlush();
+
+            // Transactions are not held back
+            board.execute(() -> null);
+            assertEquals(1, flushed.size());
+
+            assertTrue(clock.awaitPending(1, 5, TimeUnit.SECONDS));
+
+            clock.advance(49, TimeUnit.MILLISECONDS);
+            assertEquals(1, flushed.size());
+
+            clock.advance(10, TimeUnit.MILLISECONDS);
+            assertEquals(2, flushed.size());
+            assertTrue(flushed.get(1) - flushed.get(0) >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        } finally {
+            board.unregister();
+        }
+    }
+
+    @Test
+    public void sameBackend() {
+
+        // Nothing is opened until somebody asks for a device, so this works without the hardware
+
+        var first = I2CBusScheduler.getInstance(99, LinuxI2CTransport.bus(99));
+
+        assertSame(first, I2CBusScheduler.getInstance(99, LinuxI2CTransport.bus(99)));
+
+        try {
+
+            I2CBusScheduler.getInstance(99, address -> null);
+            fail("should've failed");
+
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void lastBoardGone() throws InterruptedException, IOException {
+
+        var closed = new CountDownLatch(1);
+        var bus = new I2CTransport.Bus() {
+
+            @Override
+            public I2CTransport open(int address) {
+                throw new UnsupportedOperationException("not needed");
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+
+        var shared = I2CBusScheduler.getInstance(98, bus);
+        var a = shared.register(0x40, () -> null);
+        var b = shared.register(0x41, () -> null);
+
+        a.unregister();
+        assertFalse(shared.isShutdown());
+
+        // Ignored
+        a.requestFlush();
+
+        try {
+
+            a.execute(() -> null);
+            fail("should've failed");
+
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+
+        b.unregister();
+
+        assertTrue(shared.isShutdown());
+        assertTrue("bus not closed", closed.await(5, TimeUnit.SECONDS));
+        assertNotSame(shared, I2CBusScheduler.getInstance(98, bus));
+    }
+}
@@ -0,0 +1,478 @@
+package net.sf.servomaster.device.impl.i2c.pca9685;
+
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.FLUSH_RETRY_DELAY;
+import static net.sf.servomaster.device.impl.i2c.pca9685.PCA9685ServoController.MAX_FLUSH_RETRIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.i2c.I2CBusScheduler;
+import net.sf.servomaster.device.impl.i2c.I2CTransport;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+import net.sf.servomaster.device.model.ServoControllerListener;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.SilentDevice;
+
+public class PCA9685ServoControllerTest {
+
+    /**
+     * Register write transaction: starting register, and the number of bytes written.
+     */
+    private static class Write {
+
+        final int register;
+        final int size;
+
+        Write(int register, int size) {
+            this.register = register;
+            this.size = size;
+        }
+    }
+
+    private final List<Write> writes = new ArrayList<>();
+
+    /**
+     * Simulated device recording the write transactions.
+     */
+    private final PCA9685Simulator device = new PCA9685Simulator(0x40) {
+
+        @Override
+        public synchronized void write(int register, byte[] buffer, int offset, int size) {
+
+            writes.add(new Write(register, size));
+            super.write(register, buffer, offset, size);
+        }
+    };
+
+    private final PCA9685Simulator allCall = new PCA9685Simulator(100_000, Set.of(device));
+
+    /**
+     * Number of block writes to fail before letting them through to the {@link #device}.
+     */
+    private final AtomicInteger nacks = new AtomicInteger();
+
+    /**
+     * The {@link #device}, behind a bus that NACKs the block writes while {@link #nacks} is positive.
+     */
+    private final I2CTransport flaky = new I2CTransport() {
+
+        @Override
+        public int getAddress() {
+            return device.getAddress();
+        }
+
+        @Override
+        public void write(int register, byte value) {
+            device.write(register, value);
+        }
+
+        @Override
+        public void write(int register, byte[] buffer, int offset, int size) throws IOException {
+
+            if (nacks.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IOException("NACK at 0x" + Integer.toHexString(register));
+            }
+
+            device.write(register, buffer, offset, size);
+        }
+
+        @Override
+        public int read(int register) {
+            return device.read(register);
+        }
+
+        @Override
+        public int read(int register, byte[] buffer, int offset, int size) {
+            return device.read(register, buffer, offset, size);
+        }
+    };
+
+    @Test
+    public void singleChannel() throws IOException {
+
+        var controller = new PCA9685ServoController(device);
+
+        controller.open();
+
+        try {
+
+            var servo = controller.getServo("3");
+
+            writes.clear();
+
+            servo.setPosition(0.25);
+
+            // One transaction for the OFF registers, the ON registers already have the values
+            assertEquals(1, writes.size());
+            assertEquals(0x06 + 4 * 3 + 2, writes.get(0).register);
+            assertEquals(2, writes.get(0).size);
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void frame() throws IOException {
+
+        var controller = new PCA9685ServoController(device);
+
+        controller.open();
+
+        try {
+
+            var servos = controller.getServos();
+
+            writes.clear();
+
+            var cycles = device.getCycles();
+
+            controller.beginFrame();
+
+            for (var servo : servos) {
+                servo.setPosition(1.0);
+            }
+
+            assertEquals(0, writes.size());
+
+            controller.endFrame();
+
+            // All 16 channels in one transfer, less the first channel's ON registers that didn't change
+            assertEquals(1, writes.size());
+            assertEquals(0x06 + 2, writes.get(0).register);
+            assertEquals(62, writes.get(0).size);
+
+            // START, address, register, 62 data bytes, STOP: 5.78ms at 100kHz
+            assertEquals(578, device.getCycles() - cycles);
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void unchanged() throws IOException {
+
+        var controller = new PCA9685ServoController(device);
+
+        controller.open();
+
+        try {
+
+            var servo = controller.getServo("5");
+
+            servo.setPosition(0.3);
+
+            writes.clear();
+
+            servo.setPosition(0.3);
+
+            // Registers already have these values
+            assertEquals(0, writes.size());
+            assertEquals(1, controller.getWritesSkipped());
+
+            // The MODE1 value written in reset() is reused, not read back
+            assertEquals(0, device.getBytesRead());
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void verify() throws IOException {
+
+        var controller = new PCA9685ServoController(device);
+
+        controller.open();
+
+        try {
+
+            var servo = controller.getServo("0");
+
+            servo.setPosition(0.3);
+
+            assertEquals(0, controller.verify());
+
+            // Somebody else has been talking to the device
+            device.setRegister(0x06 + 2, 0);
+
+            assertEquals(1, controller.verify());
+
+            // The register is rewritten even though the position hasn't changed
+
+            writes.clear();
+
+            servo.setPosition(0.3);
+
+            assertEquals(1, writes.size());
+            assertEquals(0x06 + 2, writes.get(0).register);
+            assertEquals(1, writes.get(0).size);
+
+            assertEquals(0, controller.verify());
+
+            // reset() forgets everything
+
+            controller.reset();
+            writes.clear();
+
+            servo.setPosition(0.3);
+
+            assertEquals(1, writes.size());
+            assertEquals(4, writes.get(0).size);
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void broadcast() throws IOException {
+
+        var controller = new PCA9685ServoController(device);
+
+        controller.open();
+
+        try {
+
+            var fleet = new PCA9685Fleet(null, allCall, Set.of(controller));
+            var servo = controller.getServo("7");
+
+            servo.setPosition(0.3);
+
+            // One transaction each, and the controller knows what they did
+
+            fleet.setPosition(0.5);
+            fleet.stop();
+            fleet.sleep();
+
+            assertEquals(3, allCall.getTransactionCount());
+            assertEquals(0x10, device.getRegister(0x06 + 4 * 15 + 3));
+            assertEquals(3, fleet.getTransactionCount());
+            assertEquals(0, controller.verify());
+
+            // The channel gets its own position back
+
+            writes.clear();
+
+            fleet.wakeUp();
+            servo.setPosition(0.4);
+
+            assertEquals(1, writes.size());
+            assertEquals(0x06 + 4 * 7 + 2, writes.get(0).register);
+            assertEquals(0, controller.verify());
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void frequency() throws IOException {
+
+        var controller = new PCA9685ServoController(device);
+
+        controller.open();
+
+        try {
+
+            var servo = controller.getServo("2");
+
+            servo.setPosition(0.5);
+
+            assertEquals(60, controller.getFrequency());
+            assertEquals(16711, controller.getFramePeriod());
+
+            // 1325us at 60Hz, that's 325 ticks
+            assertEquals(325, offAt(2));
+
+            controller.getMeta().setProperty(PCA9685ServoController.META_FREQUENCY, "250");
+
+            assertEquals(23, device.getRegister(0xFE));
+            assertEquals("3932", controller.getMeta().getProperty(PCA9685ServoController.META_PERIOD));
+
+            // Same pulse width, more ticks
+            assertEquals(1380, offAt(2));
+
+            var precision = controller.toTicks(PCA9685ServoController.MAX_PULSE) - controller.toTicks(PCA9685ServoController.MIN_PULSE);
+
+            assertEquals(Integer.toString(precision), controller.getMeta().getProperty("controller/precision"));
+            assertEquals(Integer.toString(precision), servo.getMeta().getProperty("servo/precision"));
+
+            try {
+
+                controller.getMeta().setProperty(PCA9685ServoController.META_FREQUENCY, "400");
+                fail("should've been rejected");
+
+            } catch (IllegalArgumentException ex) {
+                assertEquals("Frequency (400) is outside of valid range (24...333)", ex.getMessage());
+            }
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void flushFailure() throws IOException, InterruptedException {
+
+        var controller = new PCA9685ServoController(new I2CBusScheduler("test bus", null), flaky);
+
+        controller.open();
+
+        try {
+
+            var servo = controller.getServo("3");
+            var other = controller.getServo("5");
+
+            var controllerTold = new CountDownLatch(1);
+            var servoTold = new CountDownLatch(1);
+
+            controller.addListener(new ServoControllerListener() {
+
+                @Override
+                public void exception(ServoController source, Throwable t) {
+                    controllerTold.countDown();
+                }
+
+                @Override
+                public void deviceArrived(ServoController device) {
+                    // Not interested
+                }
+
+                @Override
+                public void deviceDeparted(ServoController device) {
+                    // Not interested
+                }
+
+                @Override
+                public void silentStatusChanged(SilentDevice source, boolean silent) {
+                    // Not interested
+                }
+            });
+
+            servo.addListener(new ServoListener() {
+
+                @Override
+                public void exception(Servo source, Throwable t) {
+                    servoTold.countDown();
+                }
+
+                @Override
+                public void positionChanged(Servo source, double position) {
+                    // Not interested
+                }
+
+                @Override
+                public void actualPositionChanged(Servo source, double position) {
+                    // Not interested
+                }
+
+                @Override
+                public void silentStatusChanged(SilentDevice source, boolean silent) {
+                    // Not interested
+                }
+            });
+
+            var initial = controller.toTicks(1325);
+
+            awaitOffAt(3, initial);
+            awaitOffAt(5, initial);
+
+            nacks.set(2);
+            servo.setPosition(0.25);
+
+            // Nobody was waiting for the flush, the listeners are the only ones who can know
+
+            assertTrue("controller listener wasn't told", controllerTold.await(5, TimeUnit.SECONDS));
+            assertTrue("servo listener wasn't told", servoTold.await(5, TimeUnit.SECONDS));
+
+            // The first retry gets NACKed as well, the second one makes it, without anybody asking
+
+            awaitOffAt(3, controller.toTicks(100 + (int) (0.25 * 2450)));
+            assertEquals(0, nacks.get());
+
+            // A bus that keeps failing is given up on after a few retries
+
+            var attempts = MAX_FLUSH_RETRIES + 1;
+
+            nacks.set(attempts + 10);
+            servo.setPosition(0.5);
+
+            awaitNacks(10);
+            Thread.sleep(FLUSH_RETRY_DELAY << MAX_FLUSH_RETRIES);
+
+            assertEquals(10, nacks.get());
+            assertEquals(controller.toTicks(100 + (int) (0.25 * 2450)), offAt(3));
+
+            // The next flush, whatever it is for, picks up the channel that didn't make it
+
+            nacks.set(0);
+            other.setPosition(0.75);
+
+            awaitOffAt(5, controller.toTicks(100 + (int) (0.75 * 2450)));
+            awaitOffAt(3, controller.toTicks(100 + (int) (0.5 * 2450)));
+
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void closeLeavesTheBus() throws IOException {
+
+        var scheduler = new I2CBusScheduler("test bus", null);
+        var controller = new PCA9685ServoController(scheduler, device);
+
+        controller.open();
+        controller.getServo("3").setPosition(0.25);
+        controller.close();
+
+        // The last write made it out before the board was gone, and the board was the only one on the bus
+        assertEquals(controller.toTicks(100 + (int) (0.25 * 2450)), offAt(3));
+        assertTrue(scheduler.isShutdown());
+    }
+
+    /**
+     * Wait for the flaky bus to fail enough writes that there are this many NACKs left.
+     */
+    private void awaitNacks(int left) throws InterruptedException {
+
+        var deadline = System.currentTimeMillis() + 5000;
+
+        while (nacks.get() > left && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(left, nacks.get());
+    }
+
+    /**
+     * Wait for the channel's OFF registers to reach the value, the scheduler flushes asynchronously.
+     */
+    private void awaitOffAt(int channel, int value) throws InterruptedException {
+
+        var deadline = System.currentTimeMillis() + 5000;
+
+        while (offAt(channel) != value && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(value, offAt(channel));
+    }
+
+    private int offAt(int channel) {
+        return device.getRegister(0x06 + 4 * channel + 2) | device.getRegister(0x06 + 4 * channel + 3) << 8;
+    }
+}
@@ -3,15 +3,21 @@ package net.sf.servomaster.device.impl.serial;
 import gnu.io.CommPortIdentifier;
 import gnu.io.PortInUseException;
 import gnu.io.SerialPort;
+import gnu.io.SerialPortEvent;
 import gnu.io.UnsupportedCommOperationException;
 import net.sf.servomaster.device.impl.AbstractServoController;
 import net.sf.servomaster.device.impl.HardwareServo;
+import net.sf.servomaster.device.impl.jfr.WriteEvent;
 import net.sf.servomaster.device.model.ServoController;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.TooManyListenersException;
 
 /**
  * Base class for all serial servo controllers.
@@ -34,16 +40,33 @@ public abstract class AbstractSerialServoController extends AbstractServoControl
      */
     public static final String META_SPEED = "controller/protocol/serial/speed";
 
+    /**
+     * String key for retrieving the position poll interval, in milliseconds.
+     *
+     * Only present for controllers that can report positions. 0 means polling is disabled.
+     */
+    public static final String META_POLL = "controller/protocol/serial/poll";
+
     /**
      * The serial port.
      */
     protected SerialPort port = null;
 
+    /**
+     * The serial port input stream.
+     */
+    private InputStream serialIn;
+
     /**
      * The serial port output stream.
      */
     private OutputStream serialOut;
 
+    /**
+     * The serial I/O thread. All the port traffic goes through it.
+     */
+    private SerialWorker worker;
+
     protected AbstractSerialServoController(String portName) {
         super(portName);
     }
@@ -157,6 +180,97 @@ public abstract class AbstractSerialServoController extends AbstractServoControl
         } catch (UnsupportedCommOperationException ucoex) {
             throw (IOException) new IOException("Unsupported comm operation", ucoex);
         }
+
+        startWorker();
+    }
+
+    private void startWorker() throws IOException {
+
+        serialIn = port.getInputStream();
+        worker = new ControllerWorker();
+
+        try {
+
+            // Not strictly necessary, the worker will check the input anyway while it expects responses,
+            // but this way they're picked up sooner
+
+            port.addEventListener(e -> {
+
+                if (e.getEventType() == SerialPortEvent.DATA_AVAILABLE) {
+                    worker.dataAvailable();
+                }
+            });
+
+            port.notifyOnDataAvailable(true);
+
+        } catch (TooManyListenersException ex) {
+            logger.warn("Can't listen to {} events, will poll for input", portName, ex);
+        }
+
+        worker.start();
+    }
+
+    /**
+     * Whether the device shares one wire for transmit and receive, and therefore echoes everything written to it.
+     *
+     * @return {@code false}, subclasses for half duplex devices must override this.
+     */
+    protected boolean isHalfDuplex() {
+        return false;
+    }
+
+    /**
+     * Create the batch of requests to find out the actual state of the device.
+     *
+     * Called on the serial I/O thread every {@link #setPollInterval(long) poll interval} milliseconds.
+     * The implementation must not acquire the controller monitor - it is quite possible that some
+     * other thread is holding it while waiting for the I/O thread to complete a write.
+     *
+     * @return Empty list, subclasses for devices that can report their state must override this.
+     */
+    protected List<SerialRequest> createPollRequests() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Set the position poll interval.
+     *
+     * @param pollInterval Poll interval in milliseconds, 0 disables polling.
+     */
+    protected final void setPollInterval(long pollInterval) {
+        worker.setPollInterval(pollInterval);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            super.close();
+
+        } finally {
+
+            if (worker != null) {
+
+                worker.shutdown();
+
+                try {
+
+                    worker.join(SerialWorker.RESPONSE_TIMEOUT);
+
+                } catch (InterruptedException ex) {
+
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted waiting for the I/O thread to stop", ex);
+                }
+            }
+
+            if (port != null) {
+
+                port.removeEventListener();
+                port.close();
+            }
+        }
     }
 
     /**
@@ -183,27 +297,79 @@ public abstract class AbstractSerialServoController extends AbstractServoControl
      * hardware controller.
      */
     protected synchronized void send(byte b) throws IOException {
-        serialOut.write(b);
-        serialOut.flush();
+        send(new byte[] { b });
     }
 
     /**
-     * Send the data buffer down the {@link #serialOut serial port stream}.
+     * Send the data buffer down the {@link #serialOut serial port stream}, and wait until it is written,
+     * but no longer than {@link SerialWorker#WRITE_TIMEOUT}.
      *
-     * @param buffer Buffer to send.
+     * @param buffer Buffer to send. The caller is free to reuse it as soon as this method returns.
      *
      * @exception IOException if there was a problem communicating with the
-     * hardware controller.
+     * hardware controller, or the port is stalled.
      */
     protected final synchronized void send(byte[] buffer) throws IOException {
 
-        // VT: FIXME: Can be optimized
+        // The monitor is held while waiting, to preserve the order of writes. This is safe
+        // because the I/O thread never acquires it, and the wait is bounded.
+
+        worker.send(new SerialRequest(buffer));
+    }
 
-        for (byte b : buffer) {
-            serialOut.write(b);
+    /**
+     * Queue the data buffer for sending, and return immediately.
+     *
+     * If the buffer previously posted with the same key hasn't been written yet, it is dropped -
+     * this is what keeps the position updates from piling up if the port can't keep up with them.
+     *
+     * @param key Supersession key, typically the servo ID.
+     * @param buffer Buffer to send. The caller is free to reuse it as soon as this method returns.
+     *
+     * @exception IOException if the write queue is full, or the I/O thread is not running.
+     */
+    protected final void post(Object key, byte[] buffer) throws IOException {
+        worker.submit(new SerialRequest(key, buffer));
+    }
+
+    /**
+     * Queue the request for writing, and return immediately.
+     *
+     * @param request Request to write. If it expects a response, the handler will be called on the I/O thread.
+     *
+     * @exception IOException if the I/O thread is not running.
+     */
+    protected final void submit(SerialRequest request) throws IOException {
+        worker.submit(request);
+    }
+
+    private class ControllerWorker extends SerialWorker {
+
+        ControllerWorker() {
+            super("serial " + portName, serialIn, serialOut, isHalfDuplex(), getClock());
+        }
+
+        @Override
+        protected List<SerialRequest> createPollRequests() {
+            return AbstractSerialServoController.this.createPollRequests();
+        }
+
+        @Override
+        protected void exception(Throwable t) {
+            AbstractSerialServoController.this.exception(t);
         }
 
-        serialOut.flush();
+        @Override
+        protected void written(SerialRequest request, long nanos, IOException failure) {
+
+            if (failure == null) {
+                metrics.sent(request.command.length, nanos);
+            } else {
+                metrics.ioError();
+            }
+
+            WriteEvent.emit(AbstractSerialServoController.this, request.key, request.command.length, nanos, failure != null);
+        }
     }
 
     protected abstract class SerialServo extends HardwareServo {
@@ -236,9 +402,29 @@ public abstract class AbstractSerialServoController extends AbstractServoControl
         /**
          * Send the position command to the controller.
          *
+         * Implementations are expected to {@link AbstractSerialServoController#post(Object, byte[]) post}
+         * the command keyed by the servo ID, so that the stale positions are dropped if the port falls behind.
+         *
          * @param position Position to send.
          * @throws IOException if there's a hardware error.
          */
         protected abstract void sendPosition(double position) throws IOException;
+
+        /**
+         * Accept the position the hardware says the servo is at.
+         *
+         * Called on the serial I/O thread when a position report arrives. Doesn't touch the controller monitor.
+         *
+         * @param position Reported position.
+         */
+        protected final void positionReported(double position) {
+
+            if (position == actualPosition) {
+                return;
+            }
+
+            actualPosition = position;
+            actualPositionChanged(position);
+        }
     }
 }
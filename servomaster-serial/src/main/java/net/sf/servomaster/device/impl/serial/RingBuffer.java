@@ -0,0 +1,138 @@
+package net.sf.servomaster.device.impl.serial;
+
+/**
+ * Fixed capacity byte ring buffer.
+ *
+ * Accumulates the bytes arriving from the serial port so that the responses can be parsed incrementally,
+ * regardless of how the port chooses to fragment them. This class is not thread safe, it is only meant
+ * to be used by the {@link SerialWorker serial I/O thread}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class RingBuffer {
+
+    private final byte[] buffer;
+    private final int mask;
+
+    /**
+     * Absolute position of the first unread byte.
+     */
+    private long head = 0;
+
+    /**
+     * Absolute position right after the last written byte.
+     */
+    private long tail = 0;
+
+    /**
+     * Create an instance.
+     *
+     * @param capacity Buffer capacity. Must be a power of two.
+     */
+    public RingBuffer(int capacity) {
+
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two, " + capacity + " given");
+        }
+
+        buffer = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * @return Number of bytes available for reading.
+     */
+    public int size() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * @return Number of bytes that can be written before the buffer is full.
+     */
+    public int free() {
+        return buffer.length - size();
+    }
+
+    /**
+     * Append the bytes to the buffer.
+     *
+     * @param source Buffer to copy from.
+     * @param offset Offset in the source buffer.
+     * @param length Number of bytes to copy.
+     *
+     * @return Number of bytes actually copied. Will be less than {@code length} if the buffer is full.
+     */
+    public int put(byte[] source, int offset, int length) {
+
+        var count = Math.min(length, free());
+
+        for (var index = 0; index < count; index++) {
+            buffer[(int) (tail++ & mask)] = source[offset + index];
+        }
+
+        return count;
+    }
+
+    /**
+     * Look at the byte without consuming it.
+     *
+     * @param index Offset from the first unread byte.
+     *
+     * @return The byte at the given offset.
+     */
+    public byte get(int index) {
+
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " outside of 0..." + size() + " range");
+        }
+
+        return buffer[(int) ((head + index) & mask)];
+    }
+
+    /**
+     * Consume the bytes.
+     *
+     * @param target Buffer to copy into.
+     * @param offset Offset in the target buffer.
+     * @param length Maximum number of bytes to consume.
+     *
+     * @return Number of bytes actually consumed.
+     */
+    public int take(byte[] target, int offset, int length) {
+
+        var count = Math.min(length, size());
+
+        for (var index = 0; index < count; index++) {
+            target[offset + index] = buffer[(int) (head++ & mask)];
+        }
+
+        return count;
+    }
+
+    /**
+     * Discard the bytes.
+     *
+     * @param length Maximum number of bytes to discard.
+     *
+     * @return Number of bytes actually discarded.
+     */
+    public int skip(int length) {
+
+        var count = Math.min(length, size());
+
+        head += count;
+
+        return count;
+    }
+
+    /**
+     * Discard everything.
+     */
+    public void clear() {
+        head = tail;
+    }
+}
@@ -0,0 +1,160 @@
+package net.sf.servomaster.device.impl.serial;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.servomaster.device.impl.clock.Clock;
+
+/**
+ * A unit of work for the {@link SerialWorker serial I/O thread}.
+ *
+ * Carries the bytes to be written and, optionally, the description of the response the device is
+ * expected to send back. Responses are correlated with the requests in the order the requests
+ * were written - none of the supported protocols allows anything else.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class SerialRequest {
+
+    /**
+     * Receives the response (or lack thereof).
+     *
+     * Both methods are called on the serial I/O thread, and must return promptly.
+     */
+    public interface ResponseHandler {
+
+        /**
+         * Called when the complete response has arrived.
+         *
+         * @param response Response bytes, echo (if any) excluded. The handler owns the buffer.
+         */
+        void responseReceived(byte[] response);
+
+        /**
+         * Called when the response didn't arrive in time, or the request couldn't be written at all.
+         *
+         * @param cause What went wrong.
+         */
+        void responseFailed(IOException cause);
+    }
+
+    /**
+     * Bytes to write. This is a private copy, the caller is free to reuse their buffer.
+     */
+    final byte[] command;
+
+    /**
+     * Expected response length, 0 if no response is expected.
+     */
+    final int responseLength;
+
+    final ResponseHandler handler;
+
+    /**
+     * Requests with the same non-null key supersede each other: if the earlier one hasn't been written yet
+     * by the time the later one is submitted, it is dropped.
+     */
+    final Object key;
+
+    /**
+     * The moment the response is considered lost, set when the request is written.
+     */
+    long deadline;
+
+    private boolean done = false;
+    private IOException failure;
+
+    /**
+     * Create a request that doesn't expect a response.
+     *
+     * @param command Bytes to write.
+     */
+    public SerialRequest(byte[] command) {
+        this(command, 0, null);
+    }
+
+    /**
+     * Create a request that doesn't expect a response, and can be superseded by a later one.
+     *
+     * @param key Supersession key, typically the servo ID.
+     * @param command Bytes to write.
+     */
+    public SerialRequest(Object key, byte[] command) {
+        this(key, command, 0, null);
+    }
+
+    /**
+     * Create a request that expects a response.
+     *
+     * @param command Bytes to write.
+     * @param responseLength Expected response length.
+     * @param handler Response handler. Must not be {@code null} if the {@code responseLength} is positive.
+     */
+    public SerialRequest(byte[] command, int responseLength, ResponseHandler handler) {
+        this(null, command, responseLength, handler);
+    }
+
+    private SerialRequest(Object key, byte[] command, int responseLength, ResponseHandler handler) {
+
+        if (responseLength < 0 || (responseLength > 0 && handler == null)) {
+            throw new IllegalArgumentException("invalid response specification: length=" + responseLength + ", handler=" + handler);
+        }
+
+        this.key = key;
+        this.command = command.clone();
+        this.responseLength = responseLength;
+        this.handler = handler;
+    }
+
+    boolean expectsResponse() {
+        return responseLength > 0;
+    }
+
+    /**
+     * Mark the request as written (or failed to be written), and release whoever is waiting for it.
+     *
+     * @param failure The reason the request couldn't be written, or {@code null} if it was written successfully.
+     */
+    synchronized void complete(IOException failure) {
+
+        this.failure = failure;
+        done = true;
+
+        notifyAll();
+    }
+
+    /**
+     * Wait until the request is written, or the timeout expires.
+     *
+     * @param clock Clock to keep the timeout by.
+     * @param timeout How long to wait.
+     * @param unit Timeout unit.
+     *
+     * @return {@code true} if the request was written, {@code false} if the timeout has expired.
+     *
+     * @throws IOException if the request couldn't be written.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    synchronized boolean await(Clock clock, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+
+        var until = clock.nanoTime() + unit.toNanos(timeout);
+
+        while (!done) {
+
+            var left = until - clock.nanoTime();
+
+            if (left <= 0) {
+                return false;
+            }
+
+            // Round up, or the last fraction of a millisecond turns into an untimed wait
+            clock.await(this, (left + 999_999) / 1_000_000);
+        }
+
+        if (failure != null) {
+            throw new IOException("Write failed", failure);
+        }
+
+        return true;
+    }
+}
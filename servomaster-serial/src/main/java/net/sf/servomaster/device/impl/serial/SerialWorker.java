@@ -0,0 +1,698 @@
+package net.sf.servomaster.device.impl.serial;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import net.sf.servomaster.device.impl.clock.Clock;
+
+/**
+ * Serial I/O thread.
+ *
+ * <p>
+ *
+ * All the traffic to and from the serial port goes through this thread. Writes are taken from the queue
+ * in the order they were submitted; in between, whatever the port has available is read without blocking
+ * into the {@link RingBuffer ring buffer}, and parsed incrementally into responses to the
+ * {@link SerialRequest requests} that were expecting them.
+ *
+ * <p>
+ *
+ * If the {@link #setPollInterval(long) poll interval} is set, the thread will periodically ask
+ * {@link #createPollRequests()} for a batch of requests (typically, position reports for all channels)
+ * and write them one by one, but only when there are no writes waiting - the polls never delay the writers
+ * for longer than it takes to complete one poll request.
+ *
+ * <p>
+ *
+ * A device that is not set up right will eventually stop accepting data, and the write will block forever.
+ * This is why the write queue is bounded, {@link #send(SerialRequest) synchronous writes} have a deadline,
+ * and requests that carry a key {@link SerialRequest#key supersede} the earlier ones with the same key that
+ * haven't been written yet. A write taking longer than {@link #WRITE_TIMEOUT} is reported as a stall via
+ * {@link #exception(Throwable)}; while the stall lasts, synchronous writes fail immediately, and superseding
+ * writes keep replacing each other instead of piling up.
+ *
+ * <p>
+ *
+ * All the deadlines - response timeouts, poll schedule, stall detection - are kept by the {@link Clock clock}
+ * given at construction time.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public abstract class SerialWorker extends Thread {
+
+    /**
+     * How long to wait for a response before giving up on it and resynchronizing, milliseconds.
+     */
+    public static final long RESPONSE_TIMEOUT = 500;
+
+    /**
+     * How often to check the port for input while the response is expected, milliseconds.
+     */
+    public static final long READ_INTERVAL = 5;
+
+    /**
+     * How long a write may take before it is considered stalled, milliseconds.
+     */
+    public static final long WRITE_TIMEOUT = 1000;
+
+    /**
+     * Maximum number of requests waiting to be written.
+     */
+    public static final int QUEUE_CAPACITY = 64;
+
+    protected final Logger logger = LogManager.getLogger(getClass());
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final Clock clock;
+
+    /**
+     * Whether the device is on a single wire, and echoes back everything written to it.
+     *
+     * If it is, no new request will be written until the response to the previous one arrives (or times out),
+     * and the echo will be skipped before the response is parsed.
+     */
+    private final boolean halfDuplex;
+
+    /**
+     * Requests waiting to be written. Access is guarded by {@code this}.
+     */
+    private final Deque<SerialRequest> writeQueue = new ArrayDeque<>();
+
+    /**
+     * Requests written and waiting for responses, in the order they were written.
+     * Only ever touched by this thread.
+     */
+    private final Deque<SerialRequest> outstanding = new ArrayDeque<>();
+
+    /**
+     * Poll requests not yet written. Only ever touched by this thread.
+     */
+    private final Deque<SerialRequest> pollQueue = new ArrayDeque<>();
+
+    private final RingBuffer inbound = new RingBuffer(1024);
+    private final byte[] readBuffer = new byte[256];
+
+    /**
+     * Number of echoed bytes yet to arrive.
+     */
+    private int echoPending = 0;
+
+    private long lastWriteAt = 0;
+
+    private volatile long pollInterval = 0;
+    private long nextPollAt = 0;
+
+    private boolean dataAvailable = false;
+    private boolean stopped = false;
+
+    /**
+     * The moment the write currently in progress has started, 0 if there's none.
+     */
+    private volatile long writeStartedAt = 0;
+
+    /**
+     * Whether the stall has been detected and reported. Access is guarded by {@code this}.
+     */
+    private boolean stalled = false;
+
+    /**
+     * Number of requests dropped because they were superseded before they could be written.
+     */
+    private long dropped = 0;
+
+    /**
+     * Number of requests rejected because the queue was full, or the port was stalled.
+     */
+    private long rejected = 0;
+
+    protected SerialWorker(String name, InputStream in, OutputStream out, boolean halfDuplex) {
+        this(name, in, out, halfDuplex, Clock.SYSTEM);
+    }
+
+    protected SerialWorker(String name, InputStream in, OutputStream out, boolean halfDuplex, Clock clock) {
+
+        super(name);
+
+        if (clock == null) {
+            throw new IllegalArgumentException("clock can't be null");
+        }
+
+        this.in = in;
+        this.out = out;
+        this.halfDuplex = halfDuplex;
+        this.clock = clock;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Set the poll interval.
+     *
+     * @param pollInterval Poll interval in milliseconds, 0 disables polling.
+     */
+    public synchronized void setPollInterval(long pollInterval) {
+
+        if (pollInterval < 0) {
+            throw new IllegalArgumentException("Negative poll interval: " + pollInterval);
+        }
+
+        this.pollInterval = pollInterval;
+        nextPollAt = clock.currentTimeMillis() + pollInterval;
+
+        notifyAll();
+    }
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Queue the request for writing, and return immediately.
+     *
+     * If the request has a key, the earlier request with the same key that is still waiting to be written
+     * is dropped, and the new one goes to the end of the queue.
+     *
+     * @param request Request to write.
+     *
+     * @throws IOException if the I/O thread is not running, the queue is full, or the port is stalled
+     * and the request can't supersede anything.
+     */
+    public synchronized void submit(SerialRequest request) throws IOException {
+
+        if (stopped || !isAlive()) {
+            throw new IOException("I/O thread is not running");
+        }
+
+        checkStall(WRITE_TIMEOUT);
+
+        if (request.key != null) {
+
+            for (var i = writeQueue.iterator(); i.hasNext(); ) {
+
+                var queued = i.next();
+
+                if (request.key.equals(queued.key)) {
+
+                    i.remove();
+                    queued.complete(null);
+                    dropped++;
+
+                    break;
+                }
+            }
+
+        } else if (stalled) {
+
+            rejected++;
+            throw new IOException("Port stalled, write in progress for " + (clock.currentTimeMillis() - writeStartedAt) + "ms");
+        }
+
+        if (writeQueue.size() >= QUEUE_CAPACITY) {
+
+            rejected++;
+            throw new IOException("Write queue full (" + QUEUE_CAPACITY + " requests), is the device set up right?");
+        }
+
+        writeQueue.add(request);
+        notifyAll();
+    }
+
+    /**
+     * Queue the request for writing, and wait until it is written, but no longer than {@link #WRITE_TIMEOUT}.
+     *
+     * Doesn't wait for the response, if one is expected. If the deadline expires, the request stays in the queue.
+     *
+     * @param request Request to write.
+     *
+     * @throws IOException if the I/O thread is not running, the write failed, or didn't complete in time.
+     */
+    public void send(SerialRequest request) throws IOException {
+
+        submit(request);
+
+        try {
+
+            if (!request.await(clock, WRITE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+
+                synchronized (this) {
+
+                    // Our request didn't make it in time, whatever is being written now is stuck
+                    checkStall(0);
+                }
+
+                throw new InterruptedIOException("Write not completed in " + WRITE_TIMEOUT + "ms");
+            }
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException("Interrupted waiting for write to complete").initCause(ex);
+        }
+    }
+
+    /**
+     * Detect and report the stall, once.
+     *
+     * Must be called with the monitor held.
+     *
+     * @param threshold How long the write in progress may take before it is considered stalled, milliseconds.
+     */
+    private void checkStall(long threshold) {
+
+        var startedAt = writeStartedAt;
+
+        if (stalled || startedAt == 0) {
+            return;
+        }
+
+        var duration = clock.currentTimeMillis() - startedAt;
+
+        if (duration < threshold) {
+            return;
+        }
+
+        stalled = true;
+
+        var ex = new IOException("Write stalled for " + duration + "ms, " + writeQueue.size() + " requests queued");
+
+        logger.error("stall detected", ex);
+        exception(ex);
+    }
+
+    /**
+     * @return {@code true} if the write in progress has been found to be stalled.
+     */
+    public synchronized boolean isStalled() {
+        return stalled;
+    }
+
+    /**
+     * @return Number of requests waiting to be written.
+     */
+    public synchronized int getQueueDepth() {
+        return writeQueue.size();
+    }
+
+    /**
+     * @return Number of requests dropped because they were superseded before they could be written.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * @return Number of requests rejected because the queue was full, or the port was stalled.
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Let the thread know that the port has data available.
+     *
+     * Not strictly necessary, input is checked periodically while the responses are expected,
+     * but makes the response handling faster.
+     */
+    public synchronized void dataAvailable() {
+
+        dataAvailable = true;
+        notifyAll();
+    }
+
+    /**
+     * Stop the thread after writing whatever has already been submitted.
+     */
+    public synchronized void shutdown() {
+
+        stopped = true;
+        notifyAll();
+    }
+
+    @Override
+    public final void run() {
+
+        ThreadContext.push("run");
+
+        try {
+
+            logger.info("started");
+
+            while (true) {
+
+                if (pollDelay() == 0) {
+                    schedulePoll();
+                }
+
+                var request = take();
+
+                if (request != null) {
+                    write(request);
+                }
+
+                read();
+                parse();
+                expire();
+            }
+
+        } catch (InterruptedException ex) {
+
+            logger.debug("stopped");
+
+        } finally {
+
+            drain();
+
+            ThreadContext.pop();
+            ThreadContext.clearStack();
+        }
+    }
+
+    /**
+     * Get the next request to write.
+     *
+     * @return The request, or {@code null} if it is time to look at the input.
+     *
+     * @throws InterruptedException if the thread was stopped and there's nothing else to write.
+     */
+    private synchronized SerialRequest take() throws InterruptedException {
+
+        while (true) {
+
+            if (!halfDuplex || outstanding.isEmpty()) {
+
+                // Writers first, polls only when nobody else is waiting
+
+                var request = writeQueue.poll();
+
+                if (request == null) {
+                    request = pollQueue.poll();
+                }
+
+                if (request != null) {
+                    return request;
+                }
+            }
+
+            if (stopped && writeQueue.isEmpty()) {
+                throw new InterruptedException("stopped");
+            }
+
+            if (dataAvailable) {
+
+                dataAvailable = false;
+                return null;
+            }
+
+            if (!outstanding.isEmpty() || echoPending > 0) {
+
+                clock.await(this, READ_INTERVAL);
+                return null;
+            }
+
+            var delay = pollDelay();
+
+            if (delay == 0) {
+                return null;
+            }
+
+            clock.await(this, delay < 0 ? 0 : delay);
+
+            if (pollDelay() == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return Milliseconds until the next poll is due, 0 if it is due now, negative if polling is disabled.
+     */
+    private long pollDelay() {
+
+        var interval = pollInterval;
+
+        if (interval == 0) {
+            return -1;
+        }
+
+        return Math.max(0, nextPollAt - clock.currentTimeMillis());
+    }
+
+    private void schedulePoll() {
+
+        nextPollAt = clock.currentTimeMillis() + pollInterval;
+
+        if (!pollQueue.isEmpty()) {
+
+            // The previous round hasn't completed yet, the poll interval is too short for the line speed
+            logger.debug("previous poll still in progress, {} requests left", pollQueue.size());
+            return;
+        }
+
+        try {
+
+            // This is called without holding the monitor, the implementation is free to do what it needs to
+
+            pollQueue.addAll(createPollRequests());
+
+        } catch (Throwable t) { // NOSONAR Consequences have been considered
+            logger.error("createPollRequests() failed", t);
+        }
+    }
+
+    private void write(SerialRequest request) {
+
+        writeStartedAt = clock.currentTimeMillis();
+
+        var start = clock.nanoTime();
+
+        try {
+
+            out.write(request.command);
+            out.flush();
+
+            lastWriteAt = clock.currentTimeMillis();
+            writeFinished();
+            written(request, clock.nanoTime() - start, null);
+
+            if (halfDuplex) {
+                echoPending += request.command.length;
+            }
+
+            if (request.expectsResponse()) {
+
+                request.deadline = lastWriteAt + RESPONSE_TIMEOUT;
+                outstanding.add(request);
+            }
+
+            request.complete(null);
+
+        } catch (IOException ex) {
+
+            writeFinished();
+            written(request, clock.nanoTime() - start, ex);
+            request.complete(ex);
+
+            if (request.expectsResponse()) {
+                fail(request, ex);
+            }
+        }
+    }
+
+    /**
+     * Clear the write in progress marker, and the stall if there was one.
+     */
+    private void writeFinished() {
+
+        writeStartedAt = 0;
+
+        synchronized (this) {
+
+            if (stalled) {
+
+                stalled = false;
+                logger.warn("write completed after stall, {} requests queued", writeQueue.size());
+            }
+        }
+    }
+
+    /**
+     * Read whatever the port has available, without blocking.
+     */
+    private void read() {
+
+        try {
+
+            var available = in.available();
+
+            while (available > 0) {
+
+                if (inbound.free() == 0) {
+
+                    // Nobody is consuming this, the stream is out of sync anyway
+
+                    logger.warn("input buffer overflow, {} bytes discarded", inbound.size());
+                    inbound.clear();
+                }
+
+                var count = in.read(readBuffer, 0, Math.min(available, Math.min(readBuffer.length, inbound.free())));
+
+                if (count <= 0) {
+                    break;
+                }
+
+                inbound.put(readBuffer, 0, count);
+                available = in.available();
+            }
+
+        } catch (IOException ex) {
+
+            logger.error("read failed", ex);
+            exception(ex);
+        }
+    }
+
+    /**
+     * Match whatever has arrived against the outstanding requests.
+     */
+    private void parse() {
+
+        if (echoPending > 0) {
+            echoPending -= inbound.skip(echoPending);
+        }
+
+        while (echoPending == 0 && !outstanding.isEmpty() && inbound.size() >= outstanding.peek().responseLength) {
+
+            var request = outstanding.poll();
+            var response = new byte[request.responseLength];
+
+            inbound.take(response, 0, response.length);
+
+            try {
+
+                request.handler.responseReceived(response);
+
+            } catch (Throwable t) { // NOSONAR Consequences have been considered
+                logger.error("response handler failed", t);
+            }
+        }
+
+        if (echoPending == 0 && outstanding.isEmpty() && inbound.size() > 0) {
+
+            logger.debug("discarding {} unsolicited bytes", inbound.size());
+            inbound.clear();
+        }
+    }
+
+    /**
+     * Give up on the responses that didn't arrive in time.
+     */
+    private void expire() {
+
+        var now = clock.currentTimeMillis();
+        var request = outstanding.peek();
+
+        if (request != null && now > request.deadline) {
+
+            // Whatever is in the buffer now can't be trusted, and neither can the rest of the outstanding responses
+
+            logger.warn("no response in {}ms, resynchronizing ({} bytes discarded, {} requests failed)", RESPONSE_TIMEOUT, inbound.size(), outstanding.size());
+
+            inbound.clear();
+            echoPending = 0;
+
+            var cause = new IOException("No response in " + RESPONSE_TIMEOUT + "ms");
+
+            while (!outstanding.isEmpty()) {
+                fail(outstanding.poll(), cause);
+            }
+
+            return;
+        }
+
+        if (echoPending > 0 && outstanding.isEmpty() && now - lastWriteAt > RESPONSE_TIMEOUT) {
+
+            logger.warn("{} echo bytes never arrived, is the device really half duplex?", echoPending);
+            echoPending = 0;
+        }
+    }
+
+    private void fail(SerialRequest request, IOException cause) {
+
+        try {
+
+            request.handler.responseFailed(cause);
+
+        } catch (Throwable t) { // NOSONAR Consequences have been considered
+            logger.error("response handler failed", t);
+        }
+    }
+
+    /**
+     * Release everyone still waiting when the thread is about to exit.
+     */
+    private void drain() {
+
+        var cause = new IOException("I/O thread stopped");
+
+        synchronized (this) {
+
+            stopped = true;
+
+            while (!writeQueue.isEmpty()) {
+
+                var request = writeQueue.poll();
+
+                request.complete(cause);
+
+                if (request.expectsResponse()) {
+                    fail(request, cause);
+                }
+            }
+        }
+
+        while (!outstanding.isEmpty()) {
+            fail(outstanding.poll(), cause);
+        }
+
+        pollQueue.clear();
+    }
+
+    /**
+     * Create the batch of poll requests.
+     *
+     * Called on this thread, without holding any locks. Must not try to acquire the controller monitor,
+     * or it will deadlock with the writers waiting for this thread.
+     *
+     * @return Requests to write, possibly empty.
+     */
+    protected abstract List<SerialRequest> createPollRequests();
+
+    /**
+     * Report a problem that can't be attributed to a specific request.
+     *
+     * @param t Problem to report.
+     */
+    protected abstract void exception(Throwable t);
+
+    /**
+     * Called on this thread after every write, successful or not.
+     *
+     * @param request Request written.
+     * @param nanos Time the write took, nanoseconds.
+     * @param failure The problem, or {@code null} if the write went through.
+     */
+    protected void written(SerialRequest request, long nanos, IOException failure) {
+        // Nothing to do by default
+    }
+}
@@ -1,7 +1,9 @@
 package net.sf.servomaster.device.impl.serial.ft;
 
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
 import net.sf.servomaster.device.impl.HardwareServo;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
 import net.sf.servomaster.device.impl.serial.AbstractSerialServoController;
 import net.sf.servomaster.device.impl.serial.SerialMeta;
 import net.sf.servomaster.device.model.Meta;
@@ -293,7 +295,7 @@ public class FT639ServoController extends AbstractSerialServoController implemen
 
         headerLength |= 0x60;
 
-        logger.debug("Trim: " + headerLength + ": 0x" + Integer.toHexString(headerLength));
+        logger.debug("Trim: {}: 0x{}", headerLength, Integer.toHexString(headerLength));
 
         send((byte)headerLength);
 
@@ -404,7 +406,9 @@ public class FT639ServoController extends AbstractSerialServoController implemen
                     // time spent on transmitting the control signal is going to
                     // be much more than spent in double2int().
 
-                    logger.debug("Redundant position change request: #" + id + " at " + position + " (" + requestedPosition + ")");
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Redundant position change request: #{} at {} ({})", id, position, requestedPosition);
+                    }
                     return;
                 }
             }
@@ -416,7 +420,11 @@ public class FT639ServoController extends AbstractSerialServoController implemen
                 // and the deadlock can occur if *this* method was made synchronized
 
                 setActiveMode();
-                send(renderPositionCommand(id, requestedPosition));
+
+                var packet = renderPositionCommand(id, requestedPosition);
+
+                PacketEncodedEvent.emit(FT639ServoController.this, id, packet.length);
+                send(packet);
 
                 actualPosition = position;
             }
@@ -515,4 +523,14 @@ public class FT639ServoController extends AbstractSerialServoController implemen
             FT639ServoController.this.silentStatusChanged(true);
         }
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("ft639", "FerretTronics FT639, serial", FT639ServoController.class, FT639ServoController::new);
+        }
+    }
 }
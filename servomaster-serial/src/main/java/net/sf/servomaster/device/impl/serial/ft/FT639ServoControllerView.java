@@ -21,6 +21,7 @@ import net.sf.servomaster.device.model.ServoController;
 import net.sf.servomaster.device.model.ServoControllerListener;
 import net.sf.servomaster.device.model.SilentDevice;
 import net.sf.servomaster.view.ServoControllerView;
+import net.sf.servomaster.view.ServoControllerViewProvider;
 
 /**
  * This class renders and allows to control the features specific to FT639
@@ -254,4 +255,25 @@ public class FT639ServoControllerView extends JPanel implements ActionListener,
 
         logger.error("Problem with " + Integer.toHexString(source.hashCode()) + ":", t);
     }
+
+    /**
+     * Makes this view available to the {@link net.sf.servomaster.view.Console console}.
+     */
+    public static class Provider implements ServoControllerViewProvider {
+
+        @Override
+        public boolean supports(ServoController controller) {
+            return controller instanceof FT639ServoController;
+        }
+
+        @Override
+        public JPanel createView(ServoController controller) {
+
+            var view = new FT639ServoControllerView();
+
+            view.init(controller);
+
+            return view;
+        }
+    }
 }
@@ -100,12 +100,15 @@ public class PacketBuilder {
 
         // Let's also check where we are going, just in case
 
-        // Don't forget that Java doesn't have unsigned left shift
-        int byte1 = 0xFF & buffer[6];
-        int byte2 = 0xFF & buffer[5];
-        int checkPosition = (byte1 << 8 | byte2);
+        if (logger.isDebugEnabled()) {
 
-        logger.debug("Position (expected/actual): " + Integer.toHexString(position) + "/" + Integer.toHexString(checkPosition));
+            // Don't forget that Java doesn't have unsigned left shift
+            int byte1 = 0xFF & buffer[6];
+            int byte2 = 0xFF & buffer[5];
+            int checkPosition = (byte1 << 8 | byte2);
+
+            logger.debug("Position (expected/actual): {}/{}", Integer.toHexString(position), Integer.toHexString(checkPosition));
+        }
 
         return buffer;
     }
@@ -115,12 +118,12 @@ public class PacketBuilder {
         rq++;
         size += buffer.length;
 
-        if (true) {
+        if (logger.isDebugEnabled()) {
 
             // If the device is not set up right, the output buffer will get
             // stuck soon
 
-            logger.debug("" + rq + " requests, " + size + " bytes");
+            logger.debug("{} requests, {} bytes", rq, size);
 
             // Let's see if the buffer content is OK
 
@@ -138,7 +141,7 @@ public class PacketBuilder {
                 sb.append(Integer.toHexString(b)).append(' ');
             }
 
-            logger.debug("Buffer (" + buffer.length + " bytes): " + sb.toString());
+            logger.debug("Buffer ({} bytes): {}", buffer.length, sb);
         }
     }
 }
@@ -24,6 +24,26 @@ public class PacketBuilderNG {
     
     private static final byte[] SET_PARAMETERS = new byte[]{(byte) 83, (byte) 66, (byte) 82};
 
+    /**
+     * Literal string "RSP".
+     */
+    private static final byte[] REPORT_POSITION = new byte[]{(byte) 82, (byte) 83, (byte) 80};
+
+    /**
+     * Literal string "VER?".
+     */
+    private static final byte[] GET_VERSION = new byte[]{(byte) 86, (byte) 69, (byte) 82, (byte) 63};
+
+    /**
+     * Length of the response to {@link #reportPosition(byte[], byte)}: channel, position high byte, position low byte.
+     */
+    public static final int REPORT_POSITION_RESPONSE_LENGTH = 3;
+
+    /**
+     * Length of the response to {@link #getVersion(byte[])}: three ASCII characters, like "1.4".
+     */
+    public static final int GET_VERSION_RESPONSE_LENGTH = 3;
+
     private static int rq = 0;
     private static int size = 0;
 
@@ -98,27 +118,92 @@ public class PacketBuilderNG {
 
         // Let's also check where we are going, just in case
 
-        // Don't forget that Java doesn't have unsigned left shift
-        int byte1 = 0xFF & buffer[6];
-        int byte2 = 0xFF & buffer[5];
-        int checkPosition = (byte1 << 8 | byte2);
+        if (logger.isDebugEnabled()) {
 
-        logger.debug("Position (expected/actual): " + Integer.toHexString(position) + "/" + Integer.toHexString(checkPosition));
+            // Don't forget that Java doesn't have unsigned left shift
+            int byte1 = 0xFF & buffer[6];
+            int byte2 = 0xFF & buffer[5];
+            int checkPosition = (byte1 << 8 | byte2);
+
+            logger.debug("Position (expected/actual): {}/{}", Integer.toHexString(position), Integer.toHexString(checkPosition));
+        }
 
         return buffer;
     }
 
+    /**
+     * Build a byte buffer for "report position" command.
+     *
+     * @param buffer Buffer to write into.
+     * @param servoId Servo number, zero based.
+     *
+     * @return Rendered buffer.
+     */
+    public static byte[] reportPosition(byte[] buffer, byte servoId) {
+
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+
+        bb.put(PREAMBLE);
+        bb.put(REPORT_POSITION);
+        bb.put(servoId);
+        bb.put((byte) 0x0D);
+
+        return buffer;
+    }
+
+    /**
+     * Build a byte buffer for "get version" command.
+     *
+     * @param buffer Buffer to write into.
+     *
+     * @return Rendered buffer.
+     */
+    public static byte[] getVersion(byte[] buffer) {
+
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+
+        bb.put(PREAMBLE);
+        bb.put(GET_VERSION);
+        bb.put((byte) 0x0D);
+
+        return buffer;
+    }
+
+    /**
+     * Extract the channel from the response to {@link #reportPosition(byte[], byte)}.
+     *
+     * @param response Response buffer.
+     *
+     * @return Channel number.
+     */
+    public static int decodeChannel(byte[] response) {
+        return response[0] & 0xFF;
+    }
+
+    /**
+     * Extract the position from the response to {@link #reportPosition(byte[], byte)}.
+     *
+     * Note that unlike the "set position" command, the position is reported high byte first.
+     *
+     * @param response Response buffer.
+     *
+     * @return Position, in the same units as {@link #setAbsolutePosition(byte[], byte, byte, short)} accepts.
+     */
+    public static short decodePosition(byte[] response) {
+        return (short) ((response[1] & 0xFF) << 8 | (response[2] & 0xFF));
+    }
+
     private static void complain(byte[] buffer) {
 
         rq++;
         size += buffer.length;
 
-        if (true) {
+        if (logger.isDebugEnabled()) {
 
             // If the device is not set up right, the output buffer will get
             // stuck soon
 
-            logger.debug("" + rq + " requests, " + size + " bytes");
+            logger.debug("{} requests, {} bytes", rq, size);
 
             // Let's see if the buffer content is OK
 
@@ -136,7 +221,7 @@ public class PacketBuilderNG {
                 sb.append(Integer.toHexString(b)).append(' ');
             }
 
-            logger.debug("Buffer (" + buffer.length + " bytes): " + sb.toString());
+            logger.debug("Buffer ({} bytes): {}", buffer.length, sb);
         }
     }
 }
@@ -3,13 +3,20 @@ package net.sf.servomaster.device.impl.serial.parallax;
 import gnu.io.SerialPort;
 import gnu.io.UnsupportedCommOperationException;
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
 import net.sf.servomaster.device.impl.serial.AbstractSerialServoController;
 import net.sf.servomaster.device.impl.serial.SerialMeta;
+import net.sf.servomaster.device.impl.serial.SerialRequest;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import net.sf.servomaster.device.model.ServoController;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Generic driver for <a href="http://www.parallax.com/" target="_top">Parallax Serial Servo Controllers</a>.
@@ -25,6 +32,19 @@ public abstract class ParallaxSerialServoController extends AbstractSerialServoC
      */
     private final byte[] serialBuffer = new byte[8];
 
+    /**
+     * Buffer for rendering the poll requests. Only used on the serial I/O thread.
+     */
+    private final byte[] pollBuffer = new byte[8];
+
+    /**
+     * Servos created so far, the ones to poll for position.
+     *
+     * The servo set proper is not accessible without acquiring the controller monitor,
+     * and the I/O thread must never do that.
+     */
+    private final Map<Integer, ParallaxServo> polledServos = new ConcurrentSkipListMap<>();
+
     protected ParallaxSerialServoController(String portName) {
         super(portName);
     }
@@ -48,13 +68,21 @@ public abstract class ParallaxSerialServoController extends AbstractSerialServoC
 
     @Override
     protected final synchronized Servo createServo(int id) throws IOException {
-        return new ParallaxServo(this, id);
+
+        var servo = new ParallaxServo(this, id);
+
+        polledServos.put(id, servo);
+
+        return servo;
     }
 
     //TODO: this should really go into the properties and be used in the AbstractSerialServoController
     @Override
     protected void doInit() throws IOException {
 
+        // The port needs to be opened first
+        super.doInit();
+
         try {
 
             port.setSerialPortParams(port.getBaudRate(), SerialPort.DATABITS_8, SerialPort.STOPBITS_2, SerialPort.PARITY_NONE);
@@ -63,6 +91,48 @@ public abstract class ParallaxSerialServoController extends AbstractSerialServoC
         } catch (UnsupportedCommOperationException e) {
             throw new IllegalStateException("Failed to initialize " + portName, e);
         }
+
+        submit(new SerialRequest(PacketBuilderNG.getVersion(serialBuffer), PacketBuilderNG.GET_VERSION_RESPONSE_LENGTH, new SerialRequest.ResponseHandler() {
+
+            @Override
+            public void responseReceived(byte[] response) {
+
+                var version = new String(response, StandardCharsets.US_ASCII);
+
+                logger.info("firmware version: {}", version);
+                ((ParallaxMeta) getMeta()).setFirmwareVersion(version);
+            }
+
+            @Override
+            public void responseFailed(IOException cause) {
+                logger.warn("Failed to get the firmware version", cause);
+            }
+        }));
+
+        setPollInterval(Long.parseLong(getMeta().getProperty(META_POLL).toString()));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code true}, the controller uses one wire for both directions.
+     */
+    @Override
+    protected final boolean isHalfDuplex() {
+        return true;
+    }
+
+    @Override
+    protected final List<SerialRequest> createPollRequests() {
+
+        var result = new ArrayList<SerialRequest>(polledServos.size());
+
+        for (var servo : polledServos.values()) {
+
+            result.add(servo.createPollRequest());
+        }
+
+        return result;
     }
 
     @Override
@@ -104,6 +174,16 @@ public abstract class ParallaxSerialServoController extends AbstractSerialServoC
 
             properties.put("servo/range/min", "250");
             properties.put("servo/range/max", "1250");
+
+            // At 2400 baud, polling all 16 servos takes about 3/4 of a second of the line time
+
+            properties.put(META_POLL, "5000");
+
+            propertyWriters.put(META_POLL, (key, value) -> setPollInterval(Long.parseLong(value.toString())));
+        }
+
+        synchronized void setFirmwareVersion(String version) {
+            properties.put("controller/firmware/version", version);
         }
     }
 
@@ -126,6 +206,31 @@ public abstract class ParallaxSerialServoController extends AbstractSerialServoC
         short min_pulse = MIN_PULSE;
         short max_pulse = MAX_PULSE;
 
+        /**
+         * Receives the position reports for this servo on the serial I/O thread.
+         */
+        private final SerialRequest.ResponseHandler positionHandler = new SerialRequest.ResponseHandler() {
+
+            @Override
+            public void responseReceived(byte[] response) {
+
+                var channel = PacketBuilderNG.decodeChannel(response);
+
+                if (channel != id) {
+
+                    logger.warn("position report for channel {} received, expected {}, ignored", channel, id);
+                    return;
+                }
+
+                positionReported(PacketBuilderNG.decodePosition(response));
+            }
+
+            @Override
+            public void responseFailed(IOException cause) {
+                exception(cause);
+            }
+        };
+
         ParallaxServo(ServoController sc, int id) {
             super(sc, id);
         }
@@ -138,14 +243,48 @@ public abstract class ParallaxSerialServoController extends AbstractSerialServoC
         @Override
         protected void sendPosition(double position) throws IOException {
 
-            // This method doesn't need to be synchronized because send() is
+            // This method doesn't need to be synchronized because it is called with the controller monitor held
 
-            short units = (short) (min_pulse + position * (max_pulse - min_pulse));
+            short units = toUnits(position);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Units:{}, Position:{}", units, position);
+            }
+
+            var packet = PacketBuilderNG.setAbsolutePosition(serialBuffer, (byte) id, velocity, units);
+
+            PacketEncodedEvent.emit(ParallaxSerialServoController.this, id, packet.length);
+            post(id, packet);
+        }
+
+        SerialRequest createPollRequest() {
+
+            return new SerialRequest(
+                    PacketBuilderNG.reportPosition(pollBuffer, (byte) id),
+                    PacketBuilderNG.REPORT_POSITION_RESPONSE_LENGTH,
+                    positionHandler);
+        }
+
+        private short toUnits(double position) {
+            return (short) (min_pulse + position * (max_pulse - min_pulse));
+        }
+
+        /**
+         * Convert the reported position into the servo position, and take it.
+         *
+         * @param units Reported position, in protocol units.
+         */
+        private void positionReported(short units) {
+
+            if (units == toUnits(actualPosition)) {
+
+                // Rounding aside, nothing has changed
+                return;
+            }
 
-            logger.debug("Units:{}", units);
-            logger.debug("Position:{}", position);
+            var reported = (double) (units - min_pulse) / (max_pulse - min_pulse);
 
-            ParallaxSerialServoController.this.send(PacketBuilderNG.setAbsolutePosition(serialBuffer, (byte) id, velocity, units));
+            positionReported(Math.max(0, Math.min(1, reported)));
         }
 
         void setOn(boolean on) throws IOException {
@@ -1,5 +1,6 @@
 package net.sf.servomaster.device.impl.serial.parallax;
 
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
 import net.sf.servomaster.device.model.Meta;
 
 /**
@@ -35,4 +36,14 @@ public class Serial16ServoController extends ParallaxSerialServoController {
             properties.put("manufacturer/model", "Serial 16-Servo");
         }
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("parallax-serial16", "Parallax Servo Controller, serial", Serial16ServoController.class, Serial16ServoController::new);
+        }
+    }
 }
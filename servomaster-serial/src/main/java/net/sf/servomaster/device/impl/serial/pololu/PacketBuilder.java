@@ -137,9 +137,12 @@ public class PacketBuilder {
 
         // Let's also check where we are going, just in case
 
-        int checkPosition = buffer[4] << 7 | buffer[5];
+        if (logger.isDebugEnabled()) {
 
-        logger.debug("Position: " + checkPosition);
+            int checkPosition = buffer[4] << 7 | buffer[5];
+
+            logger.debug("Position: {}", checkPosition);
+        }
 
         return buffer;
     }
@@ -165,12 +168,12 @@ public class PacketBuilder {
         rq++;
         size += buffer.length;
 
-        if (true) {
+        if (logger.isDebugEnabled()) {
 
             // If the device is not set up right, the output buffer will get
             // stuck soon
 
-            logger.debug("" + rq + " requests, " + size + " bytes");
+            logger.debug("{} requests, {} bytes", rq, size);
 
             // Let's see if the buffer content is OK
 
@@ -187,7 +190,7 @@ public class PacketBuilder {
                 sb.append(Integer.toHexString(b)).append(' ');
             }
 
-            logger.debug("Buffer (" + buffer.length + " bytes): " + sb.toString());
+            logger.debug("Buffer ({} bytes): {}", buffer.length, sb);
         }
     }
 }
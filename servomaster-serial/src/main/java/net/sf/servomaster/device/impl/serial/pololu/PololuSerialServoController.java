@@ -1,6 +1,7 @@
 package net.sf.servomaster.device.impl.serial.pololu;
 
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
 import net.sf.servomaster.device.impl.serial.AbstractSerialServoController;
 import net.sf.servomaster.device.impl.serial.SerialMeta;
 import net.sf.servomaster.device.model.Meta;
@@ -120,11 +121,14 @@ public abstract class PololuSerialServoController extends AbstractSerialServoCon
         @Override
         protected final void sendPosition(double position) throws IOException {
 
-            // This method doesn't need to be synchronized because send() is
+            // This method doesn't need to be synchronized because post() doesn't need to be
 
             short units = (short)(min_pulse + (position * (max_pulse - min_pulse)));
 
-            PololuSerialServoController.this.send(PacketBuilder.setAbsolutePosition((byte)id, units));
+            var packet = PacketBuilder.setAbsolutePosition((byte)id, units);
+
+            PacketEncodedEvent.emit(PololuSerialServoController.this, id, packet.length);
+            post(id, packet);
         }
 
         final void setOn(boolean on) throws IOException {
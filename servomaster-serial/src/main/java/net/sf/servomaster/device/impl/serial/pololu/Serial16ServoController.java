@@ -1,5 +1,6 @@
 package net.sf.servomaster.device.impl.serial.pololu;
 
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
 import net.sf.servomaster.device.model.Meta;
 
 /**
@@ -39,4 +40,14 @@ public class Serial16ServoController extends PololuSerialServoController {
             properties.put("manufacturer/model", "Serial 16-Servo");
         }
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("pololu-serial16", "Pololu Serial 16-Servo Controller", Serial16ServoController.class, Serial16ServoController::new);
+        }
+    }
 }
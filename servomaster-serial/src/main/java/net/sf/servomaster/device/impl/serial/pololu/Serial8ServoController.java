@@ -1,5 +1,6 @@
 package net.sf.servomaster.device.impl.serial.pololu;
 
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
 import net.sf.servomaster.device.model.Meta;
 
 /**
@@ -33,4 +34,14 @@ public class Serial8ServoController extends PololuSerialServoController {
             properties.put("manufacturer/model", "Serial 8-Servo");
         }
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("pololu-serial8", "Pololu Serial 8-Servo Controller", Serial8ServoController.class, Serial8ServoController::new);
+        }
+    }
 }
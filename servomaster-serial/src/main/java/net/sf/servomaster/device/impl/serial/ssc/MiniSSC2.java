@@ -3,6 +3,8 @@ package net.sf.servomaster.device.impl.serial.ssc;
 import java.io.IOException;
 
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
 import net.sf.servomaster.device.impl.serial.AbstractSerialServoController;
 import net.sf.servomaster.device.impl.serial.SerialMeta;
 import net.sf.servomaster.device.model.Meta;
@@ -96,8 +98,9 @@ public class MiniSSC2 extends AbstractSerialServoController {
             buffer[0] = (byte) 0xFF;
             buffer[1] = (byte) id;
             buffer[2] = bPosition;
-            
-            MiniSSC2.this.send(buffer);
+
+            PacketEncodedEvent.emit(MiniSSC2.this, id, buffer.length);
+            post(id, buffer);
         }
         
         protected final class MiniSSC2ServoMeta extends AbstractMeta {
@@ -108,4 +111,14 @@ public class MiniSSC2 extends AbstractSerialServoController {
             }
         }
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("minissc2", "Mini SSC II, serial", MiniSSC2.class, MiniSSC2::new);
+        }
+    }
 }
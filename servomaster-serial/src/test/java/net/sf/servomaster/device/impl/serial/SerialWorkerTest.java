@@ -0,0 +1,290 @@
+package net.sf.servomaster.device.impl.serial;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SerialWorkerTest {
+
+    /**
+     * Half duplex device echoing everything written to it, and replying with the command length
+     * and the last command byte to any command ending with '?'.
+     */
+    private static class FakeDevice {
+
+        private final Deque<Byte> pending = new ArrayDeque<>();
+
+        final InputStream in = new InputStream() {
+
+            @Override
+            public int read() {
+                synchronized (pending) {
+                    return pending.isEmpty() ? -1 : pending.poll() & 0xFF;
+                }
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+
+                synchronized (pending) {
+
+                    var count = 0;
+
+                    // Deliver no more than 2 bytes at a time to exercise the incremental parsing
+                    while (count < Math.min(len, 2) && !pending.isEmpty()) {
+                        b[off + count++] = pending.poll();
+                    }
+
+                    return count;
+                }
+            }
+
+            @Override
+            public int available() {
+                synchronized (pending) {
+                    return pending.size();
+                }
+            }
+        };
+
+        final OutputStream out = new OutputStream() {
+
+            @Override
+            public void write(int b) {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+
+                synchronized (pending) {
+
+                    for (var offset = off; offset < off + len; offset++) {
+                        pending.add(b[offset]);
+                    }
+
+                    if (b[off + len - 1] == '?') {
+
+                        pending.add((byte) len);
+                        pending.add(b[off + len - 2]);
+                    }
+                }
+            }
+        };
+    }
+
+    private static class Worker extends SerialWorker {
+
+        final BlockingQueue<Throwable> problems = new LinkedBlockingQueue<>();
+
+        Worker(FakeDevice device) {
+            super("test", device.in, device.out, true);
+        }
+
+        Worker(InputStream in, OutputStream out) {
+            super("test", in, out, false);
+        }
+
+        @Override
+        protected List<SerialRequest> createPollRequests() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected void exception(Throwable t) {
+            problems.add(t);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void echoAndCorrelation() throws IOException, InterruptedException {
+
+        var worker = new Worker(new FakeDevice());
+        var responses = new LinkedBlockingQueue<byte[]>();
+
+        worker.start();
+
+        try {
+
+            // Write-only request, its echo must be skipped
+            worker.send(new SerialRequest(new byte[] { 'a', 'b', 'c' }));
+
+            worker.submit(new SerialRequest(new byte[] { 'x', '?' }, 2, new Collector(responses)));
+            worker.submit(new SerialRequest(new byte[] { 'l', 'o', 'n', 'g', 'y', '?' }, 2, new Collector(responses)));
+
+            var first = responses.poll(1, TimeUnit.SECONDS);
+            var second = responses.poll(1, TimeUnit.SECONDS);
+
+            assertNotNull("first response missing", first);
+            assertNotNull("second response missing", second);
+
+            assertArrayEquals(new byte[] { 2, 'x' }, first);
+            assertArrayEquals(new byte[] { 6, 'y' }, second);
+
+        } finally {
+
+            worker.shutdown();
+            worker.join();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void timeout() throws IOException, InterruptedException {
+
+        var worker = new Worker(new FakeDevice());
+        var failures = new LinkedBlockingQueue<IOException>();
+
+        worker.start();
+
+        try {
+
+            // This one gets echoed, but never answered
+            worker.submit(new SerialRequest(new byte[] { 'z' }, 3, new SerialRequest.ResponseHandler() {
+
+                @Override
+                public void responseReceived(byte[] response) {
+                    throw new IllegalStateException("not expected");
+                }
+
+                @Override
+                public void responseFailed(IOException cause) {
+                    failures.add(cause);
+                }
+            }));
+
+            var cause = failures.poll(SerialWorker.RESPONSE_TIMEOUT * 4, TimeUnit.MILLISECONDS);
+
+            assertNotNull("timeout not reported", cause);
+            assertTrue(cause.getMessage().startsWith("No response"));
+
+            // The worker must still be usable after the resync
+            var responses = new LinkedBlockingQueue<byte[]>();
+
+            worker.submit(new SerialRequest(new byte[] { 'q', '?' }, 2, new Collector(responses)));
+            assertArrayEquals(new byte[] { 2, 'q' }, responses.poll(1, TimeUnit.SECONDS));
+
+        } finally {
+
+            worker.shutdown();
+            worker.join();
+        }
+
+        assertEquals(Thread.State.TERMINATED, worker.getState());
+    }
+
+    @Test(timeout = 10000)
+    public void stall() throws IOException, InterruptedException {
+
+        var release = new CountDownLatch(1);
+        var written = new LinkedBlockingQueue<Byte>();
+
+        var out = new OutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                try {
+
+                    // Never returns until released, like a port with the flow control gone wrong
+                    release.await();
+                    written.add((byte) b);
+
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+            }
+        };
+
+        var worker = new Worker(new ByteArrayInputStream(new byte[0]), out);
+
+        worker.start();
+
+        try {
+
+            try {
+
+                worker.send(new SerialRequest(new byte[] { 0 }));
+                fail("should've timed out");
+
+            } catch (InterruptedIOException ex) {
+                assertTrue(ex.getMessage().startsWith("Write not completed"));
+            }
+
+            assertTrue(worker.isStalled());
+            assertNotNull("stall not reported", worker.problems.poll(1, TimeUnit.SECONDS));
+
+            // Positions keep superseding each other instead of piling up
+
+            for (var position = 1; position <= SerialWorker.QUEUE_CAPACITY * 2; position++) {
+                worker.submit(new SerialRequest(7, new byte[] { (byte) position }));
+            }
+
+            assertEquals(1, worker.getQueueDepth());
+            assertEquals(SerialWorker.QUEUE_CAPACITY * 2 - 1, worker.getDroppedCount());
+
+            // Everything else fails fast
+
+            try {
+
+                worker.send(new SerialRequest(new byte[] { 1 }));
+                fail("should've failed");
+
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().startsWith("Port stalled"));
+            }
+
+            // Only one report per stall
+            assertEquals(0, worker.problems.size());
+
+            release.countDown();
+
+            assertEquals(0, (byte) written.poll(1, TimeUnit.SECONDS));
+            assertEquals((byte) (SerialWorker.QUEUE_CAPACITY * 2), (byte) written.poll(1, TimeUnit.SECONDS));
+
+        } finally {
+
+            release.countDown();
+            worker.shutdown();
+            worker.join();
+        }
+
+        assertTrue(!worker.isStalled());
+    }
+
+    private static class Collector implements SerialRequest.ResponseHandler {
+
+        private final BlockingQueue<byte[]> target;
+
+        Collector(BlockingQueue<byte[]> target) {
+            this.target = target;
+        }
+
+        @Override
+        public void responseReceived(byte[] response) {
+            target.add(response);
+        }
+
+        @Override
+        public void responseFailed(IOException cause) {
+            // Will show up as a missing response
+        }
+    }
+}
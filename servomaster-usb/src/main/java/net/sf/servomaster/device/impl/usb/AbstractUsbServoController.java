@@ -11,18 +11,20 @@ import javax.usb.UsbConfiguration;
 import javax.usb.UsbDevice;
 import javax.usb.UsbDeviceDescriptor;
 import javax.usb.UsbException;
-import javax.usb.UsbHostManager;
-import javax.usb.UsbHub;
 import javax.usb.UsbInterface;
 import javax.usb.event.UsbServicesEvent;
 import javax.usb.event.UsbServicesListener;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 
 /**
  * Base class for all USB servo controllers.
@@ -31,7 +33,28 @@ import java.util.Set;
  */
 public abstract class AbstractUsbServoController extends AbstractServoController implements UsbServicesListener {
 
-  private final UsbHub virtualRootHub;
+    /**
+     * Device connection state.
+     */
+    public enum ConnectionState {
+
+        /**
+         * The device is away, commands are only remembered.
+         */
+        DISCONNECTED,
+
+        /**
+         * The device is back, the remembered state is being sent to it.
+         */
+        RESTORING,
+
+        /**
+         * The device is operating normally.
+         */
+        CONNECTED
+    }
+
+    private final UsbDeviceIndex deviceIndex;
 
     /**
      * The revision to protocol handler map.
@@ -64,14 +87,6 @@ public abstract class AbstractUsbServoController extends AbstractServoController
      */
     protected UsbProtocolHandler protocolHandler;
 
-    /**
-     * Used to prevent polling too fast.
-     *
-     * VT: FIXME: This may not be necessary if javax.usb properly supports
-     * arrival and departure notifications.
-     */
-    private long lastDetect;
-
     /**
      * VT: FIXME: A hack to help solving https://github.com/climategadgets/servomaster/issues/2
      * Will need to be verified against all known USB devices.
@@ -83,10 +98,73 @@ public abstract class AbstractUsbServoController extends AbstractServoController
      */
     protected UsbDevice theServoController;
 
+    /**
+     * @see #getConnectionState()
+     */
+    private ConnectionState connectionState = ConnectionState.DISCONNECTED;
+
+    /**
+     * Time when the device was detected missing, or 0 if it never was.
+     */
+    private long detachedAt = 0;
+
+    /**
+     * @see #getLastRestoreDelay()
+     */
+    private long lastRestoreDelay = -1;
+
+    /**
+     * @see #getRestoreCount()
+     */
+    private int restoreCount = 0;
+
+    /**
+     * Last commanded channel positions, {@code NaN} if never commanded.
+     *
+     * The shadow arrays are guarded by {@link #shadowLock}, not by the controller monitor,
+     * since the positions are recorded from the transition threads as well.
+     */
+    private double[] shadowPosition;
+
+    /**
+     * Last commanded channel velocities, {@code NaN} if not supported or never commanded.
+     */
+    private double[] shadowVelocity;
+
+    /**
+     * Whether the channel was silenced after the last position had been commanded.
+     */
+    private boolean[] shadowSilent;
+
+    private final Object shadowLock = new Object();
+
+    /**
+     * The device this instance was told to use by the {@link PooledUsbServoController pool},
+     * instead of looking it up by {@link #portName}.
+     */
+    private UsbDevice assigned;
+
+    /**
+     * {@link UsbDeviceIndex#getLocation(UsbDevice) Location} of the {@link #assigned} device.
+     */
+    private String assignedLocation;
+
     protected AbstractUsbServoController(String portName) {
+        this(portName, getDeviceIndex());
+    }
+
+    /**
+     * Create an instance looking the devices up in the given index.
+     *
+     * @param portName Serial number of the device, {@code null} for the only one attached.
+     * @param deviceIndex Device index to use.
+     */
+    AbstractUsbServoController(String portName, UsbDeviceIndex deviceIndex) {
 
         super(portName);
 
+        this.deviceIndex = deviceIndex;
+
         fillProtocolHandlerMap();
 
         if ( isOnly() ) {
@@ -96,16 +174,16 @@ public abstract class AbstractUsbServoController extends AbstractServoController
 
             protocolHandler = (UsbProtocolHandler)protocolHandlerMap.values().toArray()[0];
         }
+    }
+
+    private static UsbDeviceIndex getDeviceIndex() {
 
         // VT: FIXME: This really belongs to init(), but at this point
         // things are not settled down yet
 
         try {
 
-            var usbServices = UsbHostManager.getUsbServices();
-            virtualRootHub = usbServices.getRootUsbHub();
-
-            usbServices.addUsbServicesListener(this);
+            return UsbDeviceIndex.getInstance();
 
         } catch ( UsbException usbex ) {
             throw new IllegalStateException("USB failure", usbex);
@@ -173,18 +251,17 @@ public abstract class AbstractUsbServoController extends AbstractServoController
 
             try {
 
-                theServoController = findUSB(portName);
-
-                var cf = theServoController.getActiveUsbConfiguration();
-                var iface = cf.getUsbInterface((byte)0x00);
+                var found = lookup(portName, true);
 
-                if ( iface.isClaimed() ) {
+                if ( found.isEmpty() ) {
 
-                    throw new IOException("Can't claim interface - already claimed. "
-                    + "Make sure no other applications or modules (hid.o or phidgetservo.o in particular) use this device");
+                    // Not there, and it's not a problem - we'll be notified when it arrives
+                    return false;
                 }
 
-                iface.claim();
+                var device = select(portName, found);
+
+                restore(device, getProtocolHandler(device));
 
                 return true;
 
@@ -204,77 +281,15 @@ public abstract class AbstractUsbServoController extends AbstractServoController
 
         logger.info("Looking for device '{}'", portName);
 
-        // VT: There are multiple ways to handle this:
-
-        // 	- Analyze the portName and figure out which device we're
-        // 	  talking about (in case there is more than one device on
-        // 	  the box). This case allows to continue the operations
-        // 	  until the real need to talk to the device arises.
-
-        //	- Just browse the map until we find all of them and explode
-        //	  if there's more than one or none.
-
         try {
 
-            // VT: Make sure we don't loop endlessly. Since there are no
-            // notifications, the only chance to discover the device is just
-            // keep polling. This means that this method will be called
-            // every time there's an attempt to use the device. Let's
-            // restrict the poll rate...
-
-            // VT: FIXME: Right now, the delay is hardcoded at 1 second -
-            // make this configurable
-
-            if (System.currentTimeMillis() - lastDetect < 1000) {
-
-                throw new IOException("Polling too fast");
-            }
-
-            lastDetect = System.currentTimeMillis();
-
-            var found = new HashSet<UsbDevice>();
-
-            try {
-
-                find(portName, virtualRootHub, found, true);
+            if ( assigned != null && deviceIndex.getSerial(assigned) != null ) {
 
-            } catch ( BootException bex ) {
-                throw new IllegalStateException("BootException shouldn't have propagated here", bex);
+                // Still there
+                return assigned;
             }
 
-            if ( found.size() == 1 ) {
-
-                // If there's just one object in the set, that's what we wanted in
-                // any case
-
-                return (UsbDevice) found.toArray()[0];
-            }
-
-            // Now, let's figure out what the caller wanted.
-
-            if ( portName == null ) {
-
-                // They just wanted a single device, but didn't know the serial
-                // of it
-
-                if ( found.isEmpty() ) {
-                    throw new IOException("No compatible devices found. Make sure you have /proc/bus/usb read/write permissions.");
-                } else {
-                    tooManyDevices(found);
-                }
-
-            } else {
-
-                // The caller had specified the serial number
-
-                if ( found.isEmpty() ) {
-                    throw new IOException("Device with a serial number '" + portName + "' is not connected");
-                } else {
-                    tooManyDevices(found);
-                }
-            }
-
-            throw new IOException("No device found with serial number " + portName);
+            return select(portName, lookup(portName, true));
 
         } catch ( UnsatisfiedLinkError ule ) {
 
@@ -290,162 +305,213 @@ public abstract class AbstractUsbServoController extends AbstractServoController
     }
 
     /**
-     * Find the controller.
+     * Figure out which one of the devices found the caller wanted.
      *
      * @param portName Port name.
+     * @param found Devices found.
      *
-     * @param root Device to start walking down from. Quite possibly this
-     * may be the device being eventually added to the set. Can be <code>null</code>.
-     *
-     * @param found Set to put the found devices into.
+     * @return The device, if there's exactly one.
      *
-     * @param boot Whether to boot the device if one is found.
-     *
-     * @throws IOException if there's a hardware error.
+     * @throws IOException if there's none or more than one.
      * @throws UsbException if there's a USB protocol level error.
-     * @throws BootException if one of the devices encountered in the enumeration had to be booted,
-     * thus interrupting normal enumeration flow.
      */
-    @SuppressWarnings("unchecked")
-    private void find(String portName,
-                      UsbDevice root,
-                      Set<UsbDevice> found,
-                      boolean boot) throws IOException, UsbException, BootException {
+    private UsbDevice select(String portName, Set<UsbDevice> found) throws IOException, UsbException {
 
-        ThreadContext.push("find" + (boot ? "&boot" : "!boot"));
+        if ( found.size() == 1 ) {
 
-        try {
+            // If there's just one object in the set, that's what we wanted in
+            // any case
 
-            if ( root == null ) {
+            return found.iterator().next();
+        }
 
-                return;
-            }
+        if ( portName == null ) {
 
-            logger.debug("Found " + getSignature(root.getUsbDeviceDescriptor()) + ": "
-                    + root.getProductString()
-                    + ", S/N " + root.getSerialNumberString()
-                    + " by " +root.getManufacturerString());
+            // They just wanted a single device, but didn't know the serial
+            // of it
 
-            if ( root.isUsbHub() ) {
+            if ( found.isEmpty() ) {
+                throw new IOException("No compatible devices found. Make sure you have /proc/bus/usb read/write permissions.");
+            }
 
-                List<UsbDevice> devices = ((UsbHub)root).getAttachedUsbDevices();
+        } else {
 
-                for ( Iterator<UsbDevice> i = devices.iterator(); i.hasNext(); ) {
+            // The caller had specified the serial number
 
-                    try {
+            if ( found.isEmpty() ) {
+                throw new IOException("Device with a serial number '" + portName + "' is not connected");
+            }
+        }
 
-                        find(portName, i.next(), found, true);
+        tooManyDevices(found);
 
-                    } catch (BootException bex) {
+        throw new IOException("No device found with serial number " + portName);
+    }
 
-                        // This means that a bootable device was found and
-                        // booted, it should appear as a device with a different
-                        // product ID by now. If it is still a device with the
-                        // same signature as before, we've failed.
+    /**
+     * List the devices this controller can handle.
+     *
+     * Used by the {@link PooledUsbServoController pool} on an instance that is never opened.
+     *
+     * @return All the compatible devices currently attached.
+     *
+     * @throws UsbException if there's a USB protocol level error.
+     */
+    final Set<UsbDevice> listDevices() throws UsbException {
+        return lookup(null, true);
+    }
 
-                        // The USB device handle for the device which used to be
-                        // a bootable device is now stale, so we have to reset
-                        // the enumeration to the root device. Since we're
-                        // adding the devices found to the *set*, there's
-                        // nothing to worry about - we will just lose some time,
-                        // but there will be no duplicates.
+    /**
+     * Get the serial number of the device.
+     *
+     * @param device Device to get the serial number for.
+     *
+     * @return Serial number, {@code "null"} for devices that don't have one.
+     */
+    final String getSerial(UsbDevice device) {
+        return deviceIndex.getSerial(device);
+    }
 
-                        // And since we're doing the job all over again starting
-                        // from this method's entry point, we'll just return
-                        // afterwards.
+    /**
+     * Make this instance use the given device rather than look one up by the port name.
+     *
+     * Must be called before {@link #open()}.
+     *
+     * @param device Device to use.
+     */
+    final void assign(UsbDevice device) {
 
-                        try {
+        assigned = device;
+        assignedLocation = UsbDeviceIndex.getLocation(device);
+    }
 
-                            find(portName, root, found, false);
-                            return;
+    /**
+     * {@link PooledUsbServoController Pool} members may all be identical devices without a serial number,
+     * but they can't be plugged into the same port.
+     */
+    @Override
+    protected String getMetricsName() {
+        return assigned == null ? super.getMetricsName() : portName + "@" + assignedLocation;
+    }
 
-                        } catch (BootException bex2) {
+    /**
+     * Look up the devices this controller can handle in the {@link UsbDeviceIndex device index}.
+     *
+     * @param portName Port name, {@code null} for any.
+     *
+     * @param boot Whether to boot the bootable devices found. If any were booted, their USB device
+     * handles are stale now, so the index is rebuilt and the lookup is repeated, without booting this time.
+     *
+     * @return Devices found, possibly empty.
+     *
+     * @throws UsbException if there's a USB protocol level error.
+     */
+    private Set<UsbDevice> lookup(String portName, boolean boot) throws UsbException {
 
-                            logger.error("Failed to boot a bootable device", bex2);
-                        }
-                    }
-                }
+        var found = new LinkedHashSet<UsbDevice>();
+        var bootTasks = new ArrayList<Callable<Void>>();
+        var bootDelay = 0L;
 
-            } else {
+        for (var entry : protocolHandlerMap.entrySet()) {
 
-                // This may be our chance
+            var handler = entry.getValue();
 
-                UsbDeviceDescriptor dd = root.getUsbDeviceDescriptor();
+            if ( handler.isBootable() ) {
 
-                String signature = getSignature(dd);
+                if ( !boot ) {
 
-                // See if we have a protocol handler for this device
+                    // Either the caller is only looking, or the boot has already been tried, see reportBootFailures()
+                    continue;
+                }
 
-                UsbProtocolHandler handler = protocolHandlerMap.get(signature);
+                // It's too early to check the serial, it will change after the boot
 
-                if ( handler != null ) {
+                for (var device : deviceIndex.find(entry.getKey(), null)) {
 
-                    if ( handler.isBootable() ) {
+                    bootTasks.add(() -> {
+                        handler.boot(device);
+                        return null;
+                    });
 
-                        // If it is a bootable device, it's too early to check
-                        // the rest - let's boot it first
+                    bootDelay = Math.max(bootDelay, handler.getBootDelay());
+                }
 
-                        if ( !boot ) {
+                continue;
+            }
 
-                            // Oops...
+            found.addAll(deviceIndex.find(entry.getKey(), portName));
+        }
 
-                            throw new BootException("Second time, refusing to boot");
-                        }
+        if ( !bootTasks.isEmpty() ) {
 
-                        handler.boot(root);
+            bootAll(bootTasks, bootDelay);
 
-                        // The device enumeration path is broken now, since
-                        // the product ID has changed after the boot.
-                        // However, it is clear that the device is confined
-                        // to the same hub, so we have to just restart the
-                        // search on the same hub.
+            deviceIndex.rescan();
+            reportBootFailures();
 
-                        throw new BootException("Need to rescan the bus - device booted");
-                    }
+            return lookup(portName, false);
+        }
 
-                    if ( portName == null ) {
+        return found;
+    }
 
-                        // No need to check the serial
+    /**
+     * Complain about the devices that are still in the bootable state after they've been booted.
+     */
+    private void reportBootFailures() {
 
-                        found.add(root);
-                        return;
-                    }
+        for (var entry : protocolHandlerMap.entrySet()) {
 
-                    // Port name was specified, so we have to retrieve
-                    // it
+            if ( !entry.getValue().isBootable() ) {
+                continue;
+            }
 
-                    String serial = root.getSerialNumberString();
+            for (var device : deviceIndex.find(entry.getKey(), null)) {
+                logger.error("Failed to boot a bootable device {}: {}", entry.getKey(), device);
+            }
+        }
+    }
 
-                    logger.info("Serial found: " + serial);
+    /**
+     * Boot all the devices at once, and wait for them to come back.
+     *
+     * @param bootTasks Boot tasks, one per device.
+     * @param bootDelay Time to wait after the last device has been booted, milliseconds.
+     *
+     * @throws UsbException if a boot has failed.
+     */
+    private void bootAll(List<Callable<Void>> bootTasks, long bootDelay) throws UsbException {
 
-                    // VT: NOTE: Serial number can be null. At least it
-                    // is with the current firmware release for
-                    // AdvancedServo. The implication is that there can
-                    // be just one instance of AdvancedServo on the
-                    // system.
+        ThreadContext.push("bootAll");
 
-                    if ( serial == null ) {
+        var executor = Executors.newFixedThreadPool(bootTasks.size());
 
-                        // FIXME: this is a hack, but unavoidable one
+        try {
 
-                        serial = "null";
-                    }
+            logger.info("Booting {} devices", bootTasks.size());
 
-                    if ( serial.equals(portName) ) {
+            for (var result : executor.invokeAll(bootTasks)) {
+                result.get();
+            }
 
-                        found.add(root);
-                        return;
-                    }
-                }
+            Thread.sleep(bootDelay);
 
-                // VT: NOTE: The only case we get here is if it's not our
-                // device. Generally, this should be uncommented only if we're
-                // debugging.
+        } catch ( ExecutionException ex ) {
 
-                logger.debug("Unknown device: {}", signature);
+            if ( ex.getCause() instanceof UsbException ) {
+                throw (UsbException) ex.getCause();
             }
 
+            throw new IllegalStateException("Boot failed", ex.getCause());
+
+        } catch ( InterruptedException ex ) {
+
+            Thread.currentThread().interrupt();
+            throw new UsbException("Interrupted while booting");
+
         } finally {
+
+            executor.shutdown();
             ThreadContext.pop();
         }
     }
@@ -459,7 +525,7 @@ public abstract class AbstractUsbServoController extends AbstractServoController
      */
     protected final String getSignature(UsbDeviceDescriptor dd) {
 
-        return Integer.toHexString(dd.idVendor() & 0xFFFF) + ":" + Integer.toHexString(dd.idProduct() & 0xFFFF);
+        return UsbDeviceIndex.getSignature(dd);
     }
 
     /**
@@ -489,21 +555,13 @@ public abstract class AbstractUsbServoController extends AbstractServoController
     @Override
     protected void doInit() throws IOException {
 
+        deviceIndex.addListener(this);
+
         try {
 
             theServoController = findUSB(portName);
 
-            UsbConfiguration cf = theServoController.getActiveUsbConfiguration();
-            UsbInterface iface = cf.getUsbInterface((byte)0x00);
-
-            if ( iface.isClaimed() ) {
-
-                throw new IOException(
-                      "Can't claim interface - already claimed. "
-                    + "Make sure no other applications or modules (hid.o or phidgetservo.o in particular) use this device");
-            }
-
-            iface.claim();
+            claim(theServoController);
 
             // At this point, we've either flying by on the wings of
             // IllegalArgumentException (null portName, none or more than
@@ -544,6 +602,7 @@ public abstract class AbstractUsbServoController extends AbstractServoController
             }
 
             connected = true;
+            connectionState = ConnectionState.CONNECTED;
 
         } catch ( Throwable t ) { // NOSONAR Consequences have been considered
 
@@ -567,6 +626,8 @@ public abstract class AbstractUsbServoController extends AbstractServoController
 
             // Too bad, we're not in the disconnected mode
 
+            deviceIndex.removeListener(this);
+
             if (t instanceof IOException) {
 
                 throw (IOException)t;
@@ -582,20 +643,34 @@ public abstract class AbstractUsbServoController extends AbstractServoController
         // wreak havoc on some calculations (in particular, timing coupled
         // with listeners).
 
-        // FIXME: set the servos to 0.5 now...
+        // The servos don't exist until open() is done with doInit(), but the reset() that follows
+        // restores the shadow state, and that's what brings them to 0.5
 
-        for (Servo s : getServos()) {
-            s.setPosition(0.5);
+        for (var id = 0; id < protocolHandler.getServoCount(); id++) {
+            shadowPosition(id, 0.5);
         }
     }
 
     @Override
     protected synchronized Meta createMeta() {
 
-        checkInit();
+        // This is called by open() before doInit(), so checkInit() would've failed here
 
         if ( protocolHandler == null ) {
-            throw new IllegalStateException("Hardware not yet connected, try later");
+
+            // More than one hardware revision is supported, let's see which one we've got
+
+            try {
+
+                protocolHandler = getProtocolHandler(findUSB(portName));
+
+            } catch ( IOException ex ) {
+                throw new IllegalStateException("Hardware not yet connected, try later", ex);
+            }
+
+            if ( protocolHandler == null ) {
+                throw new IllegalStateException("Hardware not yet connected, try later");
+            }
         }
 
         return protocolHandler.getMeta();
@@ -653,7 +728,16 @@ public abstract class AbstractUsbServoController extends AbstractServoController
 
             try {
 
-                protocolHandler.reset();
+                // Whatever was silenced is about to get energized again
+
+                synchronized (shadowLock) {
+
+                    if (shadowSilent != null) {
+                        Arrays.fill(shadowSilent, false);
+                    }
+                }
+
+                protocolHandler.restore(getChannelStates(protocolHandler.getServoCount()));
 
             } catch ( UsbException usbex ) {
                 throw new IOException("Failed to reset USB device", usbex);
@@ -661,6 +745,18 @@ public abstract class AbstractUsbServoController extends AbstractServoController
         }
     }
 
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            super.close();
+
+        } finally {
+            deviceIndex.removeListener(this);
+        }
+    }
+
     @Override
     public int getServoCount() {
 
@@ -723,55 +819,80 @@ public abstract class AbstractUsbServoController extends AbstractServoController
                 return;
             }
 
-            var arrivalSerial = arrival.getSerialNumberString();
+            if ( theServoController != null ) {
 
-            if ( portName != null ) {
+                // We have a device, and this one is somebody else's
+                return;
+            }
 
-                if ( portName.equals(arrivalSerial) ) {
+            var arrivalSerial = deviceIndex.getSerial(arrival);
 
-                    // Damn! This *is* our runaway device...
+            // If the port name wasn't given, the device is ours if it is the only one we can handle
 
-                    // VT: NOTE: upon departure, theServoController should have
-                    // become null
+            boolean ours;
 
-                    theServoController = arrival;
-                    var cf = theServoController.getActiveUsbConfiguration();
-                    var iface = cf.getUsbInterface((byte)0x00);
+            if ( assigned != null ) {
+                ours = isAssigned(arrival, arrivalSerial);
+            } else if ( portName != null ) {
+                ours = portName.equals(arrivalSerial);
+            } else {
+                var found = lookup(null, false);
+                ours = found.size() == 1 && found.contains(arrival);
+            }
 
-                    if ( iface.isClaimed() ) {
+            if ( ours ) {
 
-                        throw new IOException("Can't claim interface - already claimed. "
-                        + "Make sure no other applications or modules (hid.o or phidgetservo.o in particular) use this device");
-                    }
+                // Damn! This *is* our runaway device...
 
-                    iface.claim();
+                // VT: NOTE: upon departure, theServoController should have
+                // become null
 
+                restore(arrival, handler);
 
-                    // A protocol handler is basically a singleton in this
-                    // context, let's override it just in case
+                // VT: FIXME: Broadcast arrival notification
+            }
 
-                    protocolHandler = handler;
+        } catch ( Throwable t ) { // NOSONAR Consequences have been considered
+            logger.warn("Unhandled exception", t);
+        }
+    }
 
-                    // Protocol handler may be stateful, need to reset it
+    /**
+     * Figure out if the device that has just arrived is the one the {@link PooledUsbServoController pool} assigned to us.
+     *
+     * The pool may consist of identical devices without a serial number, so they are told apart by the port
+     * they're plugged into. A device that does have a serial number is recognized in any port.
+     *
+     * @param arrival Device that has just arrived.
+     * @param arrivalSerial Its serial number.
+     *
+     * @return {@code true} if it is our device back.
+     */
+    private boolean isAssigned(UsbDevice arrival, String arrivalSerial) {
 
-                    handler.reset();
+        if ( portName != null && !"null".equals(portName) && portName.equals(arrivalSerial) ) {
+            return true;
+        }
 
-                    // VT: FIXME: Broadcast arrival notification
+        return assignedLocation.equals(UsbDeviceIndex.getLocation(arrival));
+    }
 
-                    logger.info("*** Restored device");
+    @Override
+    public final synchronized void usbDeviceDetached(UsbServicesEvent e) {
 
-                    return;
+        try {
 
-                } else {
+            logger.warn("*** USB device detached: {}", e.getUsbDevice().getProductString());
 
-                    // Nope, it's not ours
-                    return;
-                }
+            var departure = e.getUsbDevice();
 
-            } else {
+            if ( departure == theServoController ) {
+
+                // Ouch! It's ours!
+
+                disconnected();
 
-                // portName is null, let's see what we have
-                throw new IllegalStateException("Not Implemented: restoring a device with null serial number");
+                // VT: FIXME: Notify listeners
             }
 
         } catch ( Throwable t ) { // NOSONAR Consequences have been considered
@@ -779,30 +900,237 @@ public abstract class AbstractUsbServoController extends AbstractServoController
         }
     }
 
-    @Override
-    public final synchronized void usbDeviceDetached(UsbServicesEvent e) {
+    /**
+     * Handle the failure of the asynchronous device I/O.
+     *
+     * Called by the protocol handlers when their submission pipelines fail, on the USB event thread,
+     * with no locks held.
+     *
+     * @param cause What went wrong.
+     */
+    protected final void deviceFailed(UsbException cause) {
+
+        synchronized (this) {
+            disconnected();
+        }
+
+        logger.warn("Assumed disconnect, reason:", cause);
+
+        exception(cause);
+    }
+
+    /**
+     * Claim the device interface.
+     *
+     * @param device Device to claim.
+     *
+     * @throws IOException if the interface is already claimed.
+     * @throws UsbException if there was a problem at USB protocol level.
+     */
+    private void claim(UsbDevice device) throws IOException, UsbException {
+
+        UsbConfiguration cf = device.getActiveUsbConfiguration();
+        UsbInterface iface = cf.getUsbInterface((byte)0x00);
+
+        if ( iface.isClaimed() ) {
+
+            throw new IOException(
+                  "Can't claim interface - already claimed. "
+                + "Make sure no other applications or modules (hid.o or phidgetservo.o in particular) use this device");
+        }
+
+        iface.claim();
+    }
+
+    /**
+     * Record the fact that the device is gone.
+     *
+     * Must be called with the controller monitor held.
+     */
+    private void disconnected() {
+
+        connected = false;
+        theServoController = null;
+
+        if ( connectionState != ConnectionState.DISCONNECTED ) {
+
+            connectionState = ConnectionState.DISCONNECTED;
+            detachedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Take over the device that has just come back, and bring it to the last commanded state.
+     *
+     * Must be called with the controller monitor held.
+     *
+     * @param device The device.
+     * @param handler Protocol handler for the device.
+     *
+     * @throws IOException if the interface is already claimed.
+     * @throws UsbException if there was a problem at USB protocol level.
+     */
+    private void restore(UsbDevice device, UsbProtocolHandler handler) throws IOException, UsbException {
+
+        ThreadContext.push("restore");
 
         try {
 
-            logger.warn("*** USB device detached: {}", e.getUsbDevice().getProductString());
+            connectionState = ConnectionState.RESTORING;
 
-            var departure = e.getUsbDevice();
+            claim(device);
 
-            if ( departure == theServoController ) {
+            theServoController = device;
 
-                // Ouch! It's ours!
+            if ( assigned != null ) {
+
+                // Or findUSB() will be looking for the handle that is long gone
+                assigned = device;
+            }
 
-                connected = false;
-                theServoController = null;
+            // A protocol handler is basically a singleton in this
+            // context, let's override it just in case
 
-                // VT: FIXME: Notify listeners
+            protocolHandler = handler;
+
+            // Protocol handler may be stateful, it will reset itself and then take the state from here
+
+            var states = getChannelStates(handler.getServoCount());
+
+            handler.restore(states);
+
+            connected = true;
+            connectionState = ConnectionState.CONNECTED;
+
+            if ( detachedAt > 0 ) {
+
+                lastRestoreDelay = System.currentTimeMillis() - detachedAt;
+                restoreCount++;
             }
 
-        } catch ( Throwable t ) { // NOSONAR Consequences have been considered
-            logger.warn("Unhandled exception", t);
+            logger.info("*** Restored device in {}ms", lastRestoreDelay);
+
+        } catch ( IOException | UsbException | RuntimeException ex ) {
+
+            disconnected();
+            throw ex;
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * @return Current device connection state.
+     */
+    public final synchronized ConnectionState getConnectionState() {
+        return connectionState;
+    }
+
+    /**
+     * @return Time from the device departure to the moment its state was restored, for the last reconnect,
+     * milliseconds, or -1 if there were no reconnects yet.
+     */
+    public final synchronized long getLastRestoreDelay() {
+        return lastRestoreDelay;
+    }
+
+    /**
+     * @return Number of times the device state has been restored after the device had come back.
+     */
+    public final synchronized int getRestoreCount() {
+        return restoreCount;
+    }
+
+    /**
+     * Allocate the shadow arrays, if they're not there yet.
+     *
+     * Must be called with {@link #shadowLock} held.
+     *
+     * @param count Channel count.
+     */
+    private void allocateShadow(int count) {
+
+        if ( shadowPosition == null ) {
+
+            shadowPosition = new double[count];
+            shadowVelocity = new double[count];
+            shadowSilent = new boolean[count];
+
+            Arrays.fill(shadowPosition, Double.NaN);
+            Arrays.fill(shadowVelocity, Double.NaN);
+        }
+    }
+
+    /**
+     * Remember the last commanded position.
+     *
+     * @param id Channel.
+     * @param position Position.
+     */
+    private void shadowPosition(int id, double position) {
+
+        synchronized (shadowLock) {
+
+            allocateShadow(protocolHandler.getServoCount());
+
+            shadowPosition[id] = position;
+            shadowSilent[id] = false;
+        }
+    }
+
+    /**
+     * Remember the last commanded velocity.
+     *
+     * @param id Channel.
+     * @param velocity Velocity, in protocol specific units.
+     */
+    protected final void shadowVelocity(int id, double velocity) {
+
+        synchronized (shadowLock) {
+
+            allocateShadow(protocolHandler.getServoCount());
+
+            shadowVelocity[id] = velocity;
+        }
+    }
+
+    /**
+     * Remember that all the channels have been silenced.
+     */
+    protected final void shadowSilent() {
+
+        synchronized (shadowLock) {
+
+            if ( shadowSilent != null ) {
+                Arrays.fill(shadowSilent, true);
+            }
         }
     }
 
+    /**
+     * Get the last commanded state of all the channels.
+     *
+     * @param count Channel count.
+     *
+     * @return Snapshot of the channel states.
+     */
+    protected final ChannelState[] getChannelStates(int count) {
+
+        var result = new ChannelState[count];
+
+        synchronized (shadowLock) {
+
+            allocateShadow(count);
+
+            for (var id = 0; id < count; id++) {
+                result[id] = new ChannelState(shadowPosition[id], shadowVelocity[id], shadowSilent[id]);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Unconditionally throw the <code>IOException</code>.
      *
@@ -822,19 +1150,6 @@ public abstract class AbstractUsbServoController extends AbstractServoController
         throw new IOException(message);
     }
 
-    /**
-     * This exception gets thrown whenever there was a USB device (such as a
-     * SoftPhidget) that had to be booted, therefore the normal device
-     * enumeration was broken.
-     */
-    @SuppressWarnings("serial")
-    protected static class BootException extends Exception {
-
-        BootException(String message) {
-            super(message);
-        }
-    }
-
     /**
      * An abstraction for the object handling the communications with the
      * arbitrary hardware revision of the PhidgetServo controller.
@@ -882,10 +1197,29 @@ public abstract class AbstractUsbServoController extends AbstractServoController
             return false;
         }
 
+        /**
+         * Boot the device.
+         *
+         * Must return as soon as the firmware is sent, the caller waits for {@link #getBootDelay()}.
+         * Devices found in the same scan are booted concurrently.
+         *
+         * @param target Device to boot.
+         *
+         * @throws UsbException if there was a problem at USB protocol level.
+         */
         public void boot(UsbDevice target) throws UsbException {
             throw new IllegalAccessError("Operation not supported");
         }
 
+        /**
+         * Get the time it takes the device to come back after the {@link #boot(UsbDevice) boot}.
+         *
+         * @return Boot delay, milliseconds.
+         */
+        public long getBootDelay() {
+            return 0;
+        }
+
         /**
          * Get the device model name.
          *
@@ -905,6 +1239,30 @@ public abstract class AbstractUsbServoController extends AbstractServoController
          */
         public abstract void reset() throws UsbException;
 
+        /**
+         * Bring the device to the given state, in as few transfers as possible.
+         *
+         * The default implementation {@link #reset() resets} the handler and sends the position
+         * of every {@link ChannelState#isActive() active} channel; the channels are independent,
+         * so this is as good as it gets for one-packet-per-channel protocols.
+         *
+         * @param states Last commanded channel states.
+         *
+         * @throws UsbException if there was a problem at USB protocol level.
+         * @throws IOException if there was a problem talking to the hardware.
+         */
+        public void restore(ChannelState[] states) throws UsbException, IOException {
+
+            reset();
+
+            for (var id = 0; id < states.length; id++) {
+
+                if ( states[id].isActive() ) {
+                    setPosition(id, states[id].position);
+                }
+            }
+        }
+
         /**
          * Get the number of servos the controller supports.
          *
@@ -959,6 +1317,10 @@ public abstract class AbstractUsbServoController extends AbstractServoController
                 checkInit();
                 checkPosition(position);
 
+                // Even if the device is not there, it'll get this position when it's back
+
+                shadowPosition(id, position);
+
                 try {
 
                     protocolHandler.setPosition(id, position);
@@ -968,8 +1330,9 @@ public abstract class AbstractUsbServoController extends AbstractServoController
 
                 } catch ( UsbException usbex ) {
 
-                    connected = false;
-                    theServoController = null;
+                    synchronized (AbstractUsbServoController.this) {
+                        disconnected();
+                    }
 
                     if ( !isDisconnectAllowed() ) {
 
@@ -0,0 +1,44 @@
+package net.sf.servomaster.device.impl.usb;
+
+/**
+ * Last commanded state of a controller channel, as remembered while the device is away.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public final class ChannelState {
+
+    /**
+     * Last commanded position, 0 to 1, or {@code NaN} if the position was never commanded.
+     */
+    public final double position;
+
+    /**
+     * Last commanded velocity, in protocol specific units, or {@code NaN} if the protocol doesn't support it
+     * or it was never commanded.
+     */
+    public final double velocity;
+
+    /**
+     * {@code true} if the channel was silenced after the last position was commanded.
+     */
+    public final boolean silent;
+
+    ChannelState(double position, double velocity, boolean silent) {
+
+        this.position = position;
+        this.velocity = velocity;
+        this.silent = silent;
+    }
+
+    /**
+     * @return {@code true} if there's a position to restore.
+     */
+    public boolean isActive() {
+        return !silent && !Double.isNaN(position);
+    }
+
+    @Override
+    public String toString() {
+        return "(position=" + position + ", velocity=" + velocity + ", silent=" + silent + ")";
+    }
+}
@@ -0,0 +1,95 @@
+package net.sf.servomaster.device.impl.usb;
+
+import java.util.function.Consumer;
+
+import javax.usb.UsbControlIrp;
+import javax.usb.UsbDevice;
+import javax.usb.UsbException;
+import javax.usb.UsbIrp;
+import javax.usb.event.UsbDeviceDataEvent;
+import javax.usb.event.UsbDeviceErrorEvent;
+import javax.usb.event.UsbDeviceEvent;
+import javax.usb.event.UsbDeviceListener;
+
+/**
+ * Submission pipeline sending control IRPs with a fixed setup packet to the default control pipe of a {@link UsbDevice}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class ControlSubmissionPipeline extends UsbSubmissionPipeline {
+
+    private final UsbDevice device;
+
+    private final byte bmRequestType;
+    private final byte bRequest;
+    private final short wValue;
+    private final short wIndex;
+
+    private final UsbDeviceListener listener = new UsbDeviceListener() {
+
+        @Override
+        public void dataEventOccurred(UsbDeviceDataEvent e) {
+            completed(e.getUsbControlIrp(), null);
+        }
+
+        @Override
+        public void errorEventOccurred(UsbDeviceErrorEvent e) {
+            completed(e.getUsbControlIrp(), e.getUsbException());
+        }
+
+        @Override
+        public void usbDeviceDetached(UsbDeviceEvent e) {
+            // The controller will take care of it
+        }
+    };
+
+    /**
+     * Create an instance.
+     *
+     * @param device Device to send the IRPs to.
+     * @param bmRequestType Setup packet request type.
+     * @param bRequest Setup packet request.
+     * @param wValue Setup packet value.
+     * @param wIndex Setup packet index.
+     * @param window Maximum number of IRPs in flight.
+     * @param bufferSize Largest write this pipeline will accept.
+     * @param failureHandler Called when an IRP fails.
+     */
+    public ControlSubmissionPipeline(
+            UsbDevice device,
+            byte bmRequestType, byte bRequest, short wValue, short wIndex,
+            int window, int bufferSize, Consumer<UsbException> failureHandler) {
+
+        super(window, bufferSize, failureHandler);
+
+        this.device = device;
+        this.bmRequestType = bmRequestType;
+        this.bRequest = bRequest;
+        this.wValue = wValue;
+        this.wIndex = wIndex;
+
+        device.addUsbDeviceListener(listener);
+    }
+
+    /**
+     * @return The device this pipeline talks to.
+     */
+    public UsbDevice getDevice() {
+        return device;
+    }
+
+    @Override
+    protected UsbIrp createIrp() {
+        return device.createUsbControlIrp(bmRequestType, bRequest, wValue, wIndex);
+    }
+
+    @Override
+    protected void doSubmit(UsbIrp irp) throws UsbException {
+        device.asyncSubmit((UsbControlIrp) irp);
+    }
+
+    @Override
+    protected void doClose() {
+        device.removeUsbDeviceListener(listener);
+    }
+}
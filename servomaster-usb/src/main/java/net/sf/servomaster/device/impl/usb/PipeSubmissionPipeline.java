@@ -0,0 +1,73 @@
+package net.sf.servomaster.device.impl.usb;
+
+import java.util.function.Consumer;
+
+import javax.usb.UsbException;
+import javax.usb.UsbIrp;
+import javax.usb.UsbPipe;
+import javax.usb.event.UsbPipeDataEvent;
+import javax.usb.event.UsbPipeErrorEvent;
+import javax.usb.event.UsbPipeListener;
+
+/**
+ * Submission pipeline writing to a {@link UsbPipe}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class PipeSubmissionPipeline extends UsbSubmissionPipeline {
+
+    private final UsbPipe pipe;
+
+    private final UsbPipeListener listener = new UsbPipeListener() {
+
+        @Override
+        public void dataEventOccurred(UsbPipeDataEvent e) {
+
+            if (e.hasUsbIrp()) {
+                completed(e.getUsbIrp(), null);
+            }
+        }
+
+        @Override
+        public void errorEventOccurred(UsbPipeErrorEvent e) {
+
+            if (e.hasUsbIrp()) {
+                completed(e.getUsbIrp(), e.getUsbException());
+            }
+        }
+    };
+
+    /**
+     * Create an instance.
+     *
+     * @param pipe Open pipe to write to.
+     * @param window Maximum number of IRPs in flight.
+     * @param bufferSize Largest write this pipeline will accept.
+     * @param failureHandler Called when an IRP fails.
+     */
+    public PipeSubmissionPipeline(UsbPipe pipe, int window, int bufferSize, Consumer<UsbException> failureHandler) {
+
+        super(window, bufferSize, failureHandler);
+
+        this.pipe = pipe;
+
+        pipe.addUsbPipeListener(listener);
+    }
+
+    @Override
+    protected UsbIrp createIrp() {
+        return pipe.createUsbIrp();
+    }
+
+    @Override
+    protected void doSubmit(UsbIrp irp) throws UsbException {
+        pipe.asyncSubmit(irp);
+    }
+
+    @Override
+    protected void doClose() {
+
+        pipe.removeUsbPipeListener(listener);
+        pipe.abortAllSubmissions();
+    }
+}
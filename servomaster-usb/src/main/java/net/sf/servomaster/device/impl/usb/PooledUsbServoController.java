@@ -0,0 +1,345 @@
+package net.sf.servomaster.device.impl.usb;
+
+import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServo;
+import net.sf.servomaster.device.impl.AbstractServoController;
+import net.sf.servomaster.device.model.Meta;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoListener;
+import net.sf.servomaster.device.model.TransitionStatus;
+import org.apache.logging.log4j.ThreadContext;
+
+import javax.usb.UsbDevice;
+import javax.usb.UsbException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * All the compatible USB servo controllers attached, presented as one.
+ *
+ * <p>
+ *
+ * Every device is driven by its own controller instance (with its own protocol handler and submission
+ * pipeline), so the throughput grows with the number of devices. The devices are opened in parallel,
+ * ordered by the serial number, and their channels are numbered consecutively: if there are two 8 channel
+ * devices, the first one's channels are 0 to 7, and the second one's are 8 to 15.
+ *
+ * <p>
+ *
+ * The pool is built from the devices attached at the time it is {@link #open() opened}; each member
+ * then handles its own device departure and arrival.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class PooledUsbServoController extends AbstractServoController {
+
+    /**
+     * Creates a controller instance for a given serial number.
+     */
+    private final Function<String, ? extends AbstractUsbServoController> factory;
+
+    /**
+     * Member controllers, in the channel order.
+     */
+    private final List<AbstractUsbServoController> members = new ArrayList<>();
+
+    /**
+     * {@code offsets[i]} is the first pool channel of {@code members.get(i)}.
+     */
+    private int[] offsets = new int[0];
+
+    private int servoCount = 0;
+
+    /**
+     * Create an instance.
+     *
+     * @param factory Creates a member controller instance for a given serial number. Must not open it.
+     */
+    public PooledUsbServoController(Function<String, ? extends AbstractUsbServoController> factory) {
+
+        super(null);
+
+        this.factory = factory;
+    }
+
+    /**
+     * Make sure the provider is not asked for a specific port. The pool takes all the devices attached, so
+     * a port name means the caller has picked the wrong provider.
+     *
+     * @param portName Port name given to the provider.
+     *
+     * @throws IllegalArgumentException if the port name is not {@code null}.
+     */
+    protected static void checkNoPort(String portName) {
+
+        if (portName != null) {
+            throw new IllegalArgumentException("The pool takes all the devices attached, can't be given a port ('" + portName + "')");
+        }
+    }
+
+    @Override
+    protected Meta createMeta() {
+        return new PoolMeta();
+    }
+
+    @Override
+    protected void doInit() throws IOException {
+
+        ThreadContext.push("doInit");
+
+        try {
+
+            var probe = factory.apply(null);
+            var devices = new ArrayList<>(probe.listDevices());
+
+            if (devices.isEmpty()) {
+                throw new IOException("No compatible devices found");
+            }
+
+            devices.sort((a, b) -> probe.getSerial(a).compareTo(probe.getSerial(b)));
+
+            var executor = Executors.newFixedThreadPool(devices.size());
+            var candidates = new ArrayList<AbstractUsbServoController>();
+            var tasks = new ArrayList<Callable<Void>>();
+
+            for (UsbDevice device : devices) {
+
+                var serial = probe.getSerial(device);
+                var member = factory.apply(serial);
+
+                member.assign(device);
+                candidates.add(member);
+
+                tasks.add(() -> {
+
+                    ThreadContext.push("open " + serial);
+
+                    try {
+
+                        member.open();
+                        return null;
+
+                    } finally {
+                        ThreadContext.pop();
+                    }
+                });
+            }
+
+            List<Future<Void>> results;
+
+            try {
+
+                results = executor.invokeAll(tasks);
+
+            } finally {
+                executor.shutdown();
+            }
+
+            for (var offset = 0; offset < candidates.size(); offset++) {
+
+                try {
+
+                    results.get(offset).get();
+                    members.add(candidates.get(offset));
+
+                } catch (ExecutionException ex) {
+
+                    // One bad device shouldn't take the rest of the rack down
+                    logger.error("Failed to open {}", probe.getSerial(devices.get(offset)), ex.getCause());
+                    exception(ex.getCause());
+                }
+            }
+
+            if (members.isEmpty()) {
+                throw new IOException("None of " + devices.size() + " devices could be opened");
+            }
+
+            offsets = new int[members.size()];
+            servoCount = 0;
+
+            for (var offset = 0; offset < members.size(); offset++) {
+
+                offsets[offset] = servoCount;
+                servoCount += members.get(offset).getServoCount();
+            }
+
+            ((PoolMeta) getMeta()).update();
+
+            connected = true;
+
+            logger.info("{} devices, {} channels", members.size(), servoCount);
+
+        } catch (UsbException ex) {
+
+            throw new IOException("USB failure", ex);
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while opening the devices", ex);
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * @return Member controllers, in the channel order.
+     */
+    public List<AbstractUsbServoController> getMembers() {
+        return Collections.unmodifiableList(members);
+    }
+
+    @Override
+    public boolean isConnected() {
+
+        for (var member : members) {
+
+            if (!member.isConnected()) {
+                return false;
+            }
+        }
+
+        return !members.isEmpty();
+    }
+
+    @Override
+    public int getServoCount() {
+
+        checkInit();
+
+        return servoCount;
+    }
+
+    @Override
+    public void reset() throws IOException {
+
+        checkInit();
+
+        for (var member : members) {
+            member.reset();
+        }
+    }
+
+    @Override
+    protected Servo createServo(int id) throws IOException {
+
+        var offset = members.size() - 1;
+
+        while (offsets[offset] > id) {
+            offset--;
+        }
+
+        var target = members.get(offset).getServo(Integer.toString(id - offsets[offset]));
+
+        return new PooledServo(id, target);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        super.close();
+
+        IOException failure = null;
+
+        for (var member : members) {
+
+            try {
+
+                member.close();
+
+            } catch (IOException ex) {
+
+                logger.error("Failed to close {}", member.getPort(), ex);
+                failure = ex;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    protected class PoolMeta extends AbstractMeta {
+
+        PoolMeta() {
+
+            properties.put("controller/maxservos", "0");
+        }
+
+        private synchronized void update() {
+
+            properties.put("controller/maxservos", Integer.toString(servoCount));
+            properties.put("controller/pool/size", Integer.toString(members.size()));
+        }
+    }
+
+    /**
+     * Pool channel, delegating everything to the member controller's servo.
+     *
+     * The position changes don't go through the pool's monitor, so the members operate independently.
+     */
+    private class PooledServo extends AbstractServo {
+
+        private final int id;
+
+        PooledServo(int id, Servo target) {
+
+            super(PooledUsbServoController.this, target);
+
+            this.id = id;
+        }
+
+        @Override
+        public String getName() {
+            return Integer.toString(id);
+        }
+
+        @Override
+        public Future<TransitionStatus> setPosition(double position) {
+            return getTarget().setPosition(position);
+        }
+
+        @Override
+        public double getPosition() {
+            return getTarget().getPosition();
+        }
+
+        @Override
+        public double getActualPosition() {
+            return getTarget().getActualPosition();
+        }
+
+        @Override
+        public synchronized void addListener(ServoListener listener) {
+            getTarget().addListener(listener);
+        }
+
+        @Override
+        public synchronized void removeListener(ServoListener listener) {
+            getTarget().removeListener(listener);
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) throws IOException {
+            getTarget().setEnabled(enabled);
+        }
+
+        @Override
+        protected Meta createMeta() {
+            return getTarget().getMeta();
+        }
+
+        @Override
+        protected void setActualPosition(double position) throws IOException {
+            throw new IllegalStateException("How come we ended up here?");
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package net.sf.servomaster.device.impl.usb;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.usb.UsbDevice;
+import javax.usb.UsbDeviceDescriptor;
+import javax.usb.UsbException;
+import javax.usb.UsbHostManager;
+import javax.usb.UsbHub;
+import javax.usb.UsbServices;
+import javax.usb.event.UsbServicesEvent;
+import javax.usb.event.UsbServicesListener;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+/**
+ * Index of the USB devices currently attached, by signature and serial number.
+ *
+ * <p>
+ *
+ * The device tree is walked once, when the index is created, and then the index is kept current
+ * from the attach and detach notifications, so the lookup never touches the bus. Controllers
+ * {@link #addListener(UsbServicesListener) listen} to the index rather than to the USB services directly,
+ * this way by the time they get the notification the index already reflects it.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class UsbDeviceIndex implements UsbServicesListener {
+
+    private static UsbDeviceIndex instance;
+
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    private final UsbServices usbServices;
+
+    /**
+     * Devices by signature, see {@link #getSignature(UsbDeviceDescriptor)}.
+     */
+    private final Map<String, Set<UsbDevice>> bySignature = new HashMap<>();
+
+    /**
+     * Devices by signature and serial number, see {@link #getKey(String, String)}.
+     */
+    private final Map<String, Set<UsbDevice>> byKey = new HashMap<>();
+
+    /**
+     * Index entries for all the known devices, including hubs.
+     */
+    private final Map<UsbDevice, Entry> entries = new IdentityHashMap<>();
+
+    private final Set<UsbServicesListener> listeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * Get the index instance.
+     *
+     * @return The index, built on the first call.
+     *
+     * @throws UsbException if the USB services couldn't be initialized.
+     */
+    public static synchronized UsbDeviceIndex getInstance() throws UsbException {
+
+        if (instance == null) {
+            instance = new UsbDeviceIndex(UsbHostManager.getUsbServices());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Create an instance on top of the given USB services. Everybody else should use {@link #getInstance()}.
+     *
+     * @param usbServices USB services to index the devices of.
+     *
+     * @throws UsbException if the root hub is not accessible.
+     */
+    UsbDeviceIndex(UsbServices usbServices) throws UsbException {
+
+        this.usbServices = usbServices;
+
+        // Subscribe first, so that nothing that happens while we walk the tree is missed
+
+        usbServices.addUsbServicesListener(this);
+
+        rescan();
+    }
+
+    /**
+     * Drop everything and walk the device tree again.
+     *
+     * This is only needed when a device is known to have changed its identity without
+     * the notifications being delivered, like right after the boot.
+     *
+     * @throws UsbException if the root hub is not accessible.
+     */
+    public void rescan() throws UsbException {
+
+        ThreadContext.push("rescan");
+
+        try {
+
+            var root = usbServices.getRootUsbHub();
+
+            synchronized (this) {
+
+                bySignature.clear();
+                byKey.clear();
+                entries.clear();
+
+                add(root, null);
+
+                logger.info("{} devices indexed", entries.size());
+            }
+
+        } finally {
+            ThreadContext.pop();
+        }
+    }
+
+    /**
+     * Find the attached devices.
+     *
+     * @param signature Device signature.
+     * @param serial Serial number, {@code "null"} for devices that don't have one, or {@code null} for any.
+     *
+     * @return Devices found, possibly empty, never {@code null}.
+     */
+    public synchronized Set<UsbDevice> find(String signature, String serial) {
+
+        var found = serial == null ? bySignature.get(signature) : byKey.get(getKey(signature, serial));
+
+        return found == null ? Collections.emptySet() : new LinkedHashSet<>(found);
+    }
+
+    /**
+     * Get the serial number of the device, as it was recorded at the time it was indexed.
+     *
+     * @param device Device to get the serial number for.
+     *
+     * @return Serial number, {@code "null"} for devices that don't have one, or {@code null} if the device is not indexed.
+     */
+    public synchronized String getSerial(UsbDevice device) {
+
+        var entry = entries.get(device);
+
+        return entry == null ? null : entry.serial;
+    }
+
+    /**
+     * Get the device signature, in "${vendor-id}:${product-id}" form.
+     *
+     * @param dd Device descriptor to extract the signature from.
+     *
+     * @return Device signature.
+     */
+    public static String getSignature(UsbDeviceDescriptor dd) {
+        return Integer.toHexString(dd.idVendor() & 0xFFFF) + ":" + Integer.toHexString(dd.idProduct() & 0xFFFF);
+    }
+
+    /**
+     * Get the position of the device on the bus, as the port numbers from the root hub down, like {@code "1.4.2"}.
+     *
+     * Unlike the device handle, this stays the same when the device is unplugged and plugged back into the same port,
+     * and unlike the serial number, it is different for identical devices.
+     *
+     * @param device Device to get the location of.
+     *
+     * @return Device location, {@code "root"} for the root hub.
+     */
+    public static String getLocation(UsbDevice device) {
+
+        var path = new ArrayDeque<String>();
+
+        for (var port = device.getParentUsbPort(); port != null; port = port.getUsbHub().getParentUsbPort()) {
+            path.addFirst(Integer.toString(port.getPortNumber() & 0xFF));
+        }
+
+        return path.isEmpty() ? "root" : String.join(".", path);
+    }
+
+    /**
+     * Add the listener to be notified about device arrivals and departures after the index has been updated.
+     *
+     * @param listener Listener to add.
+     */
+    public void addListener(UsbServicesListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove the listener.
+     *
+     * @param listener Listener to remove.
+     */
+    public void removeListener(UsbServicesListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void usbDeviceAttached(UsbServicesEvent e) {
+
+        var device = e.getUsbDevice();
+
+        synchronized (this) {
+
+            var port = device.getParentUsbPort();
+
+            add(device, port == null ? null : entries.get(port.getUsbHub()));
+        }
+
+        for (var l : listeners) {
+            l.usbDeviceAttached(e);
+        }
+    }
+
+    @Override
+    public void usbDeviceDetached(UsbServicesEvent e) {
+
+        synchronized (this) {
+            remove(e.getUsbDevice());
+        }
+
+        for (var l : listeners) {
+            l.usbDeviceDetached(e);
+        }
+    }
+
+    /**
+     * Add the device, and if it is a hub, everything attached to it.
+     *
+     * Must be called with the monitor held.
+     */
+    @SuppressWarnings("unchecked")
+    private void add(UsbDevice device, Entry parent) {
+
+        if (entries.containsKey(device)) {
+            return;
+        }
+
+        var entry = new Entry(device, parent);
+
+        entries.put(device, entry);
+
+        if (device.isUsbHub()) {
+
+            for (var child : (List<UsbDevice>) ((UsbHub) device).getAttachedUsbDevices()) {
+                add(child, entry);
+            }
+
+            return;
+        }
+
+        bySignature.computeIfAbsent(entry.signature, k -> new LinkedHashSet<>()).add(device);
+        byKey.computeIfAbsent(getKey(entry.signature, entry.serial), k -> new LinkedHashSet<>()).add(device);
+
+        logger.debug("indexed {} S/N {}", entry.signature, entry.serial);
+    }
+
+    /**
+     * Remove the device, and if it is a hub, everything that was attached to it.
+     *
+     * Must be called with the monitor held.
+     */
+    private void remove(UsbDevice device) {
+
+        var entry = entries.remove(device);
+
+        if (entry == null) {
+            return;
+        }
+
+        // Hubs don't necessarily report their children as detached, and they're not enumerable anymore
+
+        for (var child : new ArrayList<>(entries.values())) {
+
+            if (child.parent == entry) {
+                remove(child.device);
+            }
+        }
+
+        removeFrom(bySignature, entry.signature, device);
+        removeFrom(byKey, getKey(entry.signature, entry.serial), device);
+    }
+
+    private static void removeFrom(Map<String, Set<UsbDevice>> map, String key, UsbDevice device) {
+
+        var set = map.get(key);
+
+        if (set != null) {
+
+            set.remove(device);
+
+            if (set.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static String getKey(String signature, String serial) {
+        return signature + " " + serial;
+    }
+
+    private class Entry {
+
+        final UsbDevice device;
+        final Entry parent;
+        final String signature;
+        final String serial;
+
+        Entry(UsbDevice device, Entry parent) {
+
+            this.device = device;
+            this.parent = parent;
+            this.signature = getSignature(device.getUsbDeviceDescriptor());
+            this.serial = device.isUsbHub() ? null : readSerial(device);
+        }
+
+        private String readSerial(UsbDevice device) {
+
+            try {
+
+                var result = device.getSerialNumberString();
+
+                // Serial number can be null, at least it is with the current firmware release for AdvancedServo
+
+                return result == null ? "null" : result;
+
+            } catch (UsbException | UnsupportedEncodingException ex) {
+
+                // The device can still be found by the signature alone
+                logger.warn("Can't read serial number for {}", signature, ex);
+                return "null";
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package net.sf.servomaster.device.impl.usb;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.usb.UsbException;
+import javax.usb.UsbIrp;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.sf.servomaster.device.impl.jfr.WriteEvent;
+import net.sf.servomaster.device.impl.metrics.ServoControllerMetrics;
+import net.sf.servomaster.device.model.ServoController;
+
+/**
+ * Asynchronous IRP submission pipeline.
+ *
+ * <p>
+ *
+ * Writes are keyed by channel. A write waits in the queue until there's a free slot in the window
+ * of {@link #window} IRPs in flight; if another write for the same channel arrives before that happens,
+ * it replaces the queued one - there's no point sending the position that has already been superseded.
+ * The caller never waits for the USB round trip, only for the queue to be updated.
+ *
+ * <p>
+ *
+ * Both IRPs and data buffers are reused, there's no allocation in the steady state.
+ *
+ * <p>
+ *
+ * If an IRP fails, the pipeline is considered broken: everything queued is discarded, further writes
+ * are rejected, and the failure handler is called (without any locks held) so that the owner can drop
+ * the pipeline and create a new one when the device is back.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public abstract class UsbSubmissionPipeline {
+
+    /**
+     * Default number of IRPs allowed to be in flight at the same time.
+     */
+    public static final int DEFAULT_WINDOW = 4;
+
+    protected final Logger logger = LogManager.getLogger(getClass());
+
+    /**
+     * Maximum number of IRPs in flight.
+     */
+    private final int window;
+
+    /**
+     * Largest write this pipeline accepts.
+     */
+    private final int bufferSize;
+
+    private final Consumer<UsbException> failureHandler;
+
+    /**
+     * Writes waiting for a free slot, by channel, in the order the channels were queued.
+     */
+    private final Map<Object, Frame> queued = new LinkedHashMap<>();
+
+    /**
+     * IRPs in flight, with the buffers they carry.
+     */
+    private final Map<UsbIrp, Frame> inFlight = new IdentityHashMap<>();
+
+    private final Deque<UsbIrp> idleIrps = new ArrayDeque<>();
+    private final Deque<Frame> spareFrames = new ArrayDeque<>();
+
+    private UsbException failure;
+    private boolean closed = false;
+
+    private long submitted = 0;
+    private long coalesced = 0;
+    private long completed = 0;
+
+    private ServoController controller;
+    private ServoControllerMetrics metrics;
+
+    /**
+     * Create an instance.
+     *
+     * @param window Maximum number of IRPs in flight.
+     * @param bufferSize Largest write this pipeline will accept.
+     * @param failureHandler Called when an IRP fails.
+     */
+    protected UsbSubmissionPipeline(int window, int bufferSize, Consumer<UsbException> failureHandler) {
+
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive, " + window + " given");
+        }
+
+        this.window = window;
+        this.bufferSize = bufferSize;
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Record the completed IRPs into the controller metrics, and as flight recorder events.
+     *
+     * @param controller Controller the events will be attributed to.
+     * @param metrics Metrics to record into.
+     */
+    public synchronized void instrument(ServoController controller, ServoControllerMetrics metrics) {
+
+        this.controller = controller;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queue the write, superseding the queued write for the same channel, if there's one.
+     *
+     * @param channel Channel key.
+     * @param data Data buffer. The caller is free to reuse it as soon as this method returns.
+     * @param offset Data offset.
+     * @param length Data length.
+     *
+     * @throws UsbException if the pipeline has failed or been closed, or the IRP couldn't be submitted.
+     */
+    public synchronized void submit(Object channel, byte[] data, int offset, int length) throws UsbException {
+
+        if (closed) {
+            throw new UsbException("Pipeline closed");
+        }
+
+        if (failure != null) {
+            throw new UsbException("Pipeline failed: " + failure.getMessage());
+        }
+
+        if (length > bufferSize) {
+            throw new IllegalArgumentException("Can't write " + length + " bytes, buffer size is " + bufferSize);
+        }
+
+        var frame = queued.get(channel);
+
+        if (frame != null) {
+
+            coalesced++;
+
+        } else {
+
+            frame = spareFrames.isEmpty() ? new Frame(bufferSize) : spareFrames.poll();
+            queued.put(channel, frame);
+        }
+
+        System.arraycopy(data, offset, frame.data, 0, length);
+        frame.channel = channel;
+        frame.length = length;
+
+        submitted++;
+
+        pump();
+    }
+
+    /**
+     * Submit as many queued writes as the window allows.
+     *
+     * Must be called with the monitor held.
+     */
+    private void pump() throws UsbException {
+
+        while (inFlight.size() < window && !queued.isEmpty()) {
+
+            var i = queued.values().iterator();
+            var frame = i.next();
+
+            i.remove();
+
+            var irp = idleIrps.isEmpty() ? createIrp() : idleIrps.poll();
+
+            irp.setUsbException(null);
+            irp.setComplete(false);
+            irp.setActualLength(0);
+            irp.setData(frame.data, 0, frame.length);
+
+            frame.submittedAt = System.nanoTime();
+            inFlight.put(irp, frame);
+
+            try {
+
+                doSubmit(irp);
+
+            } catch (UsbException ex) {
+
+                inFlight.remove(irp);
+                idleIrps.add(irp);
+                spareFrames.add(frame);
+
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Handle the IRP completion.
+     *
+     * @param irp IRP that has completed. IRPs that are not ours are ignored.
+     * @param error The error, or {@code null} if the IRP has completed successfully.
+     */
+    protected final void completed(UsbIrp irp, UsbException error) {
+
+        UsbException cause = null;
+
+        synchronized (this) {
+
+            var frame = inFlight.remove(irp);
+
+            if (frame == null) {
+
+                // Not ours
+                return;
+            }
+
+            idleIrps.add(irp);
+            spareFrames.add(frame);
+
+            var latency = System.nanoTime() - frame.submittedAt;
+
+            // Channels are servo IDs, unless the whole controller is written at once
+            WriteEvent.emit(controller, frame.channel instanceof Number ? frame.channel : null, frame.length, latency, error != null);
+
+            if (error != null) {
+
+                cause = error;
+
+                if (metrics != null) {
+                    metrics.ioError();
+                }
+
+            } else {
+
+                completed++;
+
+                if (metrics != null) {
+                    metrics.sent(frame.length, latency);
+                }
+
+                if (!closed && failure == null) {
+
+                    try {
+
+                        pump();
+
+                    } catch (UsbException ex) {
+                        cause = ex;
+                    }
+                }
+            }
+
+            if (cause != null) {
+                cause = fail(cause);
+            }
+
+            notifyAll();
+        }
+
+        if (cause != null) {
+            failureHandler.accept(cause);
+        }
+    }
+
+    /**
+     * Mark the pipeline as failed.
+     *
+     * Must be called with the monitor held.
+     *
+     * @return The cause to pass to the failure handler, or {@code null} if it has already been called.
+     */
+    private UsbException fail(UsbException cause) {
+
+        if (failure != null) {
+            return null;
+        }
+
+        failure = cause;
+
+        logger.warn("IRP failed, {} queued writes discarded", queued.size(), cause);
+
+        spareFrames.addAll(queued.values());
+        queued.clear();
+
+        return cause;
+    }
+
+    /**
+     * Wait until everything queued so far has been submitted and completed.
+     *
+     * @param timeout Maximum time to wait, milliseconds.
+     *
+     * @return {@code true} if the pipeline is drained, {@code false} if the timeout has expired.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized boolean drain(long timeout) throws InterruptedException {
+
+        var deadline = System.currentTimeMillis() + timeout;
+
+        while ((!queued.isEmpty() || !inFlight.isEmpty()) && failure == null) {
+
+            var left = deadline - System.currentTimeMillis();
+
+            if (left <= 0) {
+                return false;
+            }
+
+            wait(left);
+        }
+
+        return true;
+    }
+
+    /**
+     * Discard the queued writes and stop listening to completions.
+     */
+    public void close() {
+
+        synchronized (this) {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            spareFrames.addAll(queued.values());
+            queued.clear();
+
+            notifyAll();
+        }
+
+        doClose();
+    }
+
+    /**
+     * @return Number of IRPs in flight right now.
+     */
+    public synchronized int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return Number of writes accepted so far.
+     */
+    public synchronized long getSubmittedCount() {
+        return submitted;
+    }
+
+    /**
+     * @return Number of writes that superseded a queued write for the same channel.
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * @return Number of IRPs that have completed successfully.
+     */
+    public synchronized long getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Create a new IRP. Called only when there's no idle IRP to reuse.
+     *
+     * @return New IRP.
+     */
+    protected abstract UsbIrp createIrp();
+
+    /**
+     * Submit the IRP asynchronously.
+     *
+     * @param irp IRP to submit.
+     *
+     * @throws UsbException if the submission failed right away.
+     */
+    protected abstract void doSubmit(UsbIrp irp) throws UsbException;
+
+    /**
+     * Stop listening to completions, and abort whatever is in flight, if possible.
+     */
+    protected abstract void doClose();
+
+    private static class Frame {
+
+        final byte[] data;
+        Object channel;
+        int length;
+
+        /**
+         * When the IRP carrying this frame was submitted, {@link System#nanoTime()}.
+         */
+        long submittedAt;
+
+        Frame(int size) {
+            data = new byte[size];
+        }
+    }
+}
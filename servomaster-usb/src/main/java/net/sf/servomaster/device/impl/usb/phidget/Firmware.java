@@ -1,6 +1,8 @@
 package net.sf.servomaster.device.impl.usb.phidget;
 
+import java.io.IOException;
+
 public interface Firmware {
 
-     byte[] get();
+     byte[] get() throws IOException;
 }
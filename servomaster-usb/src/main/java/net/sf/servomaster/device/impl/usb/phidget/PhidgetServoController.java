@@ -1,7 +1,13 @@
 package net.sf.servomaster.device.impl.usb.phidget;
 
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
 import net.sf.servomaster.device.impl.usb.AbstractUsbServoController;
+import net.sf.servomaster.device.impl.usb.ChannelState;
+import net.sf.servomaster.device.impl.usb.ControlSubmissionPipeline;
+import net.sf.servomaster.device.impl.usb.PipeSubmissionPipeline;
+import net.sf.servomaster.device.impl.usb.UsbSubmissionPipeline;
 import net.sf.servomaster.device.impl.usb.phidget.firmware.Servo8;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
@@ -9,13 +15,15 @@ import net.sf.servomaster.device.model.ServoController;
 
 import javax.usb.UsbConfiguration;
 import javax.usb.UsbConst;
-import javax.usb.UsbControlIrp;
 import javax.usb.UsbDevice;
 import javax.usb.UsbEndpoint;
 import javax.usb.UsbException;
 import javax.usb.UsbInterface;
 import javax.usb.UsbPipe;
 import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Generic PhidgetServo controller.
@@ -24,6 +32,14 @@ import java.io.IOException;
  */
 public class PhidgetServoController extends AbstractUsbServoController {
 
+    /**
+     * Meta property holding the time, in milliseconds, the 4-channel (protocol 3.0) controllers
+     * hold the packet for, so that near-simultaneous updates to different channels go out in one transfer.
+     *
+     * Zero means no delay, every update is sent right away.
+     */
+    public static final String META_COALESCE = "controller/protocol/USB/coalesce";
+
     /**
      * Create an instance connected to the device with the given serial number.
      *
@@ -42,12 +58,95 @@ public class PhidgetServoController extends AbstractUsbServoController {
         registerHandler("6c2:60", new ProtocolHandler0x60());
     }
 
+    /**
+     * Start a frame.
+     *
+     * Position updates made until the matching {@link #endFrame()} call are buffered and sent
+     * together. Only makes a difference for the 4-channel (protocol 3.0) controllers, where all
+     * the positions are transmitted in one packet. Frames may be nested.
+     */
+    public void beginFrame() {
+
+        var handler = protocolHandler;
+
+        if (handler instanceof ProtocolHandler003) {
+            ((ProtocolHandler003) handler).beginFrame();
+        }
+    }
+
+    /**
+     * End the frame, and send the positions buffered since {@link #beginFrame()}.
+     *
+     * @throws IOException if there was a problem sending the positions.
+     */
+    public void endFrame() throws IOException {
+
+        var handler = protocolHandler;
+
+        if (handler instanceof ProtocolHandler003) {
+
+            try {
+
+                ((ProtocolHandler003) handler).endFrame();
+
+            } catch (UsbException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    /**
+     * @return Number of position updates requested so far, zero for controllers that send every update separately.
+     */
+    public long getPacketsRequested() {
+
+        var handler = protocolHandler;
+
+        return handler instanceof ProtocolHandler003 ? ((ProtocolHandler003) handler).getPacketsRequested() : 0;
+    }
+
+    /**
+     * @return Number of position packets actually sent so far, zero for controllers that send every update separately.
+     */
+    public long getPacketsSent() {
+
+        var handler = protocolHandler;
+
+        return handler instanceof ProtocolHandler003 ? ((ProtocolHandler003) handler).getPacketsSent() : 0;
+    }
+
+    /**
+     * @return Number of packets that didn't have to be sent because the updates were coalesced,
+     * or couldn't be because the device was disconnected.
+     */
+    public long getPacketsSaved() {
+        return getPacketsRequested() - getPacketsSent();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            super.close();
+
+        } finally {
+
+            var handler = protocolHandler;
+
+            if (handler instanceof ProtocolHandler003) {
+                ((ProtocolHandler003) handler).shutdown();
+            }
+        }
+    }
+
     @Override
     protected synchronized void sleep() throws IOException {
 
         try {
 
             protocolHandler.silence();
+            shadowSilent();
 
         } catch (UsbException ex) {
 
@@ -141,6 +240,46 @@ public class PhidgetServoController extends AbstractUsbServoController {
          */
         protected byte[] buffer = new byte[6];
 
+        /**
+         * Packet sent to silence the servos.
+         */
+        private final byte[] silenceBuffer = new byte[6];
+
+        /**
+         * The pipeline for the device {@link #theServoController} pointed to when it was created.
+         *
+         * All the packets carry the complete state, so they all go under the same channel key,
+         * and the one still queued when the next one arrives is superseded by it.
+         */
+        private ControlSubmissionPipeline pipeline;
+
+        /**
+         * How long to hold the packet for, milliseconds.
+         *
+         * @see #META_COALESCE
+         */
+        private long coalesceWindow = 2;
+
+        /**
+         * Frame nesting depth.
+         *
+         * @see #beginFrame()
+         */
+        private int frameDepth = 0;
+
+        /**
+         * Whether the delayed flush has already been scheduled.
+         */
+        private boolean flushScheduled = false;
+
+        /**
+         * Delayed flush executor, created on first use.
+         */
+        private ScheduledExecutorService flusher;
+
+        private long packetsRequested = 0;
+        private long packetsSent = 0;
+
         protected ProtocolHandler003() {
 
         }
@@ -187,25 +326,181 @@ public class PhidgetServoController extends AbstractUsbServoController {
 
             // Tough stuff, we're dealing with timing now...
 
-            PhidgetServo003 servo = (PhidgetServo003) PhidgetServoController.this.getServo(Integer.toString(id));
-
-            int microseconds = (int)(servo.min_pulse + (position * (servo.max_pulse - servo.min_pulse)));
+            int microseconds = toMicroseconds(id, position);
 
             // VT: NOTE: We need to know all the servo's positions because
             // they get transmitted in one packet
 
             bufferPosition(id, microseconds);
 
-            logger.debug("Position:     " + position);
-            logger.debug("Microseconds: " + microseconds);
-            logger.debug("Buffer:       " + servoPosition[id]);
+            if (logger.isDebugEnabled()) {
+                logger.debug("position={}, microseconds={}, buffer={}", position, microseconds, servoPosition[id]);
+            }
 
-            send();
+            requestSend();
+        }
+
+        private int toMicroseconds(int id, double position) throws IOException {
+
+            PhidgetServo003 servo = (PhidgetServo003) PhidgetServoController.this.getServo(Integer.toString(id));
+
+            return (int)(servo.min_pulse + (position * (servo.max_pulse - servo.min_pulse)));
+        }
+
+        /**
+         * Restore all four channels with one packet.
+         *
+         * Silenced channels get the zero microseconds pulse.
+         */
+        @Override
+        public void restore(ChannelState[] states) throws UsbException, IOException {
+
+            var microseconds = new int[servoPosition.length];
+
+            for (var id = 0; id < servoPosition.length; id++) {
+                microseconds[id] = states[id].isActive() ? toMicroseconds(id, states[id].position) : 0;
+            }
+
+            synchronized (this) {
+
+                System.arraycopy(microseconds, 0, servoPosition, 0, servoPosition.length);
+
+                sent = false;
+                send();
+            }
+        }
+
+        /**
+         * Send the buffered positions now, or schedule them to be sent when the coalescing window
+         * expires, or leave it to {@link #endFrame()}.
+         *
+         * @exception UsbException if the positions were to be sent right away, and there was an I/O error doing so.
+         */
+        private synchronized void requestSend() throws UsbException {
+
+            packetsRequested++;
+
+            if (frameDepth > 0) {
+
+                // endFrame() will take care of it
+                return;
+            }
+
+            if (coalesceWindow <= 0) {
+
+                sendCounted();
+                return;
+            }
+
+            if (flushScheduled) {
+
+                // This update will go out with the packet already scheduled
+                return;
+            }
+
+            if (flusher == null) {
+
+                flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+
+                    var t = new Thread(r, "PhidgetServo flusher");
+
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+
+            flushScheduled = true;
+            flusher.schedule(this::flush, coalesceWindow, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Send the positions buffered during the coalescing window.
+         *
+         * Runs on the flusher thread; the failure is reported the same way the failed asynchronous submission is.
+         */
+        private void flush() {
+
+            try {
+
+                synchronized (this) {
+
+                    flushScheduled = false;
+
+                    if (frameDepth > 0) {
+
+                        // endFrame() will take care of it
+                        return;
+                    }
+
+                    sendCounted();
+                }
+
+            } catch (UsbException ex) {
+
+                deviceFailed(ex);
+            }
+        }
+
+        private synchronized void sendCounted() throws UsbException {
+
+            if (!sent && send()) {
+
+                packetsSent++;
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("sent, requested={}, sent={}", packetsRequested, packetsSent);
+                }
+            }
+        }
+
+        synchronized void beginFrame() {
+            frameDepth++;
+        }
+
+        synchronized void endFrame() throws UsbException {
+
+            if (frameDepth == 0) {
+                throw new IllegalStateException("endFrame() without beginFrame()");
+            }
+
+            if (--frameDepth == 0) {
+                sendCounted();
+            }
+        }
+
+        synchronized long getPacketsRequested() {
+            return packetsRequested;
+        }
+
+        synchronized long getPacketsSent() {
+            return packetsSent;
+        }
+
+        private synchronized void setCoalesceWindow(long coalesceWindow) {
+
+            if (coalesceWindow < 0) {
+                throw new IllegalArgumentException("Coalescing window can't be negative (" + coalesceWindow + " given)");
+            }
+
+            this.coalesceWindow = coalesceWindow;
+        }
+
+        synchronized void shutdown() {
+
+            if (flusher != null) {
+
+                flusher.shutdownNow();
+                flusher = null;
+                flushScheduled = false;
+            }
         }
 
         /**
          * Compose the USB packet and stuff it down the USB controller.
          *
+         * @return {@code true} if the packet was submitted, {@code false} if there was nothing to send,
+         * or nowhere to send it to.
+         *
          * @exception UsbException if there was an I/O error talking to the
          * controller.
          *
@@ -213,19 +508,21 @@ public class PhidgetServoController extends AbstractUsbServoController {
          * @see #sent
          * @see #bufferPosition
          */
-        private synchronized void send() throws UsbException {
+        private synchronized boolean send() throws UsbException {
 
             if ( sent ) {
 
                 // They have already sent the positions, relax
 
-                return;
+                return false;
             }
 
             try {
 
                 byte[] buffer = composeBuffer();
-                send(buffer);
+
+                PacketEncodedEvent.emit(PhidgetServoController.this, null, buffer.length);
+                var submitted = send(buffer);
 
                 // If there was an exception sending the message, the flag
                 // is not cleared. This is OK, since if it was a temporary
@@ -234,34 +531,80 @@ public class PhidgetServoController extends AbstractUsbServoController {
 
                 sent = true;
 
+                return submitted;
+
             } finally {
 
                 touch();
             }
         }
 
-        protected synchronized void send(byte[] buffer) throws UsbException {
+        /**
+         * Submit the packet to the device.
+         *
+         * @param buffer Packet to submit.
+         *
+         * @return {@code true} if the packet was submitted, {@code false} if the device is not there.
+         *
+         * @exception UsbException if there was an I/O error talking to the controller.
+         */
+        protected synchronized boolean send(byte[] buffer) throws UsbException {
 
             // theServoController instance can still be null if the driver
             // works in disconnected mode
 
-            if ( theServoController == null ) {
+            var target = theServoController;
 
-                return;
+            if ( target == null ) {
+
+                return false;
+            }
+
+            if (pipeline == null || pipeline.getDevice() != target) {
+
+                if (pipeline != null) {
+                    pipeline.close();
+                }
+
+                byte requestType = (byte)(UsbConst.REQUESTTYPE_DIRECTION_OUT
+                        |UsbConst.REQUESTTYPE_TYPE_CLASS
+                        |UsbConst.REQUESTTYPE_RECIPIENT_INTERFACE);
+                byte request = (byte)UsbConst.REQUEST_SET_CONFIGURATION;
+                short value = (short)0x0200;
+                short index = (short)0x00;
+
+                pipeline = new ControlSubmissionPipeline(
+                        target, requestType, request, value, index,
+                        UsbSubmissionPipeline.DEFAULT_WINDOW, buffer.length, this::pipelineFailed);
+                pipeline.instrument(PhidgetServoController.this, metrics);
+            }
+
+            try {
+
+                pipeline.submit(this, buffer, 0, buffer.length);
+
+            } catch (UsbException usbex) {
+
+                pipeline.close();
+                pipeline = null;
+                throw usbex;
             }
 
-            byte requestType = (byte)(UsbConst.REQUESTTYPE_DIRECTION_OUT
-                    |UsbConst.REQUESTTYPE_TYPE_CLASS
-                    |UsbConst.REQUESTTYPE_RECIPIENT_INTERFACE);
-            byte request = (byte)UsbConst.REQUEST_SET_CONFIGURATION;
-            short value = (short)0x0200;
-            short index = (short)0x00;
+            return true;
+        }
+
+        private void pipelineFailed(UsbException cause) {
 
+            deviceFailed(cause);
 
-            UsbControlIrp message = theServoController.createUsbControlIrp(requestType, request, value, index);
-            message.setData(buffer);
+            synchronized (this) {
 
-            theServoController.syncSubmit(message);
+                if (pipeline != null) {
+
+                    pipeline.close();
+                    pipeline = null;
+                }
+            }
         }
 
         /**
@@ -285,7 +628,7 @@ public class PhidgetServoController extends AbstractUsbServoController {
 
             // Send the zero microseconds pulse
 
-            send(new byte[6]);
+            send(silenceBuffer);
         }
 
         @Override
@@ -325,6 +668,9 @@ public class PhidgetServoController extends AbstractUsbServoController {
 
                 properties.put("servo/range/min", "500");
                 properties.put("servo/range/max", "2000");
+
+                properties.put(META_COALESCE, Long.toString(coalesceWindow));
+                propertyWriters.put(META_COALESCE, (key, value) -> setCoalesceWindow(Long.parseLong(value.toString())));
             }
         }
 
@@ -426,6 +772,11 @@ public class PhidgetServoController extends AbstractUsbServoController {
 
         private UsbPipe out;
 
+        /**
+         * Submission pipeline for {@link #out}, writes are keyed by the servo ID.
+         */
+        private UsbSubmissionPipeline pipeline;
+
         ProtocolHandler0x3B() {
 
         }
@@ -443,9 +794,28 @@ public class PhidgetServoController extends AbstractUsbServoController {
             // VT: FIXME: Hmm... What about the interface that is already
             // claimed?
 
+            dropPipe();
+        }
+
+        private synchronized void dropPipe() {
+
+            if (pipeline != null) {
+
+                pipeline.close();
+                pipeline = null;
+            }
+
             out = null;
         }
 
+        private void pipelineFailed(UsbException cause) {
+
+            deviceFailed(cause);
+
+            // Ouch! The pipe is most probably not valid anymore
+            dropPipe();
+        }
+
         @Override
         public int getServoCount() {
             return 8;
@@ -460,7 +830,10 @@ public class PhidgetServoController extends AbstractUsbServoController {
                 throw new IllegalStateException("servoSet[" + id + "] is still null");
             }
 
-            send(servo.renderPosition(position));
+            var packet = servo.renderPosition(position);
+
+            PacketEncodedEvent.emit(PhidgetServoController.this, id, packet.length);
+            send(id, packet);
         }
 
         @Override
@@ -494,7 +867,7 @@ public class PhidgetServoController extends AbstractUsbServoController {
                 for (UsbEndpoint e : (Iterable<UsbEndpoint>) iface.getUsbEndpoints()) {
 
                     var ed = e.getUsbEndpointDescriptor();
-                    logger.info("Endpoint: " + Integer.toHexString(ed.bEndpointAddress() & 0xFF));
+                    logger.info("Endpoint: {}", Integer.toHexString(ed.bEndpointAddress() & 0xFF));
 
                     if (ed.bEndpointAddress() == 0x01) {
                         endpoint = e;
@@ -511,10 +884,21 @@ public class PhidgetServoController extends AbstractUsbServoController {
                 if ( !out.isOpen() ) {
                     out.open();
                 }
+
+                pipeline = new PipeSubmissionPipeline(out, UsbSubmissionPipeline.DEFAULT_WINDOW, 16, this::pipelineFailed);
+                pipeline.instrument(PhidgetServoController.this, metrics);
             }
         }
 
-        protected synchronized void send(byte[] buffer) throws UsbException {
+        /**
+         * Queue the buffer for sending.
+         *
+         * @param id Servo the buffer is for. The buffer still queued for the same servo is superseded by this one.
+         * @param buffer Buffer to send. The caller is free to reuse it as soon as this method returns.
+         *
+         * @throws UsbException if the pipe is broken.
+         */
+        protected synchronized void send(int id, byte[] buffer) throws UsbException {
 
             init();
 
@@ -525,18 +909,14 @@ public class PhidgetServoController extends AbstractUsbServoController {
                 return;
             }
 
-            var message = out.createUsbIrp();
-
-            message.setData(buffer);
-
             try {
 
-                out.syncSubmit(message);
+                pipeline.submit(id, buffer, 0, buffer.length);
 
             } catch ( UsbException usbex ) {
 
                 // Ouch! The pipe is most probably not valid anymore
-                out = null;
+                dropPipe();
                 throw usbex;
             }
         }
@@ -717,6 +1097,9 @@ public class PhidgetServoController extends AbstractUsbServoController {
 
                         velocity = Float.parseFloat(value.toString());
 
+                        // The velocity travels in the position packet, so it is restored with the position
+                        shadowVelocity(id, velocity);
+
                         try {
 
                             setActualPosition(actualPosition);
@@ -881,7 +1264,7 @@ public class PhidgetServoController extends AbstractUsbServoController {
                 var fw = new Servo8();
                 byte[] buffer = fw.get();
 
-                logger.info("Firmware size " + buffer.length + ", header");
+                logger.info("Firmware size {}, header", buffer.length);
 
                 var sb = new StringBuilder();
 
@@ -939,17 +1322,25 @@ public class PhidgetServoController extends AbstractUsbServoController {
                 // as usual. The device either will not be found at all, or will
                 // be found as SoftPhidget again, which is taken care of.
             }
+        }
 
-            try {
+        @Override
+        public long getBootDelay() {
 
-                // The SoftPhidget is supposed to boot in about 200ms, let's be
-                // paranoid
+            // The SoftPhidget is supposed to boot in about 200ms, let's be
+            // paranoid
 
-                Thread.sleep(5000);
+            return 5000;
+        }
+    }
 
-            } catch ( InterruptedException iex ) {
-                // Do nothing
-            }
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("phidget", "PhidgetServo, USB, port name is the serial number", PhidgetServoController.class, PhidgetServoController::new);
         }
     }
 }
@@ -0,0 +1,30 @@
+package net.sf.servomaster.device.impl.usb.phidget;
+
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
+import net.sf.servomaster.device.impl.usb.PooledUsbServoController;
+
+/**
+ * All the PhidgetServo controllers attached, presented as one.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class PhidgetServoPool extends PooledUsbServoController {
+
+    public PhidgetServoPool() {
+        super(PhidgetServoController::new);
+    }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("phidget-pool", "All the PhidgetServo controllers attached, as one, USB", PhidgetServoPool.class, portName -> {
+
+                checkNoPort(portName);
+                return new PhidgetServoPool();
+            });
+        }
+    }
+}
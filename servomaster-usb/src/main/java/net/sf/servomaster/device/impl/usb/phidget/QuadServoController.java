@@ -1,5 +1,7 @@
 package net.sf.servomaster.device.impl.usb.phidget;
 
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
+
 /**
  * Limited subclass of the generic Phidget servo controller driver, able to
  * operate only Quad Servo Controllers (product code 0x38). This class
@@ -25,4 +27,14 @@ public class QuadServoController extends PhidgetServoController {
     protected void fillProtocolHandlerMap() {
         registerHandler("6c2:38", new ProtocolHandler0x38());
     }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("phidget-quad", "PhidgetServo Quad, USB, port name is the serial number", QuadServoController.class, QuadServoController::new);
+        }
+    }
 }
@@ -1,11 +1,16 @@
 package net.sf.servomaster.device.impl.usb.pololu;
 
 import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
+import net.sf.servomaster.device.impl.LogContext;
+import net.sf.servomaster.device.impl.jfr.PacketEncodedEvent;
 import net.sf.servomaster.device.impl.usb.AbstractUsbServoController;
+import net.sf.servomaster.device.impl.usb.ChannelState;
+import net.sf.servomaster.device.impl.usb.PipeSubmissionPipeline;
+import net.sf.servomaster.device.impl.usb.UsbSubmissionPipeline;
 import net.sf.servomaster.device.model.Meta;
 import net.sf.servomaster.device.model.Servo;
 import net.sf.servomaster.device.model.ServoController;
-import org.apache.logging.log4j.ThreadContext;
 
 import javax.usb.UsbConfiguration;
 import javax.usb.UsbEndpoint;
@@ -37,6 +42,7 @@ public class USB16ServoController extends AbstractUsbServoController {
         try {
 
             protocolHandler.silence();
+            shadowSilent();
             USB16ServoController.this.silentStatusChanged(false);
 
         } catch ( UsbException ex ) {
@@ -69,6 +75,13 @@ public class USB16ServoController extends AbstractUsbServoController {
 
         private UsbPipe out;
 
+        /**
+         * Submission pipeline for {@link #out}, writes are keyed by the servo ID.
+         */
+        private UsbSubmissionPipeline pipeline;
+
+        private final LogContext positionContext = new LogContext(logger, "setAbsolutePosition");
+
         @Override
         public Servo createServo(ServoController sc, int id) throws IOException {
 
@@ -318,12 +331,35 @@ public class USB16ServoController extends AbstractUsbServoController {
                 if ( !out.isOpen() ) {
                     out.open();
                 }
+
+                // Absolute position packet is the longest one, 6 bytes
+                pipeline = new PipeSubmissionPipeline(out, UsbSubmissionPipeline.DEFAULT_WINDOW, 6, this::pipelineFailed);
+                pipeline.instrument(USB16ServoController.this, metrics);
+            }
+        }
+
+        private synchronized void dropPipe() {
+
+            if (pipeline != null) {
+
+                pipeline.close();
+                pipeline = null;
             }
+
+            out = null;
+        }
+
+        private void pipelineFailed(UsbException cause) {
+
+            deviceFailed(cause);
+
+            // Ouch! The pipe is most probably not valid anymore
+            dropPipe();
         }
 
         private synchronized void setAbsolutePosition(byte servoId, short units) throws UsbException {
 
-            ThreadContext.push("setAbsolutePosition");
+            var entered = positionContext.enter();
 
             try {
 
@@ -335,38 +371,50 @@ public class USB16ServoController extends AbstractUsbServoController {
 
                 byte[] buffer = PacketBuilder.setAbsolutePosition(servoId, units);
 
-                logger.debug("({}, {})", () -> Integer.toString(servoId), () -> units);
+                PacketEncodedEvent.emit(USB16ServoController.this, servoId, buffer.length);
 
-                var message = out.createUsbIrp();
-
-                message.setData(buffer);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("({}, {})", servoId, units);
+                }
 
                 try {
 
-                    out.syncSubmit(message);
+                    pipeline.submit(servoId, buffer, 0, buffer.length);
 
                 } catch ( UsbException usbex ) {
 
                     // Ouch! The pipe is most probably not valid anymore
 
-                    out = null;
+                    dropPipe();
                     throw usbex;
                 }
 
-                logger.debug("done");
+                logger.debug("queued");
 
             } finally {
-                ThreadContext.pop();
+                positionContext.exit(entered);
             }
         }
 
+        /**
+         * Reset the handler.
+         *
+         * The pipe may be stale if the device has been away, so it is dropped and reopened on the next write.
+         * The positions are resent by the {@link #restore(ChannelState[]) caller}.
+         */
         @Override
         public void reset() throws UsbException {
+            dropPipe();
+        }
+    }
 
-            // In case the silent mode was set, we have to resend the positions
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
 
-            //sent = false;
-            //send();
+        public Provider() {
+            super("pololu-usb16", "Pololu USB 16-Servo Controller, port name is the serial number", USB16ServoController.class, USB16ServoController::new);
         }
     }
 }
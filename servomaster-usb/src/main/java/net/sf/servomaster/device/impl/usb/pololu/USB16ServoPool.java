@@ -0,0 +1,30 @@
+package net.sf.servomaster.device.impl.usb.pololu;
+
+import net.sf.servomaster.device.impl.AbstractServoControllerProvider;
+import net.sf.servomaster.device.impl.usb.PooledUsbServoController;
+
+/**
+ * All the Pololu USB 16-Servo controllers attached, presented as one.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2026
+ */
+public class USB16ServoPool extends PooledUsbServoController {
+
+    public USB16ServoPool() {
+        super(USB16ServoController::new);
+    }
+
+    /**
+     * Makes this controller available to the {@link net.sf.servomaster.device.impl.ServoControllerRegistry registry}.
+     */
+    public static class Provider extends AbstractServoControllerProvider {
+
+        public Provider() {
+            super("pololu-usb16-pool", "All the Pololu USB 16-Servo Controllers attached, as one", USB16ServoPool.class, portName -> {
+
+                checkNoPort(portName);
+                return new USB16ServoPool();
+            });
+        }
+    }
+}
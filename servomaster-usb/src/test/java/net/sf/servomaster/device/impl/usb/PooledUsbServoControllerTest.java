@@ -0,0 +1,249 @@
+package net.sf.servomaster.device.impl.usb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import javax.usb.UsbConfiguration;
+import javax.usb.UsbDevice;
+import javax.usb.UsbDeviceDescriptor;
+import javax.usb.UsbException;
+import javax.usb.UsbHub;
+import javax.usb.UsbInterface;
+import javax.usb.UsbPort;
+import javax.usb.UsbServices;
+import javax.usb.event.UsbServicesEvent;
+
+import org.junit.Test;
+
+import net.sf.servomaster.device.impl.AbstractMeta;
+import net.sf.servomaster.device.impl.usb.AbstractUsbServoController.ConnectionState;
+import net.sf.servomaster.device.impl.usb.phidget.PhidgetServoPool;
+import net.sf.servomaster.device.model.Meta;
+import net.sf.servomaster.device.model.Servo;
+import net.sf.servomaster.device.model.ServoController;
+
+public class PooledUsbServoControllerTest {
+
+    private static final String SIGNATURE = "6c2:38";
+
+    /**
+     * Make an object implementing the interface that answers the calls from the map, with the defaults for the rest.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Map<String, Object> answers) {
+
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+
+            switch (method.getName()) {
+
+            case "hashCode":
+                return System.identityHashCode(proxy);
+
+            case "equals":
+                return proxy == args[0];
+
+            case "toString":
+                return type.getSimpleName() + answers;
+
+            default:
+                break;
+            }
+
+            if (answers.containsKey(method.getName())) {
+                return answers.get(method.getName());
+            }
+
+            var returnType = method.getReturnType();
+
+            if (returnType == boolean.class) {
+                return false;
+            }
+
+            if (returnType == byte.class) {
+                return (byte) 0;
+            }
+
+            if (returnType == short.class) {
+                return (short) 0;
+            }
+
+            return null;
+        });
+    }
+
+    private static UsbDeviceDescriptor descriptor(int vendor, int product) {
+        return fake(UsbDeviceDescriptor.class, Map.of("idVendor", (short) vendor, "idProduct", (short) product));
+    }
+
+    private final UsbHub root = fake(UsbHub.class, Map.of(
+            "isUsbHub", true,
+            "isRootUsbHub", true,
+            "getUsbDeviceDescriptor", descriptor(0x1d6b, 0x02),
+            "getAttachedUsbDevices", List.of()));
+
+    /**
+     * Serial-less board plugged into the root hub port.
+     */
+    private UsbDevice board(int port) {
+
+        var claimed = new boolean[1];
+
+        var iface = (UsbInterface) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { UsbInterface.class }, (proxy, method, args) -> {
+
+            switch (method.getName()) {
+
+            case "claim":
+
+                claimed[0] = true;
+                return null;
+
+            case "isClaimed":
+
+                return claimed[0];
+
+            default:
+
+                return method.getReturnType() == boolean.class ? false : null;
+            }
+        });
+
+        var configuration = fake(UsbConfiguration.class, Map.of("getUsbInterface", iface));
+        var parent = fake(UsbPort.class, Map.of("getPortNumber", (byte) port, "getUsbHub", root));
+
+        return fake(UsbDevice.class, Map.of(
+                "getParentUsbPort", parent,
+                "getUsbDeviceDescriptor", descriptor(0x6c2, 0x38),
+                "getActiveUsbConfiguration", configuration));
+    }
+
+    /**
+     * Minimal driver for the fake boards.
+     */
+    private static class Board extends AbstractUsbServoController {
+
+        Board(String portName, UsbDeviceIndex deviceIndex) {
+            super(portName, deviceIndex);
+        }
+
+        @Override
+        protected void fillProtocolHandlerMap() {
+            registerHandler(SIGNATURE, new Handler());
+        }
+
+        private class Handler extends UsbProtocolHandler {
+
+            @Override
+            protected Meta createMeta() {
+
+                return new AbstractMeta() {
+                    {
+                        features.put("controller/allow_disconnect", Boolean.TRUE);
+                    }
+                };
+            }
+
+            @Override
+            protected String getModelName() {
+                return "test board";
+            }
+
+            @Override
+            public void reset() {
+                // Nothing to reset
+            }
+
+            @Override
+            public int getServoCount() {
+                return 2;
+            }
+
+            @Override
+            public void setPosition(int id, double position) {
+                // Nothing to send it to
+            }
+
+            @Override
+            public void silence() {
+                // Nothing to silence
+            }
+
+            @Override
+            public Servo createServo(ServoController sc, int id) {
+
+                return new UsbServo(sc, id) {
+
+                    @Override
+                    protected Meta createMeta() {
+                        return new AbstractMeta() {};
+                    }
+                };
+            }
+        }
+    }
+
+    @Test
+    public void identicalBoardsReattach() throws IOException, UsbException {
+
+        var a = board(1);
+        var b = board(2);
+        var services = fake(UsbServices.class, Map.of("getRootUsbHub", fake(UsbHub.class, Map.of(
+                "isUsbHub", true,
+                "getUsbDeviceDescriptor", descriptor(0x1d6b, 0x02),
+                "getAttachedUsbDevices", List.of(a, b)))));
+
+        var index = new UsbDeviceIndex(services);
+        var pool = new PooledUsbServoController(serial -> new Board(serial, index));
+
+        pool.open();
+
+        try {
+
+            var first = pool.getMembers().get(0);
+            var second = pool.getMembers().get(1);
+
+            assertSame(a, first.theServoController);
+            assertSame(b, second.theServoController);
+
+            // Neither has a serial number, but both have their metrics visible
+
+            assertEquals("null@1", first.getMetricsName());
+            assertEquals("null@2", second.getMetricsName());
+            assertNotNull(second.getMetrics().getObjectName());
+
+            // The first board is unplugged, and plugged back into the same port
+
+            index.usbDeviceDetached(new UsbServicesEvent(services, a));
+
+            assertEquals(ConnectionState.DISCONNECTED, first.getConnectionState());
+            assertEquals(ConnectionState.CONNECTED, second.getConnectionState());
+
+            var back = board(1);
+
+            index.usbDeviceAttached(new UsbServicesEvent(services, back));
+
+            // The member that lost it got it back, the one that didn't lose anything kept its own
+
+            assertSame(back, first.theServoController);
+            assertEquals(ConnectionState.CONNECTED, first.getConnectionState());
+            assertEquals(1, first.getRestoreCount());
+
+            assertSame(b, second.theServoController);
+            assertEquals(ConnectionState.CONNECTED, second.getConnectionState());
+            assertEquals(0, second.getRestoreCount());
+
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolTakesNoPort() throws IOException {
+        new PhidgetServoPool.Provider().create("/dev/ttyUSB0");
+    }
+}
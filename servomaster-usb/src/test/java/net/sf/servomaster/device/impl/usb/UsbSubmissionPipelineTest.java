@@ -0,0 +1,123 @@
+package net.sf.servomaster.device.impl.usb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.usb.UsbException;
+import javax.usb.UsbIrp;
+import javax.usb.util.DefaultUsbIrp;
+
+import org.junit.Test;
+
+public class UsbSubmissionPipelineTest {
+
+    /**
+     * Pipeline that never completes anything on its own, completions are triggered by the test.
+     */
+    private static class Pipeline extends UsbSubmissionPipeline {
+
+        final List<UsbIrp> submitted = new ArrayList<>();
+        final List<Byte> written = new ArrayList<>();
+        final LinkedBlockingQueue<UsbException> failures;
+
+        int created = 0;
+
+        Pipeline(int window, LinkedBlockingQueue<UsbException> failures) {
+            super(window, 2, failures::add);
+            this.failures = failures;
+        }
+
+        @Override
+        protected UsbIrp createIrp() {
+            created++;
+            return new DefaultUsbIrp();
+        }
+
+        @Override
+        protected void doSubmit(UsbIrp irp) {
+            submitted.add(irp);
+            written.add(irp.getData()[irp.getOffset()]);
+        }
+
+        @Override
+        protected void doClose() {
+            // Nothing to release
+        }
+
+        void completeNext(UsbException error) {
+            completed(submitted.remove(0), error);
+        }
+    }
+
+    @Test
+    public void coalesce() throws UsbException, InterruptedException {
+
+        var pipeline = new Pipeline(2, new LinkedBlockingQueue<>());
+
+        // The first two go straight to the wire, the rest wait
+
+        for (byte position = 0; position < 10; position++) {
+            pipeline.submit("a", new byte[] { position }, 0, 1);
+            pipeline.submit("b", new byte[] { (byte) (position + 100) }, 0, 1);
+        }
+
+        assertEquals(2, pipeline.getInFlight());
+        assertEquals(List.of((byte) 0, (byte) 100), pipeline.written);
+        assertEquals(20, pipeline.getSubmittedCount());
+        assertEquals(16, pipeline.getCoalescedCount());
+
+        // Only the latest queued positions get sent
+
+        pipeline.completeNext(null);
+        pipeline.completeNext(null);
+        pipeline.completeNext(null);
+        pipeline.completeNext(null);
+
+        assertEquals(List.of((byte) 0, (byte) 100, (byte) 9, (byte) 109), pipeline.written);
+        assertEquals(4, pipeline.getCompletedCount());
+        assertTrue(pipeline.drain(0));
+
+        // IRPs are reused
+
+        assertEquals(2, pipeline.created);
+    }
+
+    @Test
+    public void failure() throws UsbException, InterruptedException {
+
+        var failures = new LinkedBlockingQueue<UsbException>();
+        var pipeline = new Pipeline(1, failures);
+
+        pipeline.submit(1, new byte[] { 1 }, 0, 1);
+        pipeline.submit(2, new byte[] { 2 }, 0, 1);
+
+        pipeline.completeNext(new UsbException("gone"));
+
+        var cause = failures.poll(1, TimeUnit.SECONDS);
+
+        assertNotNull("failure not reported", cause);
+        assertEquals("gone", cause.getMessage());
+
+        // The queued write is discarded, not submitted
+        assertEquals(List.of((byte) 1), pipeline.written);
+
+        try {
+
+            pipeline.submit(3, new byte[] { 3 }, 0, 1);
+            fail("should've been rejected");
+
+        } catch (UsbException ex) {
+            assertTrue(ex.getMessage().startsWith("Pipeline failed"));
+        }
+
+        // Reported once only
+        assertEquals(0, failures.size());
+    }
+}
@@ -0,0 +1,33 @@
+package net.sf.servomaster.device.impl.usb.phidget.firmware;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class Servo8Test {
+
+    @Test
+    public void image() throws IOException, NoSuchAlgorithmException {
+
+        var code = new Servo8().get();
+
+        assertEquals(7343, code.length);
+        assertArrayEquals(new byte[] { (byte) 0xac, (byte) 0x1c, (byte) 0x97, (byte) 0x02 }, Arrays.copyOf(code, 4));
+
+        var digest = new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(code)).toString(16);
+
+        // Digest of the image as it was originally embedded in the source
+        assertEquals("7b9e7a88db46cc1847a75f6358f5167455784e266267e61c27ca2e69fa09b12", digest);
+
+        // Loaded once
+        assertSame(code, new Servo8().get());
+    }
+}